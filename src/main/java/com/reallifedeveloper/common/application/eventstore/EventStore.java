@@ -2,8 +2,18 @@ package com.reallifedeveloper.common.application.eventstore;
 
 import static com.reallifedeveloper.common.domain.LogUtil.removeCRLF;
 
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -15,29 +25,161 @@ import com.reallifedeveloper.common.domain.event.DomainEvent;
 
 /**
  * An {@code EventStore} saves {@link DomainEvent DomainEvents} in a database as {@link StoredEvent StoredEvents}.
+ * <p>
+ * Reads of {@code StoredEvents} by ID are bounded: {@link #allEventsSince(long)} and {@link #allEventsBetween(long, long)} never give
+ * more than {@link #maxResults()} events, so a large ID range cannot pull an arbitrary number of rows into memory. To read the remaining
+ * events, call the method again using the ID of the last {@code StoredEvent} returned as a continuation.
+ * <p>
+ * If the {@code EventStore} is given a {@link StoredEventArchive}, old events can be moved from the repository to the archive using
+ * {@link #archiveEventsBefore(ZonedDateTime)}, keeping the repository small. Reads by ID transparently combine events from the archive and
+ * from the repository, so clients of the {@code EventStore} do not need to know where an event is kept. In a shared repository, an event
+ * may be committed after events with greater IDs, so only events with IDs that were seen at least {@code archiveGapWait} ago are archived,
+ * and an event that is committed even later is kept in the repository instead of being archived. Since archived events are deleted
+ * from the repository, every process that uses the repository must also be able to read the archive: an archive that is local to one
+ * process, see {@link StoredEventArchive#isShared()}, can only be used with a repository that is local to the same process, see
+ * {@link StoredEventRepository#isShared()}, which the constructor checks.
+ * <p>
+ * A {@code DomainEvent} with a {@link DomainEvent#eventStreamKey() stream key} is stored with the next sequence number of its stream, so
+ * the events of one stream, e.g., one aggregate, can be read in order using {@link #streamEventsSince(String, long)} without reading the
+ * events of other streams. If two writers add events to the same stream concurrently, the repository rejects one of them, since the
+ * combination of stream key and sequence number is unique.
  *
  * @author RealLifeDeveloper
  */
 public final class EventStore {
 
+    /**
+     * The maximum number of {@code StoredEvents} returned by a single read if no other value is given to the constructor.
+     */
+    public static final int DEFAULT_MAX_RESULTS = 1000;
+
+    /**
+     * How long to wait before archiving events from a shared repository if no other value is given to the constructor, see
+     * {@link #archiveEventsBefore(ZonedDateTime)}.
+     */
+    public static final Duration DEFAULT_ARCHIVE_GAP_WAIT = Duration.ofMinutes(1);
+
     private static final Logger LOG = LoggerFactory.getLogger(EventStore.class);
 
     private final ObjectSerializer<String> serializer;
 
     private final StoredEventRepository repository;
 
+    private final int maxResults;
+
+    private final @Nullable StoredEventArchive archive;
+
+    private final long archiveGapWaitNanos;
+
+    private final LongSupplier nanoClock;
+
+    /**
+     * The most recently saved IDs seen by {@link #archiveEventsBefore(ZonedDateTime)} less than {@code archiveGapWait} ago, oldest first.
+     */
+    private final Deque<Observation> archiveObservations = new ArrayDeque<>();
+
+    /**
+     * The greatest ID seen by {@link #archiveEventsBefore(ZonedDateTime)} at least {@code archiveGapWait} ago.
+     */
+    private long settledStoredEventId;
+
     /**
-     * Creates a new {@code EventStore} with the given serializer and repository.
+     * Creates a new {@code EventStore} with the given serializer and repository, reading at most {@link #DEFAULT_MAX_RESULTS}
+     * {@code StoredEvents} at a time.
      *
      * @param serializer the {@code DomainEventSerializer} to use to serialize and deserialize {@code DomainEvents}
      * @param repository the {@code StoredEventRepository} to use to work with persisted {@code StoredEvents}
      */
-    @SuppressFBWarnings(value = "CRLF_INJECTION_LOGS", justification = "Logging only of objects, not user data")
     public EventStore(ObjectSerializer<String> serializer, StoredEventRepository repository) {
+        this(serializer, repository, DEFAULT_MAX_RESULTS);
+    }
+
+    /**
+     * Creates a new {@code EventStore} with the given serializer and repository, reading at most {@code maxResults}
+     * {@code StoredEvents} at a time.
+     *
+     * @param serializer the {@code DomainEventSerializer} to use to serialize and deserialize {@code DomainEvents}
+     * @param repository the {@code StoredEventRepository} to use to work with persisted {@code StoredEvents}
+     * @param maxResults the maximum number of {@code StoredEvents} returned by {@link #allEventsSince(long)} and
+     *                   {@link #allEventsBetween(long, long)}
+     * @throws IllegalArgumentException if {@code serializer} or {@code repository} is {@code null}, or if {@code maxResults} is not
+     *                                  positive
+     */
+    public EventStore(ObjectSerializer<String> serializer, StoredEventRepository repository, int maxResults) {
+        this(serializer, repository, maxResults, null);
+    }
+
+    /**
+     * Creates a new {@code EventStore} with the given serializer, repository and archive, reading at most {@code maxResults}
+     * {@code StoredEvents} at a time and waiting {@link #DEFAULT_ARCHIVE_GAP_WAIT} before archiving events from a shared repository.
+     *
+     * @param serializer the {@code DomainEventSerializer} to use to serialize and deserialize {@code DomainEvents}
+     * @param repository the {@code StoredEventRepository} to use to work with persisted {@code StoredEvents}
+     * @param maxResults the maximum number of {@code StoredEvents} returned by {@link #allEventsSince(long)} and
+     *                   {@link #allEventsBetween(long, long)}
+     * @param archive    the {@code StoredEventArchive} to move old {@code StoredEvents} to, or {@code null} if all events should be kept in
+     *                   the repository
+     * @throws IllegalArgumentException if {@code serializer} or {@code repository} is {@code null}, if {@code maxResults} is not
+     *                                  positive, or if {@code repository} is shared by several processes but {@code archive} is not
+     */
+    public EventStore(ObjectSerializer<String> serializer, StoredEventRepository repository, int maxResults,
+            @Nullable StoredEventArchive archive) {
+        this(serializer, repository, maxResults, archive, DEFAULT_ARCHIVE_GAP_WAIT);
+    }
+
+    /**
+     * Creates a new {@code EventStore} with the given serializer, repository and archive, reading at most {@code maxResults}
+     * {@code StoredEvents} at a time.
+     *
+     * @param serializer     the {@code DomainEventSerializer} to use to serialize and deserialize {@code DomainEvents}
+     * @param repository     the {@code StoredEventRepository} to use to work with persisted {@code StoredEvents}
+     * @param maxResults     the maximum number of {@code StoredEvents} returned by {@link #allEventsSince(long)} and
+     *                       {@link #allEventsBetween(long, long)}
+     * @param archive        the {@code StoredEventArchive} to move old {@code StoredEvents} to, or {@code null} if all events should be
+     *                       kept in the repository
+     * @param archiveGapWait how long a transaction that saves events in a shared repository may take to commit, so that events are only
+     *                       archived once all events with lower IDs have been committed, see {@link #archiveEventsBefore(ZonedDateTime)}
+     * @throws IllegalArgumentException if {@code serializer}, {@code repository} or {@code archiveGapWait} is {@code null}, if
+     *                                  {@code maxResults} is not positive, if {@code archiveGapWait} is negative, or if
+     *                                  {@code repository} is shared by several processes but {@code archive} is not
+     */
+    public EventStore(ObjectSerializer<String> serializer, StoredEventRepository repository, int maxResults,
+            @Nullable StoredEventArchive archive, Duration archiveGapWait) {
+        this(serializer, repository, maxResults, archive, archiveGapWait, System::nanoTime);
+    }
+
+    /**
+     * Creates a new {@code EventStore} that uses the given clock to decide when events in a shared repository can be archived, which is
+     * mainly useful for testing.
+     */
+    @SuppressFBWarnings(value = "CRLF_INJECTION_LOGS", justification = "Logging only of objects, not user data")
+    EventStore(ObjectSerializer<String> serializer, StoredEventRepository repository, int maxResults, @Nullable StoredEventArchive archive,
+            Duration archiveGapWait, LongSupplier nanoClock) {
         ErrorHandling.checkNull("Arguments must not be null: serializer=%s, repository=%s", serializer, repository);
-        LOG.info("Creating new EventStore: serializer={}, repository={}", serializer, repository);
+        ErrorHandling.checkNull("Arguments must not be null: archiveGapWait=%s, nanoClock=%s", archiveGapWait, nanoClock);
+        if (maxResults <= 0) {
+            throw new IllegalArgumentException("maxResults must be positive: " + maxResults);
+        }
+        if (archiveGapWait.isNegative()) {
+            throw new IllegalArgumentException("archiveGapWait must not be negative: " + archiveGapWait);
+        }
+        if (archive != null && repository.isShared() && !archive.isShared()) {
+            throw new IllegalArgumentException("A StoredEventArchive that is local to one process cannot be used with a shared "
+                    + "StoredEventRepository, since other processes would not find the archived events: repository=" + repository
+                    + ", archive=" + archive);
+        }
+        if (archive == null) {
+            LOG.info("Creating new EventStore: serializer={}, repository={}, maxResults={}", serializer, repository, maxResults);
+        } else {
+            LOG.info("Creating new EventStore: serializer={}, repository={}, maxResults={}, archive={}, archiveGapWait={}", serializer,
+                    repository, maxResults, archive, archiveGapWait);
+        }
         this.serializer = serializer;
         this.repository = repository;
+        this.maxResults = maxResults;
+        this.archive = archive;
+        this.archiveGapWaitNanos = archiveGapWait.toNanos();
+        this.nanoClock = nanoClock;
     }
 
     /**
@@ -51,35 +193,319 @@ public final class EventStore {
             LOG.trace("add: event={}", removeCRLF(event));
         }
         ErrorHandling.checkNull("event must not be null", event);
+        return repository.save(toStoredEvent(event, new HashMap<>()));
+    }
+
+    /**
+     * Adds new {@link StoredEvent StoredEvents} representing the given {@link DomainEvent DomainEvents} to the event store, saving them
+     * all with a single call to the repository.
+     * <p>
+     * Depending on the repository implementation, this may allow the events to be inserted using fewer round trips to the database than
+     * calling {@link #add(DomainEvent)} for each event.
+     *
+     * @param events the {@code DomainEvents} to add
+     * @return the saved {@code StoredEvents} representing {@code events}, in the same order as {@code events}
+     * @throws IllegalArgumentException if {@code events} or any of the events is {@code null}
+     */
+    public List<StoredEvent> addAll(List<? extends DomainEvent> events) {
+        if (LOG.isTraceEnabled()) {
+            LOG.trace("addAll: events={}", removeCRLF(events));
+        }
+        ErrorHandling.checkNull("events must not be null", events);
+        List<StoredEvent> storedEvents = new ArrayList<>(events.size());
+        Map<String, Long> lastStreamSequences = new HashMap<>();
+        for (DomainEvent event : events) {
+            ErrorHandling.checkNull("events must not contain null elements", event);
+            storedEvents.add(toStoredEvent(event, lastStreamSequences));
+        }
+        return repository.saveAll(storedEvents);
+    }
+
+    private StoredEvent toStoredEvent(DomainEvent event, Map<String, Long> lastStreamSequences) {
         String serializedEvent = serializer.serialize(event);
-        StoredEvent storedEvent = new StoredEvent(event.getClass().getName(), serializedEvent, event.eventOccurredOn(),
-                event.eventVersion());
-        return repository.save(storedEvent);
+        String streamKey = event.eventStreamKey();
+        if (streamKey == null) {
+            return new StoredEvent(event.getClass().getName(), serializedEvent, event.eventOccurredOn(), event.eventVersion());
+        }
+        long streamSequence = lastStreamSequences.computeIfAbsent(streamKey, key -> repository.lastStreamSequence(key).orElse(0L)) + 1;
+        lastStreamSequences.put(streamKey, streamSequence);
+        return new StoredEvent(event.getClass().getName(), serializedEvent, event.eventOccurredOn(), event.eventVersion(), streamKey,
+                streamSequence);
     }
 
     /**
-     * Gives all {@code StoredEvents} with IDs greater than {@code storedEventId}, i.e., all events that occurred after the event with the
-     * given ID.
+     * Gives the {@code StoredEvents} with IDs greater than {@code storedEventId}, i.e., the events that occurred after the event with the
+     * given ID, ordered by ID.
+     * <p>
+     * At most {@link #maxResults()} events are returned. If that many events are returned, there may be more events, which can be read by
+     * calling this method again with the ID of the last {@code StoredEvent} returned.
      *
-     * @param storedEventId return all events with IDs greater than this
-     * @return a list of {@code StoredEvents} with IDs greater than or equal to {@code firstStoredEventId}
+     * @param storedEventId return events with IDs greater than this
+     * @return a list of at most {@link #maxResults()} {@code StoredEvents} with IDs greater than {@code storedEventId}
      */
     public List<StoredEvent> allEventsSince(long storedEventId) {
         LOG.trace("allEventsSince: storedEventId={}", storedEventId);
-        return repository.allEventsSince(storedEventId);
+        return readEvents(storedEventId, Long.MAX_VALUE);
     }
 
     /**
-     * Gives all {@code StoredEvents} with IDs greater than or equal to {@code firstStoredEventId} and less than or equals to
-     * {@code lastStoredEventId}, i.e., all events that occurred between the events with the given IDs, inclusive.
+     * Gives the {@code StoredEvents} with IDs greater than or equal to {@code firstStoredEventId} and less than or equals to
+     * {@code lastStoredEventId}, i.e., the events that occurred between the events with the given IDs, inclusive, ordered by ID.
+     * <p>
+     * At most {@link #maxResults()} events are returned. If that many events are returned, there may be more events in the range, which
+     * can be read by calling this method again with the ID of the last {@code StoredEvent} returned plus one as
+     * {@code firstStoredEventId}.
      *
      * @param firstStoredEventId ID of the first {@code StoredEvent} to retrieve
      * @param lastStoredEventId  ID of the last {@code StoredEvent} to retrieve
-     * @return a list of all {@code StoredEvents} with IDs between {@code firstStoredEventId} and {@code lastStoredEventId}, inclusive
+     * @return a list of at most {@link #maxResults()} {@code StoredEvents} with IDs between {@code firstStoredEventId} and
+     *         {@code lastStoredEventId}, inclusive
      */
     public List<StoredEvent> allEventsBetween(long firstStoredEventId, long lastStoredEventId) {
         LOG.trace("allEventsBetween: firstStoredEventId={}, lastStoredEventId={}", firstStoredEventId, lastStoredEventId);
-        return repository.allEventsBetween(firstStoredEventId, lastStoredEventId);
+        if (firstStoredEventId > lastStoredEventId) {
+            return List.of();
+        }
+        long afterStoredEventId = firstStoredEventId == Long.MIN_VALUE ? Long.MIN_VALUE : firstStoredEventId - 1;
+        return readEvents(afterStoredEventId, lastStoredEventId);
+    }
+
+    private List<StoredEvent> readEvents(long afterStoredEventId, long lastStoredEventId) {
+        // The repository is read before the archive: since events are archived before they are deleted, an event that is no longer in
+        // the repository when it is read is found in the archive. Events up to the last archived ID may also be found in the repository,
+        // if they have not been deleted yet or if they were committed after events with greater IDs were archived, so merge by ID.
+        List<StoredEvent> storedEvents = repository.eventsAfter(afterStoredEventId, lastStoredEventId, maxResults);
+        long lastArchivedId = lastArchivedStoredEventId();
+        if (archive == null || afterStoredEventId >= lastArchivedId) {
+            return storedEvents;
+        }
+        List<StoredEvent> archivedEvents = archive.eventsAfter(afterStoredEventId, Math.min(lastStoredEventId, lastArchivedId), maxResults);
+        return merge(archivedEvents, storedEvents);
+    }
+
+    /**
+     * Merges two lists of {@code StoredEvents} ordered by ID into one list ordered by ID, without duplicates, of at most
+     * {@link #maxResults()} events.
+     */
+    private List<StoredEvent> merge(List<StoredEvent> first, List<StoredEvent> second) {
+        List<StoredEvent> merged = new ArrayList<>(Math.min(maxResults, first.size() + second.size()));
+        int i = 0;
+        int j = 0;
+        while (merged.size() < maxResults && (i < first.size() || j < second.size())) {
+            if (j == second.size() || (i < first.size() && first.get(i).id() < second.get(j).id())) {
+                merged.add(first.get(i++));
+            } else {
+                if (i < first.size() && first.get(i).id().equals(second.get(j).id())) {
+                    i++;
+                }
+                merged.add(second.get(j++));
+            }
+        }
+        return merged;
+    }
+
+    private long lastArchivedStoredEventId() {
+        return archive == null ? 0L : archive.lastArchivedStoredEventId().orElse(0L);
+    }
+
+    /**
+     * Moves the {@code StoredEvents} that occurred before {@code threshold} from the repository to the archive given to the constructor.
+     * <p>
+     * Events are moved in ID order, {@link #maxResults()} at a time, stopping at the first event that did not occur before
+     * {@code threshold}. Each batch is first stored in the archive and then exactly the events of the batch are deleted from the
+     * repository, so an event is never lost: if this method is interrupted, the events that have been archived but not deleted are
+     * deleted the next time it is called, and until then they are read from the archive and the repository as one.
+     * <p>
+     * The most recently added event is always kept in the repository, since some repositories base the ID of a new event on the ID of the
+     * last event. If the repository is shared, an event may be committed after events with greater IDs, e.g., when IDs are generated by
+     * the database, so only events with IDs up to the greatest ID seen by a call to this method at least {@code archiveGapWait} ago are
+     * archived. This means that the first call archives nothing, unless {@code archiveGapWait} is zero. An event that is committed even
+     * later than that is not archived, but kept in the repository, where it is still found by reads by ID.
+     * <p>
+     * Note that {@link #eventsOfTypesBetween(Collection, ZonedDateTime, ZonedDateTime, long, int)} and
+     * {@link #streamEventsSince(String, long)} only find events in the repository. Also, the sequence number of a new event in a stream
+     * is based on the events of the stream in the repository, so only archive events of streams that are no longer added to.
+     * <p>
+     * Only one process at a time may archive events from a repository. If several processes share the repository and the archive, make
+     * sure that only one of them calls this method, e.g., using a scheduled task that runs on a single node.
+     *
+     * @param threshold move events that occurred before this
+     * @return the number of {@code StoredEvents} moved to the archive
+     * @throws IllegalArgumentException if {@code threshold} is {@code null}
+     * @throws IllegalStateException    if this {@code EventStore} has no archive
+     */
+    public int archiveEventsBefore(ZonedDateTime threshold) {
+        LOG.trace("archiveEventsBefore: threshold={}", threshold);
+        ErrorHandling.checkNull("threshold must not be null", threshold);
+        if (archive == null) {
+            throw new IllegalStateException("This EventStore has no StoredEventArchive");
+        }
+        long thresholdEpochMillis = threshold.toInstant().toEpochMilli();
+        long lastArchivedId = lastArchivedStoredEventId();
+        if (lastArchivedId > 0) {
+            deleteArchivedEvents(archive, lastArchivedId);
+        }
+        long lastStoredEventId = repository.lastStoredEventId().orElse(0L);
+        long lastArchivableId = Math.min(lastStoredEventId - 1, settledStoredEventId(lastStoredEventId));
+        int numArchived = 0;
+        while (true) {
+            List<StoredEvent> storedEvents = repository.eventsAfter(lastArchivedId, lastArchivableId, maxResults);
+            int numOldEvents = 0;
+            while (numOldEvents < storedEvents.size() && storedEvents.get(numOldEvents).occurredOnEpochMillis() < thresholdEpochMillis) {
+                numOldEvents++;
+            }
+            if (numOldEvents > 0) {
+                List<StoredEvent> oldEvents = storedEvents.subList(0, numOldEvents);
+                archive.archive(oldEvents);
+                repository.deleteEvents(oldEvents.stream().map(StoredEvent::id).toList());
+                lastArchivedId = oldEvents.get(numOldEvents - 1).id();
+                numArchived += numOldEvents;
+            }
+            if (numOldEvents < maxResults) {
+                LOG.debug("Archived stored events: numArchived={}, lastArchivedId={}", numArchived, lastArchivedId);
+                return numArchived;
+            }
+        }
+    }
+
+    /**
+     * Deletes the events in the repository with IDs up to {@code lastArchivedId} that are also in the archive, i.e., events that were
+     * archived by a call to {@link #archiveEventsBefore(ZonedDateTime)} that was interrupted before deleting them. Other events with such
+     * IDs were committed after events with greater IDs had been archived, and are kept.
+     */
+    private void deleteArchivedEvents(StoredEventArchive storedEventArchive, long lastArchivedId) {
+        long afterStoredEventId = 0;
+        while (true) {
+            List<StoredEvent> storedEvents = repository.eventsAfter(afterStoredEventId, lastArchivedId, maxResults);
+            if (storedEvents.isEmpty()) {
+                return;
+            }
+            List<Long> archivedIds = new ArrayList<>();
+            long lastId = storedEvents.get(storedEvents.size() - 1).id();
+            int i = 0;
+            while (i < storedEvents.size()) {
+                // Start each read of the archive at the next event in the repository, skipping archived events in between.
+                List<StoredEvent> archivedEvents = storedEventArchive.eventsAfter(storedEvents.get(i).id() - 1, lastId, maxResults);
+                for (StoredEvent archivedEvent : archivedEvents) {
+                    while (i < storedEvents.size() && storedEvents.get(i).id() < archivedEvent.id()) {
+                        i++;
+                    }
+                    if (i < storedEvents.size() && storedEvents.get(i).id().equals(archivedEvent.id())) {
+                        archivedIds.add(archivedEvent.id());
+                        i++;
+                    }
+                }
+                if (archivedEvents.size() < maxResults) {
+                    break;
+                }
+            }
+            if (!archivedIds.isEmpty()) {
+                LOG.debug("Deleting stored events that were archived earlier: numEvents={}", archivedIds.size());
+                repository.deleteEvents(archivedIds);
+            }
+            if (storedEvents.size() < maxResults) {
+                return;
+            }
+            afterStoredEventId = lastId;
+        }
+    }
+
+    /**
+     * Records that {@code lastStoredEventId} was the ID of the most recently saved event now, and gives the greatest ID that was recorded
+     * at least {@code archiveGapWait} ago. For a repository that is not shared, events are committed in ID order, so
+     * {@code lastStoredEventId} is given.
+     */
+    private long settledStoredEventId(long lastStoredEventId) {
+        if (!repository.isShared()) {
+            return lastStoredEventId;
+        }
+        synchronized (archiveObservations) {
+            long now = nanoClock.getAsLong();
+            if (archiveObservations.isEmpty() || archiveObservations.peekLast().lastStoredEventId() < lastStoredEventId) {
+                archiveObservations.addLast(new Observation(lastStoredEventId, now));
+            }
+            while (!archiveObservations.isEmpty() && now - archiveObservations.peekFirst().observedNanos() >= archiveGapWaitNanos) {
+                settledStoredEventId = Math.max(settledStoredEventId, archiveObservations.removeFirst().lastStoredEventId());
+            }
+            return settledStoredEventId;
+        }
+    }
+
+    /**
+     * Gives the {@code StoredEvents} in the stream with the given key, with stream sequence numbers greater than
+     * {@code afterStreamSequence}, ordered by stream sequence number.
+     * <p>
+     * At most {@link #maxResults()} events are returned. If that many events are returned, there may be more events in the stream, which
+     * can be read by calling this method again with the stream sequence number of the last {@code StoredEvent} returned. Only events in
+     * the repository are read, not events that have been moved to the archive.
+     *
+     * @param streamKey           the key of the stream to read
+     * @param afterStreamSequence return events with stream sequence numbers greater than this
+     * @return a list of at most {@link #maxResults()} {@code StoredEvents} in the stream
+     * @throws IllegalArgumentException if {@code streamKey} is {@code null}
+     */
+    public List<StoredEvent> streamEventsSince(String streamKey, long afterStreamSequence) {
+        if (LOG.isTraceEnabled()) {
+            LOG.trace("streamEventsSince: streamKey={}, afterStreamSequence={}", removeCRLF(streamKey), afterStreamSequence);
+        }
+        ErrorHandling.checkNull("streamKey must not be null", streamKey);
+        return repository.streamEventsAfter(streamKey, afterStreamSequence, maxResults);
+    }
+
+    /**
+     * Gives the sequence number of the most recently added {@code StoredEvent} in the stream with the given key.
+     *
+     * @param streamKey the key of the stream
+     * @return the sequence number of the most recently added {@code StoredEvent} in the stream, or {@code 0} if the stream is empty
+     * @throws IllegalArgumentException if {@code streamKey} is {@code null}
+     */
+    public long lastStreamSequence(String streamKey) {
+        ErrorHandling.checkNull("streamKey must not be null", streamKey);
+        return repository.lastStreamSequence(streamKey).orElse(0L);
+    }
+
+    /**
+     * Gives the maximum number of {@code StoredEvents} returned by {@link #allEventsSince(long)} and {@link #allEventsBetween(long, long)}.
+     *
+     * @return the maximum number of {@code StoredEvents} returned by a single read
+     */
+    public int maxResults() {
+        return maxResults;
+    }
+
+    /**
+     * Gives at most {@code maxResults} {@code StoredEvents} with one of the given event types that occurred in a given time range, and
+     * with IDs greater than {@code afterStoredEventId}, ordered by ID.
+     * <p>
+     * This is useful, e.g., when rebuilding a projection that only cares about some types of events. The query is backed by database
+     * indexes on the event type and time, and uses keyset pagination: to get the first page, use {@code 0} as
+     * {@code afterStoredEventId}, and to get the next page, use the ID of the last {@code StoredEvent} of the previous page. If fewer than
+     * {@code maxResults} events are returned, there are no more pages.
+     *
+     * @param eventTypes         the class names of the domain events to find, as given by {@code event.getClass().getName()}
+     * @param from               the start of the time range, inclusive
+     * @param to                 the end of the time range, exclusive
+     * @param afterStoredEventId return events with IDs greater than this
+     * @param maxResults         the maximum number of events to return
+     * @return a list of at most {@code maxResults} matching {@code StoredEvents}, ordered by ID
+     * @throws IllegalArgumentException if {@code eventTypes}, {@code from} or {@code to} is {@code null}, if {@code eventTypes} is
+     *                                  empty, or if {@code maxResults} is not positive
+     */
+    public List<StoredEvent> eventsOfTypesBetween(Collection<String> eventTypes, ZonedDateTime from, ZonedDateTime to,
+            long afterStoredEventId, int maxResults) {
+        if (LOG.isTraceEnabled()) {
+            LOG.trace("eventsOfTypesBetween: eventTypes={}, from={}, to={}, afterStoredEventId={}, maxResults={}", removeCRLF(eventTypes),
+                    from, to, afterStoredEventId, maxResults);
+        }
+        ErrorHandling.checkNull("Arguments must not be null: eventTypes=%s, from=%s, to=%s", eventTypes, from, to);
+        if (eventTypes.isEmpty()) {
+            throw new IllegalArgumentException("eventTypes must not be empty");
+        }
+        if (maxResults <= 0) {
+            throw new IllegalArgumentException("maxResults must be positive: " + maxResults);
+        }
+        return repository.eventsOfTypesBetween(eventTypes, from.toInstant().toEpochMilli(), to.toInstant().toEpochMilli(),
+                afterStoredEventId, maxResults);
     }
 
     /**
@@ -112,10 +538,16 @@ public final class EventStore {
     /**
      * Gives the ID of the most recently added {@code StoredEvents}.
      *
-     * @return the ID of the most recently added {@code StoredEvent}
+     * @return the ID of the most recently added {@code StoredEvent}, in the repository or in the archive
      */
     public long lastStoredEventId() {
         LOG.trace("lastStoredEventId");
-        return repository.lastStoredEventId().orElse(0L);
+        return Math.max(repository.lastStoredEventId().orElse(0L), lastArchivedStoredEventId());
+    }
+
+    /**
+     * The ID of the most recently saved event, and when it was seen by {@link #archiveEventsBefore(ZonedDateTime)}.
+     */
+    private record Observation(long lastStoredEventId, long observedNanos) {
     }
 }
@@ -9,17 +9,31 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 
 import com.reallifedeveloper.common.domain.ErrorHandling;
 
 /**
  * A representation of a {@link com.reallifedeveloper.common.domain.event.DomainEvent} that can be stored in a database.
+ * <p>
+ * Besides the date and time the event occurred, the number of milliseconds since the epoch is also stored, as a plain {@code BIGINT}
+ * column. This makes it cheap to compare, index and query events by time.
+ * <p>
+ * A {@code StoredEvent} may also belong to a stream, e.g., all events for one aggregate or one tenant. Such an event has a stream key and
+ * a stream sequence number, which starts at 1 and is incremented for each event in the stream. The combination of stream key and
+ * sequence number is unique, so the events of a stream can be read in order without reading the events of other streams, and two writers
+ * adding the same sequence number to a stream cannot both succeed. Events that do not belong to a stream have neither a stream key nor a
+ * stream sequence number.
  *
  * @author RealLifeDeveloper
  */
 @Entity
-@Table(name = "stored_event")
+@Table(name = "stored_event", indexes = {
+        @Index(name = "ix_stored_event_type_occurred_on", columnList = "event_type, occurred_on_millis"),
+        @Index(name = "ix_stored_event_occurred_on", columnList = "occurred_on_millis") }, uniqueConstraints = {
+                @UniqueConstraint(name = "uk_stored_event_stream", columnNames = { "stream_key", "stream_sequence" }) })
 public class StoredEvent {
 
     private static final int MAX_EVENT_BODY_LENGTH = 8000;
@@ -38,9 +52,18 @@ public class StoredEvent {
     @Column(name = "occurred_on", nullable = false)
     private ZonedDateTime occurredOn;
 
+    @Column(name = "occurred_on_millis", nullable = false)
+    private Long occurredOnEpochMillis;
+
     @Column(name = "version", nullable = false)
     private Integer version;
 
+    @Column(name = "stream_key")
+    private @Nullable String streamKey;
+
+    @Column(name = "stream_sequence")
+    private @Nullable Long streamSequence;
+
     /**
      * Creates a new {@code StoredEvent} with the given attributes.
      *
@@ -52,14 +75,94 @@ public class StoredEvent {
      * @throws IllegalArgumentException if any argument is {@code null}
      */
     public StoredEvent(String eventType, String eventBody, ZonedDateTime occurredOn, int version) {
-        ErrorHandling.checkNull("Arguments must not be null: eventType=%s, eventBody=%s, occurredOn=%s, version=" + version, eventType,
-                eventBody, occurredOn);
+        if (eventType == null || eventBody == null || occurredOn == null) {
+            throw new IllegalArgumentException("Arguments must not be null: eventType=" + eventType + ", eventBody=" + eventBody
+                    + ", occurredOn=" + occurredOn + ", version=" + version);
+        }
         this.eventType = eventType;
         this.eventBody = eventBody;
         this.occurredOn = occurredOn;
+        this.occurredOnEpochMillis = occurredOn.toInstant().toEpochMilli();
         this.version = version;
     }
 
+    /**
+     * Creates a new {@code StoredEvent} that belongs to a stream, with the given attributes.
+     *
+     * @param eventType      the class name of the domain event, as given by {@code event.getClass().getName()}
+     * @param eventBody      a string representation of the domain event
+     * @param occurredOn     the date and time the domain event occurred
+     * @param version        the version of the domain event
+     * @param streamKey      the key of the stream the event belongs to, e.g., an aggregate ID
+     * @param streamSequence the sequence number of the event in the stream, starting at 1
+     *
+     * @throws IllegalArgumentException if any argument is {@code null}, or if {@code streamSequence} is not positive
+     */
+    public StoredEvent(String eventType, String eventBody, ZonedDateTime occurredOn, int version, String streamKey, long streamSequence) {
+        this(eventType, eventBody, occurredOn, version);
+        ErrorHandling.checkNull("streamKey must not be null", streamKey);
+        if (streamSequence <= 0) {
+            throw new IllegalArgumentException("streamSequence must be positive: " + streamSequence);
+        }
+        this.streamKey = streamKey;
+        this.streamSequence = streamSequence;
+    }
+
+    /**
+     * Creates a new {@code StoredEvent} with the given attributes, including the ID.
+     * <p>
+     * This constructor is meant for repositories that read {@code StoredEvents} without having them managed by the persistence provider,
+     * e.g., using a JPQL constructor expression. A {@code StoredEvent} created this way is a detached copy of an event that has already
+     * been stored.
+     *
+     * @param id         the ID of the {@code StoredEvent}
+     * @param eventType  the class name of the domain event, as given by {@code event.getClass().getName()}
+     * @param eventBody  a string representation of the domain event
+     * @param occurredOn the date and time the domain event occurred
+     * @param version    the version of the domain event
+     *
+     * @throws IllegalArgumentException if any argument is {@code null}
+     */
+    public StoredEvent(Long id, String eventType, String eventBody, ZonedDateTime occurredOn, Integer version) {
+        this(id, eventType, eventBody, occurredOn, version, null, null);
+    }
+
+    /**
+     * Creates a new {@code StoredEvent} with the given attributes, including the ID and the optional stream key and sequence number.
+     * <p>
+     * Like {@link #StoredEvent(Long, String, String, ZonedDateTime, Integer)}, this constructor is meant for repositories that create
+     * detached copies of events that have already been stored.
+     *
+     * @param id             the ID of the {@code StoredEvent}
+     * @param eventType      the class name of the domain event, as given by {@code event.getClass().getName()}
+     * @param eventBody      a string representation of the domain event
+     * @param occurredOn     the date and time the domain event occurred
+     * @param version        the version of the domain event
+     * @param streamKey      the key of the stream the event belongs to, or {@code null} if it does not belong to a stream
+     * @param streamSequence the sequence number of the event in the stream, or {@code null} if it does not belong to a stream
+     *
+     * @throws IllegalArgumentException if any of the required arguments is {@code null}, or if only one of {@code streamKey} and
+     *                                  {@code streamSequence} is {@code null}
+     */
+    public StoredEvent(Long id, String eventType, String eventBody, ZonedDateTime occurredOn, Integer version, @Nullable String streamKey,
+            @Nullable Long streamSequence) {
+        ErrorHandling.checkNull("Arguments must not be null: id=%s, version=%s", id, version);
+        ErrorHandling.checkNull("Arguments must not be null: eventType=%s, eventBody=%s, occurredOn=%s", eventType, eventBody, occurredOn);
+        if ((streamKey == null) != (streamSequence == null)) {
+            throw new IllegalArgumentException(
+                    "streamKey and streamSequence must both be null or both be non-null: streamKey=" + streamKey + ", streamSequence="
+                            + streamSequence);
+        }
+        this.id = id;
+        this.eventType = eventType;
+        this.eventBody = eventBody;
+        this.occurredOn = occurredOn;
+        this.occurredOnEpochMillis = occurredOn.toInstant().toEpochMilli();
+        this.version = version;
+        this.streamKey = streamKey;
+        this.streamSequence = streamSequence;
+    }
+
     /* package-private */
     /**
      * Required by Hibernate.
@@ -105,6 +208,16 @@ public class StoredEvent {
         return occurredOn;
     }
 
+    /**
+     * Gives the time the domain event represented by this {@code StoredEvent} occurred, as the number of milliseconds since the epoch,
+     * 1970-01-01T00:00:00Z.
+     *
+     * @return the number of milliseconds since the epoch when the domain event occurred
+     */
+    public long occurredOnEpochMillis() {
+        return occurredOnEpochMillis;
+    }
+
     /**
      * Gives the version of the domain event represented by this {@code StoredEvent}.
      *
@@ -114,10 +227,29 @@ public class StoredEvent {
         return version;
     }
 
+    /**
+     * Gives the key of the stream this {@code StoredEvent} belongs to.
+     *
+     * @return the stream key, or {@code null} if this event does not belong to a stream
+     */
+    public @Nullable String streamKey() {
+        return streamKey;
+    }
+
+    /**
+     * Gives the sequence number of this {@code StoredEvent} in its stream.
+     *
+     * @return the stream sequence number, or {@code null} if this event does not belong to a stream
+     */
+    public @Nullable Long streamSequence() {
+        return streamSequence;
+    }
+
     @Override
     public String toString() {
+        String stream = streamKey() == null ? "" : ", streamKey=" + streamKey() + ", streamSequence=" + streamSequence();
         return "StoredEvent{id=" + id() + ", eventType=" + eventType() + ", eventBody=" + eventBody() + ", occurredOn=" + occurredOn()
-                + ", version=" + version() + "}";
+                + ", version=" + version() + stream + "}";
     }
 
 }
@@ -0,0 +1,55 @@
+package com.reallifedeveloper.common.application.eventstore;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Cold storage for old {@link StoredEvent StoredEvents} that have been moved out of a {@link StoredEventRepository}, see
+ * {@link EventStore#archiveEventsBefore(java.time.ZonedDateTime)}.
+ * <p>
+ * Events are archived in ID order and are never changed once archived, so an archive can be read by ID range only.
+ *
+ * @author RealLifeDeveloper
+ */
+public interface StoredEventArchive {
+
+    /**
+     * Adds {@code StoredEvents} to the archive. When this method returns, the events must have been stored durably.
+     *
+     * @param storedEvents the {@code StoredEvents} to archive, ordered by ID, with IDs greater than {@link #lastArchivedStoredEventId()}
+     *
+     * @throws IllegalArgumentException if {@code storedEvents} is {@code null} or empty, or if the IDs are not in order or not greater than
+     *                                  the ID of the last archived event
+     */
+    void archive(List<StoredEvent> storedEvents);
+
+    /**
+     * Gives at most {@code maxResults} archived {@code StoredEvents} with IDs greater than {@code afterStoredEventId} and less than or
+     * equal to {@code lastStoredEventId}, ordered by ID.
+     *
+     * @param afterStoredEventId find events with IDs greater than this
+     * @param lastStoredEventId  find events with IDs less than or equal to this
+     * @param maxResults         the maximum number of events to return
+     * @return a list of at most {@code maxResults} matching {@code StoredEvents}, ordered by ID
+     */
+    List<StoredEvent> eventsAfter(long afterStoredEventId, long lastStoredEventId, int maxResults);
+
+    /**
+     * Tells whether this archive can be read by all processes that share a {@link StoredEventRepository}, e.g., because it is kept in
+     * the same database, see {@link StoredEventRepository#isShared()}.
+     * <p>
+     * The default implementation gives {@code false}. Archives that are shared by several processes should override this method.
+     *
+     * @return {@code true} if this archive is shared by several processes, {@code false} if it is local to one process
+     */
+    default boolean isShared() {
+        return false;
+    }
+
+    /**
+     * Gives the ID of the most recently archived {@code StoredEvent}.
+     *
+     * @return the ID of the most recently archived {@code StoredEvent} unless the archive is empty
+     */
+    Optional<Long> lastArchivedStoredEventId();
+}
@@ -1,5 +1,6 @@
 package com.reallifedeveloper.common.application.eventstore;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,6 +32,61 @@ public interface StoredEventRepository extends Repository<StoredEvent, Long> {
      */
     List<StoredEvent> allEventsBetween(long firstStoredEventId, long lastStoredEventId);
 
+    /**
+     * Gives at most {@code maxResults} {@code StoredEvents} with IDs greater than {@code afterStoredEventId} and less than or equal to
+     * {@code lastStoredEventId}, ordered by ID.
+     * <p>
+     * Unlike {@link #allEventsSince(long)} and {@link #allEventsBetween(long, long)}, the number of events read is always bounded. This
+     * supports keyset pagination: to get the next page, use the ID of the last {@code StoredEvent} of the previous page as
+     * {@code afterStoredEventId}. If fewer than {@code maxResults} events are returned, there are no more pages.
+     *
+     * @param afterStoredEventId find events with IDs greater than this
+     * @param lastStoredEventId  find events with IDs less than or equal to this
+     * @param maxResults         the maximum number of events to return
+     * @return a list of at most {@code maxResults} matching {@code StoredEvents}, ordered by ID
+     */
+    List<StoredEvent> eventsAfter(long afterStoredEventId, long lastStoredEventId, int maxResults);
+
+    /**
+     * Gives at most {@code maxResults} {@code StoredEvents} with one of the given event types that occurred in a given time range, and
+     * with IDs greater than {@code afterStoredEventId}, ordered by ID.
+     * <p>
+     * This supports keyset pagination: to get the first page, use {@code 0} as {@code afterStoredEventId}, and to get the next page, use
+     * the ID of the last {@code StoredEvent} of the previous page. If fewer than {@code maxResults} events are returned, there are no more
+     * pages.
+     *
+     * @param eventTypes         the class names of the domain events to find, must not be empty
+     * @param fromEpochMillis    the start of the time range, inclusive, in milliseconds since the epoch
+     * @param toEpochMillis      the end of the time range, exclusive, in milliseconds since the epoch
+     * @param afterStoredEventId find events with IDs greater than this
+     * @param maxResults         the maximum number of events to return
+     * @return a list of at most {@code maxResults} matching {@code StoredEvents}, ordered by ID
+     */
+    List<StoredEvent> eventsOfTypesBetween(Collection<String> eventTypes, long fromEpochMillis, long toEpochMillis,
+            long afterStoredEventId, int maxResults);
+
+    /**
+     * Gives at most {@code maxResults} {@code StoredEvents} in the stream with the given key, with stream sequence numbers greater than
+     * {@code afterStreamSequence}, ordered by stream sequence number.
+     * <p>
+     * This supports keyset pagination in the same way as {@link #eventsAfter(long, long, int)}, using the stream sequence number of the
+     * last {@code StoredEvent} of the previous page as {@code afterStreamSequence}.
+     *
+     * @param streamKey           the key of the stream to read
+     * @param afterStreamSequence find events with stream sequence numbers greater than this
+     * @param maxResults          the maximum number of events to return
+     * @return a list of at most {@code maxResults} matching {@code StoredEvents}, ordered by stream sequence number
+     */
+    List<StoredEvent> streamEventsAfter(String streamKey, long afterStreamSequence, int maxResults);
+
+    /**
+     * Gives the stream sequence number of the most recently saved {@code StoredEvent} in the stream with the given key.
+     *
+     * @param streamKey the key of the stream
+     * @return the greatest stream sequence number in the stream, unless the stream is empty
+     */
+    Optional<Long> lastStreamSequence(String streamKey);
+
     /**
      * Saves a {@link StoredEvent}.
      *
@@ -40,6 +96,46 @@ public interface StoredEventRepository extends Repository<StoredEvent, Long> {
      */
     <S extends StoredEvent> S save(S storedEvent);
 
+    /**
+     * Saves several {@link StoredEvent StoredEvents} in one operation.
+     *
+     * @param storedEvents the {@code StoredEvents} to save
+     * @param <S>          the type of the {@code StoredEvents}
+     * @return the saved {@code StoredEvents}, which may have been changed by the save operation
+     */
+    <S extends StoredEvent> List<S> saveAll(Iterable<S> storedEvents);
+
+    /**
+     * Deletes the {@code StoredEvents} with the given IDs, which is used when moving old events to a {@link StoredEventArchive}. IDs of
+     * events that are not in the repository are ignored.
+     * <p>
+     * Only the given events may be deleted, also if the repository contains other events with IDs between them: in a shared repository,
+     * an event with a lower ID may be committed after events with higher IDs have been read and archived, and such an event must not be
+     * deleted before it has been archived.
+     * <p>
+     * The default implementation throws {@code UnsupportedOperationException}, for repositories that do not support deleting events.
+     *
+     * @param storedEventIds the IDs of the {@code StoredEvents} to delete, in ascending order
+     * @return the number of {@code StoredEvents} deleted
+     * @throws UnsupportedOperationException if the repository does not support deleting events
+     */
+    default int deleteEvents(List<Long> storedEventIds) {
+        throw new UnsupportedOperationException("Deleting events is not supported by " + getClass().getName());
+    }
+
+    /**
+     * Tells whether this repository is shared by several processes, e.g., because it is kept in a database that is used by several
+     * instances of an application. An {@link EventStore} does not accept a {@link StoredEventArchive} that is not shared together with a
+     * repository that is, since events archived by one process would then be missing for the other processes.
+     * <p>
+     * The default implementation gives {@code true}. Repositories that are local to one process should override this method.
+     *
+     * @return {@code true} if this repository is shared by several processes, {@code false} if it is local to one process
+     */
+    default boolean isShared() {
+        return true;
+    }
+
     /**
      * Gives the ID of the most recently saved {@code StoredEvent} in the repository.
      *
@@ -0,0 +1,180 @@
+package com.reallifedeveloper.common.application.eventstore;
+
+import static com.reallifedeveloper.common.domain.LogUtil.removeCRLF;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+import com.reallifedeveloper.common.domain.ErrorHandling;
+import com.reallifedeveloper.common.domain.event.DomainEvent;
+import com.reallifedeveloper.common.domain.event.DomainEventPublisher;
+import com.reallifedeveloper.common.domain.event.DomainEventSubscriber;
+
+/**
+ * A publisher of domain events that is aware of Spring-managed transactions.
+ * <p>
+ * Events published while a transaction with synchronization is active are buffered. Just before the transaction commits, all buffered
+ * events are added to the {@link EventStore} in one batch, using {@link EventStore#addAll(List)}. After the transaction has committed,
+ * the events are published to the subscribers using the delegate {@link DomainEventPublisher}. If the transaction is rolled back, the
+ * events are discarded, so neither the event store nor the subscribers see events from work that never happened.
+ * <p>
+ * Events published when no transaction is active are added to the event store and published to the subscribers immediately.
+ * <p>
+ * The subscribers registered with this publisher should not need to participate in the transaction, for example subscribers that send
+ * messages or update caches. Saving events is handled by this publisher itself, so an {@link EventStoringSubscriber} should not be
+ * registered.
+ * <p>
+ * Note that the JPA provider must be configured for JDBC batching, and the ID generation strategy must allow it, for the batch of stored
+ * events to actually be inserted using fewer round trips to the database.
+ *
+ * @author RealLifeDeveloper
+ */
+public final class TransactionAwareDomainEventPublisher implements DomainEventPublisher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TransactionAwareDomainEventPublisher.class);
+
+    private final EventStore eventStore;
+
+    private final DomainEventPublisher delegate;
+
+    /**
+     * Creates a new {@code TransactionAwareDomainEventPublisher} that stores events using the given {@link EventStore} and publishes them
+     * to subscribers using the given {@link DomainEventPublisher}.
+     *
+     * @param eventStore the {@code EventStore} to use to store events before commit
+     * @param delegate   the {@code DomainEventPublisher} to use to publish events to subscribers after commit
+     *
+     * @throws IllegalArgumentException if any argument is {@code null}
+     */
+    @SuppressFBWarnings(value = { "EI_EXPOSE_REP2", "CRLF_INJECTION_LOGS" }, justification = "The delegate is shared on purpose; "
+            + "Logging only of objects, not user data")
+    public TransactionAwareDomainEventPublisher(EventStore eventStore, DomainEventPublisher delegate) {
+        ErrorHandling.checkNull("Arguments must not be null: eventStore=%s, delegate=%s", eventStore, delegate);
+        LOG.info("Creating new {}: eventStore={}, delegate={}", getClass().getSimpleName(), eventStore, delegate);
+        this.eventStore = eventStore;
+        this.delegate = delegate;
+    }
+
+    /**
+     * Publishes a domain event. If a transaction is active, the event is stored before the transaction commits and published to the
+     * subscribers after it has committed. Otherwise, the event is stored and published immediately.
+     *
+     * @param event the domain event to publish
+     *
+     * @throws IllegalArgumentException if {@code event} is {@code null}
+     */
+    @Override
+    public void publish(DomainEvent event) {
+        if (LOG.isTraceEnabled()) {
+            LOG.trace("publish: event={}", removeCRLF(event));
+        }
+        ErrorHandling.checkNull("event must not be null", event);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            transactionEvents().add(event);
+        } else {
+            eventStore.add(event);
+            delegate.publish(event);
+        }
+    }
+
+    /**
+     * Registers an event handler with the delegate publisher. The handler will be notified about events after the transaction in which
+     * they were published has committed.
+     *
+     * @param subscriber the event handler to register
+     *
+     * @throws IllegalArgumentException if {@code subscriber} is {@code null}
+     */
+    @Override
+    public void subscribe(DomainEventSubscriber<? extends DomainEvent> subscriber) {
+        ErrorHandling.checkNull("subscriber must not be null", subscriber);
+        delegate.subscribe(subscriber);
+    }
+
+    private TransactionEvents transactionEvents() {
+        TransactionEvents transactionEvents = (TransactionEvents) TransactionSynchronizationManager.getResource(this);
+        if (transactionEvents == null) {
+            transactionEvents = new TransactionEvents();
+            TransactionSynchronizationManager.bindResource(this, transactionEvents);
+            TransactionSynchronizationManager.registerSynchronization(transactionEvents);
+        }
+        return transactionEvents;
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionAwareDomainEventPublisher{eventStore=" + eventStore + ", delegate=" + delegate + "}";
+    }
+
+    /**
+     * The events published during a single transaction, and the synchronization callbacks that store and publish them.
+     */
+    private final class TransactionEvents implements TransactionSynchronization {
+
+        private final List<DomainEvent> events = new ArrayList<>();
+
+        private Phase phase = Phase.BUFFERING;
+
+        /**
+         * Adds an event published during the transaction. Events published by other synchronizations after the buffered events have been
+         * stored are stored immediately, and published together with the others after commit. Events published after commit, e.g., by
+         * subscribers, are stored and published immediately since there is no longer a transaction to wait for.
+         */
+        void add(DomainEvent event) {
+            switch (phase) {
+            case BUFFERING -> events.add(event);
+            case STORED -> {
+                eventStore.add(event);
+                events.add(event);
+            }
+            case COMPLETED -> {
+                eventStore.add(event);
+                delegate.publish(event);
+            }
+            default -> throw new IllegalStateException("Unknown phase: " + phase);
+            }
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            LOG.trace("beforeCommit: storing {} event(s)", events.size());
+            if (!events.isEmpty()) {
+                eventStore.addAll(events);
+            }
+            phase = Phase.STORED;
+        }
+
+        @Override
+        public void afterCommit() {
+            LOG.trace("afterCommit: publishing {} event(s)", events.size());
+            phase = Phase.COMPLETED;
+            for (DomainEvent event : events) {
+                delegate.publish(event);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status != STATUS_COMMITTED) {
+                LOG.debug("Transaction not committed, discarding {} event(s): status={}", events.size(), status);
+            }
+            phase = Phase.COMPLETED;
+            events.clear();
+            TransactionSynchronizationManager.unbindResourceIfPossible(TransactionAwareDomainEventPublisher.this);
+        }
+    }
+
+    /**
+     * The phases of a transaction that affect how published events are handled.
+     */
+    private enum Phase {
+        BUFFERING, STORED, COMPLETED
+    }
+}
@@ -27,12 +27,19 @@ public final class NotificationLogId {
      * @param low  the stored event ID of the first {@link Notification}
      * @param high the stored event ID of the last {@link Notification}
      *
-     * @throws IllegalArgumentException if {@code low} is greater than {@code high}
+     * @throws IllegalArgumentException if {@code low} is greater than {@code high}, or if the batch size, {@code high - low + 1}, is
+     *                                  greater than {@code Integer.MAX_VALUE}
      */
     public NotificationLogId(long low, long high) {
         if (low > high) {
             throw new IllegalArgumentException("low must not be greater than high: low=" + low + ", high=" + high);
         }
+        // Since low <= high, a negative difference means that the subtraction overflowed.
+        long difference = high - low;
+        if (difference < 0 || difference >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("notificationLogId represents too many notifications, the maximum batch size is "
+                    + Integer.MAX_VALUE + ": low=" + low + ", high=" + high);
+        }
         this.low = low;
         this.high = high;
     }
@@ -45,6 +52,26 @@ public final class NotificationLogId {
      * @throws IllegalArgumentException if the string is {@code null} or has the wrong form
      */
     public NotificationLogId(String notificationLogId) {
+        this(notificationLogId, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a new {@code NotificationLogId} with the low and high properties parsed from a comma-separated string, making sure that the
+     * batch size is not greater than {@code maxBatchSize}.
+     * <p>
+     * Use this constructor when parsing IDs from untrusted sources, such as a client of a REST API, so that a malformed ID cannot cause
+     * an unbounded number of notifications to be read.
+     *
+     * @param notificationLogId a string on the form "&lt;low&gt;,&lt;high&gt;"
+     * @param maxBatchSize      the maximum allowed batch size, i.e., the maximum value of {@code high - low + 1}
+     *
+     * @throws IllegalArgumentException if the string is {@code null} or has the wrong form, if the batch size is greater than
+     *                                  {@code maxBatchSize}, or if {@code maxBatchSize} is not positive
+     */
+    public NotificationLogId(String notificationLogId, int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        }
         if (notificationLogId == null) {
             throw new IllegalArgumentException("notificationLogId must not be null");
         }
@@ -63,6 +90,12 @@ public final class NotificationLogId {
         if (low() > high()) {
             throw new IllegalArgumentException("low must not be greater than high: low=" + low() + ", high=" + high());
         }
+        // Since low <= high, a negative difference means that the subtraction overflowed.
+        long difference = high() - low();
+        if (difference < 0 || difference >= maxBatchSize) {
+            throw new IllegalArgumentException("notificationLogId represents too many notifications, the maximum batch size is "
+                    + maxBatchSize + ": notificationLogId=" + notificationLogId);
+        }
     }
 
     /**
@@ -121,7 +154,8 @@ public final class NotificationLogId {
      * @return the batch size
      */
     public int batchSize() {
-        return (int) (high() - low() + 1);
+        // The constructors make sure that the batch size fits in an int.
+        return Math.toIntExact(high() - low() + 1L);
     }
 
     @Override
@@ -25,4 +25,21 @@ public interface NotificationPublisher {
      */
     void publish(List<Notification> notifications, String publicationChannel) throws IOException;
 
+    /**
+     * Publishes a number of notifications from one stream to the given publication channel. This is used when publishing per stream,
+     * where the progress is tracked by stream sequence number rather than by stored event ID.
+     * <p>
+     * The default implementation simply calls {@link #publish(List, String)}. Implementations that record the progress of a publication
+     * channel themselves should override this method, and reject it if they cannot track streams.
+     *
+     * @param notifications      a list of {@code Notifications} to publish, all belonging to the stream
+     * @param publicationChannel the name of the publication channel
+     * @param streamKey          the key of the stream the notifications belong to
+     *
+     * @throws IOException if publishing failed
+     */
+    default void publishStream(List<Notification> notifications, String publicationChannel, String streamKey) throws IOException {
+        publish(notifications, publicationChannel);
+    }
+
 }
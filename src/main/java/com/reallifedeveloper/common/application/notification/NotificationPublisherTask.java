@@ -8,8 +8,9 @@ import org.slf4j.LoggerFactory;
 import com.reallifedeveloper.common.domain.ErrorHandling;
 
 /**
- * A {@code java.lang.Runnable} that calls {@link NotificationService#publishNotifications(String)}. It can be used for scheduling regular
- * publication using a timer service.
+ * A {@code java.lang.Runnable} that calls {@link NotificationService#publishNotifications(String)}, or
+ * {@link NotificationService#publishStreamNotifications(String)} to publish per stream. It can be used for scheduling regular publication
+ * using a timer service.
  *
  * @author RealLifeDeveloper
  */
@@ -21,6 +22,8 @@ public final class NotificationPublisherTask implements Runnable {
 
     private final NotificationService notificationService;
 
+    private final boolean perStream;
+
     /**
      * Creates a new {@code NotificationPublishingTimerTask} that publishes to the given publication channel using the given
      * {@link NotificationService}.
@@ -29,16 +32,33 @@ public final class NotificationPublisherTask implements Runnable {
      * @param notificationService the {@code NotificationService} to use to do the actual publishing
      */
     public NotificationPublisherTask(String publicationChannel, NotificationService notificationService) {
+        this(publicationChannel, notificationService, false);
+    }
+
+    /**
+     * Creates a new {@code NotificationPublishingTimerTask} that publishes to the given publication channel using the given
+     * {@link NotificationService}, either all events in order or per stream.
+     *
+     * @param publicationChannel  the name of the channel to which to publish
+     * @param notificationService the {@code NotificationService} to use to do the actual publishing
+     * @param perStream           {@code true} to publish the streams with pending events, {@code false} to publish all events in order
+     */
+    public NotificationPublisherTask(String publicationChannel, NotificationService notificationService, boolean perStream) {
         ErrorHandling.checkNull("Arguments must not be null: publicationChannel=%s, notificationService=%s", publicationChannel,
                 notificationService);
         this.publicationChannel = publicationChannel;
         this.notificationService = notificationService;
+        this.perStream = perStream;
     }
 
     @Override
     public void run() {
         try {
-            notificationService.publishNotifications(publicationChannel);
+            if (perStream) {
+                notificationService.publishStreamNotifications(publicationChannel);
+            } else {
+                notificationService.publishNotifications(publicationChannel);
+            }
         } catch (IOException e) {
             LOG.error("Unexpected problem publishing notifications", e);
         }
@@ -1,10 +1,18 @@
 package com.reallifedeveloper.common.application.notification;
 
-import static com.reallifedeveloper.common.domain.LogUtil.removeCRLF;
+import static com.reallifedeveloper.common.domain.LogUtil.lazyRemoveCRLF;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,11 +26,34 @@ import com.reallifedeveloper.common.domain.ErrorHandling;
 
 /**
  * An application service to work with {@link NotificationLog NotificationLogs}.
+ * <p>
+ * When several transactions add events concurrently, the IDs of the {@link StoredEvent StoredEvents} may become visible out of order: a
+ * transaction that was given a lower ID may commit after one that was given a higher ID. If notifications were simply published for all
+ * events with IDs greater than the last one published, an event that commits late would never be published. To prevent this, a
+ * {@code NotificationService} can be given a gap wait window. When {@link #publishNotifications(String)} finds a gap in the IDs, it only
+ * publishes the events before the gap, expecting the missing events to be committed soon. If a gap remains for longer than the wait window,
+ * the missing IDs are assumed to belong to transactions that were rolled back, or to IDs that were never used, and are skipped.
+ * <p>
+ * Gaps are tracked in memory, so after a restart, or if the stored events do not start with ID 1, the first gap found is waited for once
+ * before being skipped.
+ * <p>
+ * Notifications can also be published per stream, see {@link #publishNotifications(String, String)} and
+ * {@link #publishStreamNotifications(String)}. There is one {@link PublishedMessageTracker} for each stream on a publication channel, so
+ * the number of trackers grows with the number of streams. If there are many streams, e.g., one per aggregate, consider using a bounded
+ * partition key, e.g., a hash of the aggregate ID modulo a fixed number of partitions, as the stream key instead.
  *
  * @author RealLifeDeveloper
  */
 public class NotificationService {
 
+    /**
+     * The separator between the publication channel and the stream key in the name of a {@link PublishedMessageTracker} for a stream,
+     * see {@link #streamMessageTrackerName(String, String)}. Publication channels that are published per stream must not contain the
+     * separator. Publication channels that are only published by {@link #publishNotifications(String)} may contain it, but should then
+     * not be named like the trackers of a publication channel that is published per stream.
+     */
+    public static final String STREAM_SEPARATOR = "#";
+
     private static final Logger LOG = LoggerFactory.getLogger(NotificationService.class);
 
     private final EventStore eventStore;
@@ -31,8 +62,15 @@ public class NotificationService {
 
     private final NotificationPublisher notificationPublisher;
 
+    private final long gapWaitNanos;
+
+    private final LongSupplier nanoClock;
+
+    private final ConcurrentMap<String, GapTracker> gapTrackers = new ConcurrentHashMap<>();
+
     /**
-     * Creates a new {@code NotificationService} that uses the given components.
+     * Creates a new {@code NotificationService} that uses the given components, and that does not wait for gaps in the IDs of stored
+     * events to be filled.
      *
      * @param eventStore               an event store for finding stored domain events
      * @param messageTrackerRepository a repository for keeping track of the last notification published
@@ -40,14 +78,44 @@ public class NotificationService {
      *
      * @throws IllegalArgumentException if any argument is {@code null}
      */
-    @SuppressFBWarnings("EI_EXPOSE_REP2")
     public NotificationService(EventStore eventStore, PublishedMessageTrackerRepository messageTrackerRepository,
             NotificationPublisher notificationPublisher) {
+        this(eventStore, messageTrackerRepository, notificationPublisher, Duration.ZERO);
+    }
+
+    /**
+     * Creates a new {@code NotificationService} that uses the given components, and that waits at most {@code gapWaitWindow} for gaps
+     * in the IDs of stored events to be filled before skipping them.
+     *
+     * @param eventStore               an event store for finding stored domain events
+     * @param messageTrackerRepository a repository for keeping track of the last notification published
+     * @param notificationPublisher    a publisher of notifications to external systems
+     * @param gapWaitWindow            how long to wait for a missing event to be committed, or {@link Duration#ZERO} to never wait
+     *
+     * @throws IllegalArgumentException if any argument is {@code null}, or if {@code gapWaitWindow} is negative
+     */
+    public NotificationService(EventStore eventStore, PublishedMessageTrackerRepository messageTrackerRepository,
+            NotificationPublisher notificationPublisher, Duration gapWaitWindow) {
+        this(eventStore, messageTrackerRepository, notificationPublisher, gapWaitWindow, System::nanoTime);
+    }
+
+    /**
+     * Creates a new {@code NotificationService} that uses the given source of nanosecond time, which is useful for testing.
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP2")
+    NotificationService(EventStore eventStore, PublishedMessageTrackerRepository messageTrackerRepository,
+            NotificationPublisher notificationPublisher, Duration gapWaitWindow, LongSupplier nanoClock) {
         ErrorHandling.checkNull("Arguments must not be null: eventStore=%s, messageTrackerRepository=%s, notificationPublisher=%s",
                 eventStore, messageTrackerRepository, notificationPublisher);
+        ErrorHandling.checkNull("Arguments must not be null: gapWaitWindow=%s, nanoClock=%s", gapWaitWindow, nanoClock);
+        if (gapWaitWindow.isNegative()) {
+            throw new IllegalArgumentException("gapWaitWindow must not be negative: " + gapWaitWindow);
+        }
         this.eventStore = eventStore;
         this.messageTrackerRepository = messageTrackerRepository;
         this.notificationPublisher = notificationPublisher;
+        this.gapWaitNanos = gapWaitWindow.toNanos();
+        this.nanoClock = nanoClock;
     }
 
     /**
@@ -56,10 +124,13 @@ public class NotificationService {
      * @param batchSize the maximum number of notifications in the notification log
      *
      * @return a notification log with the most recent notifications
+     *
+     * @throws IllegalArgumentException if {@code batchSize} is not positive, or greater than {@link EventStore#maxResults()}
      */
     @Transactional(readOnly = true)
     public NotificationLog currentNotificationLog(int batchSize) {
         LOG.trace("currentNotificationLog: batchSize={}", batchSize);
+        checkBatchSize(batchSize);
         NotificationLogId notificationLogId = calculateCurrentNotificationLogId(batchSize);
         NotificationLog notificationLog = findNotificationLog(notificationLogId);
         LOG.trace("currentNotificationLog: {}", notificationLog);
@@ -72,17 +143,33 @@ public class NotificationService {
      * @param notificationLogId represents the first and last {@link Notification} in the log
      *
      * @return an archived {@code NotificationLog}
+     *
+     * @throws IllegalArgumentException if {@code notificationLogId} is {@code null}, or represents more notifications than
+     *                                  {@link EventStore#maxResults()}
      */
     @Transactional(readOnly = true)
     @SuppressFBWarnings(value = "CRLF_INJECTION_LOGS", justification = "Logging only of objects, not user data")
     public NotificationLog notificationLog(NotificationLogId notificationLogId) {
         LOG.trace("notificationLog: notificationLogId={}", notificationLogId);
         ErrorHandling.checkNull("notificationLogId must not be null", notificationLogId);
+        checkBatchSize(notificationLogId.batchSize());
         NotificationLog notificationLog = findNotificationLog(notificationLogId);
         LOG.trace("notificationLog: {}", notificationLog);
         return notificationLog;
     }
 
+    /**
+     * Makes sure that a whole notification log can be read from the event store in one call, since a truncated log would not match the
+     * next and previous links.
+     */
+    private void checkBatchSize(int batchSize) {
+        if (batchSize <= 0 || batchSize > eventStore.maxResults()) {
+            throw new IllegalArgumentException(
+                    "batchSize must be between 1 and the maximum number of events read from the event store, " + eventStore.maxResults()
+                            + ": " + batchSize);
+        }
+    }
+
     private NotificationLog findNotificationLog(NotificationLogId notificationLogId) {
         List<StoredEvent> storedEvents = eventStore.allEventsBetween(notificationLogId.low(), notificationLogId.high());
         long lastStoredEventId = eventStore.lastStoredEventId();
@@ -116,7 +203,14 @@ public class NotificationService {
     }
 
     /**
-     * Publishes notifications about all events that have occurred since the last publication to the given publication channel.
+     * Publishes notifications about the events that have occurred since the last publication to the given publication channel.
+     * <p>
+     * At most {@link EventStore#maxResults()} notifications are published by each call, so if many events have occurred, it may take
+     * several calls to publish all of them.
+     * <p>
+     * If this service has a gap wait window, and there is a gap in the IDs of the events to publish that has not been there for longer
+     * than the wait window, only the events before the gap are published. The events after the gap are published by a later call, once
+     * the gap has been filled or the wait window has passed.
      *
      * @param publicationChannel the name of the publication channel to publish notifications on
      *
@@ -124,22 +218,172 @@ public class NotificationService {
      */
     @Transactional
     public void publishNotifications(String publicationChannel) throws IOException {
-        LOG.trace("publishNotifications: publicationChannel={}", removeCRLF(publicationChannel));
+        LOG.trace("publishNotifications: publicationChannel={}", lazyRemoveCRLF(publicationChannel));
         PublishedMessageTracker messageTracker = messageTracker(publicationChannel);
-        List<Notification> notifications = unpublishedNotifications(messageTracker.lastPublishedMessageId());
+        List<Notification> notifications = unpublishedNotifications(publicationChannel, messageTracker.lastPublishedMessageId());
         notificationPublisher.publish(notifications, publicationChannel);
         trackLastPublishedMessage(messageTracker, notifications);
         LOG.trace("publishNotifications: done");
     }
 
+    /**
+     * Publishes notifications about the events in the stream with the given key that have occurred since the last publication of the
+     * stream to the given publication channel.
+     * <p>
+     * The progress of each stream is tracked separately, by a {@link PublishedMessageTracker} named by
+     * {@link #streamMessageTrackerName(String, String)}, which holds the stream sequence number of the last event published. This means
+     * that different streams can be published independently of each other, e.g., by different threads or processes, and that a slow
+     * stream does not hold back the others. The order of notifications is preserved within each stream, but not between streams.
+     * <p>
+     * At most {@link EventStore#maxResults()} notifications are published by each call. Since two events in the same stream can never
+     * be given the same sequence number, there are no gaps to wait for when publishing a stream.
+     *
+     * @param publicationChannel the name of the publication channel to publish notifications on
+     * @param streamKey          the key of the stream to publish notifications for
+     *
+     * @throws IllegalArgumentException if {@code publicationChannel} or {@code streamKey} is {@code null}, or if the name of the
+     *                                  {@code PublishedMessageTracker} cannot be created, see
+     *                                  {@link #streamMessageTrackerName(String, String)}
+     * @throws IOException              if publishing failed
+     */
+    @Transactional
+    public void publishNotifications(String publicationChannel, String streamKey) throws IOException {
+        LOG.trace("publishNotifications: publicationChannel={}, streamKey={}", lazyRemoveCRLF(publicationChannel),
+                lazyRemoveCRLF(streamKey));
+        publishStream(publicationChannel, streamKey);
+        LOG.trace("publishNotifications: done");
+    }
+
+    /**
+     * Publishes notifications about the events in all streams that have had events added since the last call, to the given publication
+     * channel, see {@link #publishNotifications(String, String)}.
+     * <p>
+     * The streams with pending events are found by reading the events added since the last call, at most {@link EventStore#maxResults()}
+     * at a time, and the stored event ID up to which events have been read is kept by a {@code PublishedMessageTracker} named
+     * {@code publicationChannel + STREAM_SEPARATOR}. Gaps in the IDs are handled as by {@link #publishNotifications(String)}, so use a gap
+     * wait window to make sure that a stream is not missed when one of its events commits late. Each stream found is published up to
+     * the last of its events that was read.
+     *
+     * @param publicationChannel the name of the publication channel to publish notifications on
+     *
+     * @throws IllegalArgumentException if {@code publicationChannel} is {@code null}, contains {@link #STREAM_SEPARATOR} or is too long,
+     *                                  or if the name of the {@code PublishedMessageTracker} for a stream cannot be created, see
+     *                                  {@link #streamMessageTrackerName(String, String)}
+     * @throws IOException              if publishing failed
+     */
+    @Transactional
+    public void publishStreamNotifications(String publicationChannel) throws IOException {
+        LOG.trace("publishStreamNotifications: publicationChannel={}", lazyRemoveCRLF(publicationChannel));
+        checkPublicationChannel(publicationChannel);
+        PublishedMessageTracker scanTracker = messageTracker(publicationChannel + STREAM_SEPARATOR);
+        List<StoredEvent> storedEvents = unpublishedEvents(scanTracker.publicationChannel(), scanTracker.lastPublishedMessageId());
+        // Stream sequence numbers increase with the IDs, so the last event read in a stream has the greatest sequence number read.
+        Map<String, Long> pendingStreams = new LinkedHashMap<>();
+        for (StoredEvent storedEvent : storedEvents) {
+            String streamKey = storedEvent.streamKey();
+            Long streamSequence = storedEvent.streamSequence();
+            if (streamKey != null && streamSequence != null) {
+                pendingStreams.put(streamKey, streamSequence);
+            }
+        }
+        for (Map.Entry<String, Long> pendingStream : pendingStreams.entrySet()) {
+            List<StoredEvent> publishedEvents;
+            do {
+                publishedEvents = publishStream(publicationChannel, pendingStream.getKey());
+            } while (!publishedEvents.isEmpty() && lastStreamSequence(publishedEvents) < pendingStream.getValue());
+        }
+        if (!storedEvents.isEmpty()) {
+            scanTracker.setLastPublishedMessageid(storedEvents.get(storedEvents.size() - 1).id());
+            messageTrackerRepository.save(scanTracker);
+        }
+        LOG.trace("publishStreamNotifications: done");
+    }
+
+    /**
+     * Publishes at most {@link EventStore#maxResults()} unpublished events of a stream and gives the events published.
+     */
+    private List<StoredEvent> publishStream(String publicationChannel, String streamKey) throws IOException {
+        PublishedMessageTracker messageTracker = messageTracker(streamMessageTrackerName(publicationChannel, streamKey));
+        List<StoredEvent> storedEvents = eventStore.streamEventsSince(streamKey, messageTracker.lastPublishedMessageId());
+        notificationPublisher.publishStream(notificationsFrom(storedEvents), publicationChannel, streamKey);
+        if (!storedEvents.isEmpty()) {
+            messageTracker.setLastPublishedMessageid(lastStreamSequence(storedEvents));
+            messageTrackerRepository.save(messageTracker);
+        }
+        return storedEvents;
+    }
+
+    private static long lastStreamSequence(List<StoredEvent> streamEvents) {
+        StoredEvent lastStoredEvent = streamEvents.get(streamEvents.size() - 1);
+        Long lastStreamSequence = lastStoredEvent.streamSequence();
+        if (lastStreamSequence == null) {
+            throw new IllegalStateException("Stream event has no stream sequence number: " + lastStoredEvent);
+        }
+        return lastStreamSequence;
+    }
+
+    /**
+     * Gives the name of the {@link PublishedMessageTracker} that keeps track of the last event published from a stream to a publication
+     * channel, i.e., {@code publicationChannel + STREAM_SEPARATOR + streamKey}.
+     * <p>
+     * Since publication channels that are published per stream cannot contain the separator, the name of a tracker for a stream never
+     * equals the name of a tracker for a stream on another publication channel.
+     *
+     * @param publicationChannel the name of the publication channel
+     * @param streamKey          the key of the stream
+     *
+     * @return the name of the {@code PublishedMessageTracker} for the stream on the publication channel
+     *
+     * @throws IllegalArgumentException if {@code publicationChannel} or {@code streamKey} is {@code null}, if {@code publicationChannel}
+     *                                  contains {@link #STREAM_SEPARATOR}, if {@code streamKey} is empty, or if the name is longer than
+     *                                  {@link PublishedMessageTracker#MAX_PUBLICATION_CHANNEL_LENGTH}
+     */
+    public static String streamMessageTrackerName(String publicationChannel, String streamKey) {
+        ErrorHandling.checkNull("Arguments must not be null: publicationChannel=%s, streamKey=%s", publicationChannel, streamKey);
+        checkPublicationChannel(publicationChannel);
+        if (streamKey.isEmpty()) {
+            throw new IllegalArgumentException("streamKey must not be empty");
+        }
+        String messageTrackerName = publicationChannel + STREAM_SEPARATOR + streamKey;
+        if (messageTrackerName.length() > PublishedMessageTracker.MAX_PUBLICATION_CHANNEL_LENGTH) {
+            throw new IllegalArgumentException("Name of PublishedMessageTracker for stream must not be longer than "
+                    + PublishedMessageTracker.MAX_PUBLICATION_CHANNEL_LENGTH + " characters: publicationChannel=" + publicationChannel
+                    + ", streamKey=" + streamKey);
+        }
+        return messageTrackerName;
+    }
+
+    private static void checkPublicationChannel(String publicationChannel) {
+        ErrorHandling.checkNull("publicationChannel must not be null", publicationChannel);
+        if (publicationChannel.contains(STREAM_SEPARATOR)) {
+            throw new IllegalArgumentException("publicationChannel must not contain " + STREAM_SEPARATOR + ": " + publicationChannel);
+        }
+        if (publicationChannel.length() > PublishedMessageTracker.MAX_PUBLICATION_CHANNEL_LENGTH) {
+            throw new IllegalArgumentException("publicationChannel must not be longer than "
+                    + PublishedMessageTracker.MAX_PUBLICATION_CHANNEL_LENGTH + " characters: " + publicationChannel);
+        }
+    }
+
     private PublishedMessageTracker messageTracker(String publicationChannel) {
         return messageTrackerRepository.findByPublicationChannel(publicationChannel)
                 .orElseGet(() -> new PublishedMessageTracker(0, publicationChannel));
     }
 
-    private List<Notification> unpublishedNotifications(long lastPublishedMessageId) {
+    private List<Notification> unpublishedNotifications(String publicationChannel, long lastPublishedMessageId) {
+        return notificationsFrom(unpublishedEvents(publicationChannel, lastPublishedMessageId));
+    }
+
+    /**
+     * Gives the events after {@code lastPublishedMessageId} that can be published, see the class documentation, using the gaps tracked
+     * for the {@code PublishedMessageTracker} with the given name.
+     */
+    private List<StoredEvent> unpublishedEvents(String messageTrackerName, long lastPublishedMessageId) {
         List<StoredEvent> storedEvents = eventStore.allEventsSince(lastPublishedMessageId);
-        return notificationsFrom(storedEvents);
+        if (gapWaitNanos > 0) {
+            GapTracker gapTracker = gapTrackers.computeIfAbsent(messageTrackerName, name -> new GapTracker());
+            storedEvents = gapTracker.eventsBeforeUnexpiredGap(messageTrackerName, lastPublishedMessageId, storedEvents);
+        }
+        return storedEvents;
     }
 
     private void trackLastPublishedMessage(PublishedMessageTracker messageTracker, List<Notification> notifications) {
@@ -149,4 +393,61 @@ public class NotificationService {
             messageTrackerRepository.save(messageTracker);
         }
     }
+
+    /**
+     * Keeps track of when gaps in the IDs of stored events were first seen on a publication channel.
+     * <p>
+     * Each time events are read, the greatest ID read is recorded together with the current time, if it is greater than the greatest ID
+     * recorded before. A missing ID was therefore first seen at the time of the oldest record with a greater ID. Records that only cover
+     * IDs that have already been published are removed, so the number of records is bounded by the number of reads during a wait window.
+     */
+    private final class GapTracker {
+
+        private final Deque<Observation> observations = new ArrayDeque<>();
+
+        synchronized List<StoredEvent> eventsBeforeUnexpiredGap(String publicationChannel, long lastPublishedMessageId,
+                List<StoredEvent> storedEvents) {
+            long now = nanoClock.getAsLong();
+            while (!observations.isEmpty() && observations.peekFirst().maxSeenId() <= lastPublishedMessageId) {
+                observations.removeFirst();
+            }
+            if (storedEvents.isEmpty()) {
+                return storedEvents;
+            }
+            long maxId = storedEvents.get(storedEvents.size() - 1).id();
+            if (observations.isEmpty() || observations.peekLast().maxSeenId() < maxId) {
+                observations.addLast(new Observation(maxId, now));
+            }
+            long expectedId = lastPublishedMessageId + 1;
+            for (int i = 0; i < storedEvents.size(); i++) {
+                long id = storedEvents.get(i).id();
+                if (id != expectedId) {
+                    if (now - firstSeen(expectedId, now) < gapWaitNanos) {
+                        LOG.debug("Waiting for missing stored events: publicationChannel={}, firstMissingId={}, lastMissingId={}",
+                                lazyRemoveCRLF(publicationChannel), expectedId, id - 1);
+                        return storedEvents.subList(0, i);
+                    }
+                    LOG.warn("Skipping missing stored events: publicationChannel={}, firstMissingId={}, lastMissingId={}",
+                            lazyRemoveCRLF(publicationChannel), expectedId, id - 1);
+                }
+                expectedId = id + 1;
+            }
+            return storedEvents;
+        }
+
+        private long firstSeen(long missingId, long now) {
+            for (Observation observation : observations) {
+                if (observation.maxSeenId() > missingId) {
+                    return observation.firstSeenNanos();
+                }
+            }
+            return now;
+        }
+    }
+
+    /**
+     * The greatest ID of a stored event read so far, and when it was first read.
+     */
+    private record Observation(long maxSeenId, long firstSeenNanos) {
+    }
 }
@@ -10,7 +10,9 @@ import com.reallifedeveloper.common.infrastructure.persistence.BaseJpaEntity;
 /**
  * Keeps track of the most recently published message on a certain publication channel.
  * <p>
- * The publication channel can, for example, be an exchange in a messaging system.
+ * The publication channel can, for example, be an exchange in a messaging system. When events are published per stream, there is one
+ * tracker for each stream on a publication channel, and the id of the most recently published message is the stream sequence number of
+ * the last event published, see {@link NotificationService#publishNotifications(String, String)}.
  *
  * @author RealLifeDeveloper
  */
@@ -18,10 +20,15 @@ import com.reallifedeveloper.common.infrastructure.persistence.BaseJpaEntity;
 @Table(name = "message_tracker")
 public class PublishedMessageTracker extends BaseJpaEntity<Long> {
 
+    /**
+     * The maximum length of the name of a publication channel, which is the size of the {@code publication_channel} column.
+     */
+    public static final int MAX_PUBLICATION_CHANNEL_LENGTH = 255;
+
     @Column(name = "last_published_message_id", nullable = false, unique = false)
     private Long lastPublishedMessageId;
 
-    @Column(name = "publication_channel", nullable = false, unique = true)
+    @Column(name = "publication_channel", nullable = false, unique = true, length = MAX_PUBLICATION_CHANNEL_LENGTH)
     private String publicationChannel;
 
     /**
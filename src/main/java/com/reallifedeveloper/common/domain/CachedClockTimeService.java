@@ -0,0 +1,109 @@
+package com.reallifedeveloper.common.domain;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An implementation of the {@link TimeService} interface that gives the time according to a coarse clock, which is updated by a
+ * background thread at a configurable resolution.
+ * <p>
+ * Calling {@link #now()} only reads a field, so it is very cheap: there are no system calls and no objects are allocated. The price is
+ * that the time given may be up to one resolution period, plus any scheduling delay of the background thread, behind the real time, and
+ * that consecutive calls often give the same time. This makes the class suitable for high event rates where timestamps with a precision of
+ * a few milliseconds are good enough. Use {@link MonotonicTimeService} on top of this class if timestamps must be unique.
+ * <p>
+ * The background thread is a daemon thread. It is stopped by calling {@link #close()}, which Spring does automatically when an
+ * application context with a bean of this class is closed.
+ *
+ * @author RealLifeDeveloper
+ */
+public final class CachedClockTimeService implements TimeService, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CachedClockTimeService.class);
+
+    private final Clock clock;
+
+    private final Duration resolution;
+
+    private final ScheduledExecutorService scheduler;
+
+    private volatile ZonedDateTime current;
+
+    /**
+     * Creates a new {@code CachedClockTimeService} that uses {@code Clock.systemUTC()} and the given resolution.
+     *
+     * @param resolution how often to update the time
+     *
+     * @throws IllegalArgumentException if {@code resolution} is {@code null} or not positive
+     */
+    public CachedClockTimeService(Duration resolution) {
+        this(Clock.systemUTC(), resolution);
+    }
+
+    /**
+     * Creates a new {@code CachedClockTimeService} that uses the given clock and resolution.
+     *
+     * @param clock      the {@code Clock} to read the time from
+     * @param resolution how often to update the time
+     *
+     * @throws IllegalArgumentException if any argument is {@code null}, or if {@code resolution} is not positive
+     */
+    public CachedClockTimeService(Clock clock, Duration resolution) {
+        ErrorHandling.checkNull("Arguments must not be null: clock=%s, resolution=%s", clock, resolution);
+        if (resolution.isNegative() || resolution.isZero()) {
+            throw new IllegalArgumentException("resolution must be positive: " + resolution);
+        }
+        LOG.info("Creating new {}: clock={}, resolution={}", getClass().getSimpleName(), clock, resolution);
+        this.clock = clock;
+        this.resolution = resolution;
+        this.current = ZonedDateTime.now(clock);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cached-clock-time-service");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodNanos = resolution.toNanos();
+        scheduler.scheduleAtFixedRate(this::tick, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public ZonedDateTime now() {
+        return current;
+    }
+
+    /**
+     * Updates the time from the clock. This is normally done by the background thread, but it is also useful for testing.
+     */
+    void tick() {
+        current = ZonedDateTime.now(clock);
+    }
+
+    /**
+     * Gives the resolution of this {@code CachedClockTimeService}, i.e., how often the time is updated.
+     *
+     * @return the resolution
+     */
+    public Duration resolution() {
+        return resolution;
+    }
+
+    /**
+     * Stops the background thread. After this method has been called, {@link #now()} always gives the last time read from the clock.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return "CachedClockTimeService{clock=" + clock + ", resolution=" + resolution + "}";
+    }
+}
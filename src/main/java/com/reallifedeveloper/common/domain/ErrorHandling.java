@@ -10,6 +10,9 @@ import lombok.experimental.UtilityClass;
 
 /**
  * Utility class for simplifying error handling.
+ * <p>
+ * The {@code checkNull} methods are called on hot paths, so they have one overload per number of arguments and only build an error
+ * message, or even an array of arguments, when a check actually fails.
  *
  * @author RealLifeDeveloper
  */
@@ -30,7 +33,9 @@ public class ErrorHandling {
     @EnsuresNonNull({ "#2" })
     @SuppressWarnings("nullness")
     public static void checkNull(String messageTemplate, @Nullable Object arg1) {
-        checkNullInternal(messageTemplate, arg1);
+        if (messageTemplate == null || arg1 == null) {
+            fail(messageTemplate, arg1);
+        }
     }
 
     /**
@@ -47,7 +52,9 @@ public class ErrorHandling {
     @EnsuresNonNull({ "#2", "#3" })
     @SuppressWarnings("nullness")
     public static void checkNull(String messageTemplate, @Nullable Object arg1, @Nullable Object arg2) {
-        checkNullInternal(messageTemplate, arg1, arg2);
+        if (messageTemplate == null || arg1 == null || arg2 == null) {
+            fail(messageTemplate, arg1, arg2);
+        }
     }
 
     /**
@@ -66,7 +73,9 @@ public class ErrorHandling {
     @EnsuresNonNull({ "#2", "#3", "#4" })
     @SuppressWarnings("nullness")
     public static void checkNull(String messageTemplate, @Nullable Object arg1, @Nullable Object arg2, @Nullable Object arg3) {
-        checkNullInternal(messageTemplate, arg1, arg2, arg3);
+        if (messageTemplate == null || arg1 == null || arg2 == null || arg3 == null) {
+            fail(messageTemplate, arg1, arg2, arg3);
+        }
     }
 
     /**
@@ -87,7 +96,9 @@ public class ErrorHandling {
     @SuppressWarnings({ "nullness" })
     public static void checkNull(String messageTemplate, @Nullable Object arg1, @Nullable Object arg2, @Nullable Object arg3,
             @Nullable Object arg4) {
-        checkNullInternal(messageTemplate, arg1, arg2, arg3, arg4);
+        if (messageTemplate == null || arg1 == null || arg2 == null || arg3 == null || arg4 == null) {
+            fail(messageTemplate, arg1, arg2, arg3, arg4);
+        }
     }
 
     /**
@@ -108,7 +119,9 @@ public class ErrorHandling {
     @SuppressWarnings({ "nullness" })
     public static void checkNull(String messageTemplate, @Nullable Object arg1, @Nullable Object arg2, @Nullable Object arg3,
             @Nullable Object arg4, @Nullable Object arg5) {
-        checkNullInternal(messageTemplate, arg1, arg2, arg3, arg4, arg5);
+        if (messageTemplate == null || arg1 == null || arg2 == null || arg3 == null || arg4 == null || arg5 == null) {
+            fail(messageTemplate, arg1, arg2, arg3, arg4, arg5);
+        }
     }
 
     /**
@@ -130,7 +143,9 @@ public class ErrorHandling {
     @SuppressWarnings({ "nullness" })
     public static void checkNull(String messageTemplate, @Nullable Object arg1, @Nullable Object arg2, @Nullable Object arg3,
             @Nullable Object arg4, @Nullable Object arg5, @Nullable Object arg6) {
-        checkNullInternal(messageTemplate, arg1, arg2, arg3, arg4, arg5, arg6);
+        if (messageTemplate == null || arg1 == null || arg2 == null || arg3 == null || arg4 == null || arg5 == null || arg6 == null) {
+            fail(messageTemplate, arg1, arg2, arg3, arg4, arg5, arg6);
+        }
     }
 
     /**
@@ -153,7 +168,10 @@ public class ErrorHandling {
     @SuppressWarnings({ "nullness" })
     public static void checkNull(String messageTemplate, @Nullable Object arg1, @Nullable Object arg2, @Nullable Object arg3,
             @Nullable Object arg4, @Nullable Object arg5, @Nullable Object arg6, @Nullable Object arg7) {
-        checkNullInternal(messageTemplate, arg1, arg2, arg3, arg4, arg5, arg6, arg7);
+        if (messageTemplate == null || arg1 == null || arg2 == null || arg3 == null || arg4 == null || arg5 == null || arg6 == null
+                || arg7 == null) {
+            fail(messageTemplate, arg1, arg2, arg3, arg4, arg5, arg6, arg7);
+        }
     }
 
     /**
@@ -177,12 +195,19 @@ public class ErrorHandling {
     @SuppressWarnings({ "nullness" })
     public static void checkNull(String messageTemplate, @Nullable Object arg1, @Nullable Object arg2, @Nullable Object arg3,
             @Nullable Object arg4, @Nullable Object arg5, @Nullable Object arg6, @Nullable Object arg7, @Nullable Object arg8) {
-        checkNullInternal(messageTemplate, arg1, arg2, arg3, arg4, arg5, arg6, arg7, arg8);
+        if (messageTemplate == null || arg1 == null || arg2 == null || arg3 == null || arg4 == null || arg5 == null || arg6 == null
+                || arg7 == null || arg8 == null) {
+            fail(messageTemplate, arg1, arg2, arg3, arg4, arg5, arg6, arg7, arg8);
+        }
     }
 
+    /**
+     * Throws the appropriate exception when one of the {@code checkNull} methods has found that {@code messageTemplate} or one of the
+     * arguments is {@code null}. Only this method uses varargs, so the varargs array is not created unless a check fails.
+     */
     @SuppressWarnings("AnnotateFormatMethod")
     @SuppressFBWarnings(value = "FORMAT_STRING_MANIPULATION", justification = "The format string is provided by the programmer, not user")
-    private static void checkNullInternal(String messageTemplate, @Nullable Object... arguments) {
+    private static void fail(String messageTemplate, @Nullable Object... arguments) {
         // We know that arguments will never be null, it will always be an array, since
         // this method is only called using varargs
         if (messageTemplate == null) {
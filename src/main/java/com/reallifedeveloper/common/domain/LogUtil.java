@@ -18,7 +18,8 @@ public class LogUtil {
      * This is useful when logging something that originates from a user, in order to avoid CRLF injection. See
      * <a href="https://www.invicti.com/learn/crlf-injection/">https://www.invicti.com/learn/crlf-injection/</a>.
      * <p>
-     * The method is null-safe and returns {@code null} if the input string is {@code null}.
+     * The method is null-safe and returns {@code null} if the input string is {@code null}. The string is scanned only once, and if it
+     * does not contain any CR or LF characters, {@code s} itself is returned without allocating a new string.
      *
      * @param s the string from which to remove CRLF
      *
@@ -29,10 +30,35 @@ public class LogUtil {
         if (s == null) {
             return null;
         } else {
-            return s.replaceAll("[\r\n]", "");
+            int first = indexOfCRLF(s);
+            if (first < 0) {
+                return s;
+            }
+            StringBuilder sb = new StringBuilder(s.length() - 1);
+            sb.append(s, 0, first);
+            for (int i = first + 1; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (!isCRLF(c)) {
+                    sb.append(c);
+                }
+            }
+            return sb.toString();
         }
     }
 
+    private static int indexOfCRLF(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (isCRLF(s.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isCRLF(char c) {
+        return c == '\r' || c == '\n';
+    }
+
     /**
      * Given a non-null object, calls the {@code toString} method on the object and returns the result of calling
      * {@link #removeCRLF(String)} on the string representation of the object.
@@ -51,4 +77,42 @@ public class LogUtil {
             return removeCRLF(o.toString());
         }
     }
+
+    /**
+     * Wraps an object so that CR and LF are removed from its string representation, but only when {@code toString} is called on the
+     * wrapper.
+     * <p>
+     * This is useful as an argument to a logging method that is not guarded by a check of the log level, since the logging framework only
+     * calls {@code toString} if the message is actually logged:
+     *
+     * <pre>
+     * LOG.debug("foo: bar={}", lazyRemoveCRLF(bar));
+     * </pre>
+     * <p>
+     * If {@code o} is {@code null}, the string representation of the wrapper is {@code "null"}.
+     *
+     * @param o the object for which to remove CRLF from its string representation
+     *
+     * @return an object whose {@code toString} method returns {@code o.toString()} with all occurrences of CR and LF removed
+     */
+    public static Object lazyRemoveCRLF(@Nullable Object o) {
+        return new CRLFRemovingWrapper(o);
+    }
+
+    /**
+     * A wrapper that removes CR and LF from the string representation of an object when {@code toString} is called.
+     */
+    private static final class CRLFRemovingWrapper {
+
+        private final @Nullable Object wrapped;
+
+        CRLFRemovingWrapper(@Nullable Object wrapped) {
+            this.wrapped = wrapped;
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(removeCRLF(wrapped));
+        }
+    }
 }
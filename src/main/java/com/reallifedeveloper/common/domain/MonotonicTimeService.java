@@ -0,0 +1,59 @@
+package com.reallifedeveloper.common.domain;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An implementation of the {@link TimeService} interface that guarantees that the times given are strictly increasing, i.e., that no two
+ * calls to {@link #now()} on the same instance give the same time, and that a later call never gives an earlier time.
+ * <p>
+ * The time is read from a delegate {@code TimeService}, for example a {@link CachedClockTimeService}. If the delegate gives a time that
+ * is not later than the previous time given, e.g., because the delegate is a coarse clock or because the system clock has been adjusted
+ * backwards, the previous time plus one nanosecond is used instead. This means that the times may run slightly ahead of the delegate when
+ * {@code now()} is called very often, and that code that truncates the times, e.g., to milliseconds, may still see equal times.
+ * <p>
+ * This class is thread-safe, and the guarantee holds for all threads using the same instance.
+ *
+ * @author RealLifeDeveloper
+ */
+public final class MonotonicTimeService implements TimeService {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final TimeService delegate;
+
+    /**
+     * The last time given, in nanoseconds since the epoch.
+     */
+    private final AtomicLong lastEpochNanos = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Creates a new {@code MonotonicTimeService} that reads the time from the given {@code TimeService}.
+     *
+     * @param delegate the {@code TimeService} to read the time from
+     *
+     * @throws IllegalArgumentException if {@code delegate} is {@code null}
+     */
+    public MonotonicTimeService(TimeService delegate) {
+        ErrorHandling.checkNull("delegate must not be null", delegate);
+        this.delegate = delegate;
+    }
+
+    @Override
+    public ZonedDateTime now() {
+        ZonedDateTime delegateNow = delegate.now();
+        Instant instant = delegateNow.toInstant();
+        long delegateEpochNanos = Math.addExact(Math.multiplyExact(instant.getEpochSecond(), NANOS_PER_SECOND), instant.getNano());
+        long epochNanos = lastEpochNanos.accumulateAndGet(delegateEpochNanos, (last, candidate) -> Math.max(last + 1, candidate));
+        if (epochNanos == delegateEpochNanos) {
+            return delegateNow;
+        }
+        return ZonedDateTime.ofInstant(Instant.ofEpochSecond(0, epochNanos), delegateNow.getZone());
+    }
+
+    @Override
+    public String toString() {
+        return "MonotonicTimeService{delegate=" + delegate + "}";
+    }
+}
@@ -0,0 +1,298 @@
+package com.reallifedeveloper.common.domain.event;
+
+import static com.reallifedeveloper.common.domain.LogUtil.removeCRLF;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+import com.reallifedeveloper.common.domain.ErrorHandling;
+
+/**
+ * A publisher of domain events that hands each event to the matching subscribers asynchronously, so that a slow subscriber does not
+ * delay the publishing thread.
+ * <p>
+ * Each subscriber has its own bounded queue. The events in a queue are handled by tasks submitted to an {@code Executor}, for example a
+ * thread pool or, on Java 21 and later, {@code Executors.newVirtualThreadPerTaskExecutor()}. At most one task at a time handles the events
+ * of a given subscriber, so each subscriber sees events in the order they were published, while different subscribers run in parallel.
+ * <p>
+ * When a subscriber's queue is full, the {@link OverflowPolicy} given to the constructor decides what happens: the publishing thread can
+ * wait for room, the event can be dropped for that subscriber, or the publishing thread can help handle queued events until there is room.
+ * <p>
+ * Since events are handled on other threads, an exception thrown by a subscriber cannot be propagated to the publisher. Such exceptions
+ * are logged and counted, see {@link #metrics()}.
+ * <p>
+ * Subscribers may be registered and unregistered while events are being published. The executor is not owned by this class, so shutting
+ * it down is the responsibility of the caller.
+ *
+ * @author RealLifeDeveloper
+ */
+public final class AsyncDomainEventPublisher implements DomainEventPublisher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncDomainEventPublisher.class);
+
+    private final List<SubscriberQueue> subscriberQueues = new CopyOnWriteArrayList<>();
+
+    private final Executor executor;
+
+    private final int queueCapacity;
+
+    private final OverflowPolicy overflowPolicy;
+
+    /**
+     * Creates a new {@code AsyncDomainEventPublisher} with no subscribers registered.
+     *
+     * @param executor       the {@code Executor} used to run the tasks that handle events
+     * @param queueCapacity  the maximum number of events waiting to be handled by each subscriber
+     * @param overflowPolicy what to do when a subscriber's queue is full
+     *
+     * @throws IllegalArgumentException if {@code executor} or {@code overflowPolicy} is {@code null}, or if {@code queueCapacity} is not
+     *                                  positive
+     */
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP2", justification = "The executor is shared on purpose")
+    public AsyncDomainEventPublisher(Executor executor, int queueCapacity, OverflowPolicy overflowPolicy) {
+        ErrorHandling.checkNull("Arguments must not be null: executor=%s, overflowPolicy=%s", executor, overflowPolicy);
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("queueCapacity must be positive: " + queueCapacity);
+        }
+        this.executor = executor;
+        this.queueCapacity = queueCapacity;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Publishes a domain event, i.e., queues the event for each registered subscriber that handles events of the given type. The
+     * subscribers are called later, on threads provided by the executor.
+     *
+     * @param event the domain event to publish
+     *
+     * @throws IllegalArgumentException if {@code event} is {@code null}
+     * @throws IllegalStateException    if the overflow policy is {@link OverflowPolicy#BLOCK} and the publishing thread is interrupted
+     *                                  while waiting for room in a queue
+     */
+    @Override
+    public void publish(DomainEvent event) {
+        ErrorHandling.checkNull("event must not be null", event);
+        for (SubscriberQueue subscriberQueue : subscriberQueues) {
+            if (subscriberQueue.subscriber.eventType().isAssignableFrom(event.getClass())) {
+                subscriberQueue.enqueue(event);
+            }
+        }
+    }
+
+    /**
+     * Registers an event handler with this publisher, creating a new queue for the handler.
+     *
+     * @param subscriber the event handler to register
+     *
+     * @throws IllegalArgumentException if {@code subscriber} is {@code null}
+     */
+    @Override
+    public void subscribe(DomainEventSubscriber<? extends DomainEvent> subscriber) {
+        ErrorHandling.checkNull("subscriber must not be null", subscriber);
+        @SuppressWarnings("unchecked")
+        DomainEventSubscriber<DomainEvent> s = (DomainEventSubscriber<DomainEvent>) subscriber;
+        subscriberQueues.add(new SubscriberQueue(s));
+    }
+
+    /**
+     * Unregisters an event handler from this publisher. Events that have already been queued for the handler are discarded, but an event
+     * that is currently being handled is allowed to finish.
+     *
+     * @param subscriber the event handler to unregister
+     *
+     * @return {@code true} if {@code subscriber} was registered with this publisher, {@code false} otherwise
+     *
+     * @throws IllegalArgumentException if {@code subscriber} is {@code null}
+     */
+    public boolean unsubscribe(DomainEventSubscriber<? extends DomainEvent> subscriber) {
+        ErrorHandling.checkNull("subscriber must not be null", subscriber);
+        for (SubscriberQueue subscriberQueue : subscriberQueues) {
+            if (subscriberQueue.subscriber == subscriber && subscriberQueues.remove(subscriberQueue)) {
+                subscriberQueue.queue.clear();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gives a snapshot of the queue metrics for each registered subscriber, in the order the subscribers were registered.
+     *
+     * @return a list with the current metrics of each subscriber queue
+     */
+    public List<SubscriberMetrics> metrics() {
+        return subscriberQueues.stream().map(SubscriberQueue::metrics).toList();
+    }
+
+    /**
+     * Gives the total number of events waiting to be handled, summed over all subscribers.
+     *
+     * @return the total number of queued events
+     */
+    public int queueDepth() {
+        int queueDepth = 0;
+        for (SubscriberQueue subscriberQueue : subscriberQueues) {
+            queueDepth += subscriberQueue.queue.size();
+        }
+        return queueDepth;
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncDomainEventPublisher{executor=" + executor + ", queueCapacity=" + queueCapacity + ", overflowPolicy=" + overflowPolicy
+                + ", subscribers=" + subscriberQueues.size() + "}";
+    }
+
+    /**
+     * What to do when an event is published and the queue of a subscriber is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * The publishing thread waits until there is room in the queue.
+         */
+        BLOCK,
+
+        /**
+         * The event is dropped for the subscriber with the full queue; other subscribers still receive it.
+         */
+        DROP,
+
+        /**
+         * The publishing thread handles queued events for the subscriber until there is room in the queue. This slows down the publisher
+         * to the pace of the subscriber while preserving the order in which the subscriber sees events.
+         */
+        CALLER_RUNS
+    }
+
+    /**
+     * Queue metrics for a single subscriber.
+     *
+     * @param subscriber        the subscriber the metrics are for
+     * @param queueDepth        the number of events currently waiting to be handled
+     * @param remainingCapacity the number of events that can be queued before the overflow policy applies
+     * @param handledEvents     the number of events the subscriber has handled successfully
+     * @param failedEvents      the number of events for which the subscriber threw an exception
+     * @param droppedEvents     the number of events dropped because the queue was full
+     */
+    public record SubscriberMetrics(DomainEventSubscriber<? extends DomainEvent> subscriber, int queueDepth, int remainingCapacity,
+            long handledEvents, long failedEvents, long droppedEvents) {
+    }
+
+    /**
+     * The queue of events for one subscriber, together with the state needed to make sure that at most one thread at a time handles the
+     * events.
+     */
+    private final class SubscriberQueue {
+
+        private final DomainEventSubscriber<DomainEvent> subscriber;
+        private final BlockingQueue<DomainEvent> queue;
+        private final AtomicBoolean drainScheduled = new AtomicBoolean();
+        private final Lock handlerLock = new ReentrantLock();
+        private final AtomicLong handledEvents = new AtomicLong();
+        private final AtomicLong failedEvents = new AtomicLong();
+        private final AtomicLong droppedEvents = new AtomicLong();
+
+        SubscriberQueue(DomainEventSubscriber<DomainEvent> subscriber) {
+            this.subscriber = subscriber;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+
+        void enqueue(DomainEvent event) {
+            if (!queue.offer(event)) {
+                switch (overflowPolicy) {
+                case BLOCK -> putBlocking(event);
+                case DROP -> {
+                    droppedEvents.incrementAndGet();
+                    return;
+                }
+                case CALLER_RUNS -> helpUntilQueued(event);
+                default -> throw new IllegalStateException("Unknown overflow policy: " + overflowPolicy);
+                }
+            }
+            scheduleDrain();
+        }
+
+        private void putBlocking(DomainEvent event) {
+            try {
+                queue.put(event);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting to queue event for subscriber " + subscriber, e);
+            }
+        }
+
+        private void helpUntilQueued(DomainEvent event) {
+            while (!queue.offer(event)) {
+                handleNext();
+            }
+        }
+
+        private void scheduleDrain() {
+            if (drainScheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    drainScheduled.set(false);
+                    throw e;
+                }
+            }
+        }
+
+        private void drain() {
+            do {
+                while (handleNext()) {
+                    // Keep handling events until the queue is empty
+                }
+                drainScheduled.set(false);
+                // An event may have been queued after the queue was found to be empty but before the flag was cleared, and the
+                // publishing thread would then not have scheduled a new drain, so we check again.
+            } while (!queue.isEmpty() && drainScheduled.compareAndSet(false, true));
+        }
+
+        /**
+         * Takes the next event from the queue and handles it, holding a lock so that events are handled one at a time and in order.
+         *
+         * @return {@code true} if an event was handled, {@code false} if the queue was empty
+         */
+        @SuppressWarnings("PMD.AvoidCatchingGenericException")
+        private boolean handleNext() {
+            handlerLock.lock();
+            try {
+                @Nullable
+                DomainEvent event = queue.poll();
+                if (event == null) {
+                    return false;
+                }
+                try {
+                    subscriber.handleEvent(event);
+                    handledEvents.incrementAndGet();
+                } catch (RuntimeException e) {
+                    failedEvents.incrementAndGet();
+                    LOG.error("Subscriber {} failed to handle event {}", subscriber, removeCRLF(event), e);
+                }
+                return true;
+            } finally {
+                handlerLock.unlock();
+            }
+        }
+
+        SubscriberMetrics metrics() {
+            return new SubscriberMetrics(subscriber, queue.size(), queue.remainingCapacity(), handledEvents.get(), failedEvents.get(),
+                    droppedEvents.get());
+        }
+    }
+}
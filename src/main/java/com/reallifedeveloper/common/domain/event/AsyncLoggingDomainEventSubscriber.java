@@ -0,0 +1,184 @@
+package com.reallifedeveloper.common.domain.event;
+
+import static com.reallifedeveloper.common.domain.LogUtil.removeCRLF;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.reallifedeveloper.common.domain.ErrorHandling;
+
+/**
+ * A {@link DomainEventSubscriber} that logs events using Slf4j without slowing down the publishing thread, suitable for keeping event
+ * logging turned on in production.
+ * <p>
+ * Compared to {@link LoggingDomainEventSubscriber}, this class differs in the following ways:
+ * <ul>
+ * <li>If the log level {@code INFO} is not enabled, events are ignored without doing any work.</li>
+ * <li>Events are rate limited per event type: at most {@code maxEventsPerType} events of each type are logged in each time window of length
+ * {@code window}. The number of events of a type that were suppressed is included in the next log entry for that type, so it is still
+ * possible to see how many events occurred.</li>
+ * <li>The log message is built, and the event is converted to a string, by a thread from the given {@code Executor}, not by the publishing
+ * thread.</li>
+ * <li>The log message is structured, with the event type, time, version and number of suppressed events as key-value pairs before the
+ * event itself.</li>
+ * </ul>
+ * <p>
+ * The {@code Executor} should have a bounded queue. Events that the executor rejects are not logged, but are counted, see
+ * {@link #droppedEvents()}. Note that log entries may be written in a different order than the events were published if the executor uses
+ * more than one thread.
+ *
+ * @author RealLifeDeveloper
+ */
+public final class AsyncLoggingDomainEventSubscriber implements DomainEventSubscriber<DomainEvent> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncLoggingDomainEventSubscriber.class);
+
+    private final Executor executor;
+
+    private final int maxEventsPerType;
+
+    private final long windowNanos;
+
+    private final LongSupplier nanoClock;
+
+    private final ConcurrentMap<Class<?>, RateLimit> rateLimits = new ConcurrentHashMap<>();
+
+    private final LongAdder droppedEvents = new LongAdder();
+
+    /**
+     * Creates a new {@code AsyncLoggingDomainEventSubscriber}.
+     *
+     * @param executor         the {@code Executor} to use to write log entries
+     * @param maxEventsPerType the maximum number of events of each type to log in each time window
+     * @param window           the length of the time window
+     *
+     * @throws IllegalArgumentException if {@code executor} or {@code window} is {@code null}, or if {@code maxEventsPerType} or
+     *                                  {@code window} is not positive
+     */
+    public AsyncLoggingDomainEventSubscriber(Executor executor, int maxEventsPerType, Duration window) {
+        this(executor, maxEventsPerType, window, System::nanoTime);
+    }
+
+    /**
+     * Creates a new {@code AsyncLoggingDomainEventSubscriber} that uses the given source of nanosecond time, which is useful for testing.
+     *
+     * @param executor         the {@code Executor} to use to write log entries
+     * @param maxEventsPerType the maximum number of events of each type to log in each time window
+     * @param window           the length of the time window
+     * @param nanoClock        the source of nanosecond time to use for the time windows
+     *
+     * @throws IllegalArgumentException if {@code executor}, {@code window} or {@code nanoClock} is {@code null}, or if
+     *                                  {@code maxEventsPerType} or {@code window} is not positive
+     */
+    AsyncLoggingDomainEventSubscriber(Executor executor, int maxEventsPerType, Duration window, LongSupplier nanoClock) {
+        ErrorHandling.checkNull("Arguments must not be null: executor=%s, window=%s, nanoClock=%s", executor, window, nanoClock);
+        if (maxEventsPerType <= 0) {
+            throw new IllegalArgumentException("maxEventsPerType must be positive: " + maxEventsPerType);
+        }
+        if (window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("window must be positive: " + window);
+        }
+        this.executor = executor;
+        this.maxEventsPerType = maxEventsPerType;
+        this.windowNanos = window.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    @Override
+    public void handleEvent(DomainEvent event) {
+        if (!LOG.isInfoEnabled()) {
+            return;
+        }
+        RateLimit rateLimit = rateLimits.computeIfAbsent(event.getClass(), eventClass -> new RateLimit());
+        long suppressed = rateLimit.tryAcquire(nanoClock.getAsLong());
+        if (suppressed < 0) {
+            return;
+        }
+        try {
+            executor.execute(() -> log(event, suppressed));
+        } catch (RejectedExecutionException e) {
+            droppedEvents.increment();
+            rateLimit.restoreSuppressed(suppressed);
+        }
+    }
+
+    private static void log(DomainEvent event, long suppressed) {
+        LOG.info("Domain event: type={}, occurredOn={}, version={}, suppressed={}, event={}", event.getClass().getName(),
+                event.eventOccurredOn(), event.eventVersion(), suppressed, removeCRLF(event));
+    }
+
+    @Override
+    public Class<? extends DomainEvent> eventType() {
+        return DomainEvent.class;
+    }
+
+    /**
+     * Gives the number of events that were not logged because the {@code Executor} rejected them.
+     *
+     * @return the number of events rejected by the executor
+     */
+    public long droppedEvents() {
+        return droppedEvents.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncLoggingDomainEventSubscriber{executor=" + executor + ", maxEventsPerType=" + maxEventsPerType + ", window="
+                + Duration.ofNanos(windowNanos) + "}";
+    }
+
+    /**
+     * A fixed-window rate limit for one event type.
+     */
+    private final class RateLimit {
+
+        private long windowStart;
+
+        private boolean started;
+
+        private int count;
+
+        private long suppressed;
+
+        /**
+         * Tries to log one more event in the current time window.
+         *
+         * @param now the current nanosecond time
+         *
+         * @return the number of events suppressed since the last event that was logged, or {@code -1} if this event should be suppressed
+         */
+        synchronized long tryAcquire(long now) {
+            if (!started || now - windowStart >= windowNanos) {
+                started = true;
+                windowStart = now;
+                count = 0;
+            }
+            if (count >= maxEventsPerType) {
+                suppressed++;
+                return -1;
+            }
+            count++;
+            long result = suppressed;
+            suppressed = 0;
+            return result;
+        }
+
+        /**
+         * Adds back a number of suppressed events that were taken by {@link #tryAcquire(long)} but never logged, so that they are
+         * included in the next log entry instead.
+         *
+         * @param count the number of suppressed events to add back
+         */
+        synchronized void restoreSuppressed(long count) {
+            suppressed += count;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.reallifedeveloper.common.domain.event;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.ToLongFunction;
+
+import com.reallifedeveloper.common.domain.ErrorHandling;
+
+/**
+ * A {@link DomainEventSubscriber} that saves the most recent events in memory, bounded by the number of events and optionally by their
+ * estimated size in bytes.
+ * <p>
+ * Unlike {@link EventSavingSubscriber}, which keeps every event it has handled, this class is suitable for long-running environments
+ * where it is useful to inspect recent events, since the memory used is bounded. When the subscriber is full, the oldest events are
+ * discarded to make room for new ones.
+ * <p>
+ * The events are kept in a ring buffer that is updated without locks, so {@link #handleEvent(DomainEvent)} may be called concurrently by
+ * many threads. The query methods return snapshots of the retained events in the order they were handled; events that are being handled
+ * concurrently with a query may or may not be included.
+ * <p>
+ * When a size limit is used, the size of each event is estimated using a function given to the constructor, and the oldest events are
+ * discarded whenever the total estimated size of the retained events exceeds the limit. An event that is larger than the limit on its own
+ * is discarded immediately.
+ *
+ * @author RealLifeDeveloper
+ */
+public final class BoundedEventSavingSubscriber implements DomainEventSubscriber<DomainEvent> {
+
+    private final AtomicReferenceArray<Entry> slots;
+
+    private final int capacity;
+
+    private final long maxBytes;
+
+    private final ToLongFunction<? super DomainEvent> sizeEstimator;
+
+    /**
+     * The sequence number that will be given to the next event handled.
+     */
+    private final AtomicLong nextSequence = new AtomicLong();
+
+    /**
+     * The lowest sequence number that may still be retained. Events with lower sequence numbers have been discarded because of the size
+     * limit, or by {@link #clear()}.
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    private final AtomicLong retainedBytes = new AtomicLong();
+
+    /**
+     * Creates a new {@code BoundedEventSavingSubscriber} that retains at most {@code capacity} events.
+     *
+     * @param capacity the maximum number of events to retain
+     *
+     * @throws IllegalArgumentException if {@code capacity} is not positive
+     */
+    public BoundedEventSavingSubscriber(int capacity) {
+        this(capacity, Long.MAX_VALUE, event -> 0L);
+    }
+
+    /**
+     * Creates a new {@code BoundedEventSavingSubscriber} that retains at most {@code capacity} events, with a total estimated size of at
+     * most {@code maxBytes}.
+     *
+     * @param capacity      the maximum number of events to retain
+     * @param maxBytes      the maximum total estimated size of the retained events
+     * @param sizeEstimator a function giving the estimated size in bytes of an event
+     *
+     * @throws IllegalArgumentException if {@code sizeEstimator} is {@code null}, or if {@code capacity} or {@code maxBytes} is not
+     *                                  positive
+     */
+    public BoundedEventSavingSubscriber(int capacity, long maxBytes, ToLongFunction<? super DomainEvent> sizeEstimator) {
+        ErrorHandling.checkNull("sizeEstimator must not be null", sizeEstimator);
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive: " + maxBytes);
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.capacity = capacity;
+        this.maxBytes = maxBytes;
+        this.sizeEstimator = sizeEstimator;
+    }
+
+    /**
+     * Saves an event, discarding the oldest events if necessary.
+     *
+     * @param event the event to save
+     *
+     * @throws IllegalArgumentException if {@code event} is {@code null}
+     */
+    @Override
+    public void handleEvent(DomainEvent event) {
+        ErrorHandling.checkNull("event must not be null", event);
+        long size = sizeEstimator.applyAsLong(event);
+        long sequence = nextSequence.getAndIncrement();
+        Entry entry = new Entry(sequence, event, size);
+        int index = index(sequence);
+        while (true) {
+            Entry current = slots.get(index);
+            if (current != null && current.sequence > sequence) {
+                // Another thread has already wrapped around the ring buffer and stored a newer event in the slot.
+                return;
+            }
+            if (slots.compareAndSet(index, current, entry)) {
+                retainedBytes.addAndGet(current == null ? size : size - current.size);
+                break;
+            }
+        }
+        if (sequence < head.get()) {
+            // The event was discarded by another thread before it was stored, so make sure it is not counted.
+            discard(index, entry);
+        }
+        if (retainedBytes.get() > maxBytes) {
+            discardOldestUntilWithinSizeLimit();
+        }
+    }
+
+    private void discardOldestUntilWithinSizeLimit() {
+        while (retainedBytes.get() > maxBytes) {
+            long currentHead = head.get();
+            long next = nextSequence.get();
+            long oldest = Math.max(currentHead, next - capacity);
+            if (oldest >= next) {
+                return;
+            }
+            if (head.compareAndSet(currentHead, oldest + 1)) {
+                int index = index(oldest);
+                Entry entry = slots.get(index);
+                if (entry != null && entry.sequence == oldest) {
+                    discard(index, entry);
+                }
+            }
+        }
+    }
+
+    private void discard(int index, Entry entry) {
+        if (slots.compareAndSet(index, entry, null)) {
+            retainedBytes.addAndGet(-entry.size);
+        }
+    }
+
+    @Override
+    public Class<? extends DomainEvent> eventType() {
+        return DomainEvent.class;
+    }
+
+    /**
+     * Gives a snapshot of the retained events, oldest first.
+     *
+     * @return a list of the retained events
+     */
+    public List<DomainEvent> events() {
+        return events(DomainEvent.class);
+    }
+
+    /**
+     * Gives a snapshot of the retained events of a given type, including subclasses, oldest first.
+     *
+     * @param <T>       the type of events
+     * @param eventType the class of events to return
+     *
+     * @return a list of the retained events of type {@code eventType}
+     *
+     * @throws IllegalArgumentException if {@code eventType} is {@code null}
+     */
+    public <T extends DomainEvent> List<T> events(Class<T> eventType) {
+        ErrorHandling.checkNull("eventType must not be null", eventType);
+        List<T> result = new ArrayList<>();
+        long next = nextSequence.get();
+        for (long sequence = lowestRetainedSequence(next); sequence < next; sequence++) {
+            Entry entry = slots.get(index(sequence));
+            if (entry != null && entry.sequence == sequence && eventType.isInstance(entry.event)) {
+                result.add(eventType.cast(entry.event));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gives a snapshot of the retained events of a given type, including subclasses, that occurred in a given time range, oldest first.
+     *
+     * @param <T>       the type of events
+     * @param eventType the class of events to return
+     * @param from      the start of the time range, inclusive
+     * @param to        the end of the time range, exclusive
+     *
+     * @return a list of the retained events of type {@code eventType} that occurred in the time range
+     *
+     * @throws IllegalArgumentException if any argument is {@code null}
+     */
+    public <T extends DomainEvent> List<T> events(Class<T> eventType, ZonedDateTime from, ZonedDateTime to) {
+        ErrorHandling.checkNull("Arguments must not be null: eventType=%s, from=%s, to=%s", eventType, from, to);
+        List<T> result = new ArrayList<>();
+        for (T event : events(eventType)) {
+            ZonedDateTime occurredOn = event.eventOccurredOn();
+            if (!occurredOn.isBefore(from) && occurredOn.isBefore(to)) {
+                result.add(event);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gives the number of retained events.
+     *
+     * @return the number of retained events
+     */
+    public int size() {
+        int size = 0;
+        long next = nextSequence.get();
+        for (long sequence = lowestRetainedSequence(next); sequence < next; sequence++) {
+            Entry entry = slots.get(index(sequence));
+            if (entry != null && entry.sequence == sequence) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Gives the total estimated size in bytes of the retained events.
+     *
+     * @return the total estimated size of the retained events
+     */
+    public long retainedBytes() {
+        return retainedBytes.get();
+    }
+
+    /**
+     * Removes all events handled so far. Events handled concurrently with this method may or may not be removed.
+     */
+    public void clear() {
+        long next = nextSequence.get();
+        long currentHead = head.get();
+        while (currentHead < next && !head.compareAndSet(currentHead, next)) {
+            currentHead = head.get();
+        }
+        for (int index = 0; index < capacity; index++) {
+            Entry entry = slots.get(index);
+            if (entry != null && entry.sequence < next) {
+                discard(index, entry);
+            }
+        }
+    }
+
+    private long lowestRetainedSequence(long next) {
+        return Math.max(head.get(), next - capacity);
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence % capacity);
+    }
+
+    @Override
+    public String toString() {
+        return "BoundedEventSavingSubscriber{capacity=" + capacity + ", maxBytes=" + maxBytes + ", retainedBytes=" + retainedBytes
+                + "}";
+    }
+
+    /**
+     * An event in the ring buffer, together with its sequence number and estimated size.
+     */
+    private record Entry(long sequence, DomainEvent event, long size) {
+    }
+}
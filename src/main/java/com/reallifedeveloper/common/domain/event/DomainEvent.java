@@ -2,6 +2,8 @@ package com.reallifedeveloper.common.domain.event;
 
 import java.time.ZonedDateTime;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
+
 import com.reallifedeveloper.common.domain.DomainObject;
 
 /**
@@ -18,6 +20,18 @@ public interface DomainEvent extends DomainObject<DomainEvent> {
      */
     ZonedDateTime eventOccurredOn();
 
+    /**
+     * Gives the time the event occurred as the number of milliseconds since the epoch, 1970-01-01T00:00:00Z.
+     * <p>
+     * This is a cheaper representation than {@link #eventOccurredOn()} for comparing and indexing events by time. The default
+     * implementation converts {@code eventOccurredOn()} on every call, which is cheap and keeps events from carrying an extra field.
+     *
+     * @return the number of milliseconds since the epoch when the event occurred
+     */
+    default long eventOccurredOnEpochMillis() {
+        return eventOccurredOn().toInstant().toEpochMilli();
+    }
+
     /**
      * Gives the version of this event. This is useful when deserializing an event.
      * <p>
@@ -28,4 +42,16 @@ public interface DomainEvent extends DomainObject<DomainEvent> {
      */
     int eventVersion();
 
+    /**
+     * Gives the key of the stream this event belongs to, e.g., the ID of the aggregate or tenant the event is about.
+     * <p>
+     * Events with the same stream key are given consecutive sequence numbers when stored, and can be read and published per stream. The
+     * default implementation returns {@code null}, meaning that the event only belongs to the global sequence of events.
+     *
+     * @return the stream key, or {@code null} if this event does not belong to a stream
+     */
+    default @Nullable String eventStreamKey() {
+        return null;
+    }
+
 }
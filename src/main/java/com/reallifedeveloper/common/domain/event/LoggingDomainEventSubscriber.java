@@ -7,6 +7,9 @@ import org.slf4j.LoggerFactory;
 
 /**
  * A {@link DomainEventSubscriber} that logs all events using Slf4j.
+ * <p>
+ * Events are logged synchronously by the publishing thread. See {@link AsyncLoggingDomainEventSubscriber} for a subscriber that is
+ * better suited for high event rates.
  *
  * @author RealLifeDeveloper
  */
@@ -16,7 +19,9 @@ public class LoggingDomainEventSubscriber implements DomainEventSubscriber<Domai
 
     @Override
     public void handleEvent(DomainEvent event) {
-        LOG.info(removeCRLF(event));
+        if (LOG.isInfoEnabled()) {
+            LOG.info(removeCRLF(event));
+        }
     }
 
     @Override
@@ -0,0 +1,397 @@
+package com.reallifedeveloper.common.domain.event;
+
+import static com.reallifedeveloper.common.domain.LogUtil.removeCRLF;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+import com.reallifedeveloper.common.domain.ErrorHandling;
+
+/**
+ * A high-throughput publisher of domain events for in-process fan-out, backed by a preallocated ring buffer.
+ * <p>
+ * Any number of threads may publish events. Publishing claims the next slot in the ring buffer using a single atomic increment, stores
+ * the event in the slot and marks the slot as published; no locks are taken and no objects are allocated. Each subscriber has its own
+ * consumer thread that follows the producers around the ring buffer, handling all events that have been published since it last looked
+ * as one batch, and only then making its progress visible to the producers. Subscribers that implement {@link EndOfBatchListener} are
+ * notified when a batch is done, which is a good place to flush work that is more efficient to do in bulk.
+ * <p>
+ * When the ring buffer is full, i.e., when the slowest subscriber is a whole buffer behind, publishing threads wait for it to catch up.
+ * How threads wait, both producers waiting for room and consumers waiting for events, is decided by the {@link WaitStrategy}.
+ * <p>
+ * Each subscriber sees events in the order they were published. Events of types that a subscriber does not handle are skipped. If a
+ * subscriber throws a {@code RuntimeException}, either when handling an event or at the end of a batch, the exception is logged and the
+ * subscriber continues with the next event. If the consumer thread of a subscriber dies anyway, e.g., because of an {@code Error}, the
+ * subscriber is no longer taken into account when deciding if there is room in the ring buffer, so that producers are not blocked
+ * forever; that subscriber does not see any more events.
+ * <p>
+ * All subscribers must be registered before the publisher is {@link #start() started}. A started publisher should be {@link #close()
+ * closed} when no longer needed, which lets the subscribers finish handling all published events and then stops the consumer threads.
+ * Events should not be published concurrently with closing the publisher.
+ * <p>
+ * Note that the ring buffer keeps references to the most recently published events, up to the size of the buffer, until they are
+ * overwritten.
+ *
+ * @author RealLifeDeveloper
+ */
+public final class RingBufferDomainEventPublisher implements DomainEventPublisher, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RingBufferDomainEventPublisher.class);
+
+    private static final long INITIAL_SEQUENCE = -1L;
+
+    /**
+     * The sequence number of a consumer whose thread has died, which makes producers ignore the consumer when waiting for room.
+     */
+    private static final long FAILED_SEQUENCE = Long.MAX_VALUE;
+
+    private final DomainEvent[] slots;
+
+    /**
+     * For each slot, the sequence number of the event most recently published in it. A consumer knows that the event with sequence
+     * number {@code s} is available when {@code published[s & mask] == s}.
+     */
+    private final AtomicLongArray published;
+
+    private final int mask;
+
+    /**
+     * The next sequence number to be claimed by a producer.
+     */
+    private final AtomicLong nextSequence = new AtomicLong();
+
+    /**
+     * A cached value of the lowest sequence number handled by all consumers, so that producers do not have to look at every consumer
+     * for every event.
+     */
+    private final AtomicLong gatingSequenceCache = new AtomicLong(INITIAL_SEQUENCE);
+
+    private final List<Consumer> consumers = new ArrayList<>();
+
+    private final List<Thread> consumerThreads = new ArrayList<>();
+
+    private final WaitStrategy waitStrategy;
+
+    private final ThreadFactory threadFactory;
+
+    private volatile State state = State.CREATED;
+
+    /**
+     * Creates a new {@code RingBufferDomainEventPublisher} with no subscribers registered.
+     *
+     * @param bufferSize    the number of slots in the ring buffer, must be a power of two
+     * @param waitStrategy  how producers and consumers should wait
+     * @param threadFactory the {@code ThreadFactory} used to create one consumer thread per subscriber
+     *
+     * @throws IllegalArgumentException if {@code waitStrategy} or {@code threadFactory} is {@code null}, or if {@code bufferSize} is not
+     *                                  a positive power of two
+     */
+    public RingBufferDomainEventPublisher(int bufferSize, WaitStrategy waitStrategy, ThreadFactory threadFactory) {
+        ErrorHandling.checkNull("Arguments must not be null: waitStrategy=%s, threadFactory=%s", waitStrategy, threadFactory);
+        if (bufferSize <= 0 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("bufferSize must be a positive power of two: " + bufferSize);
+        }
+        this.slots = new DomainEvent[bufferSize];
+        this.published = new AtomicLongArray(bufferSize);
+        for (int i = 0; i < bufferSize; i++) {
+            published.set(i, INITIAL_SEQUENCE);
+        }
+        this.mask = bufferSize - 1;
+        this.waitStrategy = waitStrategy;
+        this.threadFactory = threadFactory;
+    }
+
+    /**
+     * Publishes a domain event, i.e., puts it in the ring buffer so that the consumer threads of the subscribers can handle it. If the
+     * ring buffer is full, this method waits until the slowest subscriber has made room.
+     *
+     * @param event the domain event to publish
+     *
+     * @throws IllegalArgumentException if {@code event} is {@code null}
+     * @throws IllegalStateException    if the publisher has not been started, or has been closed
+     */
+    @Override
+    public void publish(DomainEvent event) {
+        ErrorHandling.checkNull("event must not be null", event);
+        if (state != State.STARTED) {
+            throw new IllegalStateException("Publisher is not started: state=" + state);
+        }
+        long sequence = nextSequence.getAndIncrement();
+        waitForRoom(sequence);
+        int index = (int) sequence & mask;
+        slots[index] = event;
+        published.setRelease(index, sequence);
+    }
+
+    private void waitForRoom(long sequence) {
+        long wrapPoint = sequence - slots.length;
+        if (wrapPoint <= gatingSequenceCache.get()) {
+            return;
+        }
+        int counter = 0;
+        long gatingSequence = minimumConsumerSequence();
+        while (wrapPoint > gatingSequence) {
+            counter = waitStrategy.idle(counter);
+            gatingSequence = minimumConsumerSequence();
+        }
+        gatingSequenceCache.set(gatingSequence);
+    }
+
+    private long minimumConsumerSequence() {
+        long minimum = Long.MAX_VALUE;
+        for (Consumer consumer : consumers) {
+            minimum = Math.min(minimum, consumer.sequence.get());
+        }
+        return minimum == Long.MAX_VALUE ? nextSequence.get() - 1 : minimum;
+    }
+
+    /**
+     * Registers an event handler with this publisher. Subscribers can only be registered before the publisher is started.
+     *
+     * @param subscriber the event handler to register
+     *
+     * @throws IllegalArgumentException if {@code subscriber} is {@code null}
+     * @throws IllegalStateException    if the publisher has already been started
+     */
+    @Override
+    public void subscribe(DomainEventSubscriber<? extends DomainEvent> subscriber) {
+        ErrorHandling.checkNull("subscriber must not be null", subscriber);
+        synchronized (consumers) {
+            if (state != State.CREATED) {
+                throw new IllegalStateException("Subscribers must be registered before the publisher is started: state=" + state);
+            }
+            @SuppressWarnings("unchecked")
+            DomainEventSubscriber<DomainEvent> s = (DomainEventSubscriber<DomainEvent>) subscriber;
+            consumers.add(new Consumer(s));
+        }
+    }
+
+    /**
+     * Starts one consumer thread for each registered subscriber. Events can only be published after the publisher has been started.
+     *
+     * @throws IllegalStateException if the publisher has already been started
+     */
+    public void start() {
+        synchronized (consumers) {
+            if (state != State.CREATED) {
+                throw new IllegalStateException("Publisher has already been started: state=" + state);
+            }
+            for (Consumer consumer : consumers) {
+                consumerThreads.add(threadFactory.newThread(consumer));
+            }
+            state = State.STARTED;
+            consumerThreads.forEach(Thread::start);
+        }
+    }
+
+    /**
+     * Closes this publisher, waiting for all subscribers to handle the events that have already been published, and then stopping the
+     * consumer threads. Calling this method more than once has no effect.
+     */
+    @Override
+    @SuppressFBWarnings(value = "CRLF_INJECTION_LOGS", justification = "Logging only of objects, not user data")
+    public void close() {
+        synchronized (consumers) {
+            if (state != State.STARTED) {
+                state = State.CLOSED;
+                return;
+            }
+            state = State.CLOSED;
+        }
+        for (Thread consumerThread : consumerThreads) {
+            try {
+                consumerThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LOG.warn("Interrupted while waiting for consumer thread to finish: {}", consumerThread);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gives the number of events that have been published but not yet handled by the slowest subscriber.
+     *
+     * @return the number of events that the slowest subscriber lags behind the producers
+     */
+    public long backlog() {
+        return Math.max(0L, nextSequence.get() - 1 - minimumConsumerSequence());
+    }
+
+    @Override
+    public String toString() {
+        return "RingBufferDomainEventPublisher{bufferSize=" + slots.length + ", waitStrategy=" + waitStrategy + ", subscribers="
+                + consumers.size() + ", state=" + state + "}";
+    }
+
+    /**
+     * An optional interface for subscribers that want to know when a batch of events has been handled.
+     */
+    @FunctionalInterface
+    public interface EndOfBatchListener {
+
+        /**
+         * Called by the consumer thread after a batch of events has been handled, before waiting for more events.
+         */
+        void endOfBatch();
+    }
+
+    /**
+     * How threads wait for a condition that is expected to become true soon: for a consumer, that more events are published, and for a
+     * producer, that there is room in the ring buffer.
+     */
+    public enum WaitStrategy {
+        /**
+         * Spins, giving the lowest latency at the cost of keeping a CPU core busy. Only suitable when there are more cores than busy
+         * threads.
+         */
+        BUSY_SPIN {
+            @Override
+            int idle(int counter) {
+                Thread.onSpinWait();
+                return counter + 1;
+            }
+        },
+
+        /**
+         * Spins for a while and then yields the CPU to other threads, a compromise between latency and CPU usage.
+         */
+        YIELDING {
+            @Override
+            int idle(int counter) {
+                if (counter < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+                return counter + 1;
+            }
+        },
+
+        /**
+         * Spins, then yields, and finally parks the thread for short periods, giving low CPU usage when idle at the cost of higher
+         * latency.
+         */
+        SLEEPING {
+            @Override
+            int idle(int counter) {
+                if (counter < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else if (counter < SPIN_TRIES + YIELD_TRIES) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(PARK_NANOS);
+                }
+                return counter + 1;
+            }
+        };
+
+        private static final int SPIN_TRIES = 100;
+        private static final int YIELD_TRIES = 100;
+        private static final long PARK_NANOS = 100_000L;
+
+        /**
+         * Waits a little while.
+         *
+         * @param counter the number of times this method has been called while waiting for the current condition
+         *
+         * @return the new value of the counter
+         */
+        abstract int idle(int counter);
+    }
+
+    private enum State {
+        CREATED, STARTED, CLOSED
+    }
+
+    /**
+     * The consumer of events for one subscriber, running in its own thread.
+     */
+    private final class Consumer implements Runnable {
+
+        private final DomainEventSubscriber<DomainEvent> subscriber;
+
+        /**
+         * The sequence number of the last event handled by this consumer.
+         */
+        private final AtomicLong sequence = new AtomicLong(INITIAL_SEQUENCE);
+
+        Consumer(DomainEventSubscriber<DomainEvent> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        @SuppressFBWarnings(value = "CRLF_INJECTION_LOGS", justification = "Logging only of objects, not user data")
+        public void run() {
+            boolean finished = false;
+            try {
+                consumeEvents();
+                finished = true;
+            } finally {
+                if (!finished) {
+                    sequence.setRelease(FAILED_SEQUENCE);
+                    LOG.error("Consumer thread for subscriber {} died, the subscriber will not see any more events", subscriber);
+                }
+            }
+        }
+
+        private void consumeEvents() {
+            long next = sequence.get() + 1;
+            int counter = 0;
+            while (state == State.STARTED || next < nextSequence.get()) {
+                long available = highestPublishedSequence(next);
+                if (available < next) {
+                    counter = waitStrategy.idle(counter);
+                    continue;
+                }
+                counter = 0;
+                for (long s = next; s <= available; s++) {
+                    handle(slots[(int) s & mask]);
+                }
+                endOfBatch();
+                sequence.setRelease(available);
+                next = available + 1;
+            }
+        }
+
+        private long highestPublishedSequence(long first) {
+            long s = first;
+            while (published.getAcquire((int) s & mask) == s) {
+                s++;
+            }
+            return s - 1;
+        }
+
+        @SuppressWarnings("PMD.AvoidCatchingGenericException")
+        private void handle(DomainEvent event) {
+            if (subscriber.eventType().isAssignableFrom(event.getClass())) {
+                try {
+                    subscriber.handleEvent(event);
+                } catch (RuntimeException e) {
+                    LOG.error("Subscriber {} failed to handle event {}", subscriber, removeCRLF(event), e);
+                }
+            }
+        }
+
+        @SuppressWarnings("PMD.AvoidCatchingGenericException")
+        @SuppressFBWarnings(value = "CRLF_INJECTION_LOGS", justification = "Logging only of objects, not user data")
+        private void endOfBatch() {
+            if (subscriber instanceof EndOfBatchListener listener) {
+                try {
+                    listener.endOfBatch();
+                } catch (RuntimeException e) {
+                    LOG.error("Subscriber {} failed at the end of a batch", subscriber, e);
+                }
+            }
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package com.reallifedeveloper.common.domain.event;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * A publisher of domain events that holds subscribers in a list. Publishing is handled
@@ -32,12 +32,18 @@ import java.util.List;
  * Used this way in a normal enterprise application, several threads may call the
  * {@link #publish(DomainEvent)} method simultaneously, so the subscribers should
  * be thread safe.
+ * <p>
+ * The subscribers are held in a copy-on-write list, so {@link #subscribe(DomainEventSubscriber)} and
+ * {@link #unsubscribe(DomainEventSubscriber)} may be called while other threads are publishing. Publishing
+ * does not lock; each call to {@link #publish(DomainEvent)} iterates over a snapshot of the subscribers
+ * that were registered when the call started. Registering and unregistering subscribers is comparatively
+ * expensive, which is fine since it is expected to be rare compared to publishing.
  *
  * @author RealLifeDeveloper
  */
 public final class SimpleDomainEventPublisher implements DomainEventPublisher {
 
-    private List<DomainEventSubscriber<? extends DomainEvent>> subscribers = new ArrayList<>();
+    private final List<DomainEventSubscriber<? extends DomainEvent>> subscribers = new CopyOnWriteArrayList<>();
 
     /**
      * Creates a new {@code SimpleDomainEventPublisher} with no subscribers registered.
@@ -59,7 +65,7 @@ public final class SimpleDomainEventPublisher implements DomainEventPublisher {
         if (subscribers == null) {
             throw new IllegalArgumentException("subscribers must not be null");
         }
-        this.subscribers = new ArrayList<>(subscribers);
+        this.subscribers.addAll(subscribers);
     }
 
     /**
@@ -97,4 +103,20 @@ public final class SimpleDomainEventPublisher implements DomainEventPublisher {
         subscribers.add(subscriber);
     }
 
+    /**
+     * Unregisters an event handler from this publisher, so that it will not be notified about events
+     * published after this method returns. If the handler has been registered more than once, only the
+     * first registration is removed.
+     *
+     * @param subscriber the event handler to unregister
+     * @return {@code true} if {@code subscriber} was registered with this publisher, {@code false} otherwise
+     * @throws IllegalArgumentException if {@code subscriber} is {@code null}
+     */
+    public boolean unsubscribe(DomainEventSubscriber<? extends DomainEvent> subscriber) {
+        if (subscriber == null) {
+            throw new IllegalArgumentException("subscriber must not be null");
+        }
+        return subscribers.remove(subscriber);
+    }
+
 }
@@ -23,9 +23,11 @@ import java.util.List;
  */
 public class ThreadLocalDomainEventPublisher implements DomainEventPublisher {
 
-    private static ThreadLocal<List<DomainEventSubscriber<DomainEvent>>> subscribers = ThreadLocal.withInitial(ArrayList::new);
-
-    private static ThreadLocal<Boolean> publishing = ThreadLocal.withInitial(() -> false);
+    /**
+     * The subscribers and publishing flag of the current thread. A thread that has never subscribed, or that has been reset, has no
+     * entry at all, so short-lived threads that only publish do not allocate anything.
+     */
+    private static final ThreadLocal<PublishingState> STATE = new ThreadLocal<>();
 
     /**
      * Registers an event handler with this publisher.
@@ -36,10 +38,15 @@ public class ThreadLocalDomainEventPublisher implements DomainEventPublisher {
      */
     @Override
     public void subscribe(DomainEventSubscriber<? extends DomainEvent> subscriber) {
-        checkPublishing();
+        PublishingState state = STATE.get();
+        if (state == null) {
+            state = new PublishingState();
+            STATE.set(state);
+        }
+        state.checkPublishing();
         @SuppressWarnings("unchecked")
         DomainEventSubscriber<DomainEvent> s = (DomainEventSubscriber<DomainEvent>) subscriber;
-        subscribers().add(s);
+        state.subscribers.add(s);
     }
 
     /**
@@ -52,37 +59,53 @@ public class ThreadLocalDomainEventPublisher implements DomainEventPublisher {
      */
     @Override
     public void publish(DomainEvent event) {
-        checkPublishing();
+        PublishingState state = STATE.get();
+        if (state == null) {
+            return;
+        }
+        state.checkPublishing();
         try {
-            publishing.set(true);
-            for (DomainEventSubscriber<DomainEvent> subscriber : subscribers()) {
+            state.publishing = true;
+            for (DomainEventSubscriber<DomainEvent> subscriber : state.subscribers) {
                 if (subscriber.eventType().isAssignableFrom(event.getClass())) {
                     subscriber.handleEvent(event);
                 }
             }
         } finally {
-            publishing.set(false);
+            state.publishing = false;
         }
     }
 
     /**
      * Removes all subscribers. Since subscribers are stored on a per-thread basis, and since threads may be reused, this method should be
      * called when starting to handle a new request.
+     * <p>
+     * This also removes the thread-local entry of the current thread, so it is a good idea to call this method when the request has been
+     * handled as well.
      *
      * @throws IllegalStateException if called while publishing events
      */
     public void reset() {
-        checkPublishing();
-        subscribers().clear();
+        PublishingState state = STATE.get();
+        if (state != null) {
+            state.checkPublishing();
+            STATE.remove();
+        }
     }
 
-    private List<DomainEventSubscriber<DomainEvent>> subscribers() {
-        return subscribers.get();
-    }
+    /**
+     * The per-thread state of the publisher. It is only ever accessed by its own thread, so no synchronization is needed.
+     */
+    private static final class PublishingState {
 
-    private void checkPublishing() {
-        if (publishing.get()) {
-            throw new IllegalStateException("Method should not be called while publishing events");
+        private final List<DomainEventSubscriber<DomainEvent>> subscribers = new ArrayList<>();
+
+        private boolean publishing;
+
+        void checkPublishing() {
+            if (publishing) {
+                throw new IllegalStateException("Method should not be called while publishing events");
+            }
         }
     }
 }
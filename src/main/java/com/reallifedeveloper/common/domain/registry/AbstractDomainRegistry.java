@@ -1,9 +1,10 @@
 package com.reallifedeveloper.common.domain.registry;
 
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
+import org.springframework.beans.factory.config.NamedBeanHolder;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 
@@ -12,14 +13,20 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 /**
  * Base class for Spring-based domain registries. A domain registry is conceptually a singleton and should only be used when dependency
  * injection cannot be used, e.g., in entities or value objects.
+ * <p>
+ * Singleton beans that have been looked up are cached, so that repeated lookups, e.g., every time an entity publishes a domain event, do
+ * not have to go through the application context. The cache is discarded when a new application context is set. Beans with other scopes,
+ * e.g., prototype or request scope, are never cached, so they are looked up in the application context every time.
  *
  * @author RealLifeDeveloper
  */
 public abstract class AbstractDomainRegistry implements ApplicationContextAware {
 
-    private static final Lock CLASS_LOCK = new ReentrantLock();
-
-    private static @Nullable ApplicationContext applicationContext;
+    /**
+     * The current application context together with the beans looked up from it. The whole object is replaced when the application context
+     * is set, so readers never see a cache that belongs to another application context, and no locking is needed.
+     */
+    private static volatile @Nullable BeanCache beanCache;
 
     /**
      * Looks up the Spring bean of the given type. This method never returns {@code null}; if the bean cannot be found, an exception is
@@ -31,20 +38,47 @@ public abstract class AbstractDomainRegistry implements ApplicationContextAware
      * @return the Spring bean, never {@code null}
      */
     protected static <T> T getBean(Class<T> beanType) {
-        if (applicationContext == null) {
+        BeanCache cache = beanCache;
+        if (cache == null) {
             throw new IllegalStateException("DomainRegistry has not been initialized");
         }
-        return applicationContext.getBean(beanType);
+        return cache.getBean(beanType);
     }
 
     @Override
-    @SuppressFBWarnings(value = "ST_WRITE_TO_STATIC_FROM_INSTANCE_METHOD", justification = "We handle concurrency issues with a lock")
+    @SuppressFBWarnings(value = "ST_WRITE_TO_STATIC_FROM_INSTANCE_METHOD", justification = "The field is volatile and written atomically")
     public void setApplicationContext(ApplicationContext applicationContext) {
-        CLASS_LOCK.lock();
-        try {
-            AbstractDomainRegistry.applicationContext = applicationContext;
-        } finally {
-            CLASS_LOCK.unlock();
+        AbstractDomainRegistry.beanCache = applicationContext == null ? null : new BeanCache(applicationContext);
+    }
+
+    /**
+     * An application context and the beans that have been looked up from it.
+     */
+    private static final class BeanCache {
+
+        private final ApplicationContext applicationContext;
+
+        private final ConcurrentMap<Class<?>, Object> beans = new ConcurrentHashMap<>();
+
+        BeanCache(ApplicationContext applicationContext) {
+            this.applicationContext = applicationContext;
+        }
+
+        /**
+         * Gives the bean of the given type, looking it up in the application context if it has not been cached. The bean is resolved
+         * the same way as by {@link ApplicationContext#getBean(Class)}, e.g., choosing the primary bean if there is more than one, and
+         * is only cached if it is a singleton.
+         */
+        <T> T getBean(Class<T> beanType) {
+            Object bean = beans.get(beanType);
+            if (bean != null) {
+                return beanType.cast(bean);
+            }
+            NamedBeanHolder<T> namedBean = applicationContext.getAutowireCapableBeanFactory().resolveNamedBean(beanType);
+            if (applicationContext.isSingleton(namedBean.getBeanName())) {
+                beans.putIfAbsent(beanType, namedBean.getBeanInstance());
+            }
+            return namedBean.getBeanInstance();
         }
     }
 }
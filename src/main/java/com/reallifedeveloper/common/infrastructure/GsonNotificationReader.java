@@ -2,11 +2,14 @@ package com.reallifedeveloper.common.infrastructure;
 
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
@@ -40,22 +43,53 @@ public final class GsonNotificationReader implements NotificationReader {
      * @throws IllegalArgumentException if {@code jsonNotification} is {@code null} or not a valid JSON object
      */
     public GsonNotificationReader(String jsonNotification) {
-        ErrorHandling.checkNull("jsonNotification must not be null", jsonNotification);
-        try {
-            JsonElement element = JsonParser.parseString(jsonNotification);
-            if (!element.isJsonObject()) {
-                throw new IllegalArgumentException("Not a JSON object: " + jsonNotification);
-            }
-            this.notification = element.getAsJsonObject();
-        } catch (JsonParseException e) {
-            throw new IllegalArgumentException("Not legal JSON: " + jsonNotification, e);
+        this(parse(jsonNotification), jsonNotification);
+    }
+
+    private GsonNotificationReader(JsonElement element, String jsonNotification) {
+        if (!element.isJsonObject()) {
+            throw new IllegalArgumentException("Not a JSON object: " + jsonNotification);
         }
+        this.notification = element.getAsJsonObject();
         if (JsonUtil.isNull(notification.get("event"))) {
             throw new IllegalArgumentException("event not found in JSON string: " + jsonNotification);
         }
         this.event = notification.get("event").getAsJsonObject();
     }
 
+    /**
+     * Gives readers for all notifications in a JSON message, which is either a single JSON-serialized notification or a batch of
+     * notifications serialized as a JSON array, as published by the publishers in
+     * {@link com.reallifedeveloper.common.infrastructure.messaging} when batching is enabled.
+     *
+     * @param jsonMessage the JSON representation of a notification or of an array of notifications
+     *
+     * @return a list of {@code NotificationReaders}, one for each notification in {@code jsonMessage}, in the order they were published
+     *
+     * @throws IllegalArgumentException if {@code jsonMessage} is {@code null}, not valid JSON, or does not contain notifications
+     */
+    public static List<NotificationReader> readAll(String jsonMessage) {
+        JsonElement element = parse(jsonMessage);
+        if (!element.isJsonArray()) {
+            return List.of(new GsonNotificationReader(element, jsonMessage));
+        }
+        JsonArray array = element.getAsJsonArray();
+        List<NotificationReader> readers = new ArrayList<>(array.size());
+        for (JsonElement notificationElement : array) {
+            readers.add(new GsonNotificationReader(notificationElement, notificationElement.toString()));
+        }
+        return readers;
+    }
+
+    private static JsonElement parse(String json) {
+        ErrorHandling.checkNull("jsonNotification must not be null", json);
+        try {
+            return JsonParser.parseString(json);
+        } catch (JsonParseException e) {
+            throw new IllegalArgumentException("Not legal JSON: " + json, e);
+        }
+    }
+
     @Override
     @SuppressWarnings("NullAway") // required=true => nonnull result
     public String eventType() {
@@ -1,6 +1,6 @@
 package com.reallifedeveloper.common.infrastructure;
 
-import static com.reallifedeveloper.common.domain.LogUtil.removeCRLF;
+import static com.reallifedeveloper.common.domain.LogUtil.lazyRemoveCRLF;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -27,7 +27,7 @@ public final class Markdown4jHtmlProducer implements HtmlProducer {
 
     @Override
     public String produce(String resourceName) throws IOException {
-        LOG.trace("produce: resourceName={}", removeCRLF(resourceName));
+        LOG.trace("produce: resourceName={}", lazyRemoveCRLF(resourceName));
         if (resourceName == null) {
             throw new IllegalArgumentException("resourceName must not be null");
         }
@@ -36,7 +36,7 @@ public final class Markdown4jHtmlProducer implements HtmlProducer {
                 throw new FileNotFoundException("Resource not found: " + resourceName);
             }
             String html = "<html>" + markdownProcessor.process(in) + "</html>";
-            LOG.trace("produce: {}", removeCRLF(html));
+            LOG.trace("produce: {}", lazyRemoveCRLF(html));
             return html;
         }
     }
@@ -0,0 +1,541 @@
+package com.reallifedeveloper.common.infrastructure.eventstore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Predicate;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.reallifedeveloper.common.application.eventstore.StoredEvent;
+import com.reallifedeveloper.common.application.eventstore.StoredEventRepository;
+import com.reallifedeveloper.common.domain.ErrorHandling;
+
+/**
+ * A {@link StoredEventRepository} that keeps {@link StoredEvent StoredEvents} in memory, in ID order, suitable for production use, e.g.,
+ * as a cache of recent events in front of a database, as well as for testing.
+ * <p>
+ * The events are kept in fixed-size chunks of arrays. Finding an event by ID is a binary search among the chunks followed by a binary
+ * search within a chunk, so reads by ID range take {@code O(log n)} time to find the first event, and then read the following events
+ * sequentially. Reading events by type and time, {@link #eventsOfTypesBetween(Collection, long, long, long, int)}, scans all events after
+ * the given ID. For each stream, the events in the stream are also kept in an index sorted by sequence number, so reading the events of a
+ * stream, {@link #streamEventsAfter(String, long, int)}, is a binary search in the index of the stream followed by a sequential read.
+ * The index of a stream, with its last sequence number, is kept also when all events in the stream have been evicted.
+ * <p>
+ * {@code StoredEvents} without IDs are given IDs by this repository, one greater than the ID of the most recently saved event. Events that
+ * already have IDs, e.g., events that have been saved in another repository, are kept with their IDs, which must be greater than the ID
+ * of the most recently saved event. Mixing the two is possible, and gaps in the IDs are allowed. In the same way, the stream sequence
+ * number of an event that belongs to a stream must be greater than that of the most recently saved event in the stream.
+ * <p>
+ * Optionally, the number of events kept can be limited. When the limit is exceeded, the oldest chunks are evicted, so the number of events
+ * kept after an eviction is between {@code maxEvents - chunkSize} and {@code maxEvents}. Evicted events are simply no longer found; use
+ * {@link #firstStoredEventId()} to find out which events are available. Old events can also be deleted explicitly, using
+ * {@link #deleteEventsUpTo(long)} or {@link #deleteEvents(List)}, e.g., when they have been moved to a
+ * {@link com.reallifedeveloper.common.application.eventstore.StoredEventArchive}.
+ * <p>
+ * The repository is thread-safe. Saves are serialized using a short critical section, while reads do not lock and may run concurrently
+ * with each other and with saves.
+ *
+ * @author RealLifeDeveloper
+ */
+public final class ChunkedInMemoryStoredEventRepository implements StoredEventRepository {
+
+    /**
+     * The number of events in each chunk, if no other value is given to the constructor.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+    private final int chunkSize;
+
+    private final long maxEvents;
+
+    private final Object writeLock = new Object();
+
+    /**
+     * The chunks, oldest first. The array is replaced, never changed, when chunks are added or evicted.
+     */
+    private volatile Chunk[] chunks = new Chunk[0];
+
+    private volatile long lastStoredEventId;
+
+    /**
+     * The index of each stream, replaced with a new view by the thread holding {@code writeLock} when an event in the stream is added or
+     * evicted.
+     */
+    private final ConcurrentMap<String, StreamIndex> streamIndexes = new ConcurrentHashMap<>();
+
+    /**
+     * The number of events kept, guarded by {@code writeLock}.
+     */
+    private long size;
+
+    /**
+     * Creates a new {@code ChunkedInMemoryStoredEventRepository} that keeps all events, using the default chunk size.
+     */
+    public ChunkedInMemoryStoredEventRepository() {
+        this(DEFAULT_CHUNK_SIZE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a new {@code ChunkedInMemoryStoredEventRepository} that keeps at most {@code maxEvents} events.
+     *
+     * @param chunkSize the number of events in each chunk, which is also the number of events evicted at a time
+     * @param maxEvents the maximum number of events to keep
+     *
+     * @throws IllegalArgumentException if {@code chunkSize} or {@code maxEvents} is not positive, or if {@code maxEvents} is less than
+     *                                  {@code chunkSize}
+     */
+    public ChunkedInMemoryStoredEventRepository(int chunkSize, long maxEvents) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        if (maxEvents < chunkSize) {
+            throw new IllegalArgumentException("maxEvents must not be less than chunkSize: maxEvents=" + maxEvents + ", chunkSize="
+                    + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+        this.maxEvents = maxEvents;
+    }
+
+    @Override
+    public Optional<StoredEvent> findById(Long id) {
+        ErrorHandling.checkNull("id must not be null", id);
+        List<StoredEvent> storedEvents = read(id - 1, id, 1, storedEvent -> true);
+        return storedEvents.isEmpty() ? Optional.empty() : Optional.of(storedEvents.get(0));
+    }
+
+    @Override
+    public List<StoredEvent> allEventsSince(long storedEventId) {
+        return read(storedEventId, Long.MAX_VALUE, Integer.MAX_VALUE, storedEvent -> true);
+    }
+
+    @Override
+    public List<StoredEvent> allEventsBetween(long firstStoredEventId, long lastStoredEventId) {
+        if (firstStoredEventId > lastStoredEventId) {
+            return List.of();
+        }
+        long afterStoredEventId = firstStoredEventId == Long.MIN_VALUE ? Long.MIN_VALUE : firstStoredEventId - 1;
+        return read(afterStoredEventId, lastStoredEventId, Integer.MAX_VALUE, storedEvent -> true);
+    }
+
+    @Override
+    public List<StoredEvent> eventsAfter(long afterStoredEventId, long lastStoredEventId, int maxResults) {
+        checkMaxResults(maxResults);
+        return read(afterStoredEventId, lastStoredEventId, maxResults, storedEvent -> true);
+    }
+
+    @Override
+    public List<StoredEvent> eventsOfTypesBetween(Collection<String> eventTypes, long fromEpochMillis, long toEpochMillis,
+            long afterStoredEventId, int maxResults) {
+        ErrorHandling.checkNull("eventTypes must not be null", eventTypes);
+        checkMaxResults(maxResults);
+        return read(afterStoredEventId, Long.MAX_VALUE, maxResults, storedEvent -> eventTypes.contains(storedEvent.eventType())
+                && storedEvent.occurredOnEpochMillis() >= fromEpochMillis && storedEvent.occurredOnEpochMillis() < toEpochMillis);
+    }
+
+    @Override
+    public List<StoredEvent> streamEventsAfter(String streamKey, long afterStreamSequence, int maxResults) {
+        ErrorHandling.checkNull("streamKey must not be null", streamKey);
+        checkMaxResults(maxResults);
+        List<StoredEvent> storedEvents = new ArrayList<>();
+        StreamIndex streamIndex = streamIndexes.get(streamKey);
+        if (streamIndex == null) {
+            return storedEvents;
+        }
+        for (int i = streamIndex.firstAfter(afterStreamSequence); i < streamIndex.size && storedEvents.size() < maxResults; i++) {
+            StoredEvent storedEvent = streamIndex.events[i];
+            // An event evicted after the view was read may already have been cleared.
+            if (storedEvent != null) {
+                storedEvents.add(storedEvent);
+            }
+        }
+        return storedEvents;
+    }
+
+    @Override
+    public Optional<Long> lastStreamSequence(String streamKey) {
+        ErrorHandling.checkNull("streamKey must not be null", streamKey);
+        StreamIndex streamIndex = streamIndexes.get(streamKey);
+        return streamIndex == null ? Optional.empty() : Optional.of(streamIndex.sequences[streamIndex.size - 1]);
+    }
+
+    private static void checkMaxResults(int maxResults) {
+        if (maxResults <= 0) {
+            throw new IllegalArgumentException("maxResults must be positive: " + maxResults);
+        }
+    }
+
+    /**
+     * Reads at most {@code maxResults} {@code StoredEvents} matching {@code filter}, with IDs greater than {@code afterStoredEventId} and
+     * less than or equal to {@code lastStoredEventId}, in ID order.
+     */
+    private List<StoredEvent> read(long afterStoredEventId, long lastStoredEventId, int maxResults, Predicate<StoredEvent> filter) {
+        List<StoredEvent> storedEvents = new ArrayList<>();
+        if (afterStoredEventId >= lastStoredEventId) {
+            return storedEvents;
+        }
+        long firstStoredEventId = afterStoredEventId + 1;
+        Chunk[] currentChunks = chunks;
+        for (int c = findChunk(currentChunks, firstStoredEventId); c < currentChunks.length; c++) {
+            Chunk chunk = currentChunks[c];
+            int chunkEnd = chunk.size;
+            for (int i = chunk.indexOf(firstStoredEventId, chunkEnd); i < chunkEnd; i++) {
+                if (chunk.ids[i] > lastStoredEventId) {
+                    return storedEvents;
+                }
+                StoredEvent storedEvent = chunk.events[i];
+                if (filter.test(storedEvent)) {
+                    storedEvents.add(storedEvent);
+                    if (storedEvents.size() >= maxResults) {
+                        return storedEvents;
+                    }
+                }
+            }
+        }
+        return storedEvents;
+    }
+
+    /**
+     * Gives the index of the last chunk whose first ID is less than or equal to {@code id}, or {@code 0} if there is no such chunk.
+     */
+    private static int findChunk(Chunk[] currentChunks, long id) {
+        int low = 0;
+        int high = currentChunks.length - 1;
+        int result = 0;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (currentChunks[middle].ids[0] <= id) {
+                result = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Saves a {@link StoredEvent}, evicting the oldest events if the maximum number of events is exceeded.
+     *
+     * @param storedEvent the {@code StoredEvent} to save
+     * @param <S>         the type of the {@code StoredEvent}, which must be {@code StoredEvent} itself if it has no ID
+     *
+     * @return {@code storedEvent} if it has an ID, otherwise a new {@code StoredEvent} with the same attributes and with the ID set
+     *
+     * @throws IllegalArgumentException if {@code storedEvent} is {@code null}, if it has an ID that is not greater than the ID of the most
+     *                                  recently saved event, if it has a stream sequence number that is not greater than that of the
+     *                                  most recently saved event in the stream, or if it has no ID and is of a subclass of
+     *                                  {@code StoredEvent}
+     */
+    @Override
+    public <S extends StoredEvent> S save(S storedEvent) {
+        ErrorHandling.checkNull("storedEvent must not be null", storedEvent);
+        synchronized (writeLock) {
+            return append(storedEvent);
+        }
+    }
+
+    /**
+     * Saves several {@link StoredEvent StoredEvents}, evicting the oldest events if the maximum number of events is exceeded.
+     *
+     * @param storedEvents the {@code StoredEvents} to save
+     * @param <S>          the type of the {@code StoredEvents}, which must be {@code StoredEvent} itself for events without IDs
+     *
+     * @return the saved {@code StoredEvents}, see {@link #save(StoredEvent)}
+     *
+     * @throws IllegalArgumentException if {@code storedEvents} or any of the events is {@code null}, or if any of the events cannot be
+     *                                  saved, see {@link #save(StoredEvent)}
+     */
+    @Override
+    public <S extends StoredEvent> List<S> saveAll(Iterable<S> storedEvents) {
+        ErrorHandling.checkNull("storedEvents must not be null", storedEvents);
+        List<S> savedEvents = new ArrayList<>();
+        synchronized (writeLock) {
+            for (S storedEvent : storedEvents) {
+                ErrorHandling.checkNull("storedEvents must not contain null elements", storedEvent);
+                savedEvents.add(append(storedEvent));
+            }
+        }
+        return savedEvents;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <S extends StoredEvent> S append(S storedEvent) {
+        String streamKey = storedEvent.streamKey();
+        Long streamSequence = storedEvent.streamSequence();
+        if (streamKey != null && streamSequence != null) {
+            long lastStreamSequence = lastStreamSequence(streamKey).orElse(0L);
+            if (streamSequence <= lastStreamSequence) {
+                throw new IllegalArgumentException("Stream sequence must be greater than that of the most recently saved event in the "
+                        + "stream " + lastStreamSequence + ": " + storedEvent);
+            }
+        }
+        S savedEvent;
+        long id;
+        Long existingId = storedEvent.id();
+        if (existingId == null) {
+            if (storedEvent.getClass() != StoredEvent.class) {
+                throw new IllegalArgumentException("Only StoredEvent, not subclasses, can be saved without an ID: "
+                        + storedEvent.getClass().getName());
+            }
+            id = lastStoredEventId + 1;
+            savedEvent = (S) new StoredEvent(id, storedEvent.eventType(), storedEvent.eventBody(), storedEvent.occurredOn(),
+                    storedEvent.version(), streamKey, streamSequence);
+        } else {
+            id = existingId;
+            if (id <= lastStoredEventId) {
+                throw new IllegalArgumentException("ID must be greater than the ID of the most recently saved event "
+                        + lastStoredEventId + ": " + storedEvent);
+            }
+            savedEvent = storedEvent;
+        }
+        Chunk[] currentChunks = chunks;
+        @Nullable Chunk chunk = currentChunks.length == 0 ? null : currentChunks[currentChunks.length - 1];
+        if (chunk == null || chunk.size == chunkSize) {
+            chunk = new Chunk(chunkSize);
+            currentChunks = Arrays.copyOf(currentChunks, currentChunks.length + 1);
+            currentChunks[currentChunks.length - 1] = chunk;
+        }
+        chunk.add(id, savedEvent);
+        size++;
+        int evictedChunks = 0;
+        while (size > maxEvents) {
+            Chunk evictedChunk = currentChunks[evictedChunks];
+            size -= evictedChunk.size;
+            removeFromStreamIndexes(evictedChunk, evictedChunk.size);
+            evictedChunks++;
+        }
+        if (evictedChunks > 0) {
+            currentChunks = Arrays.copyOfRange(currentChunks, evictedChunks, currentChunks.length);
+        }
+        chunks = currentChunks;
+        lastStoredEventId = id;
+        if (streamKey != null && streamSequence != null) {
+            addToStreamIndex(streamKey, streamSequence, savedEvent);
+        }
+        return savedEvent;
+    }
+
+    /**
+     * Adds an event to the end of the index of its stream. If the arrays of the index are full, the evicted entries at the start are
+     * dropped when copying to larger arrays.
+     */
+    private void addToStreamIndex(String streamKey, long streamSequence, StoredEvent storedEvent) {
+        StreamIndex current = streamIndexes.get(streamKey);
+        if (current == null) {
+            current = new StreamIndex(new long[4], new StoredEvent[4], 0, 0);
+        }
+        long[] sequences = current.sequences;
+        @Nullable StoredEvent[] events = current.events;
+        int start = current.start;
+        int end = current.size;
+        if (end == sequences.length) {
+            int newCapacity = Math.max(4, 2 * (end - start));
+            sequences = Arrays.copyOfRange(sequences, start, start + newCapacity);
+            events = Arrays.copyOfRange(events, start, start + newCapacity);
+            end -= start;
+            start = 0;
+        }
+        sequences[end] = streamSequence;
+        events[end] = storedEvent;
+        streamIndexes.put(streamKey, new StreamIndex(sequences, events, start, end + 1));
+    }
+
+    /**
+     * Deletes the {@code StoredEvents} with the given IDs, which must be the oldest events in the repository. Since the ID of a new event
+     * is always greater than the ID of the most recently saved event, this is the case when the IDs are read from the start of the
+     * repository, and deleting them is the same as deleting all events up to the last given ID.
+     *
+     * @param storedEventIds the IDs of the {@code StoredEvents} to delete, in ascending order
+     *
+     * @return the number of {@code StoredEvents} deleted
+     *
+     * @throws IllegalArgumentException if {@code storedEventIds} is {@code null}, or if the repository contains an event with an ID less
+     *                                  than the last given ID that is not one of the given IDs
+     */
+    @Override
+    public int deleteEvents(List<Long> storedEventIds) {
+        ErrorHandling.checkNull("storedEventIds must not be null", storedEventIds);
+        if (storedEventIds.isEmpty()) {
+            return 0;
+        }
+        long lastStoredEventId = storedEventIds.get(storedEventIds.size() - 1);
+        synchronized (writeLock) {
+            Set<Long> ids = new HashSet<>(storedEventIds);
+            for (StoredEvent storedEvent : eventsAfter(Long.MIN_VALUE, lastStoredEventId, storedEventIds.size() + 1)) {
+                if (!ids.contains(storedEvent.id())) {
+                    throw new IllegalArgumentException("Only the oldest events can be deleted from this repository, but event "
+                            + storedEvent.id() + " is not one of the events to delete: lastStoredEventId=" + lastStoredEventId);
+                }
+            }
+            return deleteEventsUpTo(lastStoredEventId);
+        }
+    }
+
+    /**
+     * Deletes all {@code StoredEvents} with IDs less than or equal to {@code lastStoredEventId}. Chunks whose events are all deleted are
+     * dropped, and the remaining events of a partially deleted chunk are copied to a new chunk.
+     *
+     * @param lastStoredEventId the ID of the last {@code StoredEvent} to delete
+     *
+     * @return the number of {@code StoredEvents} deleted
+     */
+    public int deleteEventsUpTo(long lastStoredEventId) {
+        synchronized (writeLock) {
+            Chunk[] currentChunks = chunks;
+            int deletedEvents = 0;
+            int deletedChunks = 0;
+            while (deletedChunks < currentChunks.length) {
+                Chunk chunk = currentChunks[deletedChunks];
+                int numDeleted = lastStoredEventId == Long.MAX_VALUE ? chunk.size : chunk.indexOf(lastStoredEventId + 1, chunk.size);
+                removeFromStreamIndexes(chunk, numDeleted);
+                deletedEvents += numDeleted;
+                if (numDeleted < chunk.size) {
+                    if (numDeleted > 0) {
+                        currentChunks = Arrays.copyOf(currentChunks, currentChunks.length);
+                        currentChunks[deletedChunks] = chunk.copyFrom(numDeleted, chunkSize);
+                    }
+                    break;
+                }
+                deletedChunks++;
+            }
+            if (deletedChunks > 0) {
+                currentChunks = Arrays.copyOfRange(currentChunks, deletedChunks, currentChunks.length);
+            }
+            chunks = currentChunks;
+            size -= deletedEvents;
+            return deletedEvents;
+        }
+    }
+
+    /**
+     * Removes the first {@code numEvents} events in a chunk that is evicted or deleted from the indexes of their streams. Since the events
+     * in the first chunk are the oldest ones, they are also the first events in the indexes of their streams.
+     */
+    @SuppressWarnings("NullAway") // Every event in a stream has been added to the index of the stream
+    private void removeFromStreamIndexes(Chunk chunk, int numEvents) {
+        for (int i = 0; i < numEvents; i++) {
+            String streamKey = chunk.events[i].streamKey();
+            if (streamKey != null && chunk.events[i].streamSequence() != null) {
+                StreamIndex current = streamIndexes.get(streamKey);
+                current.events[current.start] = null;
+                streamIndexes.put(streamKey, new StreamIndex(current.sequences, current.events, current.start + 1, current.size));
+            }
+        }
+    }
+
+    /**
+     * Gives {@code false}, since the events are only kept in the memory of this process.
+     *
+     * @return {@code false}
+     */
+    @Override
+    public boolean isShared() {
+        return false;
+    }
+
+    @Override
+    public Optional<Long> lastStoredEventId() {
+        long id = lastStoredEventId;
+        return id == 0 ? Optional.empty() : Optional.of(id);
+    }
+
+    /**
+     * Gives the ID of the oldest {@code StoredEvent} kept in this repository, which may be greater than the ID of the first event saved if
+     * events have been evicted.
+     *
+     * @return the ID of the oldest {@code StoredEvent} kept, unless the repository is empty
+     */
+    public Optional<Long> firstStoredEventId() {
+        Chunk[] currentChunks = chunks;
+        return currentChunks.length == 0 ? Optional.empty() : Optional.of(currentChunks[0].ids[0]);
+    }
+
+    /**
+     * Gives the number of {@code StoredEvents} kept in this repository.
+     *
+     * @return the number of {@code StoredEvents} kept
+     */
+    public long size() {
+        long result = 0;
+        for (Chunk chunk : chunks) {
+            result += chunk.size;
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "ChunkedInMemoryStoredEventRepository{chunkSize=" + chunkSize + ", maxEvents=" + maxEvents + "}";
+    }
+
+    /**
+     * An immutable view of the index of a stream, with the sequence number and the event itself of each event in the stream, in stream
+     * order. Entries from {@code start} up to {@code size} are the events kept. The arrays may be shared with newer views, in which entries
+     * below {@code size} are never changed, except that the events of evicted entries are cleared so that they can be garbage collected.
+     */
+    private record StreamIndex(long[] sequences, @Nullable StoredEvent[] events, int start, int size) {
+
+        /**
+         * Gives the index of the first event kept with a sequence number greater than {@code afterStreamSequence}, or {@code size} if there
+         * is no such event.
+         */
+        int firstAfter(long afterStreamSequence) {
+            int i = Arrays.binarySearch(sequences, start, size, afterStreamSequence);
+            return i >= 0 ? i + 1 : -i - 1;
+        }
+    }
+
+    /**
+     * A fixed-size chunk of events, sorted by ID.
+     * <p>
+     * Events are only added by the thread holding {@code writeLock}. Readers never look beyond {@link #size}, which is updated after an
+     * event has been added.
+     */
+    private static final class Chunk {
+
+        private final long[] ids;
+
+        private final StoredEvent[] events;
+
+        private volatile int size;
+
+        Chunk(int capacity) {
+            this.ids = new long[capacity];
+            this.events = new StoredEvent[capacity];
+        }
+
+        void add(long id, StoredEvent storedEvent) {
+            int index = size;
+            ids[index] = id;
+            events[index] = storedEvent;
+            size = index + 1;
+        }
+
+        /**
+         * Gives a new chunk with the given capacity, containing the events of this chunk from index {@code from}.
+         */
+        Chunk copyFrom(int from, int capacity) {
+            Chunk chunk = new Chunk(capacity);
+            int currentSize = size;
+            System.arraycopy(ids, from, chunk.ids, 0, currentSize - from);
+            System.arraycopy(events, from, chunk.events, 0, currentSize - from);
+            chunk.size = currentSize - from;
+            return chunk;
+        }
+
+        /**
+         * Gives the index of the first event with an ID greater than or equal to {@code id}, among the first {@code currentSize} events.
+         */
+        int indexOf(long id, int currentSize) {
+            int index = Arrays.binarySearch(ids, 0, currentSize, id);
+            return index >= 0 ? index : -index - 1;
+        }
+    }
+}
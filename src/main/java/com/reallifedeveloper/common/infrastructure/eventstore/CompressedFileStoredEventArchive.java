@@ -0,0 +1,300 @@
+package com.reallifedeveloper.common.infrastructure.eventstore;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.reallifedeveloper.common.application.eventstore.StoredEvent;
+import com.reallifedeveloper.common.application.eventstore.StoredEventArchive;
+import com.reallifedeveloper.common.domain.ErrorHandling;
+
+/**
+ * A {@link StoredEventArchive} that keeps archived {@link StoredEvent StoredEvents} in GZIP-compressed, immutable segment files in a
+ * directory.
+ * <p>
+ * Each call to {@link #archive(List)} creates one segment file, named after the IDs of the first and last events in it, so the size of
+ * the segments is decided by the caller. A segment file is first written to a temporary file, which is forced to disk and then atomically
+ * renamed, after which the directory is forced to disk, so a segment file is either complete or missing, also after a crash of the
+ * operating system. Left-over temporary files are deleted when the archive is opened.
+ * <p>
+ * The names of the segment files are kept in memory, so reading events by ID range only decompresses the segments that overlap the
+ * range. Since archived events are expected to be read rarely, e.g., when a client reads an old
+ * {@link com.reallifedeveloper.common.application.notification.NotificationLog}, no decompressed data is cached.
+ * <p>
+ * The archive is thread-safe. Only one archive at a time, in one process, may use a directory. Since the archive is local to one process,
+ * it must not be used with a {@link com.reallifedeveloper.common.application.eventstore.StoredEventRepository} that is shared by several
+ * processes, see {@link #isShared()}.
+ *
+ * @author RealLifeDeveloper
+ */
+public final class CompressedFileStoredEventArchive implements StoredEventArchive {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CompressedFileStoredEventArchive.class);
+
+    private static final String SEGMENT_FILE_SUFFIX = ".events.gz";
+
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
+    private static final int ID_LENGTH = 20;
+
+    private final Path directory;
+
+    /**
+     * The segments, keyed by the ID of the first {@code StoredEvent} in each segment.
+     */
+    private final ConcurrentNavigableMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+
+    /**
+     * Creates a new {@code CompressedFileStoredEventArchive} that keeps segment files in the given directory.
+     *
+     * @param directory the directory to keep segment files in, which is created if it does not exist
+     *
+     * @throws IllegalArgumentException if {@code directory} is {@code null}
+     * @throws IllegalStateException    if the directory contains segment files that overlap or have unexpected names
+     * @throws UncheckedIOException     if reading the directory failed
+     */
+    public CompressedFileStoredEventArchive(Path directory) {
+        ErrorHandling.checkNull("directory must not be null", directory);
+        LOG.info("Creating new CompressedFileStoredEventArchive: directory={}", directory);
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+            openSegments();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open archive in " + directory, e);
+        }
+    }
+
+    private void openSegments() throws IOException {
+        List<Path> files;
+        try (Stream<Path> directoryContents = Files.list(directory)) {
+            files = directoryContents.toList();
+        }
+        for (Path file : files) {
+            String fileName = file.getFileName().toString();
+            if (fileName.endsWith(TEMPORARY_FILE_SUFFIX)) {
+                LOG.warn("Deleting incomplete archive segment file: {}", file);
+                Files.delete(file);
+            } else if (fileName.endsWith(SEGMENT_FILE_SUFFIX)) {
+                Segment segment = Segment.fromFileName(directory, fileName);
+                segments.put(segment.firstId, segment);
+            }
+        }
+        long previousLastId = Long.MIN_VALUE;
+        for (Segment segment : segments.values()) {
+            if (segment.firstId <= previousLastId) {
+                throw new IllegalStateException("Overlapping archive segment files in " + directory + ": " + segment.path);
+            }
+            previousLastId = segment.lastId;
+        }
+    }
+
+    @Override
+    public synchronized void archive(List<StoredEvent> storedEvents) {
+        ErrorHandling.checkNull("storedEvents must not be null", storedEvents);
+        if (storedEvents.isEmpty()) {
+            throw new IllegalArgumentException("storedEvents must not be empty");
+        }
+        long previousId = lastArchivedStoredEventId().orElse(0L);
+        for (StoredEvent storedEvent : storedEvents) {
+            ErrorHandling.checkNull("storedEvents must not contain null elements", storedEvent);
+            Long id = storedEvent.id();
+            if (id == null || id <= previousId) {
+                throw new IllegalArgumentException("StoredEvent IDs must be in order and greater than " + previousId + ": " + storedEvent);
+            }
+            previousId = id;
+        }
+        Segment segment = new Segment(directory, storedEvents.get(0).id(), previousId);
+        Path temporaryFile = directory.resolve(segment.path.getFileName() + TEMPORARY_FILE_SUFFIX);
+        try {
+            try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                write(storedEvents, Channels.newOutputStream(channel));
+                channel.force(true);
+            }
+            Files.move(temporaryFile, segment.path, StandardCopyOption.ATOMIC_MOVE);
+            // The rename itself must also be durable before the caller deletes the events from the repository.
+            DirectorySync.force(directory);
+        } catch (IOException e) {
+            deleteQuietly(temporaryFile);
+            throw new UncheckedIOException("Failed to write archive segment file " + segment.path, e);
+        }
+        segments.put(segment.firstId, segment);
+        LOG.debug("Archived stored events: firstId={}, lastId={}", segment.firstId, segment.lastId);
+    }
+
+    private static void write(List<StoredEvent> storedEvents, OutputStream out) throws IOException {
+        // The stream is not closed here, since closing it would close the channel before it has been forced to disk.
+        GZIPOutputStream gzip = new GZIPOutputStream(new BufferedOutputStream(out));
+        DataOutputStream data = new DataOutputStream(gzip);
+        for (StoredEvent storedEvent : storedEvents) {
+            data.writeLong(storedEvent.id());
+            data.writeInt(storedEvent.version());
+            writeString(data, storedEvent.eventType());
+            writeString(data, storedEvent.occurredOn().toString());
+            writeString(data, storedEvent.eventBody());
+            String streamKey = storedEvent.streamKey();
+            Long streamSequence = storedEvent.streamSequence();
+            data.writeBoolean(streamKey != null && streamSequence != null);
+            if (streamKey != null && streamSequence != null) {
+                writeString(data, streamKey);
+                data.writeLong(streamSequence);
+            }
+        }
+        data.flush();
+        gzip.finish();
+        gzip.flush();
+    }
+
+    private static void writeString(DataOutputStream data, String s) throws IOException {
+        byte[] bytes = s.getBytes(UTF_8);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOG.warn("Failed to delete temporary file: {}", file, e);
+        }
+    }
+
+    @Override
+    public List<StoredEvent> eventsAfter(long afterStoredEventId, long lastStoredEventId, int maxResults) {
+        if (maxResults <= 0) {
+            throw new IllegalArgumentException("maxResults must be positive: " + maxResults);
+        }
+        List<StoredEvent> storedEvents = new ArrayList<>();
+        if (afterStoredEventId >= lastStoredEventId) {
+            return storedEvents;
+        }
+        Long startKey = segments.floorKey(afterStoredEventId + 1);
+        ConcurrentNavigableMap<Long, Segment> candidates = startKey == null ? segments : segments.tailMap(startKey, true);
+        for (Segment segment : candidates.values()) {
+            if (segment.firstId > lastStoredEventId) {
+                break;
+            }
+            if (segment.lastId <= afterStoredEventId) {
+                continue;
+            }
+            for (StoredEvent storedEvent : read(segment)) {
+                long id = storedEvent.id();
+                if (id > lastStoredEventId) {
+                    return storedEvents;
+                }
+                if (id > afterStoredEventId) {
+                    storedEvents.add(storedEvent);
+                    if (storedEvents.size() >= maxResults) {
+                        return storedEvents;
+                    }
+                }
+            }
+        }
+        return storedEvents;
+    }
+
+    private static List<StoredEvent> read(Segment segment) {
+        List<StoredEvent> storedEvents = new ArrayList<>();
+        try (InputStream in = Files.newInputStream(segment.path);
+                DataInputStream data = new DataInputStream(new BufferedInputStream(new GZIPInputStream(in)))) {
+            while (true) {
+                long id;
+                try {
+                    id = data.readLong();
+                } catch (EOFException e) {
+                    return storedEvents;
+                }
+                int version = data.readInt();
+                String eventType = readString(data);
+                String occurredOn = readString(data);
+                String eventBody = readString(data);
+                @Nullable String streamKey = null;
+                @Nullable Long streamSequence = null;
+                if (data.readBoolean()) {
+                    streamKey = readString(data);
+                    streamSequence = data.readLong();
+                }
+                storedEvents.add(new StoredEvent(id, eventType, eventBody, ZonedDateTime.parse(occurredOn), version, streamKey,
+                        streamSequence));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read archive segment file " + segment.path, e);
+        }
+    }
+
+    private static String readString(DataInputStream data) throws IOException {
+        byte[] bytes = new byte[data.readInt()];
+        data.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    @Override
+    public Optional<Long> lastArchivedStoredEventId() {
+        var lastEntry = segments.lastEntry();
+        return lastEntry == null ? Optional.empty() : Optional.of(lastEntry.getValue().lastId);
+    }
+
+    /**
+     * Gives {@code false}, since the segment files are only available to this process.
+     *
+     * @return {@code false}
+     */
+    @Override
+    public boolean isShared() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "CompressedFileStoredEventArchive{directory=" + directory + "}";
+    }
+
+    /**
+     * An archive segment file, containing the {@code StoredEvents} with IDs from {@code firstId} to {@code lastId}, inclusive.
+     */
+    private record Segment(long firstId, long lastId, Path path) {
+
+        Segment(Path directory, long firstId, long lastId) {
+            this(firstId, lastId, directory.resolve(String.format("%0" + ID_LENGTH + "d-%0" + ID_LENGTH + "d%s", firstId, lastId,
+                    SEGMENT_FILE_SUFFIX)));
+        }
+
+        static Segment fromFileName(Path directory, String fileName) {
+            String ids = fileName.substring(0, fileName.length() - SEGMENT_FILE_SUFFIX.length());
+            int separator = ids.indexOf('-');
+            try {
+                return new Segment(Long.parseLong(ids.substring(0, separator)), Long.parseLong(ids.substring(separator + 1)),
+                        directory.resolve(fileName));
+            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                throw new IllegalStateException("Unexpected archive segment file name: " + fileName, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.reallifedeveloper.common.infrastructure.eventstore;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Forces changes to the entries of a directory, e.g., files that have been created, renamed or deleted, to disk.
+ * <p>
+ * Forcing a file to disk does not force its directory entry, so after a crash of the operating system a file that has been forced may
+ * still be missing, or may still have its old name. On platforms where a directory cannot be opened, e.g., Windows, nothing is done.
+ *
+ * @author RealLifeDeveloper
+ */
+final class DirectorySync {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DirectorySync.class);
+
+    /**
+     * Since this is a utility class with only static methods, we hide the only constructor.
+     */
+    private DirectorySync() {
+    }
+
+    /**
+     * Forces the entries of a directory to disk.
+     *
+     * @param directory the directory to force
+     *
+     * @throws IOException if forcing the directory failed
+     */
+    static void force(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            LOG.debug("Directory cannot be opened for forcing to disk on this platform: {}", directory, e);
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+}
@@ -0,0 +1,1059 @@
+package com.reallifedeveloper.common.infrastructure.eventstore;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.reallifedeveloper.common.application.eventstore.StoredEvent;
+import com.reallifedeveloper.common.application.eventstore.StoredEventRepository;
+import com.reallifedeveloper.common.domain.ErrorHandling;
+
+/**
+ * A {@link StoredEventRepository} that appends {@link StoredEvent StoredEvents} to memory-mapped segment files in a directory, for use
+ * where a relational database is not wanted, e.g., in edge deployments or when the write rate is very high.
+ * <p>
+ * Each segment file has a fixed size and contains a sequence of records, one per {@code StoredEvent}. A record consists of the length of
+ * the record body, a CRC-32 checksum of the body, and the body itself, which holds the ID, version, event type, time and event body of the
+ * {@code StoredEvent}, followed by the stream key and stream sequence number if the event belongs to a stream. The IDs are assigned by
+ * this repository, starting at 1 and increasing by one for each event saved. When a segment is full, a new one is created, named after
+ * the ID of its first {@code StoredEvent}.
+ * <p>
+ * For each segment, a sparse index from ID to file position, with an entry for every {@code indexInterval} records, is kept in memory.
+ * Reading events by ID is therefore a lookup in the index followed by a sequential read of the segment. For each stream, the sequence
+ * number, ID and file position of every event in the stream are also kept in memory, so reading the events of a stream,
+ * {@link #streamEventsAfter(String, long, int)}, only reads the records of that stream. This costs 20 bytes of memory per event in a
+ * stream. Reading events by type and time, {@link #eventsOfTypesBetween(Collection, long, long, long, int)}, has no index support and
+ * scans all events after the given ID.
+ * <p>
+ * Writing a record only updates the memory-mapped buffer, which is enough to survive a crash of the process but not of the operating
+ * system. The buffer is forced to disk once at least {@code syncInterval} records have been written since the last time, when a segment
+ * is full, and by a background thread every {@code syncDelay} if any records have been written since the last time. This means that a
+ * saved record is forced to disk within {@code syncDelay} even if no more records are written. A {@link #saveAll(Iterable)} call is
+ * forced as one group. Use {@link #sync()} to force all records written so far, or use a {@code syncInterval} of 1 to force after every
+ * save.
+ * <p>
+ * Old events can be deleted using {@link #deleteEventsUpTo(long)} or {@link #deleteEvents(List)}, e.g., when they have been moved to a
+ * {@link com.reallifedeveloper.common.application.eventstore.StoredEventArchive}. The ID of the last deleted event is stored in a small
+ * file in the directory, and events with IDs up to it are no longer found. Segment files whose events have all been deleted are removed,
+ * except the last one, which is needed to continue the IDs. The events of a partially deleted segment are kept in the file until all of
+ * them have been deleted.
+ * <p>
+ * When the repository is opened, all segments are read to rebuild the indexes. If the last segment ends with a record that was only
+ * partially written, e.g., because of a crash, the record and everything after it is removed. Corruption anywhere else causes an
+ * {@code IllegalStateException}.
+ * <p>
+ * The repository is thread-safe. Saves are serialized, while reads may run concurrently with each other and with saves. Only one
+ * repository at a time, in one process, may use a directory. The {@code StoredEvents} returned by {@link #save(StoredEvent)} and
+ * {@link #saveAll(Iterable)} are new objects with the IDs set; the objects given as arguments are not changed.
+ *
+ * @author RealLifeDeveloper
+ */
+public final class MappedFileStoredEventRepository implements StoredEventRepository, AutoCloseable {
+
+    /**
+     * The size of a segment file, in bytes, if no other value is given to the constructor.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * The number of records between entries in the sparse index, if no other value is given to the constructor.
+     */
+    public static final int DEFAULT_INDEX_INTERVAL = 64;
+
+    /**
+     * The number of records written between forcing the segment files to disk, if no other value is given to the constructor.
+     */
+    public static final int DEFAULT_SYNC_INTERVAL = 64;
+
+    /**
+     * The maximum time a saved record may remain unforced, if no other value is given to the constructor.
+     */
+    public static final Duration DEFAULT_SYNC_DELAY = Duration.ofSeconds(1);
+
+    private static final Logger LOG = LoggerFactory.getLogger(MappedFileStoredEventRepository.class);
+
+    private static final String SEGMENT_FILE_SUFFIX = ".segment";
+
+    private static final String DELETED_UP_TO_FILE = "deleted-up-to";
+
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
+    /**
+     * The length of the record body and the checksum.
+     */
+    private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+
+    /**
+     * The ID, the version, and the lengths of the event type, time and event body.
+     */
+    private static final int MIN_RECORD_BODY_SIZE = Long.BYTES + 4 * Integer.BYTES;
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final int indexInterval;
+
+    private final int syncInterval;
+
+    private final Duration syncDelay;
+
+    /**
+     * The segments, keyed by the ID of the first {@code StoredEvent} in each segment.
+     */
+    private final ConcurrentNavigableMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+
+    private final Object writeLock = new Object();
+
+    private volatile long lastStoredEventId;
+
+    /**
+     * The ID of the last deleted {@code StoredEvent}, or {@code 0} if no events have been deleted.
+     */
+    private volatile long deletedUpTo;
+
+    /**
+     * The index of each stream, replaced with a new view by the thread holding {@code writeLock} when an event in the stream is added or
+     * deleted.
+     */
+    private final ConcurrentMap<String, StreamIndex> streamIndexes = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService syncScheduler;
+
+    private volatile boolean closed;
+
+    /**
+     * The number of records written since the segments were last forced to disk, guarded by {@code writeLock}.
+     */
+    private int unsyncedRecords;
+
+    /**
+     * Creates a new {@code MappedFileStoredEventRepository} that stores events in the given directory, using default values for the
+     * segment size, index interval, sync interval and sync delay.
+     *
+     * @param directory the directory to store segment files in, which is created if it does not exist
+     *
+     * @throws IllegalArgumentException if {@code directory} is {@code null}
+     * @throws IllegalStateException    if an existing segment file is corrupt
+     * @throws UncheckedIOException     if reading or creating segment files failed
+     */
+    public MappedFileStoredEventRepository(Path directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_INDEX_INTERVAL, DEFAULT_SYNC_INTERVAL);
+    }
+
+    /**
+     * Creates a new {@code MappedFileStoredEventRepository} that stores events in the given directory, using the default sync delay.
+     *
+     * @param directory     the directory to store segment files in, which is created if it does not exist
+     * @param segmentSize   the size in bytes of new segment files, which limits the size of a single record
+     * @param indexInterval the number of records between entries in the sparse index
+     * @param syncInterval  the number of records to write before forcing the segment files to disk
+     *
+     * @throws IllegalArgumentException if {@code directory} is {@code null}, if {@code segmentSize} is too small to hold a record, or if
+     *                                  {@code indexInterval} or {@code syncInterval} is not positive
+     * @throws IllegalStateException    if an existing segment file is corrupt
+     * @throws UncheckedIOException     if reading or creating segment files failed
+     */
+    public MappedFileStoredEventRepository(Path directory, int segmentSize, int indexInterval, int syncInterval) {
+        this(directory, segmentSize, indexInterval, syncInterval, DEFAULT_SYNC_DELAY);
+    }
+
+    /**
+     * Creates a new {@code MappedFileStoredEventRepository} that stores events in the given directory.
+     *
+     * @param directory     the directory to store segment files in, which is created if it does not exist
+     * @param segmentSize   the size in bytes of new segment files, which limits the size of a single record
+     * @param indexInterval the number of records between entries in the sparse index
+     * @param syncInterval  the number of records to write before forcing the segment files to disk
+     * @param syncDelay     the maximum time a saved record may remain unforced
+     *
+     * @throws IllegalArgumentException if {@code directory} or {@code syncDelay} is {@code null}, if {@code segmentSize} is too small to
+     *                                  hold a record, or if {@code indexInterval}, {@code syncInterval} or {@code syncDelay} is not
+     *                                  positive
+     * @throws IllegalStateException    if an existing segment file is corrupt
+     * @throws UncheckedIOException     if reading or creating segment files failed
+     */
+    public MappedFileStoredEventRepository(Path directory, int segmentSize, int indexInterval, int syncInterval, Duration syncDelay) {
+        ErrorHandling.checkNull("Arguments must not be null: directory=%s, syncDelay=%s", directory, syncDelay);
+        if (segmentSize <= RECORD_HEADER_SIZE + MIN_RECORD_BODY_SIZE) {
+            throw new IllegalArgumentException("segmentSize is too small: " + segmentSize);
+        }
+        if (indexInterval <= 0) {
+            throw new IllegalArgumentException("indexInterval must be positive: " + indexInterval);
+        }
+        if (syncInterval <= 0) {
+            throw new IllegalArgumentException("syncInterval must be positive: " + syncInterval);
+        }
+        if (syncDelay.isNegative() || syncDelay.isZero()) {
+            throw new IllegalArgumentException("syncDelay must be positive: " + syncDelay);
+        }
+        LOG.info("Creating new MappedFileStoredEventRepository: directory={}, segmentSize={}, indexInterval={}, syncInterval={}, "
+                + "syncDelay={}", directory, segmentSize, indexInterval, syncInterval, syncDelay);
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.indexInterval = indexInterval;
+        this.syncInterval = syncInterval;
+        this.syncDelay = syncDelay;
+        try {
+            Files.createDirectories(directory);
+            openSegments();
+        } catch (IOException e) {
+            closeSegments();
+            throw new UncheckedIOException("Failed to open segment files in " + directory, e);
+        } catch (RuntimeException e) {
+            closeSegments();
+            throw e;
+        }
+        this.syncScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "MappedFileStoredEventRepository-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long syncDelayNanos = syncDelay.toNanos();
+        syncScheduler.scheduleWithFixedDelay(this::syncUnsyncedRecords, syncDelayNanos, syncDelayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void openSegments() throws IOException {
+        List<Long> baseIds = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString()).filter(name -> name.endsWith(SEGMENT_FILE_SUFFIX))
+                    .forEach(name -> baseIds.add(parseBaseId(name)));
+        }
+        baseIds.sort(null);
+        deletedUpTo = readDeletedUpTo();
+        long expectedId = baseIds.isEmpty() ? deletedUpTo + 1 : baseIds.get(0);
+        if (expectedId < 1 || expectedId > deletedUpTo + 1) {
+            throw new IllegalStateException("First segment file " + segmentFileName(expectedId) + " should start with an ID from 1 to "
+                    + (deletedUpTo + 1));
+        }
+        for (int i = 0; i < baseIds.size(); i++) {
+            long baseId = baseIds.get(i);
+            if (baseId != expectedId) {
+                throw new IllegalStateException("Segment file " + segmentFileName(baseId) + " should start with ID " + expectedId);
+            }
+            Segment segment = openSegment(baseId);
+            segments.put(baseId, segment);
+            boolean lastSegment = i == baseIds.size() - 1;
+            segment.recover(lastSegment);
+            if (segment.isEmpty() && !lastSegment) {
+                throw new IllegalStateException("Segment file " + segmentFileName(baseId) + " is empty but is not the last segment");
+            }
+            expectedId = segment.lastId + 1;
+        }
+        if (segments.isEmpty()) {
+            segments.put(expectedId, createSegment(expectedId));
+        }
+        lastStoredEventId = expectedId - 1;
+        removeDeletedEvents();
+        LOG.info("Opened {} segment files in {}: lastStoredEventId={}", segments.size(), directory, lastStoredEventId);
+    }
+
+    private static long parseBaseId(String segmentFileName) {
+        String baseId = segmentFileName.substring(0, segmentFileName.length() - SEGMENT_FILE_SUFFIX.length());
+        try {
+            return Long.parseLong(baseId);
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Unexpected segment file name: " + segmentFileName, e);
+        }
+    }
+
+    private long readDeletedUpTo() throws IOException {
+        Path file = directory.resolve(DELETED_UP_TO_FILE);
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        byte[] contents = Files.readAllBytes(file);
+        if (contents.length != Long.BYTES) {
+            throw new IllegalStateException("File " + file + " should contain " + Long.BYTES + " bytes: " + contents.length);
+        }
+        return ByteBuffer.wrap(contents).getLong();
+    }
+
+    /**
+     * Writes the ID of the last deleted {@code StoredEvent} to a temporary file that is forced to disk and then atomically renamed, so
+     * the file is either the old or the new version after a crash.
+     */
+    private void writeDeletedUpTo(long id) throws IOException {
+        Path temporaryFile = directory.resolve(DELETED_UP_TO_FILE + TEMPORARY_FILE_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer contents = ByteBuffer.allocate(Long.BYTES).putLong(0, id);
+            while (contents.hasRemaining()) {
+                channel.write(contents);
+            }
+            channel.force(true);
+        }
+        Files.move(temporaryFile, directory.resolve(DELETED_UP_TO_FILE), StandardCopyOption.ATOMIC_MOVE);
+        DirectorySync.force(directory);
+    }
+
+    private static String segmentFileName(long baseId) {
+        return String.format("%020d%s", baseId, SEGMENT_FILE_SUFFIX);
+    }
+
+    private Segment openSegment(long baseId) throws IOException {
+        FileChannel channel = FileChannel.open(directory.resolve(segmentFileName(baseId)), StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            return new Segment(baseId, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private Segment createSegment(long baseId) throws IOException {
+        FileChannel channel = FileChannel.open(directory.resolve(segmentFileName(baseId)), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new Segment(baseId, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public Optional<StoredEvent> findById(Long id) {
+        ErrorHandling.checkNull("id must not be null", id);
+        List<StoredEvent> storedEvents = read(id - 1, id, 1, storedEvent -> true);
+        return storedEvents.isEmpty() ? Optional.empty() : Optional.of(storedEvents.get(0));
+    }
+
+    @Override
+    public List<StoredEvent> allEventsSince(long storedEventId) {
+        return read(storedEventId, Long.MAX_VALUE, Integer.MAX_VALUE, storedEvent -> true);
+    }
+
+    @Override
+    public List<StoredEvent> allEventsBetween(long firstStoredEventId, long lastStoredEventId) {
+        if (firstStoredEventId > lastStoredEventId) {
+            return List.of();
+        }
+        long afterStoredEventId = firstStoredEventId == Long.MIN_VALUE ? Long.MIN_VALUE : firstStoredEventId - 1;
+        return read(afterStoredEventId, lastStoredEventId, Integer.MAX_VALUE, storedEvent -> true);
+    }
+
+    @Override
+    public List<StoredEvent> eventsAfter(long afterStoredEventId, long lastStoredEventId, int maxResults) {
+        checkMaxResults(maxResults);
+        return read(afterStoredEventId, lastStoredEventId, maxResults, storedEvent -> true);
+    }
+
+    @Override
+    public List<StoredEvent> eventsOfTypesBetween(Collection<String> eventTypes, long fromEpochMillis, long toEpochMillis,
+            long afterStoredEventId, int maxResults) {
+        ErrorHandling.checkNull("eventTypes must not be null", eventTypes);
+        checkMaxResults(maxResults);
+        return read(afterStoredEventId, Long.MAX_VALUE, maxResults, storedEvent -> eventTypes.contains(storedEvent.eventType())
+                && storedEvent.occurredOnEpochMillis() >= fromEpochMillis && storedEvent.occurredOnEpochMillis() < toEpochMillis);
+    }
+
+    @Override
+    public List<StoredEvent> streamEventsAfter(String streamKey, long afterStreamSequence, int maxResults) {
+        ErrorHandling.checkNull("streamKey must not be null", streamKey);
+        checkMaxResults(maxResults);
+        checkOpen();
+        List<StoredEvent> storedEvents = new ArrayList<>();
+        StreamIndex streamIndex = streamIndexes.get(streamKey);
+        if (streamIndex == null) {
+            return storedEvents;
+        }
+        for (int i = streamIndex.firstAfter(afterStreamSequence); i < streamIndex.size && storedEvents.size() < maxResults; i++) {
+            long id = streamIndex.ids[i];
+            Map.Entry<Long, Segment> segmentEntry = segments.floorEntry(id);
+            // Events deleted after the view was read are skipped.
+            if (id > deletedUpTo && segmentEntry != null) {
+                storedEvents.add(segmentEntry.getValue().read(streamIndex.positions[i]));
+            }
+        }
+        return storedEvents;
+    }
+
+    @Override
+    public Optional<Long> lastStreamSequence(String streamKey) {
+        ErrorHandling.checkNull("streamKey must not be null", streamKey);
+        checkOpen();
+        StreamIndex streamIndex = streamIndexes.get(streamKey);
+        return streamIndex == null ? Optional.empty() : Optional.of(streamIndex.lastSequence());
+    }
+
+    /**
+     * Adds an event to the end of the index of its stream. If the arrays of the index are full, the deleted entries at the start are
+     * dropped when copying to larger arrays. This is only called by the thread holding {@code writeLock}, or while the repository is
+     * opened.
+     */
+    private void addToStreamIndex(String streamKey, long streamSequence, long id, int position) {
+        StreamIndex current = streamIndexes.get(streamKey);
+        if (current == null) {
+            current = new StreamIndex(new long[4], new long[4], new int[4], 0, 0);
+        }
+        long[] sequences = current.sequences;
+        long[] ids = current.ids;
+        int[] positions = current.positions;
+        int start = current.start;
+        int end = current.size;
+        if (end == sequences.length) {
+            int newCapacity = Math.max(4, 2 * (end - start));
+            sequences = Arrays.copyOfRange(sequences, start, start + newCapacity);
+            ids = Arrays.copyOfRange(ids, start, start + newCapacity);
+            positions = Arrays.copyOfRange(positions, start, start + newCapacity);
+            end -= start;
+            start = 0;
+        }
+        sequences[end] = streamSequence;
+        ids[end] = id;
+        positions[end] = position;
+        streamIndexes.put(streamKey, new StreamIndex(sequences, ids, positions, start, end + 1));
+    }
+
+    private static void checkMaxResults(int maxResults) {
+        if (maxResults <= 0) {
+            throw new IllegalArgumentException("maxResults must be positive: " + maxResults);
+        }
+    }
+
+    /**
+     * Reads at most {@code maxResults} {@code StoredEvents} matching {@code filter}, with IDs greater than {@code afterStoredEventId} and
+     * less than or equal to {@code lastStoredEventId}, in ID order.
+     */
+    private List<StoredEvent> read(long afterStoredEventId, long lastStoredEventId, int maxResults, Predicate<StoredEvent> filter) {
+        checkOpen();
+        List<StoredEvent> storedEvents = new ArrayList<>();
+        long firstStoredEventId = Math.max(afterStoredEventId, deletedUpTo) + 1;
+        if (afterStoredEventId == Long.MAX_VALUE || firstStoredEventId > lastStoredEventId) {
+            return storedEvents;
+        }
+        Long startKey = segments.floorKey(firstStoredEventId);
+        Collection<Segment> candidates = startKey == null ? segments.values() : segments.tailMap(startKey, true).values();
+        for (Segment segment : candidates) {
+            int limit = segment.limit;
+            int position = segment.position(firstStoredEventId);
+            while (position < limit) {
+                long id = segment.id(position);
+                if (id > lastStoredEventId) {
+                    return storedEvents;
+                }
+                if (id >= firstStoredEventId) {
+                    StoredEvent storedEvent = segment.read(position);
+                    if (filter.test(storedEvent)) {
+                        storedEvents.add(storedEvent);
+                        if (storedEvents.size() >= maxResults) {
+                            return storedEvents;
+                        }
+                    }
+                }
+                position = segment.next(position);
+            }
+        }
+        return storedEvents;
+    }
+
+    /**
+     * Appends a {@link StoredEvent} to the last segment file, and forces the segment files to disk if at least {@code syncInterval}
+     * records have been written since the last time.
+     *
+     * @param storedEvent the {@code StoredEvent} to save, which must not already have an ID
+     * @param <S>         the type of the {@code StoredEvent}, which must be {@code StoredEvent} itself
+     *
+     * @return a new {@code StoredEvent} with the same attributes as {@code storedEvent}, and with the ID set
+     *
+     * @throws IllegalArgumentException if {@code storedEvent} is {@code null}, is of a subclass of {@code StoredEvent}, already has an ID,
+     *                                  has a stream sequence number that is not greater than that of the most recently saved event in
+     *                                  the stream, or is too large to fit in a segment file
+     * @throws IllegalStateException    if the repository has been closed
+     * @throws UncheckedIOException     if writing to the segment files failed
+     */
+    @Override
+    public <S extends StoredEvent> S save(S storedEvent) {
+        ErrorHandling.checkNull("storedEvent must not be null", storedEvent);
+        synchronized (writeLock) {
+            checkOpen();
+            S savedEvent = append(storedEvent);
+            syncIfNeeded();
+            return savedEvent;
+        }
+    }
+
+    /**
+     * Appends several {@link StoredEvent StoredEvents} to the segment files, and forces the segment files to disk if at least
+     * {@code syncInterval} records have been written since the last time.
+     *
+     * @param storedEvents the {@code StoredEvents} to save, which must not already have IDs
+     * @param <S>          the type of the {@code StoredEvents}, which must be {@code StoredEvent} itself
+     *
+     * @return new {@code StoredEvents} with the same attributes as {@code storedEvents}, and with the IDs set
+     *
+     * @throws IllegalArgumentException if {@code storedEvents} or any of the events is {@code null}, or if any of the events is of a
+     *                                  subclass of {@code StoredEvent}, already has an ID, or is too large to fit in a segment file
+     * @throws IllegalStateException    if the repository has been closed
+     * @throws UncheckedIOException     if writing to the segment files failed
+     */
+    @Override
+    public <S extends StoredEvent> List<S> saveAll(Iterable<S> storedEvents) {
+        ErrorHandling.checkNull("storedEvents must not be null", storedEvents);
+        List<S> savedEvents = new ArrayList<>();
+        synchronized (writeLock) {
+            checkOpen();
+            try {
+                for (S storedEvent : storedEvents) {
+                    ErrorHandling.checkNull("storedEvents must not contain null elements", storedEvent);
+                    savedEvents.add(append(storedEvent));
+                }
+            } finally {
+                syncIfNeeded();
+            }
+        }
+        return savedEvents;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <S extends StoredEvent> S append(S storedEvent) {
+        if (storedEvent.getClass() != StoredEvent.class) {
+            throw new IllegalArgumentException("Only StoredEvent, not subclasses, can be saved: " + storedEvent.getClass().getName());
+        }
+        if (storedEvent.id() != null) {
+            throw new IllegalArgumentException("StoredEvent has already been saved: " + storedEvent);
+        }
+        String streamKey = storedEvent.streamKey();
+        Long streamSequence = storedEvent.streamSequence();
+        if (streamKey != null && streamSequence != null) {
+            long lastStreamSequence = lastStreamSequence(streamKey).orElse(0L);
+            if (streamSequence <= lastStreamSequence) {
+                throw new IllegalArgumentException("Stream sequence must be greater than that of the most recently saved event in the "
+                        + "stream " + lastStreamSequence + ": " + storedEvent);
+            }
+        }
+        long id = lastStoredEventId + 1;
+        byte[] recordBody = encode(id, storedEvent);
+        int recordSize = RECORD_HEADER_SIZE + recordBody.length;
+        if (recordSize > segmentSize) {
+            throw new IllegalArgumentException("StoredEvent is too large for a segment of size " + segmentSize + ": recordSize="
+                    + recordSize);
+        }
+        Segment segment = segments.lastEntry().getValue();
+        if (segment.remaining() < recordSize) {
+            segment = rollSegment(segment, id);
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(recordBody);
+        int position = segment.append(id, (int) checksum.getValue(), recordBody);
+        lastStoredEventId = id;
+        if (streamKey != null && streamSequence != null) {
+            addToStreamIndex(streamKey, streamSequence, id, position);
+        }
+        unsyncedRecords++;
+        return (S) new StoredEvent(id, storedEvent.eventType(), storedEvent.eventBody(), storedEvent.occurredOn(),
+                storedEvent.version(), streamKey, streamSequence);
+    }
+
+    private static byte[] encode(long id, StoredEvent storedEvent) {
+        byte[] eventType = storedEvent.eventType().getBytes(UTF_8);
+        byte[] occurredOn = storedEvent.occurredOn().toString().getBytes(UTF_8);
+        byte[] eventBody = storedEvent.eventBody().getBytes(UTF_8);
+        String streamKey = storedEvent.streamKey();
+        Long streamSequence = storedEvent.streamSequence();
+        byte[] stream = streamKey == null ? new byte[0] : streamKey.getBytes(UTF_8);
+        int streamSize = streamKey == null ? 0 : Integer.BYTES + stream.length + Long.BYTES;
+        ByteBuffer buffer = ByteBuffer.allocate(MIN_RECORD_BODY_SIZE + eventType.length + occurredOn.length + eventBody.length
+                + streamSize);
+        buffer.putLong(id).putInt(storedEvent.version());
+        buffer.putInt(eventType.length).put(eventType);
+        buffer.putInt(occurredOn.length).put(occurredOn);
+        buffer.putInt(eventBody.length).put(eventBody);
+        if (streamKey != null && streamSequence != null) {
+            buffer.putInt(stream.length).put(stream).putLong(streamSequence);
+        }
+        return buffer.array();
+    }
+
+    private Segment rollSegment(Segment fullSegment, long baseId) {
+        try {
+            fullSegment.force();
+            Segment segment = createSegment(baseId);
+            segments.put(baseId, segment);
+            LOG.debug("Created new segment file: baseId={}", baseId);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create segment file for ID " + baseId + " in " + directory, e);
+        }
+    }
+
+    private void syncIfNeeded() {
+        if (unsyncedRecords >= syncInterval) {
+            forceLastSegment();
+        }
+    }
+
+    private void forceLastSegment() {
+        if (unsyncedRecords > 0) {
+            segments.lastEntry().getValue().force();
+            unsyncedRecords = 0;
+        }
+    }
+
+    /**
+     * Forces records that have been written since the last time to disk, called every {@code syncDelay} by a background thread.
+     */
+    private void syncUnsyncedRecords() {
+        synchronized (writeLock) {
+            if (closed) {
+                return;
+            }
+            try {
+                forceLastSegment();
+            } catch (RuntimeException e) {
+                // Keep the scheduled task running; the next save or tick tries again.
+                LOG.warn("Failed to force segment file to disk: directory={}", directory, e);
+            }
+        }
+    }
+
+    /**
+     * Gives the number of records written since the segment files were last forced to disk, which is useful for testing.
+     *
+     * @return the number of records that have not been forced to disk
+     */
+    int unsyncedRecords() {
+        synchronized (writeLock) {
+            return unsyncedRecords;
+        }
+    }
+
+    /**
+     * Forces all records written so far to disk.
+     *
+     * @throws IllegalStateException if the repository has been closed
+     */
+    public void sync() {
+        synchronized (writeLock) {
+            checkOpen();
+            forceLastSegment();
+        }
+    }
+
+    /**
+     * Deletes the {@code StoredEvents} with the given IDs, which must be the oldest events in the repository. Since the IDs of the events
+     * are consecutive, this is the case when the IDs are read from the start of the repository, and deleting them is the same as
+     * deleting all events up to the last given ID, see {@link #deleteEventsUpTo(long)}.
+     *
+     * @param storedEventIds the IDs of the {@code StoredEvents} to delete, in ascending order
+     *
+     * @return the number of {@code StoredEvents} deleted
+     *
+     * @throws IllegalArgumentException if {@code storedEventIds} is {@code null}, or if the repository contains an event with an ID less
+     *                                  than the last given ID that is not one of the given IDs
+     * @throws IllegalStateException    if the repository has been closed
+     * @throws UncheckedIOException     if storing the ID of the last deleted event failed
+     */
+    @Override
+    public int deleteEvents(List<Long> storedEventIds) {
+        ErrorHandling.checkNull("storedEventIds must not be null", storedEventIds);
+        if (storedEventIds.isEmpty()) {
+            return 0;
+        }
+        long lastStoredEventId = storedEventIds.get(storedEventIds.size() - 1);
+        synchronized (writeLock) {
+            Set<Long> ids = new HashSet<>(storedEventIds);
+            for (StoredEvent storedEvent : eventsAfter(Long.MIN_VALUE, lastStoredEventId, storedEventIds.size() + 1)) {
+                if (!ids.contains(storedEvent.id())) {
+                    throw new IllegalArgumentException("Only the oldest events can be deleted from this repository, but event "
+                            + storedEvent.id() + " is not one of the events to delete: lastStoredEventId=" + lastStoredEventId);
+                }
+            }
+            return deleteEventsUpTo(lastStoredEventId);
+        }
+    }
+
+    /**
+     * Deletes all {@code StoredEvents} with IDs less than or equal to {@code lastStoredEventId}, see the class documentation.
+     *
+     * @param lastStoredEventId the ID of the last {@code StoredEvent} to delete
+     *
+     * @return the number of {@code StoredEvents} deleted
+     *
+     * @throws IllegalStateException if the repository has been closed
+     * @throws UncheckedIOException  if storing the ID of the last deleted event failed
+     */
+    public int deleteEventsUpTo(long lastStoredEventId) {
+        synchronized (writeLock) {
+            checkOpen();
+            long lastDeletedId = Math.min(lastStoredEventId, this.lastStoredEventId);
+            if (lastDeletedId <= deletedUpTo) {
+                return 0;
+            }
+            try {
+                writeDeletedUpTo(lastDeletedId);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to store ID of last deleted event in " + directory, e);
+            }
+            int numDeleted = (int) Math.min(lastDeletedId - deletedUpTo, Integer.MAX_VALUE);
+            deletedUpTo = lastDeletedId;
+            removeDeletedEvents();
+            LOG.debug("Deleted stored events: lastDeletedId={}", lastDeletedId);
+            return numDeleted;
+        }
+    }
+
+    /**
+     * Removes events with IDs up to {@code deletedUpTo} from the stream indexes, and removes segment files whose events have all been
+     * deleted, except the last one. A segment file that cannot be removed is removed the next time the repository is opened.
+     */
+    private void removeDeletedEvents() {
+        for (Map.Entry<String, StreamIndex> entry : streamIndexes.entrySet()) {
+            StreamIndex streamIndex = entry.getValue();
+            int start = streamIndex.start;
+            while (start < streamIndex.size && streamIndex.ids[start] <= deletedUpTo) {
+                start++;
+            }
+            if (start != streamIndex.start) {
+                entry.setValue(new StreamIndex(streamIndex.sequences, streamIndex.ids, streamIndex.positions, start, streamIndex.size));
+            }
+        }
+        Segment lastSegment = segments.lastEntry().getValue();
+        for (Segment segment : segments.values()) {
+            if (segment == lastSegment || segment.lastId > deletedUpTo) {
+                break;
+            }
+            segments.remove(segment.baseId);
+            Path segmentFile = directory.resolve(segmentFileName(segment.baseId));
+            try {
+                segment.channel.close();
+                Files.delete(segmentFile);
+                LOG.debug("Deleted segment file: baseId={}", segment.baseId);
+            } catch (IOException e) {
+                LOG.warn("Failed to delete segment file: {}", segmentFile, e);
+            }
+        }
+    }
+
+    /**
+     * Gives {@code false}, since only one repository at a time, in one process, may use the segment files.
+     *
+     * @return {@code false}
+     */
+    @Override
+    public boolean isShared() {
+        return false;
+    }
+
+    @Override
+    public Optional<Long> lastStoredEventId() {
+        checkOpen();
+        long id = lastStoredEventId;
+        return id == 0 ? Optional.empty() : Optional.of(id);
+    }
+
+    /**
+     * Forces all records written so far to disk and closes the segment files. Calling this method more than once has no effect.
+     */
+    @Override
+    public void close() {
+        syncScheduler.shutdown();
+        synchronized (writeLock) {
+            if (closed) {
+                return;
+            }
+            try {
+                forceLastSegment();
+            } finally {
+                closed = true;
+                closeSegments();
+            }
+        }
+    }
+
+    private void closeSegments() {
+        for (Segment segment : segments.values()) {
+            try {
+                segment.channel.close();
+            } catch (IOException e) {
+                LOG.warn("Failed to close segment file: baseId={}", segment.baseId, e);
+            }
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Repository has been closed: " + directory);
+        }
+    }
+
+    /**
+     * Gives the segment files currently used, which is useful for testing.
+     *
+     * @return a map from the ID of the first {@code StoredEvent} in each segment to the path of the segment file
+     */
+    Map<Long, Path> segmentFiles() {
+        Map<Long, Path> segmentFiles = new TreeMap<>();
+        for (Long baseId : segments.keySet()) {
+            segmentFiles.put(baseId, directory.resolve(segmentFileName(baseId)));
+        }
+        return segmentFiles;
+    }
+
+    @Override
+    public String toString() {
+        return "MappedFileStoredEventRepository{directory=" + directory + ", segmentSize=" + segmentSize + ", indexInterval="
+                + indexInterval + ", syncInterval=" + syncInterval + ", syncDelay=" + syncDelay + "}";
+    }
+
+    /**
+     * A memory-mapped segment file, with a sparse index from ID to position.
+     * <p>
+     * Records are only appended by the thread holding {@code writeLock}. Readers never look beyond {@link #limit}, which is updated after
+     * a record has been written completely, and use only absolute reads from the shared buffer.
+     */
+    private final class Segment {
+
+        private final long baseId;
+
+        private final FileChannel channel;
+
+        private final MappedByteBuffer buffer;
+
+        /**
+         * The position after the last complete record.
+         */
+        private volatile int limit;
+
+        /**
+         * The ID of the last record, or {@code baseId - 1} if the segment is empty.
+         */
+        private volatile long lastId;
+
+        private volatile SparseIndex index = new SparseIndex(new long[16], new int[16], 0);
+
+        Segment(long baseId, FileChannel channel, MappedByteBuffer buffer) {
+            this.baseId = baseId;
+            this.channel = channel;
+            this.buffer = buffer;
+            this.lastId = baseId - 1;
+        }
+
+        /**
+         * Reads all records to rebuild the index, removing a partially written record at the end if {@code truncateTail} is
+         * {@code true}.
+         */
+        void recover(boolean truncateTail) {
+            int position = 0;
+            long expectedId = baseId;
+            @Nullable String problem = null;
+            while (position + RECORD_HEADER_SIZE <= buffer.capacity()) {
+                int recordBodySize = buffer.getInt(position);
+                if (recordBodySize == 0) {
+                    break;
+                }
+                problem = checkRecord(position, recordBodySize, expectedId);
+                if (problem != null) {
+                    break;
+                }
+                addToIndex(expectedId, position);
+                trackStream(expectedId, position);
+                position += RECORD_HEADER_SIZE + recordBodySize;
+                expectedId++;
+            }
+            if (problem != null) {
+                if (!truncateTail) {
+                    throw new IllegalStateException("Segment file " + segmentFileName(baseId) + " is corrupt at position " + position
+                            + ": " + problem);
+                }
+                LOG.warn("Removing incomplete record at end of segment file {}: position={}, problem={}", segmentFileName(baseId),
+                        position, problem);
+                clear(position);
+            }
+            limit = position;
+            lastId = expectedId - 1;
+        }
+
+        private @Nullable String checkRecord(int position, int recordBodySize, long expectedId) {
+            if (recordBodySize < MIN_RECORD_BODY_SIZE || recordBodySize > buffer.capacity() - position - RECORD_HEADER_SIZE) {
+                return "invalid record size " + recordBodySize;
+            }
+            byte[] recordBody = new byte[recordBodySize];
+            buffer.get(position + RECORD_HEADER_SIZE, recordBody);
+            CRC32 checksum = new CRC32();
+            checksum.update(recordBody);
+            if ((int) checksum.getValue() != buffer.getInt(position + Integer.BYTES)) {
+                return "checksum mismatch";
+            }
+            long id = id(position);
+            if (id != expectedId) {
+                return "expected ID " + expectedId + " but found " + id;
+            }
+            return null;
+        }
+
+        private void clear(int position) {
+            byte[] zeros = new byte[(int) Math.min(buffer.capacity() - position, 64 * 1024)];
+            for (int i = position; i < buffer.capacity(); i += zeros.length) {
+                buffer.put(i, zeros, 0, Math.min(zeros.length, buffer.capacity() - i));
+            }
+            buffer.force();
+        }
+
+        boolean isEmpty() {
+            return lastId < baseId;
+        }
+
+        int remaining() {
+            return buffer.capacity() - limit;
+        }
+
+        /**
+         * Appends a record and gives its position.
+         */
+        int append(long id, int checksum, byte[] recordBody) {
+            int position = limit;
+            buffer.putInt(position, recordBody.length);
+            buffer.putInt(position + Integer.BYTES, checksum);
+            buffer.put(position + RECORD_HEADER_SIZE, recordBody);
+            addToIndex(id, position);
+            limit = position + RECORD_HEADER_SIZE + recordBody.length;
+            lastId = id;
+            return position;
+        }
+
+        private void addToIndex(long id, int position) {
+            if ((id - baseId) % indexInterval != 0) {
+                return;
+            }
+            SparseIndex current = index;
+            long[] ids = current.ids;
+            int[] positions = current.positions;
+            if (current.size == ids.length) {
+                ids = Arrays.copyOf(ids, 2 * ids.length);
+                positions = Arrays.copyOf(positions, 2 * positions.length);
+            }
+            ids[current.size] = id;
+            positions[current.size] = position;
+            index = new SparseIndex(ids, positions, current.size + 1);
+        }
+
+        /**
+         * Gives the position of the record with the greatest ID in the index that is less than or equal to {@code id}, or the position
+         * of the first record if there is no such entry.
+         */
+        int position(long id) {
+            SparseIndex current = index;
+            int i = Arrays.binarySearch(current.ids, 0, current.size, id);
+            if (i >= 0) {
+                return current.positions[i];
+            }
+            int insertionPoint = -i - 1;
+            return insertionPoint == 0 ? 0 : current.positions[insertionPoint - 1];
+        }
+
+        long id(int position) {
+            return buffer.getLong(position + RECORD_HEADER_SIZE);
+        }
+
+        int next(int position) {
+            return position + RECORD_HEADER_SIZE + buffer.getInt(position);
+        }
+
+        StoredEvent read(int position) {
+            int offset = position + RECORD_HEADER_SIZE;
+            long id = buffer.getLong(offset);
+            offset += Long.BYTES;
+            int version = buffer.getInt(offset);
+            offset += Integer.BYTES;
+            String eventType = readString(offset);
+            offset += Integer.BYTES + buffer.getInt(offset);
+            String occurredOn = readString(offset);
+            offset += Integer.BYTES + buffer.getInt(offset);
+            String eventBody = readString(offset);
+            offset += Integer.BYTES + buffer.getInt(offset);
+            @Nullable String streamKey = null;
+            @Nullable Long streamSequence = null;
+            if (offset < next(position)) {
+                streamKey = readString(offset);
+                streamSequence = buffer.getLong(offset + Integer.BYTES + buffer.getInt(offset));
+            }
+            return new StoredEvent(id, eventType, eventBody, ZonedDateTime.parse(occurredOn), version, streamKey, streamSequence);
+        }
+
+        /**
+         * Adds the record with the given ID at the given position to the index of its stream, if the record belongs to a stream.
+         */
+        private void trackStream(long id, int position) {
+            int offset = position + RECORD_HEADER_SIZE + Long.BYTES + Integer.BYTES;
+            for (int i = 0; i < 3; i++) {
+                offset += Integer.BYTES + buffer.getInt(offset);
+            }
+            if (offset < next(position)) {
+                addToStreamIndex(readString(offset), buffer.getLong(offset + Integer.BYTES + buffer.getInt(offset)), id, position);
+            }
+        }
+
+        private String readString(int offset) {
+            byte[] bytes = new byte[buffer.getInt(offset)];
+            buffer.get(offset + Integer.BYTES, bytes);
+            return new String(bytes, UTF_8);
+        }
+
+        void force() {
+            buffer.force();
+        }
+    }
+
+    /**
+     * An immutable view of a sparse index. The arrays may be shared with newer views, but entries below {@code size} are never changed.
+     */
+    private record SparseIndex(long[] ids, int[] positions, int size) {
+    }
+
+    /**
+     * An immutable view of the index of a stream, with the sequence number, ID and position within its segment of each event in the
+     * stream, in stream order. Entries from {@code start} up to {@code size} are the events that have not been deleted. The arrays may be
+     * shared with newer views, but entries below {@code size} are never changed.
+     */
+    private record StreamIndex(long[] sequences, long[] ids, int[] positions, int start, int size) {
+
+        /**
+         * Gives the index of the first event not deleted with a sequence number greater than {@code afterStreamSequence}, or {@code size}
+         * if there is no such event.
+         */
+        int firstAfter(long afterStreamSequence) {
+            int i = Arrays.binarySearch(sequences, start, size, afterStreamSequence);
+            return i >= 0 ? i + 1 : -i - 1;
+        }
+
+        long lastSequence() {
+            return sequences[size - 1];
+        }
+    }
+}
@@ -0,0 +1,7 @@
+/**
+ * Implementations of {@link com.reallifedeveloper.common.application.eventstore.StoredEventRepository} that do not use a relational
+ * database.
+ *
+ * @author RealLifeDeveloper
+ */
+package com.reallifedeveloper.common.infrastructure.eventstore;
@@ -3,8 +3,15 @@ package com.reallifedeveloper.common.infrastructure.messaging;
 import static com.reallifedeveloper.common.domain.LogUtil.removeCRLF;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
@@ -18,6 +25,33 @@ import com.reallifedeveloper.common.domain.ObjectSerializer;
 
 /**
  * An implementation of the {@link NotificationPublisher} interface which uses <a href="https://kafka.apache.org/">Apache Kafka</a>.
+ * <p>
+ * The key of each message is chosen by a {@link NotificationKeyStrategy}. Kafka preserves the order of messages with the same key, and
+ * spreads different keys over the partitions of a topic, so the strategy decides both the ordering guarantees and how far consumers of a
+ * topic can be scaled out.
+ * <p>
+ * The timestamp of each record is set to the date and time the event occurred. The type of event, the stored event ID and the date and
+ * time the event occurred are also added as UTF-8 encoded record headers, see {@link NotificationHeaders}, so that consumers can filter
+ * records without parsing the message bodies, e.g., using a {@link KafkaNotificationReader}.
+ * <p>
+ * Optionally, notifications with the same key can be sent as one record, containing a JSON array of the notifications, to reduce the
+ * number of records for high-volume topics. Notifications are grouped by key across each call to {@link #publish(List, String)}, not only
+ * when they are consecutive, since Kafka only preserves the order of records with the same key. Records with different keys may therefore
+ * be sent in a different order than the notifications, even if the keys are in the same partition. A batch record only has the
+ * {@link NotificationHeaders#BATCH_SIZE} header, and its timestamp is set from the last notification in the batch. Consumers can use
+ * {@link KafkaNotificationReader#readAll(org.apache.kafka.clients.consumer.ConsumerRecord)} to read both single and batch records.
+ * Compression is best configured on the producer, using the {@code compression.type} property, since Kafka then compresses whole batches
+ * of records.
+ * <p>
+ * When used with {@link com.reallifedeveloper.common.application.notification.NotificationService#publishNotifications(String)}, the
+ * service normally records the ID of the last published stored event in a database after the notifications have been sent, so a crash in
+ * between means that the notifications are published again after a restart. To avoid this, a publisher can be given a tracker topic. The
+ * notifications are then sent in a Kafka transaction, together with a record on the tracker topic that has the publication channel as key
+ * and the ID of the last published stored event as value. If the tracker topic is compacted and read using a
+ * {@link KafkaPublishedMessageTrackerRepository}, publishing resumes after the last committed transaction, and a process that finds
+ * another process publishing to the same publication channel stops publishing to it. This requires a transactional {@code KafkaTemplate},
+ * and is not supported when publishing per stream, since the progress of a stream is tracked by stream sequence number rather than by
+ * stored event ID, so {@link #publishStream(List, String, String)} then throws an {@code UnsupportedOperationException}.
  *
  * @author RealLifeDeveloper
  */
@@ -29,20 +63,95 @@ public final class KafkaNotificationPublisher implements NotificationPublisher {
 
     private final ObjectSerializer<String> objectSerializer;
 
+    private final NotificationKeyStrategy keyStrategy;
+
+    private final int maxBatchSize;
+
+    private final @Nullable String trackerTopic;
+
     /**
      * Creates a new {@code KafkaNotificationPublisher} which uses the given {@code ObjectSerializer} to serialize notifications, and the
-     * given {@code KafkaTemplate} to send them to Kafka.
+     * given {@code KafkaTemplate} to send them to Kafka. The type of event is used as key, see {@link NotificationKeyStrategy#eventType()}.
      *
      * @param kafkaTemplate    the {@code KafkaTemplate} to use
      * @param objectSerializer the {@code ObjectSerializer} to use
      */
+    public KafkaNotificationPublisher(KafkaTemplate<String, String> kafkaTemplate, ObjectSerializer<String> objectSerializer) {
+        this(kafkaTemplate, objectSerializer, NotificationKeyStrategy.eventType());
+    }
+
+    /**
+     * Creates a new {@code KafkaNotificationPublisher} which uses the given {@code ObjectSerializer} to serialize notifications, and the
+     * given {@code KafkaTemplate} to send them to Kafka, with keys chosen by the given {@code NotificationKeyStrategy}.
+     *
+     * @param kafkaTemplate    the {@code KafkaTemplate} to use
+     * @param objectSerializer the {@code ObjectSerializer} to use
+     * @param keyStrategy      the {@code NotificationKeyStrategy} to use
+     */
+    public KafkaNotificationPublisher(KafkaTemplate<String, String> kafkaTemplate, ObjectSerializer<String> objectSerializer,
+            NotificationKeyStrategy keyStrategy) {
+        this(kafkaTemplate, objectSerializer, keyStrategy, 1);
+    }
+
+    /**
+     * Creates a new {@code KafkaNotificationPublisher} which uses the given {@code ObjectSerializer} to serialize notifications, and the
+     * given {@code KafkaTemplate} to send them to Kafka, with keys chosen by the given {@code NotificationKeyStrategy}.
+     * Notifications with the same key are sent as one record, containing at most {@code maxBatchSize} notifications.
+     *
+     * @param kafkaTemplate    the {@code KafkaTemplate} to use
+     * @param objectSerializer the {@code ObjectSerializer} to use, which must serialize to JSON if {@code maxBatchSize} is greater than one
+     * @param keyStrategy      the {@code NotificationKeyStrategy} to use
+     * @param maxBatchSize     the maximum number of notifications to send in one record, one meaning that batching is disabled
+     *
+     * @throws IllegalArgumentException if any argument is {@code null}, or if {@code maxBatchSize} is not positive
+     */
+    public KafkaNotificationPublisher(KafkaTemplate<String, String> kafkaTemplate, ObjectSerializer<String> objectSerializer,
+            NotificationKeyStrategy keyStrategy, int maxBatchSize) {
+        this(kafkaTemplate, objectSerializer, keyStrategy, maxBatchSize, null);
+    }
+
+    /**
+     * Creates a new {@code KafkaNotificationPublisher} which uses the given {@code ObjectSerializer} to serialize notifications, and the
+     * given {@code KafkaTemplate} to send them to Kafka, with keys chosen by the given {@code NotificationKeyStrategy}.
+     * Notifications with the same key are sent as one record, containing at most {@code maxBatchSize} notifications. If
+     * {@code trackerTopic} is not {@code null}, the notifications are sent in a Kafka transaction together with the ID of the last
+     * published stored event.
+     *
+     * @param kafkaTemplate    the {@code KafkaTemplate} to use, which must be transactional if {@code trackerTopic} is not {@code null}
+     * @param objectSerializer the {@code ObjectSerializer} to use, which must serialize to JSON if {@code maxBatchSize} is greater than one
+     * @param keyStrategy      the {@code NotificationKeyStrategy} to use
+     * @param maxBatchSize     the maximum number of notifications to send in one record, one meaning that batching is disabled
+     * @param trackerTopic     the compacted topic to send the ID of the last published stored event to, or {@code null} to send
+     *                         notifications without transactions
+     *
+     * @throws IllegalArgumentException if any argument except {@code trackerTopic} is {@code null}, if {@code maxBatchSize} is not
+     *                                  positive, or if {@code trackerTopic} is not {@code null} and {@code kafkaTemplate} is not
+     *                                  transactional
+     */
     @SuppressFBWarnings(value = { "EI_EXPOSE_REP2",
             "CRLF_INJECTION_LOGS" }, justification = "The KafkaTemplate is mutable, but that is OK; Logging only of objects, not user data")
-    public KafkaNotificationPublisher(KafkaTemplate<String, String> kafkaTemplate, ObjectSerializer<String> objectSerializer) {
+    public KafkaNotificationPublisher(KafkaTemplate<String, String> kafkaTemplate, ObjectSerializer<String> objectSerializer,
+            NotificationKeyStrategy keyStrategy, int maxBatchSize, @Nullable String trackerTopic) {
         ErrorHandling.checkNull("Arguments must not be null: kafkaTemplate=%s, objectSerializer=%s", kafkaTemplate, objectSerializer);
-        LOG.info("Creating new {}: kafkaTemplate={}, objectSerializer={}", getClass().getSimpleName(), kafkaTemplate, objectSerializer);
+        ErrorHandling.checkNull("keyStrategy must not be null", keyStrategy);
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        }
+        if (trackerTopic == null) {
+            LOG.info("Creating new {}: kafkaTemplate={}, objectSerializer={}", getClass().getSimpleName(), kafkaTemplate,
+                    objectSerializer);
+        } else {
+            if (!kafkaTemplate.isTransactional()) {
+                throw new IllegalArgumentException("kafkaTemplate must be transactional when a trackerTopic is used: " + kafkaTemplate);
+            }
+            LOG.info("Creating new {}: kafkaTemplate={}, objectSerializer={}, trackerTopic={}", getClass().getSimpleName(), kafkaTemplate,
+                    objectSerializer, trackerTopic);
+        }
         this.kafkaTemplate = kafkaTemplate;
         this.objectSerializer = objectSerializer;
+        this.keyStrategy = keyStrategy;
+        this.maxBatchSize = maxBatchSize;
+        this.trackerTopic = trackerTopic;
     }
 
     @Override
@@ -52,11 +161,101 @@ public final class KafkaNotificationPublisher implements NotificationPublisher {
         if (LOG.isTraceEnabled()) {
             LOG.trace("publish: notifications={}, publicationChannel={}", removeCRLF(notifications), removeCRLF(publicationChannel));
         }
-        for (Notification notification : notifications) {
-            String key = notification.eventType();
-            String message = objectSerializer.serialize(notification);
-            kafkaTemplate.send(publicationChannel, key, message);
+        List<ProducerRecord<String, String>> producerRecords = new ArrayList<>();
+        for (NotificationBatch batch : NotificationBatch.groupByKey(notifications, keyStrategy, maxBatchSize)) {
+            String message = batch.serialize(objectSerializer);
+            if (batch.size() == 1) {
+                producerRecords.add(producerRecord(publicationChannel, batch.key(), batch.lastNotification(), message));
+            } else {
+                producerRecords.add(batchProducerRecord(publicationChannel, batch, message));
+            }
+        }
+        if (trackerTopic == null) {
+            producerRecords.forEach(kafkaTemplate::send);
+        } else if (!notifications.isEmpty()) {
+            Notification lastNotification = notifications.get(notifications.size() - 1);
+            producerRecords.add(trackerRecord(trackerTopic, publicationChannel, lastNotification.storedEventId()));
+            try {
+                kafkaTemplate.executeInTransaction(operations -> {
+                    producerRecords.forEach(operations::send);
+                    return null;
+                });
+            } catch (KafkaException | org.springframework.kafka.KafkaException e) {
+                throw new IOException("Failed to send notifications in a Kafka transaction", e);
+            }
         }
     }
 
+    /**
+     * Publishes notifications from one stream, see {@link #publish(List, String)}.
+     *
+     * @throws UnsupportedOperationException if this publisher has a tracker topic, since the tracker record would then overwrite the
+     *                                       tracker of the whole publication channel with the ID of a stored event in the stream
+     */
+    @Override
+    public void publishStream(List<Notification> notifications, String publicationChannel, String streamKey) throws IOException {
+        if (trackerTopic != null) {
+            throw new UnsupportedOperationException("Publishing per stream is not supported when a trackerTopic is used: trackerTopic="
+                    + trackerTopic + ", publicationChannel=" + publicationChannel + ", streamKey=" + streamKey);
+        }
+        publish(notifications, publicationChannel);
+    }
+
+    /**
+     * Gives the record to send to the tracker topic to record the ID of the last stored event published on a publication channel. This
+     * method is package-private to allow tests to build the expected records.
+     *
+     * @param trackerTopic               the tracker topic
+     * @param publicationChannel         the publication channel, which is used as key
+     * @param lastPublishedStoredEventId the ID of the last stored event published on {@code publicationChannel}
+     *
+     * @return the {@code ProducerRecord} to send
+     */
+    static ProducerRecord<String, String> trackerRecord(String trackerTopic, String publicationChannel, Long lastPublishedStoredEventId) {
+        return new ProducerRecord<>(trackerTopic, publicationChannel, lastPublishedStoredEventId.toString());
+    }
+
+    /**
+     * Gives the record to send to Kafka for the given notification. This method is package-private to allow tests to build the expected
+     * records.
+     *
+     * @param topic        the topic to send the record to
+     * @param key          the key of the record, may be {@code null}
+     * @param notification the notification to send
+     * @param message      the serialized notification
+     *
+     * @return the {@code ProducerRecord} to send
+     */
+    static ProducerRecord<String, String> producerRecord(String topic, @Nullable String key, Notification notification, String message) {
+        RecordHeaders headers = new RecordHeaders();
+        Long timestamp = null;
+        if (notification.eventType() != null) {
+            headers.add(NotificationHeaders.EVENT_TYPE, notification.eventType().getBytes(StandardCharsets.UTF_8));
+        }
+        headers.add(NotificationHeaders.STORED_EVENT_ID, notification.storedEventId().toString().getBytes(StandardCharsets.UTF_8));
+        if (notification.occurredOn() != null) {
+            headers.add(NotificationHeaders.OCCURRED_ON, notification.occurredOn().toString().getBytes(StandardCharsets.UTF_8));
+            timestamp = notification.occurredOn().toInstant().toEpochMilli();
+        }
+        return new ProducerRecord<>(topic, null, timestamp, key, message, headers);
+    }
+
+    /**
+     * Gives the record to send to Kafka for the given batch of notifications. This method is package-private to allow tests to build the
+     * expected records.
+     *
+     * @param topic   the topic to send the record to
+     * @param batch   the batch of notifications to send
+     * @param message the serialized batch
+     *
+     * @return the {@code ProducerRecord} to send
+     */
+    static ProducerRecord<String, String> batchProducerRecord(String topic, NotificationBatch batch, String message) {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(NotificationHeaders.BATCH_SIZE, Integer.toString(batch.size()).getBytes(StandardCharsets.UTF_8));
+        ZonedDateTime occurredOn = batch.lastNotification().occurredOn();
+        Long timestamp = occurredOn == null ? null : occurredOn.toInstant().toEpochMilli();
+        return new ProducerRecord<>(topic, null, timestamp, batch.key(), message, headers);
+    }
+
 }
@@ -0,0 +1,153 @@
+package com.reallifedeveloper.common.infrastructure.messaging;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.reallifedeveloper.common.application.notification.NotificationReader;
+import com.reallifedeveloper.common.domain.ErrorHandling;
+import com.reallifedeveloper.common.infrastructure.GsonNotificationReader;
+
+/**
+ * An implementation of the {@link NotificationReader} interface that reads the type of event, the stored event ID and the date and time
+ * the event occurred from the headers of a Kafka record published by {@link KafkaNotificationPublisher}.
+ * <p>
+ * The record value is only parsed when information that is not available in the headers is needed, e.g., a field in the domain event, or
+ * if the record lacks a header, e.g., because it was published by an older version of {@code KafkaNotificationPublisher}. This means that
+ * consumers can decide if a record should be skipped without parsing the record value.
+ * <p>
+ * A record containing a batch of notifications, see {@link NotificationHeaders#BATCH_SIZE}, should be read using
+ * {@link #readAll(ConsumerRecord)}.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author RealLifeDeveloper
+ */
+public final class KafkaNotificationReader implements NotificationReader {
+
+    private final ConsumerRecord<String, String> consumerRecord;
+
+    private final Function<String, NotificationReader> valueReaderFactory;
+
+    private @Nullable NotificationReader valueReader;
+
+    /**
+     * Creates a new {@code KafkaNotificationReader} that reads the given record, using a {@link GsonNotificationReader} if the record
+     * value needs to be parsed.
+     *
+     * @param consumerRecord the Kafka record to read
+     *
+     * @throws IllegalArgumentException if {@code consumerRecord} is {@code null}
+     */
+    public KafkaNotificationReader(ConsumerRecord<String, String> consumerRecord) {
+        this(consumerRecord, GsonNotificationReader::new);
+    }
+
+    /**
+     * Creates a new {@code KafkaNotificationReader} that reads the given record, using a {@code NotificationReader} created by the given
+     * function if the record value needs to be parsed.
+     *
+     * @param consumerRecord     the Kafka record to read
+     * @param valueReaderFactory a function that creates a {@code NotificationReader} for the record value
+     *
+     * @throws IllegalArgumentException if any argument is {@code null}
+     */
+    public KafkaNotificationReader(ConsumerRecord<String, String> consumerRecord,
+            Function<String, NotificationReader> valueReaderFactory) {
+        ErrorHandling.checkNull("Arguments must not be null: consumerRecord=%s, valueReaderFactory=%s", consumerRecord,
+                valueReaderFactory);
+        this.consumerRecord = consumerRecord;
+        this.valueReaderFactory = valueReaderFactory;
+    }
+
+    /**
+     * Gives readers for all notifications in the given record, which may contain a single notification or a batch of notifications.
+     * <p>
+     * For a record with a single notification, a {@code KafkaNotificationReader} is returned, so the headers are used when possible. For a
+     * batch record, the record value is parsed using {@link GsonNotificationReader#readAll(String)}.
+     *
+     * @param consumerRecord the Kafka record to read
+     *
+     * @return a list of {@code NotificationReaders}, one for each notification in {@code consumerRecord}, in the order they were published
+     *
+     * @throws IllegalArgumentException if {@code consumerRecord} is {@code null}
+     */
+    public static List<NotificationReader> readAll(ConsumerRecord<String, String> consumerRecord) {
+        ErrorHandling.checkNull("consumerRecord must not be null", consumerRecord);
+        if (consumerRecord.headers().lastHeader(NotificationHeaders.BATCH_SIZE) == null) {
+            return List.of(new KafkaNotificationReader(consumerRecord));
+        }
+        return GsonNotificationReader.readAll(consumerRecord.value());
+    }
+
+    @Override
+    public String eventType() {
+        String eventType = headerValue(NotificationHeaders.EVENT_TYPE);
+        return eventType == null ? valueReader().eventType() : eventType;
+    }
+
+    @Override
+    public Long storedEventId() {
+        String storedEventId = headerValue(NotificationHeaders.STORED_EVENT_ID);
+        return storedEventId == null ? valueReader().storedEventId() : Long.valueOf(storedEventId);
+    }
+
+    @Override
+    public ZonedDateTime occurredOn() {
+        String occurredOn = headerValue(NotificationHeaders.OCCURRED_ON);
+        return occurredOn == null ? valueReader().occurredOn() : ZonedDateTime.parse(occurredOn);
+    }
+
+    @Override
+    public Integer eventVersion() {
+        return valueReader().eventVersion();
+    }
+
+    @Override
+    public Optional<Integer> eventIntValue(String fieldName) {
+        return valueReader().eventIntValue(fieldName);
+    }
+
+    @Override
+    public Optional<Long> eventLongValue(String fieldName) {
+        return valueReader().eventLongValue(fieldName);
+    }
+
+    @Override
+    public Optional<Double> eventDoubleValue(String fieldName) {
+        return valueReader().eventDoubleValue(fieldName);
+    }
+
+    @Override
+    public Optional<String> eventStringValue(String fieldName) {
+        return valueReader().eventStringValue(fieldName);
+    }
+
+    @Override
+    public Optional<ZonedDateTime> zonedDateTimeValue(String fieldName) {
+        return valueReader().zonedDateTimeValue(fieldName);
+    }
+
+    private @Nullable String headerValue(String headerName) {
+        Header header = consumerRecord.headers().lastHeader(headerName);
+        if (header == null || header.value() == null) {
+            return null;
+        }
+        return new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    private NotificationReader valueReader() {
+        NotificationReader reader = valueReader;
+        if (reader == null) {
+            reader = valueReaderFactory.apply(consumerRecord.value());
+            valueReader = reader;
+        }
+        return reader;
+    }
+}
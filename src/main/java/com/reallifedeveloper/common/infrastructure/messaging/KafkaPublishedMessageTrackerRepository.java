@@ -0,0 +1,319 @@
+package com.reallifedeveloper.common.infrastructure.messaging;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+import com.reallifedeveloper.common.application.notification.PublishedMessageTracker;
+import com.reallifedeveloper.common.application.notification.PublishedMessageTrackerRepository;
+import com.reallifedeveloper.common.domain.ErrorHandling;
+
+/**
+ * A {@link PublishedMessageTrackerRepository} that reads the ID of the last published stored event on each publication channel from a
+ * compacted Kafka topic, written by a {@link KafkaNotificationPublisher} with a tracker topic.
+ * <p>
+ * Since the {@code KafkaNotificationPublisher} writes to the tracker topic in the same Kafka transaction as the notifications, the tracker
+ * topic always agrees with what has been published. The tracker topic is read using a consumer that only reads committed records, and the
+ * consumer catches up with the end of the topic each time a tracker is looked up, so trackers written by other processes, e.g., by an
+ * instance that is being replaced, are always seen before publishing.
+ * <p>
+ * Only one process at a time may publish to a publication channel using the tracker topic, and this is enforced when a tracker is saved:
+ * the tracker topic is read until the record written by the publisher is seen, and if any other record for the publication channel has
+ * been written since the tracker was looked up, another process is publishing to the same channel. An {@code IllegalStateException} is
+ * then thrown, and this repository refuses to give out the tracker for that publication channel for {@link #LOST_CHANNEL_BACKOFF}, so
+ * that this process stops publishing to it. If both processes published before either of them saved its tracker, both of them back off,
+ * and the first one to look up the tracker after the backoff continues publishing from the last tracker record. Notifications published
+ * by both processes before this is detected are published more than once.
+ * <p>
+ * The partitions of the tracker topic are looked up when the consumer is created. If the tracker topic does not exist yet, e.g., because
+ * it is created by the first transaction of the publisher, the partitions are looked up again each time the topic is read, until the
+ * topic has been created.
+ * <p>
+ * The consumer of the tracker topic is kept open between lookups, so this repository should be closed when it is no longer needed.
+ *
+ * @author RealLifeDeveloper
+ */
+public final class KafkaPublishedMessageTrackerRepository implements PublishedMessageTrackerRepository, AutoCloseable {
+
+    /**
+     * The default maximum time to wait for the tracker record written by the publisher to be seen when saving a tracker.
+     */
+    public static final Duration DEFAULT_CONFIRMATION_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * How long this repository refuses to give out the tracker for a publication channel after finding that another process publishes to
+     * it.
+     */
+    public static final Duration LOST_CHANNEL_BACKOFF = Duration.ofMinutes(1);
+
+    private static final Logger LOG = LoggerFactory.getLogger(KafkaPublishedMessageTrackerRepository.class);
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+
+    private static final String READ_COMMITTED = "read_committed";
+
+    private final ConsumerFactory<String, String> consumerFactory;
+
+    private final String trackerTopic;
+
+    private final Duration confirmationTimeout;
+
+    private final Map<String, Long> lastPublishedMessageIds = new HashMap<>();
+
+    /**
+     * The number of tracker records read for each publication channel since the tracker was last looked up.
+     */
+    private final Map<String, Integer> trackerRecordsSinceLookup = new HashMap<>();
+
+    /**
+     * The publication channels that another process has been found to publish to, with the time when they may be looked up again.
+     */
+    private final Map<String, Long> lostPublicationChannels = new HashMap<>();
+
+    private final List<TopicPartition> partitions = new ArrayList<>();
+
+    private final LongSupplier nanoClock;
+
+    private @Nullable Consumer<String, String> consumer;
+
+    /**
+     * Creates a new {@code KafkaPublishedMessageTrackerRepository} that reads the given tracker topic, waiting at most
+     * {@link #DEFAULT_CONFIRMATION_TIMEOUT} for the tracker record written by the publisher when saving a tracker.
+     *
+     * @param consumerFactory the {@code ConsumerFactory} to use to create a consumer of the tracker topic, which must be configured with
+     *                        {@code isolation.level=read_committed}
+     * @param trackerTopic    the name of the tracker topic
+     *
+     * @throws IllegalArgumentException if any argument is {@code null}, or if {@code consumerFactory} is not configured to only read
+     *                                  committed records
+     */
+    public KafkaPublishedMessageTrackerRepository(ConsumerFactory<String, String> consumerFactory, String trackerTopic) {
+        this(consumerFactory, trackerTopic, DEFAULT_CONFIRMATION_TIMEOUT);
+    }
+
+    /**
+     * Creates a new {@code KafkaPublishedMessageTrackerRepository} that reads the given tracker topic.
+     *
+     * @param consumerFactory     the {@code ConsumerFactory} to use to create a consumer of the tracker topic, which must be configured
+     *                            with {@code isolation.level=read_committed}
+     * @param trackerTopic        the name of the tracker topic
+     * @param confirmationTimeout the maximum time to wait for the tracker record written by the publisher to be seen when saving a
+     *                            tracker
+     *
+     * @throws IllegalArgumentException if any argument is {@code null}, if {@code consumerFactory} is not configured to only read
+     *                                  committed records, or if {@code confirmationTimeout} is negative
+     */
+    public KafkaPublishedMessageTrackerRepository(ConsumerFactory<String, String> consumerFactory, String trackerTopic,
+            Duration confirmationTimeout) {
+        this(consumerFactory, trackerTopic, confirmationTimeout, System::nanoTime);
+    }
+
+    /**
+     * Creates a new {@code KafkaPublishedMessageTrackerRepository} that uses the given clock to measure the confirmation timeout and the
+     * backoff of lost publication channels, which is mainly useful for testing.
+     */
+    @SuppressFBWarnings(value = { "EI_EXPOSE_REP2", "CRLF_INJECTION_LOGS" },
+            justification = "The ConsumerFactory is mutable, but that is OK; Logging only of objects, not user data")
+    KafkaPublishedMessageTrackerRepository(ConsumerFactory<String, String> consumerFactory, String trackerTopic,
+            Duration confirmationTimeout, LongSupplier nanoClock) {
+        ErrorHandling.checkNull("Arguments must not be null: consumerFactory=%s, trackerTopic=%s, confirmationTimeout=%s", consumerFactory,
+                trackerTopic, confirmationTimeout);
+        ErrorHandling.checkNull("nanoClock must not be null", nanoClock);
+        if (confirmationTimeout.isNegative()) {
+            throw new IllegalArgumentException("confirmationTimeout must not be negative: " + confirmationTimeout);
+        }
+        Object isolationLevel = consumerFactory.getConfigurationProperties().get(ConsumerConfig.ISOLATION_LEVEL_CONFIG);
+        if (isolationLevel == null || !READ_COMMITTED.equalsIgnoreCase(isolationLevel.toString())) {
+            throw new IllegalArgumentException("consumerFactory must be configured with " + ConsumerConfig.ISOLATION_LEVEL_CONFIG + "="
+                    + READ_COMMITTED + ": " + isolationLevel);
+        }
+        LOG.info("Creating new {}: consumerFactory={}, trackerTopic={}, confirmationTimeout={}", getClass().getSimpleName(),
+                consumerFactory, trackerTopic, confirmationTimeout);
+        this.consumerFactory = consumerFactory;
+        this.trackerTopic = trackerTopic;
+        this.confirmationTimeout = confirmationTimeout;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Gives the tracker for the given publication channel, after reading the tracker records written to the tracker topic since the
+     * last lookup.
+     *
+     * @throws IllegalStateException if another process has been found to publish to {@code publicationChannel} less than
+     *                               {@link #LOST_CHANNEL_BACKOFF} ago
+     */
+    @Override
+    public synchronized Optional<PublishedMessageTracker> findByPublicationChannel(String publicationChannel) {
+        ErrorHandling.checkNull("publicationChannel must not be null", publicationChannel);
+        checkNotLost(publicationChannel);
+        readTrackerTopic();
+        trackerRecordsSinceLookup.put(publicationChannel, 0);
+        Long lastPublishedMessageId = lastPublishedMessageIds.get(publicationChannel);
+        return Optional.ofNullable(lastPublishedMessageId)
+                .map(messageId -> new PublishedMessageTracker(messageId, publicationChannel));
+    }
+
+    /**
+     * Saves a tracker, after waiting for the tracker record written by the publisher to be read from the tracker topic.
+     *
+     * @throws IllegalStateException if the tracker has not been looked up using {@link #findByPublicationChannel(String)}, if another
+     *                               process has written a tracker record for the same publication channel since the lookup, or if the
+     *                               tracker record written by the publisher could not be read within the confirmation timeout
+     */
+    @Override
+    @SuppressFBWarnings(value = "CRLF_INJECTION_LOGS", justification = "Logging only of objects, not user data")
+    public synchronized <P extends PublishedMessageTracker> P save(P messageTracker) {
+        ErrorHandling.checkNull("messageTracker must not be null", messageTracker);
+        String publicationChannel = messageTracker.publicationChannel();
+        checkNotLost(publicationChannel);
+        if (!trackerRecordsSinceLookup.containsKey(publicationChannel)) {
+            throw new IllegalStateException("Tracker must be looked up before it is saved: publicationChannel=" + publicationChannel);
+        }
+        readTrackerTopic();
+        long deadline = nanoClock.getAsLong() + confirmationTimeout.toNanos();
+        while (!isConfirmed(messageTracker) && trackerRecordsSinceLookup.getOrDefault(publicationChannel, 0) < 2
+                && nanoClock.getAsLong() - deadline < 0) {
+            pollTrackerRecords(consumer());
+        }
+        if (!isConfirmed(messageTracker)) {
+            lostPublicationChannels.put(publicationChannel, nanoClock.getAsLong() + LOST_CHANNEL_BACKOFF.toNanos());
+            trackerRecordsSinceLookup.remove(publicationChannel);
+            LOG.error("Another process is publishing to the publication channel, so this process stops publishing to it for {}: "
+                    + "publicationChannel={}", LOST_CHANNEL_BACKOFF, publicationChannel);
+            throw new IllegalStateException("Ownership of the publication channel could not be confirmed, since another process has "
+                    + "written to the tracker topic or the tracker record was not seen in time: publicationChannel=" + publicationChannel
+                    + ", lastPublishedMessageId=" + messageTracker.lastPublishedMessageId());
+        }
+        trackerRecordsSinceLookup.put(publicationChannel, 0);
+        return messageTracker;
+    }
+
+    /**
+     * Closes the consumer of the tracker topic.
+     */
+    @Override
+    public synchronized void close() {
+        if (consumer != null) {
+            consumer.close();
+            consumer = null;
+        }
+    }
+
+    private void checkNotLost(String publicationChannel) {
+        Long lostUntil = lostPublicationChannels.get(publicationChannel);
+        if (lostUntil != null) {
+            if (nanoClock.getAsLong() - lostUntil < 0) {
+                throw new IllegalStateException("Another process is publishing to the publication channel: " + publicationChannel);
+            }
+            lostPublicationChannels.remove(publicationChannel);
+        }
+    }
+
+    /**
+     * Checks if exactly one tracker record has been read for the publication channel since it was looked up, and that it agrees with the
+     * given tracker.
+     */
+    private boolean isConfirmed(PublishedMessageTracker messageTracker) {
+        String publicationChannel = messageTracker.publicationChannel();
+        return trackerRecordsSinceLookup.getOrDefault(publicationChannel, 0) == 1
+                && messageTracker.lastPublishedMessageId().equals(lastPublishedMessageIds.get(publicationChannel));
+    }
+
+    private void readTrackerTopic() {
+        Consumer<String, String> trackerConsumer = consumer();
+        Map<TopicPartition, Long> endOffsets = trackerConsumer.endOffsets(partitions);
+        while (!isAtEnd(trackerConsumer, endOffsets)) {
+            pollTrackerRecords(trackerConsumer);
+        }
+        LOG.trace("Read tracker topic: trackerTopic={}, publicationChannels={}", trackerTopic, lastPublishedMessageIds.size());
+    }
+
+    private Consumer<String, String> consumer() {
+        Consumer<String, String> trackerConsumer = consumer;
+        if (trackerConsumer == null) {
+            trackerConsumer = consumerFactory.createConsumer();
+            consumer = trackerConsumer;
+        }
+        if (partitions.isEmpty()) {
+            assignPartitions(trackerConsumer);
+        }
+        return trackerConsumer;
+    }
+
+    /**
+     * Looks up the partitions of the tracker topic and assigns them to the consumer, reading them from the beginning. If the tracker topic
+     * does not exist yet, no partitions are assigned, and this is tried again the next time the consumer is used.
+     */
+    private void assignPartitions(Consumer<String, String> trackerConsumer) {
+        List<PartitionInfo> partitionInfos = trackerConsumer.partitionsFor(trackerTopic);
+        if (partitionInfos == null || partitionInfos.isEmpty()) {
+            LOG.debug("Tracker topic has no partitions yet: trackerTopic={}", trackerTopic);
+            return;
+        }
+        for (PartitionInfo partitionInfo : partitionInfos) {
+            partitions.add(new TopicPartition(partitionInfo.topic(), partitionInfo.partition()));
+        }
+        trackerConsumer.assign(partitions);
+        trackerConsumer.seekToBeginning(partitions);
+    }
+
+    private void pollTrackerRecords(Consumer<String, String> trackerConsumer) {
+        if (partitions.isEmpty()) {
+            // Polling a consumer without partitions fails, so wait as long as a poll would before the partitions are looked up again.
+            try {
+                Thread.sleep(POLL_TIMEOUT.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for tracker topic to be created: " + trackerTopic, e);
+            }
+            return;
+        }
+        for (ConsumerRecord<String, String> consumerRecord : trackerConsumer.poll(POLL_TIMEOUT)) {
+            track(consumerRecord);
+        }
+    }
+
+    private static boolean isAtEnd(Consumer<String, String> consumer, Map<TopicPartition, Long> endOffsets) {
+        for (Map.Entry<TopicPartition, Long> endOffset : endOffsets.entrySet()) {
+            if (consumer.position(endOffset.getKey()) < endOffset.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void track(ConsumerRecord<String, String> consumerRecord) {
+        String publicationChannel = consumerRecord.key();
+        if (publicationChannel == null) {
+            LOG.warn("Ignoring tracker record without key: partition={}, offset={}", consumerRecord.partition(), consumerRecord.offset());
+            return;
+        }
+        if (consumerRecord.value() == null) {
+            lastPublishedMessageIds.remove(publicationChannel);
+        } else {
+            lastPublishedMessageIds.put(publicationChannel, Long.parseLong(consumerRecord.value()));
+        }
+        trackerRecordsSinceLookup.computeIfPresent(publicationChannel, (channel, count) -> count + 1);
+    }
+
+    @Override
+    public String toString() {
+        return "KafkaPublishedMessageTrackerRepository{trackerTopic=" + trackerTopic + "}";
+    }
+}
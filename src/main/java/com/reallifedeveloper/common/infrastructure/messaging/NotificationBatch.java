@@ -0,0 +1,131 @@
+package com.reallifedeveloper.common.infrastructure.messaging;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.reallifedeveloper.common.application.notification.Notification;
+import com.reallifedeveloper.common.domain.ObjectSerializer;
+
+/**
+ * A batch of notifications with the same key, that are published as one message.
+ * <p>
+ * Notifications can be batched in two ways. {@link #split(List, NotificationKeyStrategy, int)} only batches consecutive notifications
+ * with the same key, so the messages are published in the same order as the notifications, which matters for a broker such as RabbitMQ
+ * where a queue may receive messages with many different keys. {@link #groupByKey(List, NotificationKeyStrategy, int)} batches
+ * notifications with the same key across the whole list, which gives fewer messages when keys are interleaved, but only preserves the
+ * order of notifications with the same key. This is enough for Kafka, where order is only guaranteed per key anyway.
+ * <p>
+ * A batch with a single notification is serialized just like the notification itself, so publishing with a maximum batch size of one gives
+ * the same messages as publishing without batching. A batch with more than one notification is serialized as a JSON array of the
+ * serialized notifications, so batching requires an {@code ObjectSerializer} that serializes to JSON, e.g.,
+ * {@link com.reallifedeveloper.common.infrastructure.GsonObjectSerializer}.
+ *
+ * @param key           the key of all notifications in the batch, may be {@code null}
+ * @param notifications the notifications in the batch, in the order they should be published
+ *
+ * @author RealLifeDeveloper
+ */
+record NotificationBatch(@Nullable String key, List<Notification> notifications) {
+
+    /**
+     * Splits notifications into batches of at most {@code maxBatchSize} notifications. Only consecutive notifications with the same key
+     * are put in the same batch, so the batches are in the same order as the notifications.
+     *
+     * @param notifications the notifications to split into batches
+     * @param keyStrategy   the {@code NotificationKeyStrategy} to use to find the key of each notification
+     * @param maxBatchSize  the maximum number of notifications in a batch
+     *
+     * @return the batches, in the order they should be published
+     */
+    static List<NotificationBatch> split(List<Notification> notifications, NotificationKeyStrategy keyStrategy, int maxBatchSize) {
+        List<NotificationBatch> batches = new ArrayList<>();
+        List<Notification> batchNotifications = new ArrayList<>();
+        String batchKey = null;
+        for (Notification notification : notifications) {
+            String key = keyStrategy.key(notification);
+            if (!batchNotifications.isEmpty() && (batchNotifications.size() >= maxBatchSize || !Objects.equals(key, batchKey))) {
+                batches.add(new NotificationBatch(batchKey, batchNotifications));
+                batchNotifications = new ArrayList<>();
+            }
+            batchNotifications.add(notification);
+            batchKey = key;
+        }
+        if (!batchNotifications.isEmpty()) {
+            batches.add(new NotificationBatch(batchKey, batchNotifications));
+        }
+        return batches;
+    }
+
+    /**
+     * Groups notifications into batches of at most {@code maxBatchSize} notifications with the same key, regardless of whether the
+     * notifications are consecutive. The order of notifications with the same key is preserved, and a batch is placed where it is
+     * completed, with the batches that are not full last, in the order of their first notification. Batches with different keys may
+     * therefore be published in a different order than the notifications.
+     *
+     * @param notifications the notifications to group into batches
+     * @param keyStrategy   the {@code NotificationKeyStrategy} to use to find the key of each notification
+     * @param maxBatchSize  the maximum number of notifications in a batch
+     *
+     * @return the batches, in the order they should be published
+     */
+    static List<NotificationBatch> groupByKey(List<Notification> notifications, NotificationKeyStrategy keyStrategy, int maxBatchSize) {
+        List<NotificationBatch> batches = new ArrayList<>();
+        Map<@Nullable String, List<Notification>> openBatches = new LinkedHashMap<>();
+        for (Notification notification : notifications) {
+            String key = keyStrategy.key(notification);
+            List<Notification> batchNotifications = openBatches.computeIfAbsent(key, k -> new ArrayList<>());
+            batchNotifications.add(notification);
+            if (batchNotifications.size() >= maxBatchSize) {
+                batches.add(new NotificationBatch(key, batchNotifications));
+                openBatches.remove(key);
+            }
+        }
+        for (Map.Entry<@Nullable String, List<Notification>> openBatch : openBatches.entrySet()) {
+            batches.add(new NotificationBatch(openBatch.getKey(), openBatch.getValue()));
+        }
+        return batches;
+    }
+
+    /**
+     * Gives the number of notifications in this batch.
+     *
+     * @return the number of notifications in this batch
+     */
+    int size() {
+        return notifications.size();
+    }
+
+    /**
+     * Gives the last notification in this batch.
+     *
+     * @return the last notification in this batch
+     */
+    Notification lastNotification() {
+        return notifications.get(notifications.size() - 1);
+    }
+
+    /**
+     * Serializes this batch using the given {@code ObjectSerializer}.
+     *
+     * @param objectSerializer the {@code ObjectSerializer} to use to serialize each notification
+     *
+     * @return the serialized notification if this batch contains a single notification, otherwise a JSON array of the serialized
+     *         notifications
+     */
+    String serialize(ObjectSerializer<String> objectSerializer) {
+        if (notifications.size() == 1) {
+            return objectSerializer.serialize(notifications.get(0));
+        }
+        StringJoiner joiner = new StringJoiner(",", "[", "]");
+        for (Notification notification : notifications) {
+            joiner.add(objectSerializer.serialize(notification));
+        }
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,41 @@
+package com.reallifedeveloper.common.infrastructure.messaging;
+
+/**
+ * The names of the message headers that carry information about a published
+ * {@link com.reallifedeveloper.common.application.notification.Notification}, so that brokers can route messages, and consumers can filter
+ * them, without parsing the message bodies.
+ *
+ * @author RealLifeDeveloper
+ */
+public final class NotificationHeaders {
+
+    /**
+     * The name of the header containing the type of event, see
+     * {@link com.reallifedeveloper.common.application.notification.Notification#eventType()}.
+     */
+    public static final String EVENT_TYPE = "eventType";
+
+    /**
+     * The name of the header containing the ID of the stored event, see
+     * {@link com.reallifedeveloper.common.application.notification.Notification#storedEventId()}.
+     */
+    public static final String STORED_EVENT_ID = "storedEventId";
+
+    /**
+     * The name of the header containing the date and time the event occurred, in ISO-8601 format, see
+     * {@link com.reallifedeveloper.common.application.notification.Notification#occurredOn()}.
+     */
+    public static final String OCCURRED_ON = "occurredOn";
+
+    /**
+     * The name of the header containing the number of notifications in a message that contains a batch of notifications. Messages that
+     * contain a single notification do not have this header.
+     */
+    public static final String BATCH_SIZE = "notificationBatchSize";
+
+    /**
+     * Since this is a class with only constants, we hide the only constructor.
+     */
+    private NotificationHeaders() {
+    }
+}
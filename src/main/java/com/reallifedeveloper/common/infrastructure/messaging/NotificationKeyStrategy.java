@@ -0,0 +1,80 @@
+package com.reallifedeveloper.common.infrastructure.messaging;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.reallifedeveloper.common.application.notification.Notification;
+import com.reallifedeveloper.common.domain.ErrorHandling;
+
+/**
+ * A strategy for choosing the key a {@link Notification} is published with, i.e., the message key used by
+ * {@link KafkaNotificationPublisher} or the routing key used by {@link RabbitMQNotificationPublisher}.
+ * <p>
+ * Kafka sends all messages with the same key to the same partition, so messages with the same key are consumed in the order they were
+ * published. The key should therefore identify the unit that needs to be ordered, e.g., an aggregate, and there should be many different
+ * keys, so that the messages are spread over all partitions of a topic. Messages without a key are spread over the partitions with no
+ * ordering guarantees.
+ * <p>
+ * RabbitMQ uses the routing key to decide which queues bound to an exchange receive a message. Messages without a key are published with
+ * an empty routing key, which is what a fanout exchange expects.
+ *
+ * @author RealLifeDeveloper
+ */
+@FunctionalInterface
+public interface NotificationKeyStrategy {
+
+    /**
+     * Gives the key to publish the given notification with.
+     *
+     * @param notification the notification to publish
+     *
+     * @return the key to publish {@code notification} with, or {@code null} to publish it without a key
+     */
+    @Nullable String key(Notification notification);
+
+    /**
+     * Gives a strategy that publishes all notifications without a key.
+     *
+     * @return a strategy that always gives a {@code null} key
+     */
+    static NotificationKeyStrategy none() {
+        return notification -> null;
+    }
+
+    /**
+     * Gives a strategy that uses the type of event as key. All events of the same type are published in order, but are limited to one
+     * partition.
+     *
+     * @return a strategy that uses {@link Notification#eventType()} as key
+     */
+    static NotificationKeyStrategy eventType() {
+        return Notification::eventType;
+    }
+
+    /**
+     * Gives a strategy that uses the stored event ID as key. This spreads events evenly over all partitions, but gives no ordering
+     * guarantees.
+     *
+     * @return a strategy that uses {@link Notification#storedEventId()} as key
+     */
+    static NotificationKeyStrategy storedEventId() {
+        return notification -> notification.storedEventId().toString();
+    }
+
+    /**
+     * Gives a strategy that uses the stream key of the event as key, e.g., the ID of the aggregate the event is about, so that the events
+     * in a stream are published in order. Events that do not belong to a stream are published with the key given by {@code fallback}.
+     *
+     * @param fallback the strategy to use for events that do not belong to a stream
+     *
+     * @return a strategy that uses {@link com.reallifedeveloper.common.domain.event.DomainEvent#eventStreamKey()} as key
+     *
+     * @throws IllegalArgumentException if {@code fallback} is {@code null}
+     */
+    static NotificationKeyStrategy eventStreamKey(NotificationKeyStrategy fallback) {
+        ErrorHandling.checkNull("fallback must not be null", fallback);
+        return notification -> {
+            String streamKey = notification.event().eventStreamKey();
+            return streamKey == null ? fallback.key(notification) : streamKey;
+        };
+    }
+}
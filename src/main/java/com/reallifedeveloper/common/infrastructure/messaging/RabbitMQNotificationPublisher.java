@@ -2,10 +2,14 @@ package com.reallifedeveloper.common.infrastructure.messaging;
 
 import static com.reallifedeveloper.common.domain.LogUtil.removeCRLF;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeoutException;
+import java.util.zip.GZIPOutputStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,12 +27,34 @@ import com.reallifedeveloper.common.domain.ObjectSerializer;
 
 /**
  * An implementation of the {@link NotificationPublisher} interface that uses <a href="http://www.rabbitmq.com/">RabbiMQ</a>.
+ * <p>
+ * The routing key of each message is chosen by a {@link NotificationKeyStrategy}, by default an empty routing key. Each message carries
+ * the type of event, the stored event ID and the date and time the event occurred as headers, see {@link NotificationHeaders}, so that
+ * a headers exchange can route messages, and consumers can filter them, without parsing the message bodies. All messages have the content
+ * type {@code application/json; charset=UTF-8}, so the {@code ObjectSerializer} should serialize to JSON.
+ * <p>
+ * For high-volume exchanges, consecutive notifications with the same routing key can be published as one message, containing a JSON array
+ * of the notifications, and message bodies can be GZIP-compressed. A batch message has the {@link NotificationHeaders#BATCH_SIZE} header
+ * instead of the headers describing a single notification, and a compressed message has the content encoding {@code gzip}. Consumers can
+ * use {@link RabbitMQNotificationReaders#readAll(BasicProperties, byte[])} to read all kinds of messages.
+ * <p>
+ * Unlike {@link KafkaNotificationPublisher}, which groups notifications with the same key across each call to {@code publish}, only
+ * consecutive notifications are batched, since a queue bound with several routing keys receives the messages in the order they are
+ * published, and grouping across keys would change the order of the notifications in the queue.
  *
  * @author RealLifeDeveloper
  */
 public final class RabbitMQNotificationPublisher implements NotificationPublisher {
 
-    private static final BasicProperties EMPTY_PROPERTIES = new BasicProperties();
+    /**
+     * The content type of all messages, which are UTF-8 encoded JSON.
+     */
+    static final String CONTENT_TYPE = "application/json; charset=UTF-8";
+
+    /**
+     * The content encoding of GZIP-compressed messages. Uncompressed messages have no content encoding.
+     */
+    static final String GZIP_CONTENT_ENCODING = "gzip";
 
     private static final Logger LOG = LoggerFactory.getLogger(RabbitMQNotificationPublisher.class);
 
@@ -36,22 +62,70 @@ public final class RabbitMQNotificationPublisher implements NotificationPublishe
 
     private final ObjectSerializer<String> objectSerializer;
 
+    private final NotificationKeyStrategy routingKeyStrategy;
+
+    private final int maxBatchSize;
+
+    private final boolean compress;
+
     /**
-     * Creates a new {@code RabbitMQNotificationPublisher} that connects to RabbitMQ using the given {@code ConnectionFactory}.
+     * Creates a new {@code RabbitMQNotificationPublisher} that connects to RabbitMQ using the given {@code ConnectionFactory}, and that
+     * publishes all messages with an empty routing key.
      *
      * @param connectionFactory the {@code ConnectionFactory} to use to create connections to RabbitMQ
      * @param objectSerializer  the {@code ObjectSerializer} to use to serialize notifications
      */
+    public RabbitMQNotificationPublisher(ConnectionFactory connectionFactory, ObjectSerializer<String> objectSerializer) {
+        this(connectionFactory, objectSerializer, NotificationKeyStrategy.none());
+    }
+
+    /**
+     * Creates a new {@code RabbitMQNotificationPublisher} that connects to RabbitMQ using the given {@code ConnectionFactory}, and that
+     * publishes messages with routing keys chosen by the given {@code NotificationKeyStrategy}.
+     *
+     * @param connectionFactory  the {@code ConnectionFactory} to use to create connections to RabbitMQ
+     * @param objectSerializer   the {@code ObjectSerializer} to use to serialize notifications
+     * @param routingKeyStrategy the {@code NotificationKeyStrategy} to use to choose routing keys, a {@code null} key giving an empty
+     *                           routing key
+     */
+    public RabbitMQNotificationPublisher(ConnectionFactory connectionFactory, ObjectSerializer<String> objectSerializer,
+            NotificationKeyStrategy routingKeyStrategy) {
+        this(connectionFactory, objectSerializer, routingKeyStrategy, 1, false);
+    }
+
+    /**
+     * Creates a new {@code RabbitMQNotificationPublisher} that connects to RabbitMQ using the given {@code ConnectionFactory}, and that
+     * publishes messages with routing keys chosen by the given {@code NotificationKeyStrategy}. Consecutive notifications with the same
+     * routing key are published as one message, containing at most {@code maxBatchSize} notifications.
+     *
+     * @param connectionFactory  the {@code ConnectionFactory} to use to create connections to RabbitMQ
+     * @param objectSerializer   the {@code ObjectSerializer} to use to serialize notifications, which must serialize to JSON if
+     *                           {@code maxBatchSize} is greater than one
+     * @param routingKeyStrategy the {@code NotificationKeyStrategy} to use to choose routing keys, a {@code null} key giving an empty
+     *                           routing key
+     * @param maxBatchSize       the maximum number of notifications to publish in one message, one meaning that batching is disabled
+     * @param compress           {@code true} to GZIP-compress the message bodies
+     *
+     * @throws IllegalArgumentException if any argument is {@code null}, or if {@code maxBatchSize} is not positive
+     */
     @SuppressFBWarnings(value = { "EI_EXPOSE_REP2",
             "CRLF_INJECTION_LOGS" }, justification = "The ConnectionFactory is mutable, but that is OK; "
                     + "Logging only of objects, not user data")
-    public RabbitMQNotificationPublisher(ConnectionFactory connectionFactory, ObjectSerializer<String> objectSerializer) {
+    public RabbitMQNotificationPublisher(ConnectionFactory connectionFactory, ObjectSerializer<String> objectSerializer,
+            NotificationKeyStrategy routingKeyStrategy, int maxBatchSize, boolean compress) {
         ErrorHandling.checkNull("Arguments must not be null: connectionFactory=%s, objectSerializer=%s", connectionFactory,
                 objectSerializer);
+        ErrorHandling.checkNull("routingKeyStrategy must not be null", routingKeyStrategy);
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        }
         LOG.info("Creating new {}: connectionFactory={}, objectSerializer={}", getClass().getSimpleName(), connectionFactory,
                 objectSerializer);
         this.connectionFactory = connectionFactory;
         this.objectSerializer = objectSerializer;
+        this.routingKeyStrategy = routingKeyStrategy;
+        this.maxBatchSize = maxBatchSize;
+        this.compress = compress;
     }
 
     @Override
@@ -62,13 +136,75 @@ public final class RabbitMQNotificationPublisher implements NotificationPublishe
         ErrorHandling.checkNull("Arguments must not be null: notifications=%s, publicationChannel=%s", notifications, publicationChannel);
         if (!notifications.isEmpty()) {
             try (Connection connection = connectionFactory.newConnection(); Channel channel = connection.createChannel()) {
-                for (Notification notification : notifications) {
-                    String message = objectSerializer.serialize(notification);
-                    channel.basicPublish(publicationChannel, "", EMPTY_PROPERTIES, message.getBytes(StandardCharsets.UTF_8));
+                for (NotificationBatch batch : NotificationBatch.split(notifications, routingKeyStrategy, maxBatchSize)) {
+                    String routingKey = batch.key() == null ? "" : batch.key();
+                    BasicProperties properties = batch.size() == 1 ? properties(batch.lastNotification()) : batchProperties(batch);
+                    byte[] body = batch.serialize(objectSerializer).getBytes(StandardCharsets.UTF_8);
+                    if (compress) {
+                        properties = properties.builder().contentEncoding(GZIP_CONTENT_ENCODING).build();
+                        body = gzip(body);
+                    }
+                    channel.basicPublish(publicationChannel, routingKey, properties, body);
                 }
             } catch (TimeoutException e) {
                 throw new IOException("Timeout occurred", e);
             }
         }
     }
+
+    /**
+     * Gives the message properties to publish the given notification with. This method is package-private to allow tests to build the
+     * expected properties.
+     *
+     * @param notification the notification to publish
+     *
+     * @return the message properties to use for {@code notification}
+     */
+    static BasicProperties properties(Notification notification) {
+        Map<String, Object> headers = new HashMap<>();
+        if (notification.eventType() != null) {
+            headers.put(NotificationHeaders.EVENT_TYPE, notification.eventType());
+        }
+        headers.put(NotificationHeaders.STORED_EVENT_ID, notification.storedEventId());
+        if (notification.occurredOn() != null) {
+            headers.put(NotificationHeaders.OCCURRED_ON, notification.occurredOn().toString());
+        }
+        return new BasicProperties.Builder()
+                .contentType(CONTENT_TYPE)
+                .messageId(notification.storedEventId().toString())
+                .headers(headers)
+                .build();
+    }
+
+    /**
+     * Gives the message properties to publish the given batch of notifications with. This method is package-private to allow tests to
+     * build the expected properties.
+     *
+     * @param batch the batch of notifications to publish
+     *
+     * @return the message properties to use for {@code batch}
+     */
+    static BasicProperties batchProperties(NotificationBatch batch) {
+        return new BasicProperties.Builder()
+                .contentType(CONTENT_TYPE)
+                .headers(Map.of(NotificationHeaders.BATCH_SIZE, batch.size()))
+                .build();
+    }
+
+    /**
+     * GZIP-compresses the given bytes. This method is package-private to allow tests to build the expected message bodies.
+     *
+     * @param bytes the bytes to compress
+     *
+     * @return the compressed bytes
+     *
+     * @throws IOException if compression failed
+     */
+    static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
 }
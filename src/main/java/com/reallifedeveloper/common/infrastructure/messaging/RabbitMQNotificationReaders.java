@@ -0,0 +1,58 @@
+package com.reallifedeveloper.common.infrastructure.messaging;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+
+import com.reallifedeveloper.common.application.notification.NotificationReader;
+import com.reallifedeveloper.common.domain.ErrorHandling;
+import com.reallifedeveloper.common.infrastructure.GsonNotificationReader;
+
+/**
+ * Helper methods for consumers of messages published by {@link RabbitMQNotificationPublisher}.
+ *
+ * @author RealLifeDeveloper
+ */
+public final class RabbitMQNotificationReaders {
+
+    /**
+     * Since this is a utility class with only static methods, we hide the only constructor.
+     */
+    private RabbitMQNotificationReaders() {
+    }
+
+    /**
+     * Gives readers for all notifications in a message published by {@link RabbitMQNotificationPublisher}. The message may contain a
+     * single notification or a batch of notifications, and the body may be GZIP-compressed.
+     *
+     * @param properties the properties of the message
+     * @param body       the body of the message
+     *
+     * @return a list of {@code NotificationReaders}, one for each notification in the message, in the order they were published
+     *
+     * @throws IllegalArgumentException if any argument is {@code null}, or if the body does not contain JSON-serialized notifications
+     * @throws UncheckedIOException     if the body has the content encoding {@code gzip} but could not be decompressed
+     */
+    public static List<NotificationReader> readAll(BasicProperties properties, byte[] body) {
+        ErrorHandling.checkNull("Arguments must not be null: properties=%s, body=%s", properties, body);
+        byte[] jsonBytes = body;
+        if (RabbitMQNotificationPublisher.GZIP_CONTENT_ENCODING.equals(properties.getContentEncoding())) {
+            jsonBytes = gunzip(body);
+        }
+        return GsonNotificationReader.readAll(new String(jsonBytes, StandardCharsets.UTF_8));
+    }
+
+    private static byte[] gunzip(byte[] bytes) {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decompress message body", e);
+        }
+    }
+}
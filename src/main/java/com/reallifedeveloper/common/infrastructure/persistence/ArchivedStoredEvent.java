@@ -0,0 +1,107 @@
+package com.reallifedeveloper.common.infrastructure.persistence;
+
+import java.time.ZonedDateTime;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.springframework.data.domain.Persistable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import com.reallifedeveloper.common.application.eventstore.StoredEvent;
+import com.reallifedeveloper.common.domain.ErrorHandling;
+
+/**
+ * A {@link StoredEvent} that has been moved to the {@code stored_event_archive} table by a {@link JpaStoredEventArchive}.
+ * <p>
+ * The ID is the ID the event had in the {@code stored_event} table, so it is assigned, not generated. Since archived events are never
+ * changed, {@link #isNew()} always gives {@code true}, which lets Spring Data insert them without first trying to load them.
+ *
+ * @author RealLifeDeveloper
+ */
+@Entity
+@Table(name = "stored_event_archive")
+public class ArchivedStoredEvent implements Persistable<Long> {
+
+    private static final int MAX_EVENT_BODY_LENGTH = 8000;
+
+    @Id
+    @Column(name = "stored_event_id")
+    private Long id;
+
+    @Column(name = "event_type", nullable = false)
+    private String eventType;
+
+    @Column(name = "event_body", length = MAX_EVENT_BODY_LENGTH, nullable = false)
+    private String eventBody;
+
+    @Column(name = "occurred_on", nullable = false)
+    private ZonedDateTime occurredOn;
+
+    @Column(name = "occurred_on_millis", nullable = false)
+    private Long occurredOnEpochMillis;
+
+    @Column(name = "version", nullable = false)
+    private Integer version;
+
+    @Column(name = "stream_key")
+    private @Nullable String streamKey;
+
+    @Column(name = "stream_sequence")
+    private @Nullable Long streamSequence;
+
+    /**
+     * Creates a new {@code ArchivedStoredEvent} that is a copy of the given {@link StoredEvent}, including the ID.
+     *
+     * @param storedEvent the {@code StoredEvent} to archive
+     *
+     * @throws IllegalArgumentException if {@code storedEvent} is {@code null} or has no ID
+     */
+    ArchivedStoredEvent(StoredEvent storedEvent) {
+        ErrorHandling.checkNull("storedEvent must not be null", storedEvent);
+        Long storedEventId = storedEvent.id();
+        if (storedEventId == null) {
+            throw new IllegalArgumentException("storedEvent must have an ID: " + storedEvent);
+        }
+        this.id = storedEventId;
+        this.eventType = storedEvent.eventType();
+        this.eventBody = storedEvent.eventBody();
+        this.occurredOn = storedEvent.occurredOn();
+        this.occurredOnEpochMillis = storedEvent.occurredOnEpochMillis();
+        this.version = storedEvent.version();
+        this.streamKey = storedEvent.streamKey();
+        this.streamSequence = storedEvent.streamSequence();
+    }
+
+    /* package-private */
+    /**
+     * Required by Hibernate.
+     */
+    @SuppressWarnings("NullAway")
+    ArchivedStoredEvent() {
+        // Intentionally empty
+    }
+
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Gives {@code true}, since archived events are only ever inserted.
+     *
+     * @return {@code true}
+     */
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "ArchivedStoredEvent{id=" + id + ", eventType=" + eventType + ", occurredOn=" + occurredOn + ", version=" + version
+                + ", streamKey=" + streamKey + ", streamSequence=" + streamSequence + "}";
+    }
+}
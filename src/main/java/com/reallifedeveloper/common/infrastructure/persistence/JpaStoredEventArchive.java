@@ -0,0 +1,89 @@
+package com.reallifedeveloper.common.infrastructure.persistence;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.reallifedeveloper.common.application.eventstore.StoredEvent;
+import com.reallifedeveloper.common.application.eventstore.StoredEventArchive;
+import com.reallifedeveloper.common.domain.ErrorHandling;
+
+/**
+ * A Spring Data JPA implementation of the {@link StoredEventArchive} interface, keeping archived events in the
+ * {@code stored_event_archive} table as {@link ArchivedStoredEvent ArchivedStoredEvents}.
+ * <p>
+ * The archive table is normally in the same database as the {@code stored_event} table, so all processes that share a
+ * {@link JpaStoredEventRepository} can also read the archive, and {@link #isShared()} gives {@code true}. This means that the two can be
+ * used together in an {@link com.reallifedeveloper.common.application.eventstore.EventStore}. The archive table only has a primary key,
+ * so it is cheap to insert into, and it can be kept on cheaper storage than the {@code stored_event} table.
+ * <p>
+ * Like {@link JpaStoredEventRepository#eventsAfter(long, long, int)}, {@link #eventsAfter(long, long, int)} uses a JPQL constructor
+ * expression, so the {@code StoredEvents} returned are not managed by the persistence context.
+ *
+ * @author RealLifeDeveloper
+ */
+public interface JpaStoredEventArchive extends StoredEventArchive, JpaRepository<ArchivedStoredEvent, Long> {
+
+    @Override
+    @Transactional
+    default void archive(List<StoredEvent> storedEvents) {
+        ErrorHandling.checkNull("storedEvents must not be null", storedEvents);
+        if (storedEvents.isEmpty()) {
+            throw new IllegalArgumentException("storedEvents must not be empty");
+        }
+        long previousId = lastArchivedStoredEventId().orElse(0L);
+        List<ArchivedStoredEvent> archivedEvents = new ArrayList<>(storedEvents.size());
+        for (StoredEvent storedEvent : storedEvents) {
+            ErrorHandling.checkNull("storedEvents must not contain null elements", storedEvent);
+            Long id = storedEvent.id();
+            if (id == null || id <= previousId) {
+                throw new IllegalArgumentException("StoredEvent IDs must be in order and greater than " + previousId + ": " + storedEvent);
+            }
+            previousId = id;
+            archivedEvents.add(new ArchivedStoredEvent(storedEvent));
+        }
+        saveAll(archivedEvents);
+    }
+
+    @Override
+    default List<StoredEvent> eventsAfter(long afterStoredEventId, long lastStoredEventId, int maxResults) {
+        return findArchivedEventsAfter(afterStoredEventId, lastStoredEventId, PageRequest.of(0, maxResults));
+    }
+
+    /**
+     * Gives the archived {@code StoredEvents} with IDs greater than {@code afterStoredEventId} and less than or equal to
+     * {@code lastStoredEventId}, ordered by ID. The number of events returned is limited by the page size of {@code pageable}, and the
+     * events are not managed by the persistence context.
+     *
+     * @param afterStoredEventId find events with IDs greater than this
+     * @param lastStoredEventId  find events with IDs less than or equal to this
+     * @param pageable           the page to return, normally the first page
+     * @return a list of matching {@code StoredEvents}, ordered by ID
+     */
+    @Query("select new com.reallifedeveloper.common.application.eventstore.StoredEvent(ae.id, ae.eventType, ae.eventBody, ae.occurredOn,"
+            + " ae.version, ae.streamKey, ae.streamSequence) from ArchivedStoredEvent ae"
+            + " where ae.id > :afterStoredEventId and ae.id <= :lastStoredEventId order by ae.id")
+    List<StoredEvent> findArchivedEventsAfter(@Param("afterStoredEventId") long afterStoredEventId,
+            @Param("lastStoredEventId") long lastStoredEventId, Pageable pageable);
+
+    /**
+     * Gives {@code true}, since the archive table can be read by all processes that use the database.
+     *
+     * @return {@code true}
+     */
+    @Override
+    default boolean isShared() {
+        return true;
+    }
+
+    @Override
+    @Query("select max(ae.id) from ArchivedStoredEvent ae")
+    Optional<Long> lastArchivedStoredEventId();
+}
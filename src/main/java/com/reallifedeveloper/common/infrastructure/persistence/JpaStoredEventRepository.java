@@ -1,22 +1,44 @@
 package com.reallifedeveloper.common.infrastructure.persistence;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.reallifedeveloper.common.application.eventstore.StoredEvent;
 import com.reallifedeveloper.common.application.eventstore.StoredEventRepository;
 
 /**
  * A Spring Data JPA "implementation" of the {@link StoredEventRepository} interface.
+ * <p>
+ * The bounded reads, {@link #eventsAfter(long, long, int)}, {@link #eventsOfTypesBetween(Collection, long, long, long, int)} and
+ * {@link #streamEventsAfter(String, long, int)}, use JPQL constructor expressions, so the {@code StoredEvents} returned are plain
+ * objects that are not managed by the persistence context. This means that no snapshots for dirty checking are kept for them, and that
+ * they are not held by the persistence context until the transaction ends. The downside is that changes to the returned objects are never
+ * written to the database, which is fine since stored events are immutable.
  *
  * @author RealLifeDeveloper
  */
 public interface JpaStoredEventRepository extends StoredEventRepository, JpaRepository<StoredEvent, Long> {
 
+    /**
+     * The start of a JPQL query that selects detached {@code StoredEvents}, using the alias {@code se} for the entity.
+     */
+    String SELECT_DETACHED_EVENT = "select new com.reallifedeveloper.common.application.eventstore.StoredEvent(se.id, se.eventType,"
+            + " se.eventBody, se.occurredOn, se.version, se.streamKey, se.streamSequence)";
+
+    /**
+     * The maximum number of IDs in one delete statement, see {@link #deleteEvents(List)}.
+     */
+    int MAX_IDS_PER_DELETE = 1000;
+
     @Override
     @Query("select se from StoredEvent se where se.id > :firstStoredEventId")
     List<StoredEvent> allEventsSince(@Param("firstStoredEventId") long firstStoredEventId);
@@ -26,6 +48,114 @@ public interface JpaStoredEventRepository extends StoredEventRepository, JpaRepo
     List<StoredEvent> allEventsBetween(@Param("firstStoredEventId") long firstStoredEventId,
             @Param("lastStoredEventId") long lastStoredEventId);
 
+    @Override
+    default List<StoredEvent> eventsAfter(long afterStoredEventId, long lastStoredEventId, int maxResults) {
+        return findEventsAfter(afterStoredEventId, lastStoredEventId, PageRequest.of(0, maxResults));
+    }
+
+    /**
+     * Gives the {@code StoredEvents} with IDs greater than {@code afterStoredEventId} and less than or equal to
+     * {@code lastStoredEventId}, ordered by ID. The number of events returned is limited by the page size of {@code pageable}, and the
+     * events are not managed by the persistence context.
+     *
+     * @param afterStoredEventId find events with IDs greater than this
+     * @param lastStoredEventId  find events with IDs less than or equal to this
+     * @param pageable           the page to return, normally the first page
+     * @return a list of matching {@code StoredEvents}, ordered by ID
+     */
+    @Query(SELECT_DETACHED_EVENT + " from StoredEvent se where se.id > :afterStoredEventId and se.id <= :lastStoredEventId order by se.id")
+    List<StoredEvent> findEventsAfter(@Param("afterStoredEventId") long afterStoredEventId,
+            @Param("lastStoredEventId") long lastStoredEventId, Pageable pageable);
+
+    @Override
+    default List<StoredEvent> eventsOfTypesBetween(Collection<String> eventTypes, long fromEpochMillis, long toEpochMillis,
+            long afterStoredEventId, int maxResults) {
+        return findEventsOfTypesBetween(eventTypes, fromEpochMillis, toEpochMillis, afterStoredEventId, PageRequest.of(0, maxResults));
+    }
+
+    /**
+     * Gives the {@code StoredEvents} with one of the given event types that occurred in a given time range, and with IDs greater than
+     * {@code afterStoredEventId}, ordered by ID. The number of events returned is limited by the page size of {@code pageable}, and the
+     * events are not managed by the persistence context.
+     *
+     * @param eventTypes         the class names of the domain events to find, must not be empty
+     * @param fromEpochMillis    the start of the time range, inclusive, in milliseconds since the epoch
+     * @param toEpochMillis      the end of the time range, exclusive, in milliseconds since the epoch
+     * @param afterStoredEventId find events with IDs greater than this
+     * @param pageable           the page to return, normally the first page
+     * @return a list of matching {@code StoredEvents}, ordered by ID
+     */
+    @Query(SELECT_DETACHED_EVENT + " from StoredEvent se where se.eventType in :eventTypes and se.occurredOnEpochMillis >= :fromEpochMillis"
+            + " and se.occurredOnEpochMillis < :toEpochMillis and se.id > :afterStoredEventId order by se.id")
+    List<StoredEvent> findEventsOfTypesBetween(@Param("eventTypes") Collection<String> eventTypes,
+            @Param("fromEpochMillis") long fromEpochMillis, @Param("toEpochMillis") long toEpochMillis,
+            @Param("afterStoredEventId") long afterStoredEventId, Pageable pageable);
+
+    @Override
+    default List<StoredEvent> streamEventsAfter(String streamKey, long afterStreamSequence, int maxResults) {
+        return findStreamEventsAfter(streamKey, afterStreamSequence, PageRequest.of(0, maxResults));
+    }
+
+    /**
+     * Gives the {@code StoredEvents} in the stream with the given key, with stream sequence numbers greater than
+     * {@code afterStreamSequence}, ordered by stream sequence number. The number of events returned is limited by the page size of
+     * {@code pageable}, and the events are not managed by the persistence context.
+     *
+     * @param streamKey           the key of the stream to read
+     * @param afterStreamSequence find events with stream sequence numbers greater than this
+     * @param pageable            the page to return, normally the first page
+     * @return a list of matching {@code StoredEvents}, ordered by stream sequence number
+     */
+    @Query(SELECT_DETACHED_EVENT + " from StoredEvent se where se.streamKey is not null and se.streamKey = :streamKey"
+            + " and se.streamSequence > :afterStreamSequence order by se.streamSequence")
+    List<StoredEvent> findStreamEventsAfter(@Param("streamKey") String streamKey, @Param("afterStreamSequence") long afterStreamSequence,
+            Pageable pageable);
+
+    /**
+     * Gives the greatest stream sequence number in the stream with the given key. This is called for each stream when events are added,
+     * so the query repeats the condition of the filtered index {@code uk_stored_event_stream}, which lets SQL Server answer it with a
+     * single seek in that index also when the query is parameterized.
+     * <p>
+     * The stored event ID is still generated by the {@code IDENTITY} column, so each event with a stream key costs this read in addition
+     * to the insert. Concurrent transactions adding events to the same stream read the same greatest sequence number, and all but one of
+     * them fail on the unique index and have to be retried, so write contention grows with the number of concurrent writers per stream.
+     * Events without a stream key are not affected.
+     *
+     * @param streamKey the key of the stream
+     * @return the greatest stream sequence number in the stream, unless the stream is empty
+     */
+    @Override
+    @Query("select max(se.streamSequence) from StoredEvent se where se.streamKey is not null and se.streamKey = :streamKey")
+    Optional<Long> lastStreamSequence(@Param("streamKey") String streamKey);
+
+    /**
+     * Deletes the {@code StoredEvents} with the given IDs, {@link #MAX_IDS_PER_DELETE} at a time, since SQL Server allows at most 2100
+     * parameters in a statement.
+     *
+     * @param storedEventIds the IDs of the {@code StoredEvents} to delete, in ascending order
+     * @return the number of {@code StoredEvents} deleted
+     */
+    @Override
+    @Transactional
+    default int deleteEvents(List<Long> storedEventIds) {
+        int numDeleted = 0;
+        for (int i = 0; i < storedEventIds.size(); i += MAX_IDS_PER_DELETE) {
+            numDeleted += deleteEventsWithIds(storedEventIds.subList(i, Math.min(i + MAX_IDS_PER_DELETE, storedEventIds.size())));
+        }
+        return numDeleted;
+    }
+
+    /**
+     * Deletes the {@code StoredEvents} with the given IDs in one statement, see {@link #deleteEvents(List)}.
+     *
+     * @param storedEventIds the IDs of the {@code StoredEvents} to delete, at most {@link #MAX_IDS_PER_DELETE}
+     * @return the number of {@code StoredEvents} deleted
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from StoredEvent se where se.id in :storedEventIds")
+    int deleteEventsWithIds(@Param("storedEventIds") Collection<Long> storedEventIds);
+
     @Override
     @Query("select max(se.id) from StoredEvent se")
     Optional<Long> lastStoredEventId();
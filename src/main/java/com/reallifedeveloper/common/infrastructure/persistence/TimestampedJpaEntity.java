@@ -58,7 +58,9 @@ public class TimestampedJpaEntity<ID> extends BaseJpaEntity<ID> {
      */
     protected TimestampedJpaEntity(ID id, ZonedDateTime created, ZonedDateTime updated) {
         super(id);
-        ErrorHandling.checkNull("Arguments must not be null: id=" + id + ", created=%s, updated=%s", created, updated);
+        if (created == null || updated == null) {
+            throw new IllegalArgumentException("Arguments must not be null: id=" + id + ", created=" + created + ", updated=" + updated);
+        }
         this.created = created;
         this.updated = updated;
     }
@@ -1,5 +1,6 @@
 package com.reallifedeveloper.common.resource;
 
+import static com.reallifedeveloper.common.domain.LogUtil.lazyRemoveCRLF;
 import static com.reallifedeveloper.common.domain.LogUtil.removeCRLF;
 
 import java.io.FileNotFoundException;
@@ -85,10 +86,10 @@ public class BaseResource {
         ErrorHandling.checkNull("Arguments must not be null: methodName=%s, originalException=%s", methodName, originalException);
         WebApplicationException webApplicationException;
         if (originalException instanceof IllegalArgumentException) {
-            logger().debug("{}: {}", removeCRLF(methodName), removeCRLF(originalException));
+            logger().debug("{}: {}", lazyRemoveCRLF(methodName), lazyRemoveCRLF(originalException));
             webApplicationException = ResourceUtil.badRequest(originalException.getMessage());
         } else if (originalException instanceof FileNotFoundException) {
-            logger().debug("{}: {}", removeCRLF(methodName), removeCRLF(originalException));
+            logger().debug("{}: {}", lazyRemoveCRLF(methodName), lazyRemoveCRLF(originalException));
             webApplicationException = ResourceUtil.notFound(originalException.getMessage());
         } else {
             logger().error(removeCRLF(methodName), removeCRLF(originalException));
@@ -1,6 +1,6 @@
 package com.reallifedeveloper.common.resource.notification;
 
-import static com.reallifedeveloper.common.domain.LogUtil.removeCRLF;
+import static com.reallifedeveloper.common.domain.LogUtil.lazyRemoveCRLF;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -93,6 +93,9 @@ public final class NotificationResource extends BaseResource {
      * <p>
      * For example, given the string "89661,89680", this method will return the notifications with IDs between 89661 and 89680, inclusive,
      * if available.
+     * <p>
+     * At most {@link #BATCH_SIZE} notifications may be requested at a time. If the string represents more notifications than that, the
+     * request is rejected.
      *
      * @param notificationLogIdString a string on the form "&lt;low&gt;,&lt;high&gt;"
      * @param uriInfo                 provides access to application and request URI information, injected by JAX-RS
@@ -103,8 +106,8 @@ public final class NotificationResource extends BaseResource {
     @Path("{notificationLogId}")
     public Response getNotificationLog(@PathParam("notificationLogId") String notificationLogIdString, @Context UriInfo uriInfo) {
         try {
-            logger().debug("getNotificationLog: notificationLogIdString={}", removeCRLF(notificationLogIdString));
-            NotificationLogId notificationLogId = new NotificationLogId(notificationLogIdString);
+            logger().debug("getNotificationLog: notificationLogIdString={}", lazyRemoveCRLF(notificationLogIdString));
+            NotificationLogId notificationLogId = new NotificationLogId(notificationLogIdString, BATCH_SIZE);
             NotificationLog notificationLog = notificationService.notificationLog(notificationLogId);
             Links links = new Links(notificationLog, uriInfo);
             NotificationLogRepresentation representation = buildRepresentation(notificationLog, links);
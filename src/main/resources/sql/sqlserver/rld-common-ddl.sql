@@ -5,7 +5,30 @@ CREATE TABLE stored_event (
     event_type varchar(255) NOT NULL,
     event_body varchar(max) NOT NULL,
     occurred_on datetime NOT NULL,
+    occurred_on_millis bigint NOT NULL,
     version int NOT NULL,
+    stream_key varchar(255) NULL,
+    stream_sequence bigint NULL,
+    PRIMARY KEY (stored_event_id)
+);
+
+CREATE INDEX ix_stored_event_type_occurred_on ON stored_event (event_type, occurred_on_millis);
+
+CREATE INDEX ix_stored_event_occurred_on ON stored_event (occurred_on_millis);
+
+CREATE UNIQUE INDEX uk_stored_event_stream ON stored_event (stream_key, stream_sequence) WHERE stream_key IS NOT NULL;
+
+IF EXISTS (SELECT * FROM INFORMATION_SCHEMA.TABLES WHERE table_name = 'stored_event_archive') DROP TABLE stored_event_archive;
+
+CREATE TABLE stored_event_archive (
+    stored_event_id bigint NOT NULL,
+    event_type varchar(255) NOT NULL,
+    event_body varchar(max) NOT NULL,
+    occurred_on datetime NOT NULL,
+    occurred_on_millis bigint NOT NULL,
+    version int NOT NULL,
+    stream_key varchar(255) NULL,
+    stream_sequence bigint NULL,
     PRIMARY KEY (stored_event_id)
 );
 
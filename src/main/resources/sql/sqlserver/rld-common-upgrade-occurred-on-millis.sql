@@ -0,0 +1,11 @@
+-- Adds the occurred_on_millis column to an existing stored_event table and fills it in from occurred_on.
+-- The occurred_on column is assumed to hold UTC date and time. If it holds local time, convert it first, e.g., using
+-- occurred_on AT TIME ZONE '<local time zone>' AT TIME ZONE 'UTC'.
+
+IF NOT EXISTS (SELECT * FROM INFORMATION_SCHEMA.COLUMNS WHERE table_name = 'stored_event' AND column_name = 'occurred_on_millis')
+    ALTER TABLE stored_event ADD occurred_on_millis bigint NULL;
+GO
+
+UPDATE stored_event SET occurred_on_millis = DATEDIFF_BIG(millisecond, '1970-01-01T00:00:00', occurred_on) WHERE occurred_on_millis IS NULL;
+
+ALTER TABLE stored_event ALTER COLUMN occurred_on_millis bigint NOT NULL;
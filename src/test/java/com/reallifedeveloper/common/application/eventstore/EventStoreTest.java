@@ -3,9 +3,12 @@ package com.reallifedeveloper.common.application.eventstore;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.jupiter.api.Test;
 import org.slf4j.LoggerFactory;
@@ -16,6 +19,7 @@ import ch.qos.logback.classic.spi.ILoggingEvent;
 
 import com.reallifedeveloper.common.domain.ObjectSerializer;
 import com.reallifedeveloper.common.domain.event.TestEvent;
+import com.reallifedeveloper.common.domain.event.TestStreamEvent;
 import com.reallifedeveloper.common.infrastructure.GsonObjectSerializer;
 import com.reallifedeveloper.common.test.CommonTestUtil;
 import com.reallifedeveloper.tools.test.LogbackTestUtil;
@@ -44,6 +48,26 @@ public class EventStoreTest {
         assertEquals(event.eventVersion(), retrievedEvent.eventVersion(), "Retrieved event version is wrong");
     }
 
+    @Test
+    public void addAll() {
+        TestEvent event1 = new TestEvent(42, "foo", TestUtil.utcNow(), 2);
+        TestEvent event2 = new TestEvent(4711, "bar", TestUtil.utcNow(), 3);
+        List<StoredEvent> storedEvents = eventStore.addAll(List.of(event1, event2));
+        assertEquals(2, storedEvents.size(), "Wrong number of stored events");
+        assertEquals(1, storedEvents.get(0).id().longValue(), "First stored event has wrong ID");
+        assertEquals(2, storedEvents.get(1).id().longValue(), "Second stored event has wrong ID");
+        assertEquals(event2.eventVersion(), storedEvents.get(1).version().intValue(), "Second stored event version is wrong");
+        TestEvent retrievedEvent = eventStore.toDomainEvent(storedEvents.get(1));
+        assertEquals(event2.id(), retrievedEvent.id(), "Retrieved event has wrong ID");
+        assertEquals(2, eventStore.lastStoredEventId(), "Wrong last stored event ID");
+    }
+
+    @Test
+    public void addAllNullEvents() {
+        Exception e = assertThrows(IllegalArgumentException.class, () -> eventStore.addAll(null));
+        assertEquals("events must not be null", e.getMessage());
+    }
+
     @Test
     public void addNullEvent() {
         Exception e = assertThrows(IllegalArgumentException.class, () -> eventStore.add(null));
@@ -119,6 +143,43 @@ public class EventStoreTest {
         }
     }
 
+    @Test
+    public void eventsOfTypesBetween() {
+        ZonedDateTime start = TestUtil.utcNow();
+        for (int i = 0; i < 10; i++) {
+            eventStore.add(new TestEvent(i, "foo" + i, start.plusSeconds(i)));
+            eventRepository.save(new StoredEvent("other", "bar" + i, start.plusSeconds(i), 1));
+        }
+        List<String> eventTypes = List.of(TestEvent.class.getName());
+        List<StoredEvent> firstPage = eventStore.eventsOfTypesBetween(eventTypes, start.plusSeconds(2), start.plusSeconds(7), 0, 3);
+        assertEquals(List.of(5L, 7L, 9L), ids(firstPage), "Wrong stored events on first page: ");
+        List<StoredEvent> secondPage = eventStore.eventsOfTypesBetween(eventTypes, start.plusSeconds(2), start.plusSeconds(7),
+                firstPage.get(firstPage.size() - 1).id(), 3);
+        assertEquals(List.of(11L, 13L), ids(secondPage), "Wrong stored events on second page: ");
+
+        List<StoredEvent> allTypes = eventStore.eventsOfTypesBetween(List.of(TestEvent.class.getName(), "other"), start,
+                start.plusSeconds(1), 0, 10);
+        assertEquals(List.of(1L, 2L), ids(allTypes), "Wrong stored events of all types: ");
+    }
+
+    @Test
+    public void eventsOfTypesBetweenEmptyEventTypes() {
+        ZonedDateTime now = TestUtil.utcNow();
+        assertThrows(IllegalArgumentException.class, () -> eventStore.eventsOfTypesBetween(List.of(), now, now, 0, 10));
+    }
+
+    @Test
+    public void eventsOfTypesBetweenZeroMaxResults() {
+        ZonedDateTime now = TestUtil.utcNow();
+        assertThrows(IllegalArgumentException.class, () -> eventStore.eventsOfTypesBetween(List.of("foo"), now, now, 0, 0));
+    }
+
+    @Test
+    public void eventsOfTypesBetweenNullFrom() {
+        ZonedDateTime now = TestUtil.utcNow();
+        assertThrows(IllegalArgumentException.class, () -> eventStore.eventsOfTypesBetween(List.of("foo"), null, now, 0, 10));
+    }
+
     @Test
     public void toDomainEvent() throws Exception {
         TestEvent event = new TestEvent(42, "foo", TestUtil.utcNow(), 2);
@@ -144,6 +205,250 @@ public class EventStoreTest {
         assertEquals("Failed to load class foo", e.getMessage());
     }
 
+    @Test
+    public void allEventsSinceIsBoundedByMaxResults() {
+        EventStore boundedEventStore = new EventStore(eventSerializer, eventRepository, 3);
+        for (int i = 0; i < 10; i++) {
+            boundedEventStore.add(new TestEvent(i, "foo", TestUtil.utcNow()));
+        }
+        List<StoredEvent> firstPage = boundedEventStore.allEventsSince(0);
+        assertEquals(List.of(1L, 2L, 3L), ids(firstPage), "Wrong events on first page: ");
+        List<StoredEvent> secondPage = boundedEventStore.allEventsSince(firstPage.get(firstPage.size() - 1).id());
+        assertEquals(List.of(4L, 5L, 6L), ids(secondPage), "Wrong events on second page: ");
+        assertEquals(List.of(10L), ids(boundedEventStore.allEventsSince(9)), "Wrong events on last page: ");
+    }
+
+    @Test
+    public void allEventsBetweenIsBoundedByMaxResults() {
+        EventStore boundedEventStore = new EventStore(eventSerializer, eventRepository, 3);
+        for (int i = 0; i < 10; i++) {
+            boundedEventStore.add(new TestEvent(i, "foo", TestUtil.utcNow()));
+        }
+        List<StoredEvent> firstPage = boundedEventStore.allEventsBetween(2, 100_000_000);
+        assertEquals(List.of(2L, 3L, 4L), ids(firstPage), "Wrong events on first page: ");
+        List<StoredEvent> secondPage = boundedEventStore.allEventsBetween(firstPage.get(firstPage.size() - 1).id() + 1, 6);
+        assertEquals(List.of(5L, 6L), ids(secondPage), "Wrong events on second page: ");
+        assertEquals(List.of(), ids(boundedEventStore.allEventsBetween(7, 6)), "Wrong events for empty range: ");
+        assertEquals(3, boundedEventStore.maxResults(), "Wrong maxResults: ");
+    }
+
+    @Test
+    public void archiveEventsBefore() {
+        InMemoryStoredEventArchive archive = new InMemoryStoredEventArchive();
+        EventStore tieredEventStore = new EventStore(eventSerializer, eventRepository, 3, archive);
+        ZonedDateTime start = TestUtil.utcNow();
+        for (int i = 1; i <= 10; i++) {
+            tieredEventStore.add(new TestEvent(i, "foo", start.plusSeconds(i)));
+        }
+        assertEquals(7, tieredEventStore.archiveEventsBefore(start.plusSeconds(8)), "Wrong number of events archived: ");
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L), ids(archive.archivedEvents()), "Wrong events in archive: ");
+        assertEquals(List.of(8L, 9L, 10L), ids(eventRepository.allEventsSince(0)), "Wrong events in repository: ");
+        assertEquals(0, tieredEventStore.archiveEventsBefore(start.plusSeconds(8)), "Events should only be archived once: ");
+
+        assertEquals(List.of(6L, 7L, 8L), ids(tieredEventStore.allEventsSince(5)), "Wrong events read across tiers: ");
+        assertEquals(List.of(2L, 3L, 4L), ids(tieredEventStore.allEventsSince(1)), "Wrong events read from archive: ");
+        assertEquals(List.of(9L, 10L), ids(tieredEventStore.allEventsSince(8)), "Wrong events read from repository: ");
+        assertEquals(List.of(7L, 8L), ids(tieredEventStore.allEventsBetween(7, 8)), "Wrong events between 7 and 8: ");
+        assertEquals(10L, tieredEventStore.lastStoredEventId(), "Wrong last stored event ID: ");
+    }
+
+    @Test
+    public void archiveEventsBeforeKeepsLastEvent() {
+        InMemoryStoredEventArchive archive = new InMemoryStoredEventArchive();
+        EventStore tieredEventStore = new EventStore(eventSerializer, eventRepository, 2, archive);
+        ZonedDateTime start = TestUtil.utcNow();
+        for (int i = 1; i <= 5; i++) {
+            tieredEventStore.add(new TestEvent(i, "foo", start.plusSeconds(i)));
+        }
+        assertEquals(4, tieredEventStore.archiveEventsBefore(start.plusDays(1)), "Wrong number of events archived: ");
+        assertEquals(List.of(5L), ids(eventRepository.allEventsSince(0)), "Wrong events in repository: ");
+        assertEquals(5L, tieredEventStore.lastStoredEventId(), "Wrong last stored event ID: ");
+    }
+
+    @Test
+    public void archiveEventsBeforeDeletesEventsArchivedEarlier() {
+        InMemoryStoredEventArchive archive = new InMemoryStoredEventArchive();
+        EventStore tieredEventStore = new EventStore(eventSerializer, eventRepository, 10, archive);
+        ZonedDateTime start = TestUtil.utcNow();
+        for (int i = 1; i <= 5; i++) {
+            tieredEventStore.add(new TestEvent(i, "foo", start.plusSeconds(i)));
+        }
+        // Simulate an archiving run that stopped after archiving but before deleting from the repository.
+        archive.archive(eventRepository.allEventsBetween(1, 2));
+        assertEquals(List.of(1L, 2L, 3L), ids(tieredEventStore.allEventsSince(0).subList(0, 3)), "Wrong events read: ");
+        assertEquals(5, tieredEventStore.allEventsSince(0).size(), "Archived events should not be read twice: ");
+        assertEquals(0, tieredEventStore.archiveEventsBefore(start), "Wrong number of events archived: ");
+        assertEquals(List.of(3L, 4L, 5L), ids(eventRepository.allEventsSince(0)), "Wrong events in repository: ");
+    }
+
+    @Test
+    public void archiveEventsBeforeKeepsEventCommittedLateWithLowerId() {
+        StoredEventRepository sharedRepository = new InMemoryStoredEventRepository() {
+            @Override
+            public boolean isShared() {
+                return true;
+            }
+        };
+        ZonedDateTime start = TestUtil.utcNow();
+        for (long id : List.of(1L, 2L, 4L, 5L, 6L)) {
+            sharedRepository.save(new StoredEvent(id, TestEvent.class.getName(), "{}", start.plusSeconds(id), 1, null, null));
+        }
+        StoredEventArchive sharedArchive = new InMemoryStoredEventArchive() {
+            @Override
+            public void archive(List<StoredEvent> storedEvents) {
+                super.archive(storedEvents);
+                // The transaction that was given ID 3 commits after the events with greater IDs have been read and archived.
+                if (sharedRepository.allEventsBetween(3, 3).isEmpty()) {
+                    sharedRepository.save(new StoredEvent(3L, TestEvent.class.getName(), "{}", start.plusSeconds(3), 1, null, null));
+                }
+            }
+
+            @Override
+            public boolean isShared() {
+                return true;
+            }
+        };
+        EventStore tieredEventStore = new EventStore(eventSerializer, sharedRepository, 10, sharedArchive, Duration.ZERO);
+        assertEquals(4, tieredEventStore.archiveEventsBefore(start.plusDays(1)), "Wrong number of events archived: ");
+        assertEquals(List.of(3L, 6L), ids(sharedRepository.allEventsSince(0)), "Event committed late should have been kept: ");
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L), ids(tieredEventStore.allEventsSince(0)), "Wrong events read across tiers: ");
+        assertEquals(List.of(3L, 4L), ids(tieredEventStore.allEventsBetween(3, 4)), "Wrong events between 3 and 4: ");
+
+        assertEquals(0, tieredEventStore.archiveEventsBefore(start.plusDays(1)), "Wrong number of events archived again: ");
+        assertEquals(List.of(3L, 6L), ids(sharedRepository.allEventsSince(0)), "Event committed late should still be kept: ");
+    }
+
+    @Test
+    public void archiveEventsBeforeWaitsForGapWaitInSharedRepository() {
+        StoredEventRepository sharedRepository = new InMemoryStoredEventRepository() {
+            @Override
+            public boolean isShared() {
+                return true;
+            }
+        };
+        StoredEventArchive sharedArchive = new InMemoryStoredEventArchive() {
+            @Override
+            public boolean isShared() {
+                return true;
+            }
+        };
+        AtomicLong nanoClock = new AtomicLong();
+        EventStore tieredEventStore = new EventStore(eventSerializer, sharedRepository, 10, sharedArchive, Duration.ofSeconds(10),
+                nanoClock::get);
+        ZonedDateTime start = TestUtil.utcNow();
+        for (int i = 1; i <= 5; i++) {
+            tieredEventStore.add(new TestEvent(i, "foo", start.plusSeconds(i)));
+        }
+        assertEquals(0, tieredEventStore.archiveEventsBefore(start.plusDays(1)), "No events should be archived before gap wait: ");
+        tieredEventStore.add(new TestEvent(6, "foo", start.plusSeconds(6)));
+        tieredEventStore.add(new TestEvent(7, "foo", start.plusSeconds(7)));
+        nanoClock.addAndGet(TimeUnit.SECONDS.toNanos(9));
+        assertEquals(0, tieredEventStore.archiveEventsBefore(start.plusDays(1)), "No events should be archived during gap wait: ");
+        nanoClock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(5, tieredEventStore.archiveEventsBefore(start.plusDays(1)), "Events seen before gap wait should be archived: ");
+        nanoClock.addAndGet(TimeUnit.SECONDS.toNanos(9));
+        assertEquals(1, tieredEventStore.archiveEventsBefore(start.plusDays(1)), "Wrong number of events archived: ");
+        assertEquals(List.of(7L), ids(sharedRepository.allEventsSince(0)), "Wrong events in repository: ");
+    }
+
+    @Test
+    public void archiveEventsBeforeWithoutArchive() {
+        assertThrows(IllegalStateException.class, () -> eventStore.archiveEventsBefore(TestUtil.utcNow()));
+    }
+
+    @Test
+    public void archiveEventsBeforeNullThreshold() {
+        EventStore tieredEventStore = new EventStore(eventSerializer, eventRepository, 10, new InMemoryStoredEventArchive());
+        assertThrows(IllegalArgumentException.class, () -> tieredEventStore.archiveEventsBefore(null));
+    }
+
+    @Test
+    public void addStreamEvents() {
+        ZonedDateTime now = TestUtil.utcNow();
+        StoredEvent first = eventStore.add(new TestStreamEvent("a", "a1", now));
+        eventStore.add(new TestEvent(1, "foo", now));
+        List<StoredEvent> storedEvents = eventStore.addAll(List.of(new TestStreamEvent("b", "b1", now), new TestStreamEvent("a", "a2", now),
+                new TestStreamEvent("a", "a3", now)));
+        assertEquals("a", first.streamKey(), "Wrong stream key: ");
+        assertEquals(1L, first.streamSequence().longValue(), "Wrong stream sequence of first event: ");
+        assertEquals(List.of(1L, 2L, 3L), streamSequences(storedEvents), "Wrong stream sequences: ");
+        assertEquals(3, eventStore.lastStreamSequence("a"), "Wrong last stream sequence of stream a: ");
+        assertEquals(1, eventStore.lastStreamSequence("b"), "Wrong last stream sequence of stream b: ");
+        assertEquals(0, eventStore.lastStreamSequence("c"), "Wrong last stream sequence of empty stream: ");
+        assertEquals(List.of(1L, 4L, 5L), ids(eventStore.streamEventsSince("a", 0)), "Wrong events in stream a: ");
+        assertEquals(List.of(5L), ids(eventStore.streamEventsSince("a", 2)), "Wrong events in stream a after 2: ");
+        TestStreamEvent domainEvent = eventStore.toDomainEvent(storedEvents.get(2));
+        assertEquals("a3", domainEvent.name(), "Wrong domain event: ");
+        assertEquals("a", domainEvent.eventStreamKey(), "Wrong stream key of domain event: ");
+    }
+
+    @Test
+    public void streamEventsSinceIsBoundedByMaxResults() {
+        EventStore boundedEventStore = new EventStore(eventSerializer, eventRepository, 2);
+        for (int i = 1; i <= 5; i++) {
+            boundedEventStore.add(new TestStreamEvent("a", "a" + i, TestUtil.utcNow()));
+        }
+        assertEquals(List.of(1L, 2L), streamSequences(boundedEventStore.streamEventsSince("a", 0)), "Wrong first page: ");
+        assertEquals(List.of(5L), streamSequences(boundedEventStore.streamEventsSince("a", 4)), "Wrong last page: ");
+    }
+
+    @Test
+    public void streamEventsSinceNullStreamKey() {
+        assertThrows(IllegalArgumentException.class, () -> eventStore.streamEventsSince(null, 0));
+    }
+
+    @Test
+    public void defaultMaxResults() {
+        assertEquals(EventStore.DEFAULT_MAX_RESULTS, eventStore.maxResults(), "Wrong maxResults: ");
+    }
+
+    @Test
+    public void constructorZeroMaxResults() {
+        Exception e = assertThrows(IllegalArgumentException.class, () -> new EventStore(eventSerializer, eventRepository, 0));
+        assertEquals("maxResults must be positive: 0", e.getMessage());
+    }
+
+    @Test
+    public void constructorNegativeArchiveGapWait() {
+        Exception e = assertThrows(IllegalArgumentException.class,
+                () -> new EventStore(eventSerializer, eventRepository, 10, null, Duration.ofSeconds(-1)));
+        assertEquals("archiveGapWait must not be negative: PT-1S", e.getMessage());
+    }
+
+    @Test
+    public void constructorSharedRepositoryAndLocalArchive() {
+        StoredEventRepository sharedRepository = new InMemoryStoredEventRepository() {
+            @Override
+            public boolean isShared() {
+                return true;
+            }
+        };
+        StoredEventArchive localArchive = new InMemoryStoredEventArchive();
+        Exception e = assertThrows(IllegalArgumentException.class,
+                () -> new EventStore(eventSerializer, sharedRepository, 10, localArchive));
+        assertEquals("A StoredEventArchive that is local to one process cannot be used with a shared StoredEventRepository, since other "
+                + "processes would not find the archived events: repository=" + sharedRepository + ", archive=" + localArchive,
+                e.getMessage());
+    }
+
+    @Test
+    public void constructorSharedRepositoryAndSharedArchive() {
+        StoredEventRepository sharedRepository = new InMemoryStoredEventRepository() {
+            @Override
+            public boolean isShared() {
+                return true;
+            }
+        };
+        StoredEventArchive sharedArchive = new InMemoryStoredEventArchive() {
+            @Override
+            public boolean isShared() {
+                return true;
+            }
+        };
+        EventStore tieredEventStore = new EventStore(eventSerializer, sharedRepository, 10, sharedArchive);
+        assertEquals(0, tieredEventStore.archiveEventsBefore(TestUtil.utcNow()), "Wrong number of events archived: ");
+    }
+
     @Test
     public void constructorNullSerializer() {
         Exception e = assertThrows(IllegalArgumentException.class, () -> new EventStore(null, eventRepository));
@@ -165,7 +470,8 @@ public class EventStoreTest {
         ZonedDateTime now = TestUtil.utcNow();
 
         EventStore myEventStore = new EventStore(eventSerializer, eventRepository);
-        assertSingleLogEntry(Level.INFO, "Creating new EventStore: serializer=" + eventSerializer + ", repository=" + eventRepository);
+        assertSingleLogEntry(Level.INFO, "Creating new EventStore: serializer=" + eventSerializer + ", repository=" + eventRepository
+                + ", maxResults=" + EventStore.DEFAULT_MAX_RESULTS);
 
         StoredEvent storedEvent = myEventStore.add(new TestEvent(42, "foo\nbar", now, 2));
         assertSingleLogEntry(Level.TRACE, "add: event=TestEvent{id=42, name=foobar, eventOccurredOn=" + now + ", eventVersion=2}");
@@ -188,6 +494,14 @@ public class EventStoreTest {
         logger.setLevel(originalLevel);
     }
 
+    private static List<Long> streamSequences(List<StoredEvent> storedEvents) {
+        return storedEvents.stream().map(StoredEvent::streamSequence).toList();
+    }
+
+    private static List<Long> ids(List<StoredEvent> storedEvents) {
+        return storedEvents.stream().map(StoredEvent::id).toList();
+    }
+
     private static void assertSingleLogEntry(Level level, String message) {
         List<ILoggingEvent> loggingEvents = LogbackTestUtil.getLoggingEvents();
         assertEquals(1, loggingEvents.size());
@@ -0,0 +1,45 @@
+package com.reallifedeveloper.common.application.eventstore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+public class InMemoryStoredEventArchive implements StoredEventArchive {
+
+    private final List<StoredEvent> archivedEvents = new ArrayList<>();
+
+    @Override
+    public void archive(List<StoredEvent> storedEvents) {
+        if (storedEvents == null || storedEvents.isEmpty()) {
+            throw new IllegalArgumentException("storedEvents must not be null or empty: " + storedEvents);
+        }
+        long previousId = lastArchivedStoredEventId().orElse(0L);
+        for (StoredEvent storedEvent : storedEvents) {
+            if (storedEvent.id() <= previousId) {
+                throw new IllegalArgumentException("StoredEvent IDs must be in order: " + storedEvents);
+            }
+            previousId = storedEvent.id();
+        }
+        archivedEvents.addAll(storedEvents);
+    }
+
+    @Override
+    public List<StoredEvent> eventsAfter(long afterStoredEventId, long lastStoredEventId, int maxResults) {
+        List<StoredEvent> events = new ArrayList<>();
+        for (StoredEvent event : archivedEvents) {
+            if (afterStoredEventId < event.id() && event.id() <= lastStoredEventId && events.size() < maxResults) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    @Override
+    public Optional<Long> lastArchivedStoredEventId() {
+        return archivedEvents.isEmpty() ? Optional.empty() : Optional.of(archivedEvents.get(archivedEvents.size() - 1).id());
+    }
+
+    public List<StoredEvent> archivedEvents() {
+        return archivedEvents;
+    }
+}
@@ -1,6 +1,8 @@
 package com.reallifedeveloper.common.application.eventstore;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 
@@ -36,6 +38,72 @@ implements StoredEventRepository {
         return events;
     }
 
+    @Override
+    public List<StoredEvent> eventsAfter(long afterStoredEventId, long lastStoredEventId, int maxResults) {
+        List<StoredEvent> events = new ArrayList<>();
+        for (StoredEvent event : findAll()) {
+            if (event.id() != null && afterStoredEventId < event.id() && event.id() <= lastStoredEventId) {
+                events.add(event);
+            }
+        }
+        events.sort(Comparator.comparing(StoredEvent::id));
+        return events.subList(0, Math.min(maxResults, events.size()));
+    }
+
+    @Override
+    public List<StoredEvent> eventsOfTypesBetween(Collection<String> eventTypes, long fromEpochMillis, long toEpochMillis,
+            long afterStoredEventId, int maxResults) {
+        List<StoredEvent> events = new ArrayList<>();
+        for (StoredEvent event : findAll()) {
+            if (event.id() != null && event.id() > afterStoredEventId && eventTypes.contains(event.eventType())
+                    && fromEpochMillis <= event.occurredOnEpochMillis() && event.occurredOnEpochMillis() < toEpochMillis) {
+                events.add(event);
+            }
+        }
+        events.sort(Comparator.comparing(StoredEvent::id));
+        return events.subList(0, Math.min(maxResults, events.size()));
+    }
+
+    @Override
+    public List<StoredEvent> streamEventsAfter(String streamKey, long afterStreamSequence, int maxResults) {
+        List<StoredEvent> events = new ArrayList<>();
+        for (StoredEvent event : findAll()) {
+            if (streamKey.equals(event.streamKey()) && event.streamSequence() > afterStreamSequence) {
+                events.add(event);
+            }
+        }
+        events.sort(Comparator.comparing(StoredEvent::streamSequence));
+        return events.subList(0, Math.min(maxResults, events.size()));
+    }
+
+    @Override
+    public Optional<Long> lastStreamSequence(String streamKey) {
+        Optional<Long> lastStreamSequence = Optional.empty();
+        for (StoredEvent event : findAll()) {
+            if (streamKey.equals(event.streamKey()) && event.streamSequence() > lastStreamSequence.orElse(0L)) {
+                lastStreamSequence = Optional.of(event.streamSequence());
+            }
+        }
+        return lastStreamSequence;
+    }
+
+    @Override
+    public int deleteEvents(List<Long> storedEventIds) {
+        int numDeleted = 0;
+        for (Long storedEventId : storedEventIds) {
+            if (findById(storedEventId).isPresent()) {
+                deleteById(storedEventId);
+                numDeleted++;
+            }
+        }
+        return numDeleted;
+    }
+
+    @Override
+    public boolean isShared() {
+        return false;
+    }
+
     @Override
     public Optional<Long> lastStoredEventId() {
         if (count() == 0) {
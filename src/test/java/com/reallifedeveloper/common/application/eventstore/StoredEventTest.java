@@ -25,6 +25,8 @@ public class StoredEventTest {
         assertEquals(eventType, storedEvent.eventType(), "Stored event has wrong type");
         assertEquals(eventBody, storedEvent.eventBody(), "Stored event has wrong body");
         assertEquals(eventOccurredOn, storedEvent.occurredOn(), "Stored event timestamp is wrong");
+        assertEquals(eventOccurredOn.toInstant().toEpochMilli(), storedEvent.occurredOnEpochMillis(),
+                "Stored event epoch millis timestamp is wrong");
         assertEquals(eventVersion, storedEvent.version().intValue(), "Stored event version is wrong");
     }
 
@@ -42,8 +44,71 @@ public class StoredEventTest {
 
     @Test
     public void constructorNullOccurredOn() {
-        assertThrows(IllegalArgumentException.class, () -> new StoredEvent("foo", "bar", null, 1),
+        Exception e = assertThrows(IllegalArgumentException.class, () -> new StoredEvent("foo", "bar", null, 1),
                 "Expected constructor to throw IllegalArgumentException on null occurredOn");
+        assertEquals("Arguments must not be null: eventType=foo, eventBody=bar, occurredOn=null, version=1", e.getMessage(),
+                "Wrong error message: ");
+    }
+
+    @Test
+    public void constructorWithId() {
+        ZonedDateTime eventOccurredOn = TestUtil.utcNow();
+        StoredEvent storedEvent = new StoredEvent(42L, "foo", "bar", eventOccurredOn, 2);
+
+        assertEquals(42L, storedEvent.id().longValue(), "Stored event has wrong ID");
+        assertEquals("foo", storedEvent.eventType(), "Stored event has wrong type");
+        assertEquals("bar", storedEvent.eventBody(), "Stored event has wrong body");
+        assertEquals(eventOccurredOn, storedEvent.occurredOn(), "Stored event timestamp is wrong");
+        assertEquals(eventOccurredOn.toInstant().toEpochMilli(), storedEvent.occurredOnEpochMillis(),
+                "Stored event epoch millis timestamp is wrong");
+        assertEquals(2, storedEvent.version().intValue(), "Stored event version is wrong");
+    }
+
+    @Test
+    public void constructorWithNullId() {
+        assertThrows(IllegalArgumentException.class, () -> new StoredEvent(null, "foo", "bar", TestUtil.utcNow(), 1),
+                "Expected constructor to throw IllegalArgumentException on null id");
+    }
+
+    @Test
+    public void constructorWithStream() {
+        StoredEvent storedEvent = new StoredEvent("foo", "bar", TestUtil.utcNow(), 1, "stream", 3);
+        assertNull(storedEvent.id(), "Stored event should have null ID");
+        assertEquals("stream", storedEvent.streamKey(), "Stored event has wrong stream key");
+        assertEquals(3L, storedEvent.streamSequence().longValue(), "Stored event has wrong stream sequence");
+    }
+
+    @Test
+    public void constructorWithoutStream() {
+        StoredEvent storedEvent = new StoredEvent(42L, "foo", "bar", TestUtil.utcNow(), 1);
+        assertNull(storedEvent.streamKey(), "Stored event should have null stream key");
+        assertNull(storedEvent.streamSequence(), "Stored event should have null stream sequence");
+    }
+
+    @Test
+    public void constructorWithNullStreamKey() {
+        assertThrows(IllegalArgumentException.class, () -> new StoredEvent("foo", "bar", TestUtil.utcNow(), 1, null, 1),
+                "Expected constructor to throw IllegalArgumentException on null streamKey");
+    }
+
+    @Test
+    public void constructorWithZeroStreamSequence() {
+        assertThrows(IllegalArgumentException.class, () -> new StoredEvent("foo", "bar", TestUtil.utcNow(), 1, "stream", 0),
+                "Expected constructor to throw IllegalArgumentException on zero streamSequence");
+    }
+
+    @Test
+    public void constructorWithStreamKeyButNoStreamSequence() {
+        assertThrows(IllegalArgumentException.class, () -> new StoredEvent(42L, "foo", "bar", TestUtil.utcNow(), 1, "stream", null),
+                "Expected constructor to throw IllegalArgumentException on streamKey without streamSequence");
+    }
+
+    @Test
+    public void testToStringWithStream() {
+        ZonedDateTime now = TestUtil.utcNow();
+        StoredEvent storedEvent = new StoredEvent(1L, "foo", "bar", now, 42, "stream", 7L);
+        assertEquals("StoredEvent{id=1, eventType=foo, eventBody=bar, occurredOn=" + now
+                + ", version=42, streamKey=stream, streamSequence=7}", storedEvent.toString());
     }
 
     @Test
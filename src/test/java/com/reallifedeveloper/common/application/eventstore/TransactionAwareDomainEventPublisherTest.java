@@ -0,0 +1,135 @@
+package com.reallifedeveloper.common.application.eventstore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.reallifedeveloper.common.domain.event.DomainEventSubscriber;
+import com.reallifedeveloper.common.domain.event.EventSavingSubscriber;
+import com.reallifedeveloper.common.domain.event.SimpleDomainEventPublisher;
+import com.reallifedeveloper.common.domain.event.TestEvent;
+import com.reallifedeveloper.common.infrastructure.GsonObjectSerializer;
+
+public class TransactionAwareDomainEventPublisherTest {
+
+    private final InMemoryStoredEventRepository repository = new InMemoryStoredEventRepository();
+    private final EventStore eventStore = new EventStore(new GsonObjectSerializer(), repository);
+    private final EventSavingSubscriber subscriber = new EventSavingSubscriber();
+    private final TransactionAwareDomainEventPublisher publisher = new TransactionAwareDomainEventPublisher(eventStore,
+            new SimpleDomainEventPublisher());
+
+    @AfterEach
+    public void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.unbindResourceIfPossible(publisher);
+    }
+
+    @Test
+    public void publishWithoutTransactionStoresAndPublishesImmediately() {
+        publisher.subscribe(subscriber);
+        publisher.publish(new TestEvent(1, "foo"));
+        assertEquals(1, repository.count(), "Wrong number of stored events: ");
+        assertEquals(1, subscriber.events().size(), "Wrong number of published events: ");
+    }
+
+    @Test
+    public void publishInTransactionIsDeferredUntilCommit() {
+        publisher.subscribe(subscriber);
+        TransactionSynchronizationManager.initSynchronization();
+        publisher.publish(new TestEvent(1, "foo"));
+        publisher.publish(new TestEvent(2, "bar"));
+        assertEquals(0, repository.count(), "No events should have been stored before commit: ");
+        assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size(), "Wrong number of synchronizations: ");
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(s -> s.beforeCommit(false));
+        assertEquals(2, repository.count(), "Events should have been stored before commit: ");
+        assertTrue(subscriber.events().isEmpty(), "No events should have been published before commit");
+
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        assertEquals(2, subscriber.events().size(), "Events should have been published after commit: ");
+        assertEquals(1, ((TestEvent) subscriber.events().get(0)).id(), "Wrong event published first: ");
+        assertEquals(2, ((TestEvent) subscriber.events().get(1)).id(), "Wrong event published second: ");
+
+        completeTransaction(synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+        publisher.publish(new TestEvent(3, "baz"));
+        assertEquals(3, repository.count(), "Event published after transaction should have been stored immediately: ");
+        assertEquals(3, subscriber.events().size(), "Event published after transaction should have been published immediately: ");
+    }
+
+    @Test
+    public void rolledBackEventsAreDiscarded() {
+        publisher.subscribe(subscriber);
+        TransactionSynchronizationManager.initSynchronization();
+        publisher.publish(new TestEvent(1, "foo"));
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        completeTransaction(synchronizations, TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertEquals(0, repository.count(), "No events should have been stored: ");
+        assertTrue(subscriber.events().isEmpty(), "No events should have been published");
+    }
+
+    @Test
+    public void eventPublishedBySubscriberAfterCommitIsHandledImmediately() {
+        publisher.subscribe(new RepublishingSubscriber());
+        publisher.subscribe(subscriber);
+        TransactionSynchronizationManager.initSynchronization();
+        publisher.publish(new TestEvent(1, "republish"));
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(s -> s.beforeCommit(false));
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        assertEquals(2, repository.count(), "Both events should have been stored: ");
+        assertEquals(2, subscriber.events().size(), "Both events should have been published: ");
+        completeTransaction(synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+    }
+
+    @Test
+    @SuppressWarnings("NullAway")
+    public void constructorNullEventStore() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new TransactionAwareDomainEventPublisher(null, new SimpleDomainEventPublisher()));
+    }
+
+    @Test
+    @SuppressWarnings("NullAway")
+    public void constructorNullDelegate() {
+        assertThrows(IllegalArgumentException.class, () -> new TransactionAwareDomainEventPublisher(eventStore, null));
+    }
+
+    @Test
+    @SuppressWarnings("NullAway")
+    public void publishNullEvent() {
+        assertThrows(IllegalArgumentException.class, () -> publisher.publish(null));
+    }
+
+    private static void completeTransaction(List<TransactionSynchronization> synchronizations, int status) {
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(s -> s.afterCompletion(status));
+    }
+
+    /**
+     * A {@code DomainEventSubscriber} that publishes a new event when it receives an event named "republish".
+     */
+    private final class RepublishingSubscriber implements DomainEventSubscriber<TestEvent> {
+
+        @Override
+        public void handleEvent(TestEvent event) {
+            if ("republish".equals(event.name())) {
+                publisher.publish(new TestEvent(event.id() + 1, "republished"));
+            }
+        }
+
+        @Override
+        public Class<? extends TestEvent> eventType() {
+            return TestEvent.class;
+        }
+    }
+}
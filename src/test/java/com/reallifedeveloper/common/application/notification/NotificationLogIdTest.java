@@ -77,6 +77,50 @@ public class NotificationLogIdTest {
         assertEquals("low must not be greater than high: low=42, high=41", e.getMessage());
     }
 
+    @Test
+    public void constructorStringWithMaxBatchSize() {
+        NotificationLogId id = new NotificationLogId("21,40", 20);
+        assertEquals(21, id.low(), "Incorrect low: ");
+        assertEquals(40, id.high(), "Incorrect high: ");
+        assertEquals(20, id.batchSize(), "Incorrect batch size: ");
+    }
+
+    @Test
+    public void constructorLongLargestBatchSize() {
+        NotificationLogId id = new NotificationLogId(1, Integer.MAX_VALUE);
+        assertEquals(Integer.MAX_VALUE, id.batchSize(), "Incorrect batch size: ");
+    }
+
+    @Test
+    public void constructorLongBatchSizeTooLarge() {
+        Exception e = assertThrows(IllegalArgumentException.class, () -> new NotificationLogId(1, 4_294_967_297L));
+        assertEquals("notificationLogId represents too many notifications, the maximum batch size is 2147483647: low=1, high=4294967297",
+                e.getMessage());
+    }
+
+    @Test
+    public void constructorLongBatchSizeOverflow() {
+        assertThrows(IllegalArgumentException.class, () -> new NotificationLogId(Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void constructorStringBatchSizeTooLarge() {
+        Exception e = assertThrows(IllegalArgumentException.class, () -> new NotificationLogId("1,100000000", 20));
+        assertEquals("notificationLogId represents too many notifications, the maximum batch size is 20: notificationLogId=1,100000000",
+                e.getMessage());
+    }
+
+    @Test
+    public void constructorStringBatchSizeOverflow() {
+        assertThrows(IllegalArgumentException.class, () -> new NotificationLogId(Long.MIN_VALUE + "," + Long.MAX_VALUE));
+    }
+
+    @Test
+    public void constructorStringZeroMaxBatchSize() {
+        Exception e = assertThrows(IllegalArgumentException.class, () -> new NotificationLogId("1,20", 0));
+        assertEquals("maxBatchSize must be positive: 0", e.getMessage());
+    }
+
     @Test
     public void externalForm() {
         NotificationLogId id = new NotificationLogId(42, 4711);
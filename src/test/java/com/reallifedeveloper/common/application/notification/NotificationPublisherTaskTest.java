@@ -32,6 +32,16 @@ public class NotificationPublisherTaskTest {
         assertEquals(PUBLICATION_CHANNEL, notificationService.publicationChannelsUsed.get(1), "Wrong publication channel");
     }
 
+    @Test
+    public void runPerStream() {
+        TestNotificationService notificationService = new TestNotificationService();
+        NotificationPublisherTask task = new NotificationPublisherTask(PUBLICATION_CHANNEL, notificationService, true);
+        task.run();
+        assertEquals(List.of(PUBLICATION_CHANNEL), notificationService.streamPublicationChannelsUsed,
+                "Wrong calls to publishStreamNotifications");
+        assertEquals(0, notificationService.publicationChannelsUsed.size(), "Wrong number of calls to publishNotifications");
+    }
+
     @Test
     public void runWithIOException() {
         TestNotificationService notificationService = new TestNotificationService();
@@ -73,6 +83,7 @@ public class NotificationPublisherTaskTest {
         private @Nullable IOException ioException;
         private @Nullable RuntimeException runtimeException;
         private List<String> publicationChannelsUsed = new ArrayList<>();
+        private List<String> streamPublicationChannelsUsed = new ArrayList<>();
 
         TestNotificationService() {
             super(new EventStore(new GsonObjectSerializer(), new InMemoryStoredEventRepository()),
@@ -97,5 +108,10 @@ public class NotificationPublisherTaskTest {
                 throw runtimeException;
             }
         }
+
+        @Override
+        public void publishStreamNotifications(String publicationChannel) throws IOException {
+            streamPublicationChannelsUsed.add(publicationChannel);
+        }
     }
 }
@@ -1,15 +1,20 @@
 package com.reallifedeveloper.common.application.notification;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import com.reallifedeveloper.common.application.eventstore.EventStore;
 import com.reallifedeveloper.common.application.eventstore.InMemoryStoredEventRepository;
+import com.reallifedeveloper.common.application.eventstore.StoredEvent;
 import com.reallifedeveloper.common.domain.ObjectSerializer;
 import com.reallifedeveloper.common.domain.event.TestEvent;
+import com.reallifedeveloper.common.domain.event.TestStreamEvent;
 import com.reallifedeveloper.common.infrastructure.GsonObjectSerializer;
+import com.reallifedeveloper.tools.test.TestUtil;
 
 public class NotificationServiceTest {
 
@@ -64,6 +69,41 @@ public class NotificationServiceTest {
         Assertions.assertFalse(notificationLog.isArchived(), "Notification log should not be archived");
     }
 
+    @Test
+    public void currentNotificationLogWithBatchSizeEqualToMaxResults() {
+        EventStore smallEventStore = new EventStore(objectSerializer, storedEventRepository, 5);
+        NotificationService smallService = new NotificationService(smallEventStore, messageTrackerRepository, notificationPublisher);
+        for (int i = 0; i < 7; i++) {
+            smallEventStore.add(new TestEvent(i + 1, "foo" + (i + 1)));
+        }
+        NotificationLog notificationLog = smallService.currentNotificationLog(5);
+        Assertions.assertEquals("6,10", notificationLog.current().externalForm(), "Wrong current notification id");
+        Assertions.assertEquals(2, notificationLog.notifications().size(), "Wrong number of notifications");
+        notificationLog = smallService.notificationLog(notificationLog.previous().get());
+        Assertions.assertEquals(5, notificationLog.notifications().size(), "Wrong number of notifications");
+    }
+
+    @Test
+    public void currentNotificationLogWithBatchSizeGreaterThanMaxResultsShouldFail() {
+        EventStore smallEventStore = new EventStore(objectSerializer, storedEventRepository, 5);
+        NotificationService smallService = new NotificationService(smallEventStore, messageTrackerRepository, notificationPublisher);
+        Exception e = Assertions.assertThrows(IllegalArgumentException.class, () -> smallService.currentNotificationLog(6));
+        Assertions.assertEquals("batchSize must be between 1 and the maximum number of events read from the event store, 5: 6",
+                e.getMessage());
+    }
+
+    @Test
+    public void currentNotificationLogWithZeroBatchSizeShouldFail() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> service.currentNotificationLog(0));
+    }
+
+    @Test
+    public void notificationLogWithBatchSizeGreaterThanMaxResultsShouldFail() {
+        EventStore smallEventStore = new EventStore(objectSerializer, storedEventRepository, 5);
+        NotificationService smallService = new NotificationService(smallEventStore, messageTrackerRepository, notificationPublisher);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> smallService.notificationLog(new NotificationLogId(1, 6)));
+    }
+
     @Test
     public void notificationLog() {
         int numEvents = 13;
@@ -129,6 +169,202 @@ public class NotificationServiceTest {
         verifyPublishedNotifications(PUBLICATION_CHANNEL, numEvents + 1);
     }
 
+    @Test
+    public void publishNotificationsPerStream() throws Exception {
+        eventStore.add(new TestStreamEvent("a", "a1", TestUtil.utcNow()));
+        eventStore.add(new TestStreamEvent("b", "b1", TestUtil.utcNow()));
+        eventStore.add(new TestStreamEvent("a", "a2", TestUtil.utcNow()));
+        service.publishNotifications(PUBLICATION_CHANNEL, "a");
+        Assertions.assertEquals(List.of(1L, 3L), storedEventIds(notificationPublisher.publishedNotifications(PUBLICATION_CHANNEL)),
+                "Wrong notifications published for stream a");
+        Assertions.assertEquals(2L,
+                messageTrackerRepository.findByPublicationChannel(PUBLICATION_CHANNEL + "#a").get().lastPublishedMessageId().longValue(),
+                "Wrong last published stream sequence for stream a");
+
+        eventStore.add(new TestStreamEvent("a", "a3", TestUtil.utcNow()));
+        service.publishNotifications(PUBLICATION_CHANNEL, "b");
+        service.publishNotifications(PUBLICATION_CHANNEL, "a");
+        Assertions.assertEquals(List.of(1L, 3L, 2L, 4L), storedEventIds(notificationPublisher.publishedNotifications(PUBLICATION_CHANNEL)),
+                "Wrong notifications published for streams a and b");
+        Assertions.assertTrue(messageTrackerRepository.findByPublicationChannel(PUBLICATION_CHANNEL).isEmpty(),
+                "Publishing streams should not affect the global message tracker");
+    }
+
+    @Test
+    public void publishNotificationsPerStreamWithPublisherRejectingStreams() {
+        NotificationPublisher streamRejectingPublisher = new TestNotificationPublisher() {
+            @Override
+            public void publishStream(List<Notification> notifications, String publicationChannel, String streamKey) {
+                throw new UnsupportedOperationException("Streams not supported");
+            }
+        };
+        NotificationService streamRejectingService = new NotificationService(eventStore, messageTrackerRepository,
+                streamRejectingPublisher);
+        eventStore.add(new TestStreamEvent("a", "a1", TestUtil.utcNow()));
+        Assertions.assertThrows(UnsupportedOperationException.class,
+                () -> streamRejectingService.publishNotifications(PUBLICATION_CHANNEL, "a"));
+        Assertions.assertTrue(messageTrackerRepository.findByPublicationChannel(PUBLICATION_CHANNEL + "#a").isEmpty(),
+                "Stream message tracker should not have been saved");
+    }
+
+    @Test
+    public void publishStreamNotifications() throws Exception {
+        NotificationService boundedService = new NotificationService(new EventStore(objectSerializer, storedEventRepository, 2),
+                messageTrackerRepository, notificationPublisher);
+        eventStore.add(new TestStreamEvent("a", "a1", TestUtil.utcNow()));
+        eventStore.add(new TestStreamEvent("b", "b1", TestUtil.utcNow()));
+        eventStore.add(new TestEvent(1, "foo"));
+        eventStore.add(new TestStreamEvent("a", "a2", TestUtil.utcNow()));
+        boundedService.publishStreamNotifications(PUBLICATION_CHANNEL);
+        Assertions.assertEquals(List.of(1L, 4L, 2L), storedEventIds(notificationPublisher.publishedNotifications(PUBLICATION_CHANNEL)),
+                "Wrong notifications published for streams found in first scan");
+        Assertions.assertEquals(2L,
+                messageTrackerRepository.findByPublicationChannel(PUBLICATION_CHANNEL + "#").get().lastPublishedMessageId().longValue(),
+                "Wrong last scanned stored event ID");
+
+        boundedService.publishStreamNotifications(PUBLICATION_CHANNEL);
+        boundedService.publishStreamNotifications(PUBLICATION_CHANNEL);
+        Assertions.assertEquals(List.of(1L, 4L, 2L), storedEventIds(notificationPublisher.publishedNotifications(PUBLICATION_CHANNEL)),
+                "Events should not have been published again");
+        Assertions.assertEquals(4L,
+                messageTrackerRepository.findByPublicationChannel(PUBLICATION_CHANNEL + "#").get().lastPublishedMessageId().longValue(),
+                "Wrong last scanned stored event ID after second scan");
+        Assertions.assertEquals(2L,
+                messageTrackerRepository.findByPublicationChannel(PUBLICATION_CHANNEL + "#a").get().lastPublishedMessageId().longValue(),
+                "Wrong last published stream sequence for stream a");
+    }
+
+    @Test
+    public void publishStreamNotificationsPublishesWholeBacklogOfStream() throws Exception {
+        NotificationService boundedService = new NotificationService(new EventStore(objectSerializer, storedEventRepository, 2),
+                messageTrackerRepository, notificationPublisher);
+        for (int i = 1; i <= 5; i++) {
+            eventStore.add(new TestStreamEvent("a", "a" + i, TestUtil.utcNow()));
+        }
+        boundedService.publishNotifications(PUBLICATION_CHANNEL, "a");
+        messageTrackerRepository.save(new PublishedMessageTracker(4, PUBLICATION_CHANNEL + "#"));
+        eventStore.add(new TestStreamEvent("a", "a6", TestUtil.utcNow()));
+        boundedService.publishStreamNotifications(PUBLICATION_CHANNEL);
+        Assertions.assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L),
+                storedEventIds(notificationPublisher.publishedNotifications(PUBLICATION_CHANNEL)),
+                "All events in stream up to the last event scanned should have been published");
+    }
+
+    @Test
+    public void publicationChannelWithStreamSeparator() {
+        Exception e = Assertions.assertThrows(IllegalArgumentException.class, () -> service.publishNotifications("foo#bar", "baz"));
+        Assertions.assertEquals("publicationChannel must not contain #: foo#bar", e.getMessage(), "Wrong exception message: ");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> service.publishStreamNotifications("foo#bar"));
+    }
+
+    @Test
+    public void publishNotificationsWithStreamSeparatorInPublicationChannel() throws Exception {
+        eventStore.add(new TestEvent(1, "foo"));
+        service.publishNotifications("foo#bar");
+        verifyPublishedNotifications("foo#bar", 1);
+    }
+
+    @Test
+    public void streamMessageTrackerName() {
+        Assertions.assertEquals("foo#bar#baz", NotificationService.streamMessageTrackerName("foo", "bar#baz"),
+                "Wrong stream message tracker name: ");
+        String maxLengthKey = "a".repeat(PublishedMessageTracker.MAX_PUBLICATION_CHANNEL_LENGTH - 4);
+        Assertions.assertEquals(PublishedMessageTracker.MAX_PUBLICATION_CHANNEL_LENGTH,
+                NotificationService.streamMessageTrackerName("foo", maxLengthKey).length(),
+                "Wrong length of stream message tracker name: ");
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> NotificationService.streamMessageTrackerName("foo", maxLengthKey + "a"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> NotificationService.streamMessageTrackerName("foo", ""));
+    }
+
+    @Test
+    public void publishNotificationsWaitsForGapToBeFilled() throws Exception {
+        AtomicLong clock = new AtomicLong();
+        NotificationService gapAwareService = new NotificationService(eventStore, messageTrackerRepository, notificationPublisher,
+                Duration.ofNanos(100), clock::get);
+        for (int i = 0; i < 4; i++) {
+            eventStore.add(new TestEvent(i + 1, "foo" + (i + 1)));
+        }
+        StoredEvent inFlightEvent = storedEventRepository.findById(2L).get();
+        storedEventRepository.deleteById(2L);
+        gapAwareService.publishNotifications(PUBLICATION_CHANNEL);
+        Assertions.assertEquals(List.of(1L), storedEventIds(notificationPublisher.publishedNotifications(PUBLICATION_CHANNEL)),
+                "Events after the gap should not have been published");
+
+        clock.set(99);
+        gapAwareService.publishNotifications(PUBLICATION_CHANNEL);
+        Assertions.assertEquals(List.of(1L), storedEventIds(notificationPublisher.publishedNotifications(PUBLICATION_CHANNEL)),
+                "Events after the gap should not have been published within the wait window");
+
+        storedEventRepository.save(inFlightEvent);
+        gapAwareService.publishNotifications(PUBLICATION_CHANNEL);
+        verifyPublishedNotifications(PUBLICATION_CHANNEL, 4);
+    }
+
+    @Test
+    public void publishNotificationsSkipsExpiredGap() throws Exception {
+        AtomicLong clock = new AtomicLong();
+        NotificationService gapAwareService = new NotificationService(eventStore, messageTrackerRepository, notificationPublisher,
+                Duration.ofNanos(100), clock::get);
+        for (int i = 0; i < 3; i++) {
+            eventStore.add(new TestEvent(i + 1, "foo" + (i + 1)));
+        }
+        storedEventRepository.deleteById(2L);
+        gapAwareService.publishNotifications(PUBLICATION_CHANNEL);
+        clock.set(50);
+        eventStore.add(new TestEvent(4, "foo4"));
+        storedEventRepository.deleteById(4L);
+        eventStore.add(new TestEvent(5, "foo5"));
+        gapAwareService.publishNotifications(PUBLICATION_CHANNEL);
+        Assertions.assertEquals(List.of(1L), storedEventIds(notificationPublisher.publishedNotifications(PUBLICATION_CHANNEL)),
+                "Events after the gap should not have been published within the wait window");
+
+        clock.set(100);
+        gapAwareService.publishNotifications(PUBLICATION_CHANNEL);
+        Assertions.assertEquals(List.of(1L, 3L), storedEventIds(notificationPublisher.publishedNotifications(PUBLICATION_CHANNEL)),
+                "Only the expired gap should have been skipped");
+
+        clock.set(150);
+        gapAwareService.publishNotifications(PUBLICATION_CHANNEL);
+        Assertions.assertEquals(List.of(1L, 3L, 5L), storedEventIds(notificationPublisher.publishedNotifications(PUBLICATION_CHANNEL)),
+                "Both gaps should have been skipped");
+        Assertions.assertEquals(5L,
+                messageTrackerRepository.findByPublicationChannel(PUBLICATION_CHANNEL).get().lastPublishedMessageId().longValue(),
+                "Wrong last published message ID");
+    }
+
+    @Test
+    public void publishNotificationsWithoutGapWaitWindowSkipsGapsImmediately() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            eventStore.add(new TestEvent(i + 1, "foo" + (i + 1)));
+        }
+        storedEventRepository.deleteById(2L);
+        service.publishNotifications(PUBLICATION_CHANNEL);
+        Assertions.assertEquals(List.of(1L, 3L), storedEventIds(notificationPublisher.publishedNotifications(PUBLICATION_CHANNEL)),
+                "Gap should have been skipped");
+    }
+
+    @Test
+    public void constructorNegativeGapWaitWindow() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> new NotificationService(eventStore, messageTrackerRepository, notificationPublisher, Duration.ofMillis(-1)),
+            "Expected IllegalArgumentException for negative gap wait window");
+    }
+
+    @Test
+    @SuppressWarnings("NullAway")
+    public void constructorNullGapWaitWindow() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> new NotificationService(eventStore, messageTrackerRepository, notificationPublisher, null),
+            "Expected IllegalArgumentException for null gap wait window");
+    }
+
+    @Test
+    @SuppressWarnings("NullAway")
+    public void publishNotificationsNullStreamKey() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> service.publishNotifications(PUBLICATION_CHANNEL, null));
+    }
+
     @Test
     @SuppressWarnings("NullAway")
     public void constructorNullEventStore() {
@@ -153,6 +389,10 @@ public class NotificationServiceTest {
             "Expected IllegalArgumentException for null NotificationPublisher");
     }
 
+    private static List<Long> storedEventIds(List<Notification> notifications) {
+        return notifications.stream().map(Notification::storedEventId).toList();
+    }
+
     private void verifyPublishedNotifications(String publicationChannel, int numNotifications) {
         List<Notification> notifications = notificationPublisher.publishedNotifications(publicationChannel);
         Assertions.assertEquals(numNotifications, notifications.size(), "Wrong number of notifications");
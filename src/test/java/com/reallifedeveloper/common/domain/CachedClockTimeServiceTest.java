@@ -0,0 +1,101 @@
+package com.reallifedeveloper.common.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import org.junit.jupiter.api.Test;
+
+public class CachedClockTimeServiceTest {
+
+    private static final Duration LONG_RESOLUTION = Duration.ofHours(1);
+
+    @Test
+    public void nowGivesTheSameTimeUntilTick() {
+        MutableClock clock = new MutableClock(Instant.parse("2024-03-01T12:00:00Z"));
+        try (CachedClockTimeService timeService = new CachedClockTimeService(clock, LONG_RESOLUTION)) {
+            ZonedDateTime first = timeService.now();
+            assertEquals(ZonedDateTime.parse("2024-03-01T12:00:00Z"), first, "Wrong initial time: ");
+            clock.instant = Instant.parse("2024-03-01T12:00:01Z");
+            assertSame(first, timeService.now(), "Time should not change before tick");
+            timeService.tick();
+            assertEquals(ZonedDateTime.parse("2024-03-01T12:00:01Z"), timeService.now(), "Wrong time after tick: ");
+        }
+    }
+
+    @Test
+    public void backgroundThreadUpdatesTime() throws Exception {
+        try (CachedClockTimeService timeService = new CachedClockTimeService(Duration.ofMillis(1))) {
+            ZonedDateTime first = timeService.now();
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!timeService.now().isAfter(first) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertTrue(timeService.now().isAfter(first), "Time should have been updated by the background thread");
+        }
+    }
+
+    @Test
+    public void resolution() {
+        try (CachedClockTimeService timeService = new CachedClockTimeService(LONG_RESOLUTION)) {
+            assertEquals(LONG_RESOLUTION, timeService.resolution(), "Wrong resolution: ");
+        }
+    }
+
+    @Test
+    public void constructorZeroResolution() {
+        assertThrows(IllegalArgumentException.class, () -> new CachedClockTimeService(Duration.ZERO));
+    }
+
+    @Test
+    public void constructorNegativeResolution() {
+        assertThrows(IllegalArgumentException.class, () -> new CachedClockTimeService(Duration.ofMillis(-1)));
+    }
+
+    @Test
+    @SuppressWarnings("NullAway")
+    public void constructorNullResolution() {
+        assertThrows(IllegalArgumentException.class, () -> new CachedClockTimeService(null));
+    }
+
+    @Test
+    @SuppressWarnings("NullAway")
+    public void constructorNullClock() {
+        assertThrows(IllegalArgumentException.class, () -> new CachedClockTimeService(null, LONG_RESOLUTION));
+    }
+
+    /**
+     * A {@code Clock} whose time can be changed by the test.
+     */
+    private static final class MutableClock extends Clock {
+
+        private volatile Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -5,6 +5,10 @@ import static com.reallifedeveloper.common.domain.ErrorHandling.checkNullOrBlank
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.function.Executable;
@@ -179,6 +183,29 @@ public class ErrorHandlingTest {
 
     }
 
+    @Test
+    public void checkNullDoesNotAllocateIfArgumentsAreNotNull() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean,
+                "Measuring allocated bytes requires com.sun.management.ThreadMXBean");
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported() && threadMXBean.isThreadAllocatedMemoryEnabled(),
+                "Measuring allocated bytes is not supported or not enabled");
+        long threadId = Thread.currentThread().getId();
+        String messageTemplate = "Arguments must not be null: arg1=%s, arg2=%s, arg3=%s";
+        Object arg1 = "arg1";
+        Object arg2 = "arg2";
+        Object arg3 = "arg3";
+        // Few enough calls that the code is not compiled by C2, which could remove an argument array using escape analysis.
+        final int iterations = 1_000;
+        long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            checkNull(messageTemplate, arg1, arg2, arg3);
+        }
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        // An argument array would be at least 24 bytes per call, so allow much less than that for the measurement itself.
+        assertTrue(allocated < iterations, "checkNull should not allocate when no argument is null, allocated bytes: " + allocated);
+    }
+
     @Test
     public void checkNullWithNullMessageTemplate() {
         Exception e = assertThrows(IllegalStateException.class, () -> checkNull(null, "foo", "bar", "baz"));
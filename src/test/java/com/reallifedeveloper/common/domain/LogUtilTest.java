@@ -1,6 +1,8 @@
 package com.reallifedeveloper.common.domain;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static com.reallifedeveloper.common.domain.LogUtil.lazyRemoveCRLF;
 import static com.reallifedeveloper.common.domain.LogUtil.removeCRLF;
 
 import org.junit.jupiter.api.Test;
@@ -37,6 +39,51 @@ public class LogUtilTest {
         assertEquals("foobar", removeCRLF(new FooBar()));
     }
 
+    @Test
+    public void removeCRLFReturnsSameInstanceIfNoCRLF() {
+        String s = "foobar";
+        assertSame(s, removeCRLF(s));
+    }
+
+    @Test
+    public void removeCRLFEmptyString() {
+        assertEquals("", removeCRLF(""));
+    }
+
+    @Test
+    public void removeCRLFOnlyCRLF() {
+        assertEquals("", removeCRLF("\r\n\n"));
+    }
+
+    @Test
+    public void removeCRLFAtStartAndEnd() {
+        assertEquals("foobar", removeCRLF("\nfoobar\r"));
+    }
+
+    @Test
+    public void lazyRemoveCRLFDoesNotCallToStringUntilNeeded() {
+        CountingToString o = new CountingToString();
+        Object wrapper = lazyRemoveCRLF(o);
+        assertEquals(0, o.count, "toString should not have been called: ");
+        assertEquals("foobar", wrapper.toString());
+        assertEquals(1, o.count, "toString should have been called once: ");
+    }
+
+    @Test
+    public void lazyRemoveCRLFNullObject() {
+        assertEquals("null", lazyRemoveCRLF(null).toString());
+    }
+
+    private static final class CountingToString {
+        private int count;
+
+        @Override
+        public String toString() {
+            count++;
+            return "foo\r\nbar";
+        }
+    }
+
     private static final class FooBar {
         @Override
         public String toString() {
@@ -0,0 +1,82 @@
+package com.reallifedeveloper.common.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+public class MonotonicTimeServiceTest {
+
+    private static final ZonedDateTime TIME = ZonedDateTime.parse("2024-03-01T12:00:00Z");
+
+    @Test
+    public void timesAreStrictlyIncreasingWithFixedDelegate() {
+        MonotonicTimeService timeService = new MonotonicTimeService(() -> TIME);
+        assertSame(TIME, timeService.now(), "First time should come directly from the delegate");
+        assertEquals(TIME.plusNanos(1), timeService.now(), "Wrong second time: ");
+        assertEquals(TIME.plusNanos(2), timeService.now(), "Wrong third time: ");
+    }
+
+    @Test
+    public void delegateTimeIsUsedWhenLater() {
+        TestTimeService delegate = new TestTimeService();
+        delegate.setDateTimes(TIME, TIME, TIME.plusSeconds(1));
+        MonotonicTimeService timeService = new MonotonicTimeService(delegate);
+        timeService.now();
+        timeService.now();
+        assertEquals(TIME.plusSeconds(1), timeService.now(), "Later delegate time should have been used: ");
+    }
+
+    @Test
+    public void timesAreIncreasingWhenDelegateGoesBackwards() {
+        TestTimeService delegate = new TestTimeService();
+        delegate.setDateTimes(TIME, TIME.minusSeconds(1));
+        MonotonicTimeService timeService = new MonotonicTimeService(delegate);
+        timeService.now();
+        assertEquals(TIME.plusNanos(1), timeService.now(), "Time should not go backwards: ");
+    }
+
+    @Test
+    public void timesAreUniqueAcrossThreads() throws Exception {
+        final int numThreads = 8;
+        final int callsPerThread = 10_000;
+        MonotonicTimeService timeService = new MonotonicTimeService(() -> TIME);
+        List<List<ZonedDateTime>> results = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < numThreads; t++) {
+            List<ZonedDateTime> times = new ArrayList<>();
+            results.add(times);
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < callsPerThread; i++) {
+                    times.add(timeService.now());
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Set<ZonedDateTime> allTimes = new HashSet<>();
+        for (List<ZonedDateTime> times : results) {
+            for (int i = 1; i < times.size(); i++) {
+                assertTrue(times.get(i).isAfter(times.get(i - 1)), "Times should be increasing within a thread");
+            }
+            allTimes.addAll(times);
+        }
+        assertEquals(numThreads * callsPerThread, allTimes.size(), "All times should be unique: ");
+    }
+
+    @Test
+    @SuppressWarnings("NullAway")
+    public void constructorNullDelegate() {
+        assertThrows(IllegalArgumentException.class, () -> new MonotonicTimeService(null));
+    }
+}
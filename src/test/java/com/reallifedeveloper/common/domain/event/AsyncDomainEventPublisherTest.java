@@ -0,0 +1,260 @@
+package com.reallifedeveloper.common.domain.event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.reallifedeveloper.common.domain.event.AsyncDomainEventPublisher.OverflowPolicy;
+import com.reallifedeveloper.common.domain.event.AsyncDomainEventPublisher.SubscriberMetrics;
+
+public class AsyncDomainEventPublisherTest {
+
+    private final List<Runnable> pendingTasks = new ArrayList<>();
+
+    /**
+     * An {@code Executor} that just saves the tasks, so that the test can decide when to run them.
+     */
+    private final Executor manualExecutor = pendingTasks::add;
+
+    @Test
+    public void eventsAreHandledInOrderPerSubscriber() throws Exception {
+        final int numEvents = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            AsyncDomainEventPublisher publisher = new AsyncDomainEventPublisher(executor, 4, OverflowPolicy.BLOCK);
+            RecordingSubscriber subscriber1 = new RecordingSubscriber(numEvents);
+            RecordingSubscriber subscriber2 = new RecordingSubscriber(numEvents);
+            publisher.subscribe(subscriber1);
+            publisher.subscribe(subscriber2);
+            for (int i = 0; i < numEvents; i++) {
+                publisher.publish(new TestEvent(i, "foo"));
+            }
+            assertTrue(subscriber1.await(), "Subscriber 1 should have handled all events");
+            assertTrue(subscriber2.await(), "Subscriber 2 should have handled all events");
+            List<Integer> expectedIds = IntStream.range(0, numEvents).boxed().toList();
+            assertEquals(expectedIds, subscriber1.ids(), "Wrong events handled by subscriber 1: ");
+            assertEquals(expectedIds, subscriber2.ids(), "Wrong events handled by subscriber 2: ");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void eventsAreNotHandledOnPublishingThread() {
+        AsyncDomainEventPublisher publisher = new AsyncDomainEventPublisher(manualExecutor, 10, OverflowPolicy.BLOCK);
+        RecordingSubscriber subscriber = new RecordingSubscriber(1);
+        publisher.subscribe(subscriber);
+        publisher.publish(new TestEvent(1, "foo"));
+        assertTrue(subscriber.ids().isEmpty(), "Event should not have been handled yet");
+        assertEquals(1, publisher.queueDepth(), "Wrong queue depth: ");
+        assertEquals(1, pendingTasks.size(), "Exactly one drain task should have been scheduled: ");
+        runPendingTasks();
+        assertEquals(List.of(1), subscriber.ids(), "Wrong events handled: ");
+        assertEquals(0, publisher.queueDepth(), "Wrong queue depth: ");
+    }
+
+    @Test
+    public void onlyOneDrainTaskScheduledWhileQueueIsNotEmpty() {
+        AsyncDomainEventPublisher publisher = new AsyncDomainEventPublisher(manualExecutor, 10, OverflowPolicy.BLOCK);
+        publisher.subscribe(new RecordingSubscriber(3));
+        publisher.publish(new TestEvent(1, "foo"));
+        publisher.publish(new TestEvent(2, "foo"));
+        publisher.publish(new TestEvent(3, "foo"));
+        assertEquals(1, pendingTasks.size(), "Exactly one drain task should have been scheduled: ");
+    }
+
+    @Test
+    public void dropPolicyDropsEventsWhenQueueIsFull() {
+        AsyncDomainEventPublisher publisher = new AsyncDomainEventPublisher(manualExecutor, 2, OverflowPolicy.DROP);
+        RecordingSubscriber subscriber = new RecordingSubscriber(2);
+        publisher.subscribe(subscriber);
+        for (int i = 1; i <= 5; i++) {
+            publisher.publish(new TestEvent(i, "foo"));
+        }
+        SubscriberMetrics metrics = publisher.metrics().get(0);
+        assertEquals(2, metrics.queueDepth(), "Wrong queue depth: ");
+        assertEquals(0, metrics.remainingCapacity(), "Wrong remaining capacity: ");
+        assertEquals(3, metrics.droppedEvents(), "Wrong number of dropped events: ");
+        runPendingTasks();
+        assertEquals(List.of(1, 2), subscriber.ids(), "Wrong events handled: ");
+        assertEquals(2, publisher.metrics().get(0).handledEvents(), "Wrong number of handled events: ");
+    }
+
+    @Test
+    public void callerRunsPolicyHandlesEventsOnPublishingThreadInOrder() {
+        AsyncDomainEventPublisher publisher = new AsyncDomainEventPublisher(manualExecutor, 2, OverflowPolicy.CALLER_RUNS);
+        RecordingSubscriber subscriber = new RecordingSubscriber(5);
+        publisher.subscribe(subscriber);
+        for (int i = 1; i <= 5; i++) {
+            publisher.publish(new TestEvent(i, "foo"));
+        }
+        assertEquals(List.of(1, 2, 3), subscriber.ids(), "Wrong events handled by publishing thread: ");
+        assertEquals(2, publisher.queueDepth(), "Wrong queue depth: ");
+        runPendingTasks();
+        assertEquals(List.of(1, 2, 3, 4, 5), subscriber.ids(), "Wrong events handled: ");
+        assertEquals(0, publisher.metrics().get(0).droppedEvents(), "No events should have been dropped: ");
+    }
+
+    @Test
+    public void onlyMatchingSubscribersGetEvents() {
+        AsyncDomainEventPublisher publisher = new AsyncDomainEventPublisher(manualExecutor, 10, OverflowPolicy.BLOCK);
+        EventSavingSubscriber allEventsSubscriber = new EventSavingSubscriber();
+        OtherEventSubscriber otherEventSubscriber = new OtherEventSubscriber();
+        publisher.subscribe(allEventsSubscriber);
+        publisher.subscribe(otherEventSubscriber);
+        publisher.publish(new TestEvent(1, "foo"));
+        runPendingTasks();
+        assertEquals(1, allEventsSubscriber.events().size(), "Wrong number of events handled: ");
+        assertEquals(0, otherEventSubscriber.count, "No events should have been handled: ");
+        assertEquals(0, publisher.metrics().get(1).queueDepth(), "Nothing should have been queued for non-matching subscriber: ");
+    }
+
+    @Test
+    public void failingSubscriberDoesNotStopLaterEvents() {
+        AsyncDomainEventPublisher publisher = new AsyncDomainEventPublisher(manualExecutor, 10, OverflowPolicy.BLOCK);
+        FailingSubscriber subscriber = new FailingSubscriber();
+        publisher.subscribe(subscriber);
+        publisher.publish(new TestEvent(1, "fail"));
+        publisher.publish(new TestEvent(2, "foo"));
+        runPendingTasks();
+        SubscriberMetrics metrics = publisher.metrics().get(0);
+        assertEquals(1, metrics.failedEvents(), "Wrong number of failed events: ");
+        assertEquals(1, metrics.handledEvents(), "Wrong number of handled events: ");
+    }
+
+    @Test
+    public void unsubscribe() {
+        AsyncDomainEventPublisher publisher = new AsyncDomainEventPublisher(manualExecutor, 10, OverflowPolicy.BLOCK);
+        RecordingSubscriber subscriber = new RecordingSubscriber(1);
+        publisher.subscribe(subscriber);
+        publisher.publish(new TestEvent(1, "foo"));
+        assertTrue(publisher.unsubscribe(subscriber), "Subscriber should have been registered");
+        assertFalse(publisher.unsubscribe(subscriber), "Subscriber should no longer be registered");
+        publisher.publish(new TestEvent(2, "foo"));
+        runPendingTasks();
+        assertTrue(subscriber.ids().isEmpty(), "No events should have been handled: " + subscriber.ids());
+        assertTrue(publisher.metrics().isEmpty(), "There should be no metrics after unsubscribing");
+    }
+
+    @Test
+    @SuppressWarnings("NullAway")
+    public void constructorWithNullExecutor() {
+        assertThrows(IllegalArgumentException.class, () -> new AsyncDomainEventPublisher(null, 10, OverflowPolicy.BLOCK));
+    }
+
+    @Test
+    @SuppressWarnings("NullAway")
+    public void constructorWithNullOverflowPolicy() {
+        assertThrows(IllegalArgumentException.class, () -> new AsyncDomainEventPublisher(manualExecutor, 10, null));
+    }
+
+    @Test
+    public void constructorWithZeroQueueCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new AsyncDomainEventPublisher(manualExecutor, 0, OverflowPolicy.BLOCK));
+    }
+
+    @Test
+    @SuppressWarnings("NullAway")
+    public void publishNullEvent() {
+        AsyncDomainEventPublisher publisher = new AsyncDomainEventPublisher(manualExecutor, 10, OverflowPolicy.BLOCK);
+        assertThrows(IllegalArgumentException.class, () -> publisher.publish(null));
+    }
+
+    @Test
+    @SuppressWarnings("NullAway")
+    public void subscribeNullSubscriber() {
+        AsyncDomainEventPublisher publisher = new AsyncDomainEventPublisher(manualExecutor, 10, OverflowPolicy.BLOCK);
+        assertThrows(IllegalArgumentException.class, () -> publisher.subscribe(null));
+    }
+
+    private void runPendingTasks() {
+        while (!pendingTasks.isEmpty()) {
+            pendingTasks.remove(0).run();
+        }
+    }
+
+    /**
+     * A {@code DomainEventSubscriber} that records the IDs of the {@code TestEvents} handled.
+     */
+    private static final class RecordingSubscriber implements DomainEventSubscriber<TestEvent> {
+
+        private final List<Integer> ids = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch latch;
+
+        RecordingSubscriber(int expectedEvents) {
+            this.latch = new CountDownLatch(expectedEvents);
+        }
+
+        @Override
+        public void handleEvent(TestEvent event) {
+            ids.add(event.id());
+            latch.countDown();
+        }
+
+        @Override
+        public Class<? extends TestEvent> eventType() {
+            return TestEvent.class;
+        }
+
+        List<Integer> ids() {
+            return ids;
+        }
+
+        boolean await() throws InterruptedException {
+            return latch.await(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * A {@code DomainEventSubscriber} that throws an exception for events named "fail".
+     */
+    private static final class FailingSubscriber implements DomainEventSubscriber<TestEvent> {
+
+        @Override
+        public void handleEvent(TestEvent event) {
+            if ("fail".equals(event.name())) {
+                throw new IllegalStateException("Failing on purpose: " + event);
+            }
+        }
+
+        @Override
+        public Class<? extends TestEvent> eventType() {
+            return TestEvent.class;
+        }
+    }
+
+    private static final class OtherEvent extends AbstractDomainEvent {
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * A {@code DomainEventSubscriber} for an event type that is never published.
+     */
+    private static final class OtherEventSubscriber implements DomainEventSubscriber<OtherEvent> {
+
+        private int count;
+
+        @Override
+        public void handleEvent(OtherEvent event) {
+            count++;
+        }
+
+        @Override
+        public Class<? extends OtherEvent> eventType() {
+            return OtherEvent.class;
+        }
+    }
+}
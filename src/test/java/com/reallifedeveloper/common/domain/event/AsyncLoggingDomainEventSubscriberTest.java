@@ -0,0 +1,154 @@
+package com.reallifedeveloper.common.domain.event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import com.reallifedeveloper.tools.test.LogbackTestUtil;
+import com.reallifedeveloper.tools.test.TestUtil;
+
+public class AsyncLoggingDomainEventSubscriberTest {
+
+    private final List<Runnable> pendingTasks = new ArrayList<>();
+
+    private final Executor manualExecutor = pendingTasks::add;
+
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    @BeforeEach
+    public void init() throws Exception {
+        LogbackTestUtil.clearLoggingEvents();
+    }
+
+    @Test
+    public void eventsAreLoggedByExecutor() {
+        AsyncLoggingDomainEventSubscriber subscriber = new AsyncLoggingDomainEventSubscriber(manualExecutor, 10, Duration.ofSeconds(1),
+                nanoTime::get);
+        TestEvent event = new TestEvent(42, "foo", TestUtil.utcNow(), 3);
+        subscriber.handleEvent(event);
+        assertTrue(LogbackTestUtil.getLoggingEvents().isEmpty(), "Event should not have been logged by the publishing thread");
+        runPendingTasks();
+        List<ILoggingEvent> loggingEvents = LogbackTestUtil.getLoggingEvents();
+        assertEquals(1, loggingEvents.size(), "Wrong number of logging events: ");
+        assertEquals(Level.INFO, loggingEvents.get(0).getLevel(), "Wrong log level: ");
+        assertEquals("Domain event: type=" + TestEvent.class.getName() + ", occurredOn=" + event.eventOccurredOn()
+                + ", version=3, suppressed=0, event=" + event, loggingEvents.get(0).getFormattedMessage(), "Wrong log message: ");
+    }
+
+    @Test
+    public void eventsAreRateLimitedPerType() {
+        AsyncLoggingDomainEventSubscriber subscriber = new AsyncLoggingDomainEventSubscriber(manualExecutor, 2, Duration.ofSeconds(1),
+                nanoTime::get);
+        for (int i = 0; i < 5; i++) {
+            subscriber.handleEvent(new TestEvent(i, "foo"));
+        }
+        subscriber.handleEvent(new OtherEvent());
+        assertEquals(3, pendingTasks.size(), "Wrong number of events passed to executor: ");
+
+        nanoTime.addAndGet(Duration.ofSeconds(1).toNanos());
+        subscriber.handleEvent(new TestEvent(5, "foo"));
+        runPendingTasks();
+        List<ILoggingEvent> loggingEvents = LogbackTestUtil.getLoggingEvents();
+        assertEquals(4, loggingEvents.size(), "Wrong number of logging events: ");
+        assertTrue(loggingEvents.get(3).getFormattedMessage().contains("suppressed=3"),
+                "Number of suppressed events should have been logged: " + loggingEvents.get(3).getFormattedMessage());
+    }
+
+    @Test
+    public void eventsRejectedByExecutorAreCounted() {
+        Executor rejectingExecutor = task -> {
+            throw new RejectedExecutionException("Rejecting on purpose");
+        };
+        AsyncLoggingDomainEventSubscriber subscriber = new AsyncLoggingDomainEventSubscriber(rejectingExecutor, 10,
+                Duration.ofSeconds(1));
+        subscriber.handleEvent(new TestEvent(1, "foo"));
+        subscriber.handleEvent(new TestEvent(2, "foo"));
+        assertEquals(2, subscriber.droppedEvents(), "Wrong number of dropped events: ");
+    }
+
+    @Test
+    public void suppressedCountIsKeptWhenExecutorRejects() {
+        List<Runnable> acceptedTasks = new ArrayList<>();
+        AtomicLong rejectionsLeft = new AtomicLong(0);
+        Executor sometimesRejectingExecutor = task -> {
+            if (rejectionsLeft.getAndDecrement() > 0) {
+                throw new RejectedExecutionException("Rejecting on purpose");
+            }
+            acceptedTasks.add(task);
+        };
+        AsyncLoggingDomainEventSubscriber subscriber = new AsyncLoggingDomainEventSubscriber(sometimesRejectingExecutor, 1,
+                Duration.ofSeconds(1), nanoTime::get);
+        subscriber.handleEvent(new TestEvent(1, "foo"));
+        subscriber.handleEvent(new TestEvent(2, "foo"));
+        subscriber.handleEvent(new TestEvent(3, "foo"));
+
+        nanoTime.addAndGet(Duration.ofSeconds(1).toNanos());
+        rejectionsLeft.set(1);
+        subscriber.handleEvent(new TestEvent(4, "foo"));
+        assertEquals(1, subscriber.droppedEvents(), "Wrong number of dropped events: ");
+
+        nanoTime.addAndGet(Duration.ofSeconds(1).toNanos());
+        subscriber.handleEvent(new TestEvent(5, "foo"));
+        acceptedTasks.forEach(Runnable::run);
+        List<ILoggingEvent> loggingEvents = LogbackTestUtil.getLoggingEvents();
+        assertEquals(2, loggingEvents.size(), "Wrong number of logging events: ");
+        assertTrue(loggingEvents.get(1).getFormattedMessage().contains("suppressed=2"),
+                "Suppressed events should not have been lost when the executor rejected: " + loggingEvents.get(1).getFormattedMessage());
+    }
+
+    @Test
+    public void eventType() {
+        AsyncLoggingDomainEventSubscriber subscriber = new AsyncLoggingDomainEventSubscriber(manualExecutor, 10, Duration.ofSeconds(1));
+        assertEquals(DomainEvent.class, subscriber.eventType(), "Wrong event type: ");
+    }
+
+    @Test
+    @SuppressWarnings("NullAway")
+    public void constructorNullExecutor() {
+        assertThrows(IllegalArgumentException.class, () -> new AsyncLoggingDomainEventSubscriber(null, 10, Duration.ofSeconds(1)));
+    }
+
+    @Test
+    @SuppressWarnings("NullAway")
+    public void constructorNullWindow() {
+        assertThrows(IllegalArgumentException.class, () -> new AsyncLoggingDomainEventSubscriber(manualExecutor, 10, null));
+    }
+
+    @Test
+    public void constructorZeroMaxEventsPerType() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new AsyncLoggingDomainEventSubscriber(manualExecutor, 0, Duration.ofSeconds(1)));
+    }
+
+    @Test
+    public void constructorZeroWindow() {
+        assertThrows(IllegalArgumentException.class, () -> new AsyncLoggingDomainEventSubscriber(manualExecutor, 10, Duration.ZERO));
+    }
+
+    private void runPendingTasks() {
+        while (!pendingTasks.isEmpty()) {
+            pendingTasks.remove(0).run();
+        }
+    }
+
+    private static final class OtherEvent extends AbstractDomainEvent {
+        private static final long serialVersionUID = 1L;
+
+        OtherEvent() {
+            super(TestUtil.utcNow());
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.reallifedeveloper.common.domain.event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.reallifedeveloper.tools.test.TestUtil;
+
+public class BoundedEventSavingSubscriberTest {
+
+    @Test
+    public void handleEvent() {
+        BoundedEventSavingSubscriber subscriber = new BoundedEventSavingSubscriber(10);
+        TestEvent event1 = new TestEvent(1, "foo");
+        TestEvent event2 = new TestEvent(2, "bar");
+        subscriber.handleEvent(event1);
+        subscriber.handleEvent(event2);
+        assertEquals(List.of(event1, event2), subscriber.events(), "Wrong handled events: ");
+        assertEquals(2, subscriber.size(), "Wrong number of retained events: ");
+    }
+
+    @Test
+    public void oldestEventsAreDiscardedWhenFull() {
+        BoundedEventSavingSubscriber subscriber = new BoundedEventSavingSubscriber(3);
+        for (int i = 1; i <= 7; i++) {
+            subscriber.handleEvent(new TestEvent(i, "foo"));
+        }
+        assertEquals(List.of(5, 6, 7), ids(subscriber.events(TestEvent.class)), "Wrong retained events: ");
+        assertEquals(3, subscriber.size(), "Wrong number of retained events: ");
+    }
+
+    @Test
+    public void oldestEventsAreDiscardedWhenSizeLimitIsExceeded() {
+        BoundedEventSavingSubscriber subscriber = new BoundedEventSavingSubscriber(100, 30, event -> ((TestEvent) event).name().length());
+        subscriber.handleEvent(new TestEvent(1, "0123456789"));
+        subscriber.handleEvent(new TestEvent(2, "0123456789"));
+        subscriber.handleEvent(new TestEvent(3, "0123456789"));
+        assertEquals(30, subscriber.retainedBytes(), "Wrong number of retained bytes: ");
+        subscriber.handleEvent(new TestEvent(4, "01234567890123456789"));
+        assertEquals(List.of(3, 4), ids(subscriber.events(TestEvent.class)), "Wrong retained events: ");
+        assertEquals(30, subscriber.retainedBytes(), "Wrong number of retained bytes: ");
+    }
+
+    @Test
+    public void eventLargerThanSizeLimitIsDiscarded() {
+        BoundedEventSavingSubscriber subscriber = new BoundedEventSavingSubscriber(100, 5, event -> ((TestEvent) event).name().length());
+        subscriber.handleEvent(new TestEvent(1, "0123456789"));
+        assertTrue(subscriber.events().isEmpty(), "Event should have been discarded");
+        assertEquals(0, subscriber.retainedBytes(), "Wrong number of retained bytes: ");
+    }
+
+    @Test
+    public void retainedBytesIsUpdatedWhenOverwritingEvents() {
+        BoundedEventSavingSubscriber subscriber = new BoundedEventSavingSubscriber(2, 1000, event -> 10);
+        for (int i = 1; i <= 5; i++) {
+            subscriber.handleEvent(new TestEvent(i, "foo"));
+        }
+        assertEquals(20, subscriber.retainedBytes(), "Wrong number of retained bytes: ");
+    }
+
+    @Test
+    public void eventsFilteredByType() {
+        BoundedEventSavingSubscriber subscriber = new BoundedEventSavingSubscriber(10);
+        subscriber.handleEvent(new TestEvent(1, "foo"));
+        subscriber.handleEvent(new OtherEvent());
+        subscriber.handleEvent(new TestEvent(2, "bar"));
+        assertEquals(List.of(1, 2), ids(subscriber.events(TestEvent.class)), "Wrong events of type TestEvent: ");
+        assertEquals(1, subscriber.events(OtherEvent.class).size(), "Wrong number of events of type OtherEvent: ");
+        assertEquals(3, subscriber.events().size(), "Wrong number of events: ");
+    }
+
+    @Test
+    public void eventsFilteredByTimeRange() {
+        ZonedDateTime now = TestUtil.utcNow();
+        BoundedEventSavingSubscriber subscriber = new BoundedEventSavingSubscriber(10);
+        subscriber.handleEvent(new TestEvent(1, "foo", now.minusMinutes(10)));
+        subscriber.handleEvent(new TestEvent(2, "foo", now.minusMinutes(5)));
+        subscriber.handleEvent(new TestEvent(3, "foo", now));
+        subscriber.handleEvent(new OtherEvent());
+        List<TestEvent> events = subscriber.events(TestEvent.class, now.minusMinutes(5), now);
+        assertEquals(List.of(2), ids(events), "Wrong events in time range: ");
+    }
+
+    @Test
+    public void clear() {
+        BoundedEventSavingSubscriber subscriber = new BoundedEventSavingSubscriber(10, 1000, event -> 10);
+        subscriber.handleEvent(new TestEvent(1, "foo"));
+        subscriber.handleEvent(new TestEvent(2, "foo"));
+        subscriber.clear();
+        assertTrue(subscriber.events().isEmpty(), "Handled events should be empty after clear");
+        assertEquals(0, subscriber.retainedBytes(), "Wrong number of retained bytes: ");
+        subscriber.handleEvent(new TestEvent(3, "foo"));
+        assertEquals(List.of(3), ids(subscriber.events(TestEvent.class)), "Wrong events after clear: ");
+    }
+
+    @Test
+    public void concurrentHandleEvent() throws Exception {
+        final int numThreads = 8;
+        final int eventsPerThread = 10_000;
+        final int capacity = 1000;
+        BoundedEventSavingSubscriber subscriber = new BoundedEventSavingSubscriber(capacity, 1000 * capacity, event -> 10);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < numThreads; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < eventsPerThread; i++) {
+                    subscriber.handleEvent(new TestEvent(i, "foo"));
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        int size = subscriber.size();
+        assertTrue(size > 0 && size <= capacity, "Wrong number of retained events: " + size);
+        assertEquals(10L * size, subscriber.retainedBytes(), "Wrong number of retained bytes: ");
+    }
+
+    @Test
+    public void eventType() {
+        assertEquals(DomainEvent.class, new BoundedEventSavingSubscriber(1).eventType(), "Wrong event type: ");
+    }
+
+    @Test
+    public void constructorZeroCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new BoundedEventSavingSubscriber(0));
+    }
+
+    @Test
+    public void constructorZeroMaxBytes() {
+        assertThrows(IllegalArgumentException.class, () -> new BoundedEventSavingSubscriber(10, 0, event -> 1));
+    }
+
+    @Test
+    @SuppressWarnings("NullAway")
+    public void constructorNullSizeEstimator() {
+        assertThrows(IllegalArgumentException.class, () -> new BoundedEventSavingSubscriber(10, 100, null));
+    }
+
+    @Test
+    @SuppressWarnings("NullAway")
+    public void handleNullEvent() {
+        assertThrows(IllegalArgumentException.class, () -> new BoundedEventSavingSubscriber(10).handleEvent(null));
+    }
+
+    @Test
+    public void eventsAreInHandlingOrder() {
+        BoundedEventSavingSubscriber subscriber = new BoundedEventSavingSubscriber(16);
+        for (int i = 0; i < 100; i++) {
+            subscriber.handleEvent(new TestEvent(i, "foo"));
+        }
+        assertEquals(IntStream.range(84, 100).boxed().toList(), ids(subscriber.events(TestEvent.class)), "Wrong retained events: ");
+    }
+
+    private static List<Integer> ids(List<TestEvent> events) {
+        return events.stream().map(TestEvent::id).toList();
+    }
+
+    private static final class OtherEvent extends AbstractDomainEvent {
+        private static final long serialVersionUID = 1L;
+
+        OtherEvent() {
+            super(TestUtil.utcNow());
+        }
+    }
+}
@@ -30,6 +30,12 @@ public class DomainEventTest {
         timeService.setClock(Clock.fixed(testDateTime.toInstant(), testDateTime.getZone()));
     }
 
+    @Test
+    public void eventOccurredOnEpochMillis() {
+        TestEvent event = new TestEvent(ZonedDateTime.parse("2014-06-07T13:52:00.123Z"), 1);
+        Assertions.assertEquals(1402149120123L, event.eventOccurredOnEpochMillis(), "Wrong occurred on epoch millis: ");
+    }
+
     @Test
     public void constructor() {
         TestEvent event = new TestEvent();
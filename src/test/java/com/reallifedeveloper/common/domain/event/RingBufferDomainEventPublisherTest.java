@@ -0,0 +1,308 @@
+package com.reallifedeveloper.common.domain.event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.reallifedeveloper.common.domain.event.RingBufferDomainEventPublisher.EndOfBatchListener;
+import com.reallifedeveloper.common.domain.event.RingBufferDomainEventPublisher.WaitStrategy;
+import com.reallifedeveloper.tools.test.TestUtil;
+
+public class RingBufferDomainEventPublisherTest {
+
+    private static final ThreadFactory THREAD_FACTORY = runnable -> {
+        Thread thread = new Thread(runnable, "ring-buffer-consumer");
+        thread.setDaemon(true);
+        return thread;
+    };
+
+    @Test
+    public void allSubscribersSeeAllEventsInPublishingOrder() throws Exception {
+        final int numProducers = 4;
+        final int eventsPerProducer = 10_000;
+        for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+            RecordingSubscriber subscriber1 = new RecordingSubscriber();
+            RecordingSubscriber subscriber2 = new RecordingSubscriber();
+            try (RingBufferDomainEventPublisher publisher = new RingBufferDomainEventPublisher(64, waitStrategy, THREAD_FACTORY)) {
+                publisher.subscribe(subscriber1);
+                publisher.subscribe(subscriber2);
+                publisher.start();
+                List<Thread> producers = new ArrayList<>();
+                for (int p = 0; p < numProducers; p++) {
+                    final int producer = p;
+                    producers.add(new Thread(() -> {
+                        for (int i = 0; i < eventsPerProducer; i++) {
+                            publisher.publish(new TestEvent(i, "producer" + producer));
+                        }
+                    }));
+                }
+                producers.forEach(Thread::start);
+                for (Thread producer : producers) {
+                    producer.join();
+                }
+            }
+            subscriber1.assertAllEventsInOrder(numProducers, eventsPerProducer);
+            subscriber2.assertAllEventsInOrder(numProducers, eventsPerProducer);
+        }
+    }
+
+    @Test
+    public void onlyMatchingEventsAreHandled() {
+        EventSavingSubscriber allEventsSubscriber = new EventSavingSubscriber();
+        RecordingSubscriber testEventSubscriber = new RecordingSubscriber();
+        try (RingBufferDomainEventPublisher publisher = new RingBufferDomainEventPublisher(8, WaitStrategy.YIELDING, THREAD_FACTORY)) {
+            publisher.subscribe(allEventsSubscriber);
+            publisher.subscribe(testEventSubscriber);
+            publisher.start();
+            publisher.publish(new TestEvent(1, "foo"));
+            publisher.publish(new OtherEvent());
+        }
+        assertEquals(2, allEventsSubscriber.events().size(), "Wrong number of events handled: ");
+        assertEquals(1, testEventSubscriber.count(), "Wrong number of events handled: ");
+    }
+
+    @Test
+    public void endOfBatchListenerIsNotified() {
+        BatchCountingSubscriber subscriber = new BatchCountingSubscriber();
+        try (RingBufferDomainEventPublisher publisher = new RingBufferDomainEventPublisher(8, WaitStrategy.SLEEPING, THREAD_FACTORY)) {
+            publisher.subscribe(subscriber);
+            publisher.start();
+            for (int i = 0; i < 100; i++) {
+                publisher.publish(new TestEvent(i, "foo"));
+            }
+        }
+        assertEquals(100, subscriber.events.get(), "Wrong number of events handled: ");
+        assertTrue(subscriber.batches.get() > 0, "At least one batch should have been handled");
+        assertTrue(subscriber.batches.get() <= 100, "There should not be more batches than events: " + subscriber.batches.get());
+    }
+
+    @Test
+    public void failingSubscriberContinuesWithNextEvent() {
+        FailingSubscriber subscriber = new FailingSubscriber();
+        try (RingBufferDomainEventPublisher publisher = new RingBufferDomainEventPublisher(8, WaitStrategy.YIELDING, THREAD_FACTORY)) {
+            publisher.subscribe(subscriber);
+            publisher.start();
+            publisher.publish(new TestEvent(1, "fail"));
+            publisher.publish(new TestEvent(2, "foo"));
+        }
+        assertEquals(1, subscriber.handled.get(), "Wrong number of events handled: ");
+    }
+
+    @Test
+    public void failingEndOfBatchListenerContinuesWithNextBatch() {
+        BatchCountingSubscriber subscriber = new BatchCountingSubscriber(true);
+        try (RingBufferDomainEventPublisher publisher = new RingBufferDomainEventPublisher(8, WaitStrategy.YIELDING, THREAD_FACTORY)) {
+            publisher.subscribe(subscriber);
+            publisher.start();
+            for (int i = 0; i < 100; i++) {
+                publisher.publish(new TestEvent(i, "foo"));
+            }
+        }
+        assertEquals(100, subscriber.events.get(), "Wrong number of events handled: ");
+    }
+
+    @Test
+    public void deadConsumerThreadDoesNotBlockProducers() {
+        ThreadFactory quietThreadFactory = runnable -> {
+            Thread thread = THREAD_FACTORY.newThread(runnable);
+            thread.setUncaughtExceptionHandler((t, e) -> { });
+            return thread;
+        };
+        FailingSubscriber dyingSubscriber = new FailingSubscriber();
+        RecordingSubscriber healthySubscriber = new RecordingSubscriber();
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            try (RingBufferDomainEventPublisher publisher = new RingBufferDomainEventPublisher(4, WaitStrategy.YIELDING,
+                    quietThreadFactory)) {
+                publisher.subscribe(dyingSubscriber);
+                publisher.subscribe(healthySubscriber);
+                publisher.start();
+                for (int i = 0; i < 100; i++) {
+                    publisher.publish(new TestEvent(i, "error"));
+                }
+            }
+        });
+        assertEquals(0, dyingSubscriber.handled.get(), "Wrong number of events handled by dying subscriber: ");
+        assertEquals(100, healthySubscriber.count(), "Wrong number of events handled by healthy subscriber: ");
+    }
+
+    @Test
+    public void backlogIsZeroAfterClose() {
+        RingBufferDomainEventPublisher publisher = new RingBufferDomainEventPublisher(8, WaitStrategy.YIELDING, THREAD_FACTORY);
+        publisher.subscribe(new RecordingSubscriber());
+        publisher.start();
+        for (int i = 0; i < 20; i++) {
+            publisher.publish(new TestEvent(i, "foo"));
+        }
+        publisher.close();
+        assertEquals(0, publisher.backlog(), "Wrong backlog: ");
+    }
+
+    @Test
+    public void publishBeforeStart() {
+        RingBufferDomainEventPublisher publisher = new RingBufferDomainEventPublisher(8, WaitStrategy.YIELDING, THREAD_FACTORY);
+        assertThrows(IllegalStateException.class, () -> publisher.publish(new TestEvent(1, "foo")));
+    }
+
+    @Test
+    public void publishAfterClose() {
+        RingBufferDomainEventPublisher publisher = new RingBufferDomainEventPublisher(8, WaitStrategy.YIELDING, THREAD_FACTORY);
+        publisher.start();
+        publisher.close();
+        assertThrows(IllegalStateException.class, () -> publisher.publish(new TestEvent(1, "foo")));
+    }
+
+    @Test
+    public void subscribeAfterStart() {
+        try (RingBufferDomainEventPublisher publisher = new RingBufferDomainEventPublisher(8, WaitStrategy.YIELDING, THREAD_FACTORY)) {
+            publisher.start();
+            assertThrows(IllegalStateException.class, () -> publisher.subscribe(new EventSavingSubscriber()));
+        }
+    }
+
+    @Test
+    public void startTwice() {
+        try (RingBufferDomainEventPublisher publisher = new RingBufferDomainEventPublisher(8, WaitStrategy.YIELDING, THREAD_FACTORY)) {
+            publisher.start();
+            assertThrows(IllegalStateException.class, publisher::start);
+        }
+    }
+
+    @Test
+    public void bufferSizeNotPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new RingBufferDomainEventPublisher(12, WaitStrategy.YIELDING, THREAD_FACTORY));
+    }
+
+    @Test
+    public void bufferSizeZero() {
+        assertThrows(IllegalArgumentException.class, () -> new RingBufferDomainEventPublisher(0, WaitStrategy.YIELDING, THREAD_FACTORY));
+    }
+
+    @Test
+    @SuppressWarnings("NullAway")
+    public void constructorNullWaitStrategy() {
+        assertThrows(IllegalArgumentException.class, () -> new RingBufferDomainEventPublisher(8, null, THREAD_FACTORY));
+    }
+
+    @Test
+    @SuppressWarnings("NullAway")
+    public void publishNullEvent() {
+        try (RingBufferDomainEventPublisher publisher = new RingBufferDomainEventPublisher(8, WaitStrategy.YIELDING, THREAD_FACTORY)) {
+            publisher.start();
+            assertThrows(IllegalArgumentException.class, () -> publisher.publish(null));
+        }
+    }
+
+    private static final class OtherEvent extends AbstractDomainEvent {
+        private static final long serialVersionUID = 1L;
+
+        OtherEvent() {
+            super(TestUtil.utcNow());
+        }
+    }
+
+    /**
+     * A {@code DomainEventSubscriber} that records the last {@code TestEvent} ID seen from each producer, and fails if the IDs from a
+     * producer do not arrive in order. Only the consumer thread touches the state until the publisher has been closed.
+     */
+    private static final class RecordingSubscriber implements DomainEventSubscriber<TestEvent> {
+
+        private final Map<String, Integer> lastIdByProducer = new HashMap<>();
+        private final List<String> errors = new ArrayList<>();
+        private int count;
+
+        @Override
+        public void handleEvent(TestEvent event) {
+            int expectedId = lastIdByProducer.getOrDefault(event.name(), -1) + 1;
+            if (event.id() != expectedId) {
+                errors.add("Expected " + expectedId + " from " + event.name() + " but got " + event.id());
+            }
+            lastIdByProducer.put(event.name(), event.id());
+            count++;
+        }
+
+        @Override
+        public Class<? extends TestEvent> eventType() {
+            return TestEvent.class;
+        }
+
+        int count() {
+            return count;
+        }
+
+        void assertAllEventsInOrder(int numProducers, int eventsPerProducer) {
+            assertTrue(errors.isEmpty(), "Events out of order: " + errors);
+            assertEquals(numProducers * eventsPerProducer, count, "Wrong number of events handled: ");
+        }
+    }
+
+    /**
+     * A {@code DomainEventSubscriber} that counts events and batches.
+     */
+    private static final class BatchCountingSubscriber implements DomainEventSubscriber<TestEvent>, EndOfBatchListener {
+
+        private final AtomicInteger events = new AtomicInteger();
+        private final AtomicInteger batches = new AtomicInteger();
+        private final boolean failAtEndOfBatch;
+
+        BatchCountingSubscriber() {
+            this(false);
+        }
+
+        BatchCountingSubscriber(boolean failAtEndOfBatch) {
+            this.failAtEndOfBatch = failAtEndOfBatch;
+        }
+
+        @Override
+        public void handleEvent(TestEvent event) {
+            events.incrementAndGet();
+        }
+
+        @Override
+        public void endOfBatch() {
+            batches.incrementAndGet();
+            if (failAtEndOfBatch) {
+                throw new IllegalStateException("Failing on purpose at end of batch");
+            }
+        }
+
+        @Override
+        public Class<? extends TestEvent> eventType() {
+            return TestEvent.class;
+        }
+    }
+
+    /**
+     * A {@code DomainEventSubscriber} that throws an exception for events named "fail", and an {@code Error} for events named "error".
+     */
+    private static final class FailingSubscriber implements DomainEventSubscriber<TestEvent> {
+
+        private final AtomicInteger handled = new AtomicInteger();
+
+        @Override
+        public void handleEvent(TestEvent event) {
+            if ("fail".equals(event.name())) {
+                throw new IllegalStateException("Failing on purpose: " + event);
+            }
+            if ("error".equals(event.name())) {
+                throw new AssertionError("Dying on purpose: " + event);
+            }
+            handled.incrementAndGet();
+        }
+
+        @Override
+        public Class<? extends TestEvent> eventType() {
+            return TestEvent.class;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.reallifedeveloper.common.domain.event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+public class ScopedDomainEventPublisherTest {
+
+    private final ScopedDomainEventPublisher publisher = new ScopedDomainEventPublisher();
+
+    @Test
+    public void subscribersOnlyGetEventsWhileScopeIsOpen() {
+        EventSavingSubscriber subscriber = new EventSavingSubscriber();
+        try (ScopedDomainEventPublisher.Scope scope = publisher.openScope()) {
+            assertTrue(publisher.isScopeOpen(), "Scope should be open");
+            publisher.subscribe(subscriber);
+            publisher.publish(new TestEvent(1, "foo"));
+        }
+        assertFalse(publisher.isScopeOpen(), "Scope should have been closed");
+        publisher.publish(new TestEvent(2, "foo"));
+        assertEquals(1, subscriber.events().size(), "Wrong number of events handled: ");
+    }
+
+    @Test
+    public void publishWithoutScopeIsIgnored() {
+        publisher.publish(new TestEvent(1, "foo"));
+        assertFalse(publisher.isScopeOpen(), "Publishing should not open a scope");
+    }
+
+    @Test
+    public void subscribeWithoutScope() {
+        assertThrows(IllegalStateException.class, () -> publisher.subscribe(new EventSavingSubscriber()));
+    }
+
+    @Test
+    public void runInScope() {
+        EventSavingSubscriber subscriber = new EventSavingSubscriber();
+        publisher.runInScope(List.of(subscriber), () -> publisher.publish(new TestEvent(1, "foo")));
+        assertEquals(1, subscriber.events().size(), "Wrong number of events handled: ");
+        assertFalse(publisher.isScopeOpen(), "Scope should have been closed");
+    }
+
+    @Test
+    public void scopeIsClosedWhenWorkFails() {
+        EventSavingSubscriber subscriber = new EventSavingSubscriber();
+        assertThrows(IllegalStateException.class, () -> publisher.runInScope(List.of(subscriber), () -> {
+            throw new IllegalStateException("Failing on purpose");
+        }));
+        assertFalse(publisher.isScopeOpen(), "Scope should have been closed");
+    }
+
+    @Test
+    public void callInScope() {
+        EventSavingSubscriber subscriber = new EventSavingSubscriber();
+        String result = publisher.callInScope(List.of(subscriber), () -> {
+            publisher.publish(new TestEvent(1, "foo"));
+            return "bar";
+        });
+        assertEquals("bar", result, "Wrong result: ");
+        assertEquals(1, subscriber.events().size(), "Wrong number of events handled: ");
+    }
+
+    @Test
+    public void onlyInnermostScopeGetsEvents() {
+        EventSavingSubscriber outerSubscriber = new EventSavingSubscriber();
+        EventSavingSubscriber innerSubscriber = new EventSavingSubscriber();
+        try (ScopedDomainEventPublisher.Scope outer = publisher.openScope()) {
+            publisher.subscribe(outerSubscriber);
+            try (ScopedDomainEventPublisher.Scope inner = publisher.openScope()) {
+                publisher.subscribe(innerSubscriber);
+                publisher.publish(new TestEvent(1, "foo"));
+            }
+            publisher.publish(new TestEvent(2, "foo"));
+            assertTrue(publisher.isScopeOpen(), "Outer scope should still be open");
+        }
+        assertEquals(List.of(2), ids(outerSubscriber), "Wrong events handled by outer subscriber: ");
+        assertEquals(List.of(1), ids(innerSubscriber), "Wrong events handled by inner subscriber: ");
+    }
+
+    @Test
+    public void closingOuterScopeBeforeInnerScope() {
+        ScopedDomainEventPublisher.Scope outer = publisher.openScope();
+        ScopedDomainEventPublisher.Scope inner = publisher.openScope();
+        assertThrows(IllegalStateException.class, outer::close);
+        inner.close();
+        outer.close();
+        assertFalse(publisher.isScopeOpen(), "All scopes should have been closed");
+    }
+
+    @Test
+    public void closeTwiceHasNoEffect() {
+        ScopedDomainEventPublisher.Scope scope = publisher.openScope();
+        scope.close();
+        scope.close();
+        assertFalse(publisher.isScopeOpen(), "Scope should have been closed");
+    }
+
+    @Test
+    public void closeFromOtherThread() throws Exception {
+        try (ScopedDomainEventPublisher.Scope scope = publisher.openScope()) {
+            AtomicReference<Exception> exception = new AtomicReference<>();
+            Thread thread = new Thread(() -> {
+                try {
+                    scope.close();
+                } catch (IllegalStateException e) {
+                    exception.set(e);
+                }
+            });
+            thread.start();
+            thread.join();
+            assertTrue(exception.get() instanceof IllegalStateException, "Closing from another thread should fail: " + exception.get());
+        }
+    }
+
+    @Test
+    public void scopesAreConfinedToThreads() throws Exception {
+        EventSavingSubscriber subscriber = new EventSavingSubscriber();
+        try (ScopedDomainEventPublisher.Scope scope = publisher.openScope()) {
+            publisher.subscribe(subscriber);
+            Thread thread = new Thread(() -> publisher.publish(new TestEvent(1, "foo")));
+            thread.start();
+            thread.join();
+        }
+        assertTrue(subscriber.events().isEmpty(), "Events published by another thread should not be handled");
+    }
+
+    @Test
+    public void subscribeWhilePublishing() {
+        try (ScopedDomainEventPublisher.Scope scope = publisher.openScope()) {
+            publisher.subscribe(new SubscribingSubscriber());
+            assertThrows(IllegalStateException.class, () -> publisher.publish(new TestEvent(1, "foo")));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("NullAway")
+    public void subscribeNullSubscriber() {
+        try (ScopedDomainEventPublisher.Scope scope = publisher.openScope()) {
+            assertThrows(IllegalArgumentException.class, () -> publisher.subscribe(null));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("NullAway")
+    public void publishNullEvent() {
+        assertThrows(IllegalArgumentException.class, () -> publisher.publish(null));
+    }
+
+    @Test
+    @SuppressWarnings("NullAway")
+    public void runInScopeNullWork() {
+        assertThrows(IllegalArgumentException.class, () -> publisher.runInScope(List.of(), null));
+    }
+
+    private static List<Integer> ids(EventSavingSubscriber subscriber) {
+        List<Integer> ids = new ArrayList<>();
+        for (DomainEvent event : subscriber.events()) {
+            ids.add(((TestEvent) event).id());
+        }
+        return ids;
+    }
+
+    /**
+     * A {@code DomainEventSubscriber} that tries to register another subscriber while handling an event.
+     */
+    private final class SubscribingSubscriber implements DomainEventSubscriber<TestEvent> {
+
+        @Override
+        public void handleEvent(TestEvent event) {
+            publisher.subscribe(new EventSavingSubscriber());
+        }
+
+        @Override
+        public Class<? extends TestEvent> eventType() {
+            return TestEvent.class;
+        }
+    }
+}
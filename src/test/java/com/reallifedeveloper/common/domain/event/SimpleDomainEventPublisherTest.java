@@ -1,10 +1,16 @@
 package com.reallifedeveloper.common.domain.event;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Test;
 
@@ -77,6 +83,84 @@ public class SimpleDomainEventPublisherTest {
         assertThrows(IllegalArgumentException.class, () -> publisher.subscribe(null));
     }
 
+    @Test
+    public void unsubscribe() {
+        SimpleDomainEventPublisher publisher = new SimpleDomainEventPublisher();
+        BaseDomainEventSubscriber subscriber = new BaseDomainEventSubscriber();
+        publisher.subscribe(subscriber);
+        publisher.publish(new BaseDomainEvent());
+        assertTrue(publisher.unsubscribe(subscriber), "Subscriber should have been registered");
+        publisher.publish(new BaseDomainEvent());
+        assertEquals(1, subscriber.handledEvents().size(), "Exactly one event should have been handled: ");
+        assertFalse(publisher.unsubscribe(subscriber), "Subscriber should no longer be registered");
+    }
+
+    @Test
+    @SuppressWarnings("NullAway")
+    public void unsubscribeNullSubscriber() {
+        SimpleDomainEventPublisher publisher = new SimpleDomainEventPublisher();
+        assertThrows(IllegalArgumentException.class, () -> publisher.unsubscribe(null));
+    }
+
+    @Test
+    public void subscribeAndUnsubscribeWhilePublishingFromManyThreads() throws Exception {
+        final int numPublishers = 8;
+        final int numSubscribingThreads = 4;
+        final int eventsPerPublisher = 2000;
+        final int subscriptionsPerThread = 500;
+        SimpleDomainEventPublisher publisher = new SimpleDomainEventPublisher();
+        CountingSubscriber permanentSubscriber = new CountingSubscriber();
+        publisher.subscribe(permanentSubscriber);
+        Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < numPublishers; i++) {
+            threads.add(new Thread(() -> runAfterLatch(start, errors, () -> {
+                for (int j = 0; j < eventsPerPublisher; j++) {
+                    publisher.publish(new BaseDomainEvent());
+                }
+            })));
+        }
+        List<CountingSubscriber> remainingSubscribers = new ArrayList<>();
+        for (int i = 0; i < numSubscribingThreads; i++) {
+            CountingSubscriber remainingSubscriber = new CountingSubscriber();
+            remainingSubscribers.add(remainingSubscriber);
+            threads.add(new Thread(() -> runAfterLatch(start, errors, () -> {
+                for (int j = 0; j < subscriptionsPerThread; j++) {
+                    CountingSubscriber temporarySubscriber = new CountingSubscriber();
+                    publisher.subscribe(temporarySubscriber);
+                    if (!publisher.unsubscribe(temporarySubscriber)) {
+                        throw new IllegalStateException("Subscriber lost: " + temporarySubscriber);
+                    }
+                }
+                publisher.subscribe(remainingSubscriber);
+            })));
+        }
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(errors.isEmpty(), "No errors should have occurred: " + errors);
+        assertEquals(numPublishers * eventsPerPublisher, permanentSubscriber.count(), "Wrong number of events handled: ");
+        for (CountingSubscriber remainingSubscriber : remainingSubscribers) {
+            assertTrue(publisher.unsubscribe(remainingSubscriber), "Subscriber should still be registered: " + remainingSubscriber);
+        }
+        assertTrue(publisher.unsubscribe(permanentSubscriber), "Subscriber should still be registered");
+    }
+
+    private static void runAfterLatch(CountDownLatch start, Queue<Throwable> errors, Runnable task) {
+        try {
+            start.await();
+            task.run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            errors.add(e);
+        } catch (RuntimeException e) {
+            errors.add(e);
+        }
+    }
+
     static class BaseDomainEvent extends AbstractDomainEvent {
         private static final long serialVersionUID = 1L;
 
@@ -132,4 +216,26 @@ public class SimpleDomainEventPublisherTest {
             return events;
         }
     }
+
+    /**
+     * A thread-safe {@code DomainEventSubscriber} that counts the number of events handled.
+     */
+    static class CountingSubscriber implements DomainEventSubscriber<BaseDomainEvent> {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public void handleEvent(BaseDomainEvent event) {
+            count.incrementAndGet();
+        }
+
+        @Override
+        public Class<? extends BaseDomainEvent> eventType() {
+            return BaseDomainEvent.class;
+        }
+
+        public int count() {
+            return count.get();
+        }
+    }
 }
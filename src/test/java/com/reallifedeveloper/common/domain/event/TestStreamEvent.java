@@ -0,0 +1,32 @@
+package com.reallifedeveloper.common.domain.event;
+
+import java.time.ZonedDateTime;
+
+public class TestStreamEvent extends AbstractDomainEvent {
+
+    private static final long serialVersionUID = 1L;
+
+    private String streamKey;
+    private String name;
+
+    public TestStreamEvent(String streamKey, String name, ZonedDateTime occurredOn) {
+        super(occurredOn);
+        this.streamKey = streamKey;
+        this.name = name;
+    }
+
+    @Override
+    public String eventStreamKey() {
+        return streamKey;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return "TestStreamEvent{streamKey=" + eventStreamKey() + ", name=" + name() + ", eventOccurredOn=" + eventOccurredOn()
+                + ", eventVersion=" + eventVersion() + "}";
+    }
+}
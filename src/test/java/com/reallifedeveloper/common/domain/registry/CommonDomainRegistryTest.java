@@ -1,13 +1,18 @@
 package com.reallifedeveloper.common.domain.registry;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.support.GenericApplicationContext;
 
 import com.reallifedeveloper.common.domain.ClockTimeService;
+import com.reallifedeveloper.common.domain.event.DomainEventPublisher;
 import com.reallifedeveloper.common.domain.event.SimpleDomainEventPublisher;
 
 public class CommonDomainRegistryTest {
@@ -42,6 +47,57 @@ public class CommonDomainRegistryTest {
         assertEquals("No qualifying bean of type 'com.reallifedeveloper.common.domain.TimeService' available", e.getMessage());
     }
 
+    @Test
+    public void beansAreCachedUntilNewApplicationContextIsSet() {
+        GenericApplicationContext applicationContext = createApplicationContext(SimpleDomainEventPublisher.class);
+        new CommonDomainRegistry().setApplicationContext(applicationContext);
+        DomainEventPublisher publisher = CommonDomainRegistry.domainEventPublisher();
+        applicationContext.removeBeanDefinition(applicationContext.getBeanNamesForType(SimpleDomainEventPublisher.class)[0]);
+        assertSame(publisher, CommonDomainRegistry.domainEventPublisher(), "Cached bean should have been returned");
+
+        new CommonDomainRegistry().setApplicationContext(createApplicationContext(SimpleDomainEventPublisher.class));
+        assertNotSame(publisher, CommonDomainRegistry.domainEventPublisher(), "Bean from new application context should be returned");
+    }
+
+    @Test
+    public void prototypeBeansAreNotCached() {
+        GenericApplicationContext applicationContext = new GenericApplicationContext();
+        applicationContext.registerBean(SimpleDomainEventPublisher.class,
+                beanDefinition -> beanDefinition.setScope(BeanDefinition.SCOPE_PROTOTYPE));
+        applicationContext.refresh();
+        new CommonDomainRegistry().setApplicationContext(applicationContext);
+        DomainEventPublisher publisher = CommonDomainRegistry.domainEventPublisher();
+        assertNotSame(publisher, CommonDomainRegistry.domainEventPublisher(), "Prototype bean should not have been cached");
+    }
+
+    @Test
+    public void primarySingletonBeanIsCached() {
+        GenericApplicationContext applicationContext = new GenericApplicationContext();
+        applicationContext.registerBean("primaryPublisher", SimpleDomainEventPublisher.class,
+                beanDefinition -> beanDefinition.setPrimary(true));
+        applicationContext.registerBean("otherPublisher", SimpleDomainEventPublisher.class);
+        applicationContext.refresh();
+        new CommonDomainRegistry().setApplicationContext(applicationContext);
+        DomainEventPublisher publisher = CommonDomainRegistry.domainEventPublisher();
+        assertSame(applicationContext.getBean("primaryPublisher"), publisher, "Primary bean should have been returned");
+        applicationContext.removeBeanDefinition("primaryPublisher");
+        assertSame(publisher, CommonDomainRegistry.domainEventPublisher(), "Cached bean should have been returned");
+    }
+
+    @Test
+    public void lazySingletonBeansOfSameTypeAreNotInstantiated() {
+        GenericApplicationContext applicationContext = new GenericApplicationContext();
+        applicationContext.registerBean("primaryPublisher", SimpleDomainEventPublisher.class,
+                beanDefinition -> beanDefinition.setPrimary(true));
+        applicationContext.registerBean("lazyPublisher", SimpleDomainEventPublisher.class,
+                beanDefinition -> beanDefinition.setLazyInit(true));
+        applicationContext.refresh();
+        new CommonDomainRegistry().setApplicationContext(applicationContext);
+        CommonDomainRegistry.domainEventPublisher();
+        assertFalse(applicationContext.getBeanFactory().containsSingleton("lazyPublisher"),
+                "Lazy singleton bean should not have been instantiated");
+    }
+
     /**
      * Initializes a {@link CommonDomainRegistry} with a {@link SimpleDomainEventPublisher} and a {@code ClockTimeService}.
      */
@@ -71,6 +71,35 @@ public class GsonNotificationReaderTest {
         assertEquals(testEvent.color.getRGB(), reader.eventIntValue("color.value").get().intValue(), "Wrong event color value");
     }
 
+    @Test
+    public void readAllSingleNotification() {
+        String json = NOTIFICATION_JSON.formatted("\"Event Type\"", 42, "\"2025-02-12T21:24:45.672+01\"", "{\"foo\":42}");
+        List<NotificationReader> readers = GsonNotificationReader.readAll(json);
+        assertEquals(1, readers.size(), "Wrong number of readers");
+        assertEquals(42, readers.get(0).storedEventId(), "Wrong stored event ID");
+    }
+
+    @Test
+    public void readAllBatch() {
+        String json1 = NOTIFICATION_JSON.formatted("\"Event Type\"", 42, "\"2025-02-12T21:24:45.672+01\"", "{\"foo\":1}");
+        String json2 = NOTIFICATION_JSON.formatted("\"Event Type\"", 43, "\"2025-02-12T21:24:46.672+01\"", "{\"foo\":2}");
+        List<NotificationReader> readers = GsonNotificationReader.readAll("[" + json1 + "," + json2 + "]");
+        assertEquals(2, readers.size(), "Wrong number of readers");
+        assertEquals(42, readers.get(0).storedEventId(), "Wrong stored event ID of first reader");
+        assertEquals(2, readers.get(1).eventIntValue("foo").get().intValue(), "Wrong foo value of second reader");
+    }
+
+    @Test
+    public void readAllBatchWithNonObject() {
+        Exception e = assertThrows(IllegalArgumentException.class, () -> GsonNotificationReader.readAll("[42]"));
+        assertEquals("Not a JSON object: 42", e.getMessage());
+    }
+
+    @Test
+    public void readAllNotJson() {
+        assertThrows(IllegalArgumentException.class, () -> GsonNotificationReader.readAll("[{"));
+    }
+
     @Test
     public void eventTypeForNotificationWithNullEventType() {
         String json = NOTIFICATION_JSON.formatted(null, 42, "\"2025-02-12T21:24:45.672+01\"", "{\"foo\":42}");
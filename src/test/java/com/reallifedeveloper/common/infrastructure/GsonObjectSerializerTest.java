@@ -43,6 +43,16 @@ public class GsonObjectSerializerTest {
         TestEvent.assertTestEventsEqual(event, deserializedEvent);
     }
 
+    @Test
+    public void eventOccurredOnEpochMillisIsNotSerializedButAvailableAfterDeserialization() {
+        TestEvent event = new TestEvent(1, "foo", ZonedDateTime.parse("2014-06-07T13:52:00.123Z"));
+        String serializedEvent = serializer.serialize(event);
+        Assertions.assertFalse(JsonParser.parseString(serializedEvent).getAsJsonObject().has("eventOccurredOnEpochMillis"),
+                "Epoch milliseconds should not be serialized: " + serializedEvent);
+        TestEvent deserializedEvent = serializer.deserialize(serializedEvent, TestEvent.class);
+        assertEquals(1402149120123L, deserializedEvent.eventOccurredOnEpochMillis(), "Wrong occurred on epoch millis: ");
+    }
+
     @Test
     public void serializeAndDeserializeNotification() {
         TestEvent event = new TestEvent(42, "foo");
@@ -0,0 +1,245 @@
+package com.reallifedeveloper.common.infrastructure.eventstore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.reallifedeveloper.common.application.eventstore.StoredEvent;
+import com.reallifedeveloper.tools.test.TestUtil;
+
+@SuppressWarnings("NullAway")
+public class ChunkedInMemoryStoredEventRepositoryTest {
+
+    private final ChunkedInMemoryStoredEventRepository repository = new ChunkedInMemoryStoredEventRepository(4, 1000);
+
+    @Test
+    public void saveAndFindById() {
+        StoredEvent savedEvent = repository.save(new StoredEvent("foo", "bar", TestUtil.utcNow(), 2));
+        assertEquals(1L, savedEvent.id().longValue(), "Wrong ID of saved event: ");
+        assertSame(savedEvent, repository.findById(1L).get(), "Wrong event found: ");
+        assertTrue(repository.findById(2L).isEmpty(), "Event with unknown ID should not have been found");
+        assertEquals(Optional.of(1L), repository.lastStoredEventId(), "Wrong last stored event ID: ");
+    }
+
+    @Test
+    public void emptyRepository() {
+        assertTrue(repository.lastStoredEventId().isEmpty(), "Empty repository should have no last stored event ID");
+        assertTrue(repository.firstStoredEventId().isEmpty(), "Empty repository should have no first stored event ID");
+        assertTrue(repository.allEventsSince(0).isEmpty(), "Empty repository should have no events");
+        assertEquals(0, repository.size(), "Wrong size of empty repository: ");
+    }
+
+    @Test
+    public void eventsAreReadAcrossChunks() {
+        saveEvents(50);
+        assertEquals(range(1, 50), ids(repository.allEventsSince(0)), "Wrong events since 0: ");
+        assertEquals(range(38, 50), ids(repository.allEventsSince(37)), "Wrong events since 37: ");
+        assertEquals(range(7, 31), ids(repository.allEventsBetween(7, 31)), "Wrong events between 7 and 31: ");
+        assertEquals(List.of(), ids(repository.allEventsBetween(31, 7)), "Wrong events between 31 and 7: ");
+        assertEquals(range(6, 10), ids(repository.eventsAfter(5, 100, 5)), "Wrong bounded events: ");
+        for (long id = 1; id <= 50; id++) {
+            assertEquals(id, repository.findById(id).get().id().longValue(), "Wrong event found: ");
+        }
+    }
+
+    @Test
+    public void eventsWithIdsAreKeptWithGaps() {
+        ZonedDateTime now = TestUtil.utcNow();
+        StoredEvent event10 = new StoredEvent(10L, "foo", "bar", now, 1);
+        StoredEvent event20 = new StoredEvent(20L, "foo", "bar", now, 1);
+        assertSame(event10, repository.save(event10), "Event with ID should be saved as is");
+        repository.save(event20);
+        StoredEvent event21 = repository.save(new StoredEvent("foo", "bar", now, 1));
+        assertEquals(21L, event21.id().longValue(), "Wrong ID of event saved without ID: ");
+        assertEquals(List.of(20L, 21L), ids(repository.allEventsBetween(11, 30)), "Wrong events between 11 and 30: ");
+        assertTrue(repository.findById(15L).isEmpty(), "Event in gap should not have been found");
+        assertThrows(IllegalArgumentException.class, () -> repository.save(new StoredEvent(21L, "foo", "bar", now, 1)));
+    }
+
+    @Test
+    public void eventsOfTypesBetween() {
+        ZonedDateTime start = TestUtil.utcNow();
+        for (int i = 1; i <= 10; i++) {
+            repository.save(new StoredEvent(i % 2 == 0 ? "even" : "odd", "body" + i, start.plusSeconds(i), 1));
+        }
+        long fromEpochMillis = start.plusSeconds(3).toInstant().toEpochMilli();
+        long toEpochMillis = start.plusSeconds(9).toInstant().toEpochMilli();
+        assertEquals(List.of(4L, 6L), ids(repository.eventsOfTypesBetween(List.of("even"), fromEpochMillis, toEpochMillis, 0, 2)),
+                "Wrong first page: ");
+        assertEquals(List.of(8L), ids(repository.eventsOfTypesBetween(List.of("even"), fromEpochMillis, toEpochMillis, 6, 2)),
+                "Wrong second page: ");
+    }
+
+    @Test
+    public void streamEvents() {
+        ZonedDateTime now = TestUtil.utcNow();
+        for (int i = 1; i <= 10; i++) {
+            repository.save(new StoredEvent("foo", "bar" + i, now, 1, i % 2 == 0 ? "even" : "odd", (i + 1) / 2));
+        }
+        StoredEvent storedEvent = repository.findById(4L).get();
+        assertEquals("even", storedEvent.streamKey(), "Wrong stream key: ");
+        assertEquals(2L, storedEvent.streamSequence().longValue(), "Wrong stream sequence: ");
+        assertEquals(List.of(4L, 6L), ids(repository.streamEventsAfter("even", 1, 2)), "Wrong first page of stream: ");
+        assertEquals(List.of(9L), ids(repository.streamEventsAfter("odd", 4, 2)), "Wrong last page of stream: ");
+        assertEquals(Optional.of(5L), repository.lastStreamSequence("even"), "Wrong last stream sequence: ");
+        assertTrue(repository.lastStreamSequence("foo").isEmpty(), "Empty stream should have no last stream sequence");
+        assertThrows(IllegalArgumentException.class, () -> repository.save(new StoredEvent("foo", "bar", now, 1, "even", 5)));
+        assertEquals(Optional.of(10L), repository.lastStoredEventId(), "Rejected event should not have been saved: ");
+    }
+
+    @Test
+    public void oldestChunksAreEvicted() {
+        ChunkedInMemoryStoredEventRepository boundedRepository = new ChunkedInMemoryStoredEventRepository(4, 10);
+        for (int i = 0; i < 23; i++) {
+            boundedRepository.save(new StoredEvent("foo", "bar", TestUtil.utcNow(), 1));
+        }
+        assertEquals(7, boundedRepository.size(), "Wrong number of events kept: ");
+        assertEquals(Optional.of(17L), boundedRepository.firstStoredEventId(), "Wrong first stored event ID: ");
+        assertEquals(Optional.of(23L), boundedRepository.lastStoredEventId(), "Wrong last stored event ID: ");
+        assertEquals(range(17, 23), ids(boundedRepository.allEventsSince(0)), "Wrong events kept: ");
+        assertTrue(boundedRepository.findById(16L).isEmpty(), "Evicted event should not have been found");
+    }
+
+    @Test
+    public void evictedStreamEventsAreNotFound() {
+        ChunkedInMemoryStoredEventRepository boundedRepository = new ChunkedInMemoryStoredEventRepository(4, 10);
+        ZonedDateTime now = TestUtil.utcNow();
+        for (int i = 1; i <= 40; i++) {
+            boundedRepository.save(new StoredEvent("foo", "bar" + i, now, 1, i <= 20 ? "first" : "second", i));
+        }
+        assertEquals(range(33, 40), ids(boundedRepository.allEventsSince(0)), "Wrong events kept: ");
+        assertTrue(boundedRepository.streamEventsAfter("first", 0, 10).isEmpty(), "Evicted stream events should not have been found");
+        assertEquals(Optional.of(20L), boundedRepository.lastStreamSequence("first"),
+                "Last stream sequence should be kept after all events in stream have been evicted: ");
+        assertEquals(range(33, 37), ids(boundedRepository.streamEventsAfter("second", 0, 5)), "Wrong first page of stream: ");
+        assertEquals(range(39, 40), ids(boundedRepository.streamEventsAfter("second", 38, 5)), "Wrong last page of stream: ");
+        assertThrows(IllegalArgumentException.class,
+                () -> boundedRepository.save(new StoredEvent("foo", "bar", now, 1, "first", 20)));
+    }
+
+    @Test
+    public void deleteEvents() {
+        ZonedDateTime now = TestUtil.utcNow();
+        for (int i = 1; i <= 10; i++) {
+            repository.save(new StoredEvent("foo", "bar" + i, now, 1));
+        }
+        assertEquals(3, repository.deleteEvents(List.of(1L, 2L, 3L)), "Wrong number of events deleted: ");
+        assertEquals(2, repository.deleteEvents(List.of(2L, 3L, 4L, 5L)), "Events already deleted should be ignored: ");
+        assertEquals(0, repository.deleteEvents(List.of()), "Wrong number of events deleted for no IDs: ");
+        assertEquals(range(6, 10), ids(repository.allEventsSince(0)), "Wrong events kept: ");
+        Exception e = assertThrows(IllegalArgumentException.class, () -> repository.deleteEvents(List.of(6L, 8L)));
+        assertEquals("Only the oldest events can be deleted from this repository, but event 7 is not one of the events to delete: "
+                + "lastStoredEventId=8", e.getMessage());
+        assertEquals(range(6, 10), ids(repository.allEventsSince(0)), "No events should have been deleted: ");
+    }
+
+    @Test
+    public void deleteEventsUpTo() {
+        ZonedDateTime now = TestUtil.utcNow();
+        for (int i = 1; i <= 10; i++) {
+            repository.save(new StoredEvent("foo", "bar" + i, now, 1, i % 2 == 0 ? "even" : "odd", (i + 1) / 2));
+        }
+        assertEquals(6, repository.deleteEventsUpTo(6), "Wrong number of events deleted: ");
+        assertEquals(range(7, 10), ids(repository.allEventsSince(0)), "Wrong events kept: ");
+        assertEquals(Optional.of(7L), repository.firstStoredEventId(), "Wrong first stored event ID: ");
+        assertEquals(4, repository.size(), "Wrong number of events kept: ");
+        assertTrue(repository.findById(6L).isEmpty(), "Deleted event should not have been found");
+        assertEquals(List.of(8L, 10L), ids(repository.streamEventsAfter("even", 0, 5)), "Wrong events in stream: ");
+        assertEquals(0, repository.deleteEventsUpTo(6), "Deleting again should not delete any events: ");
+        StoredEvent savedEvent = repository.save(new StoredEvent("foo", "bar", now, 1, "even", 6));
+        assertEquals(11L, savedEvent.id().longValue(), "Wrong ID of event saved after delete: ");
+        assertEquals(5, repository.deleteEventsUpTo(Long.MAX_VALUE), "Wrong number of events deleted: ");
+        assertTrue(repository.allEventsSince(0).isEmpty(), "All events should have been deleted");
+        assertEquals(Optional.of(11L), repository.lastStoredEventId(), "Last stored event ID should be kept: ");
+        assertEquals(Optional.of(6L), repository.lastStreamSequence("even"), "Last stream sequence should be kept: ");
+    }
+
+    @Test
+    public void saveAll() {
+        List<StoredEvent> savedEvents = repository.saveAll(List.of(new StoredEvent("foo", "1", TestUtil.utcNow(), 1),
+                new StoredEvent("foo", "2", TestUtil.utcNow(), 1)));
+        assertEquals(List.of(1L, 2L), ids(savedEvents), "Wrong IDs of saved events: ");
+        assertEquals("2", repository.findById(2L).get().eventBody(), "Wrong event body: ");
+    }
+
+    @Test
+    public void concurrentReadsAndWrites() throws Exception {
+        final int numWriters = 4;
+        final int eventsPerWriter = 5000;
+        final long numEvents = (long) numWriters * eventsPerWriter;
+        ChunkedInMemoryStoredEventRepository unboundedRepository = new ChunkedInMemoryStoredEventRepository(4, Long.MAX_VALUE);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            try {
+                long lastSeen = 0;
+                while (lastSeen < numEvents) {
+                    for (StoredEvent storedEvent : unboundedRepository.eventsAfter(lastSeen, Long.MAX_VALUE, 100)) {
+                        if (storedEvent.id() != lastSeen + 1) {
+                            throw new IllegalStateException("Expected ID " + (lastSeen + 1) + " but got " + storedEvent.id());
+                        }
+                        lastSeen = storedEvent.id();
+                    }
+                }
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        List<Thread> writers = new ArrayList<>();
+        for (int i = 0; i < numWriters; i++) {
+            writers.add(new Thread(() -> {
+                for (int j = 0; j < eventsPerWriter; j++) {
+                    unboundedRepository.save(new StoredEvent("foo", "bar", TestUtil.utcNow(), 1));
+                }
+            }));
+        }
+        reader.start();
+        writers.forEach(Thread::start);
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        reader.join();
+        assertNull(failure.get(), "Reader should not have failed: " + failure.get());
+        assertEquals(Optional.of(numEvents), unboundedRepository.lastStoredEventId(), "Wrong last stored event ID: ");
+    }
+
+    @Test
+    public void saveNullEvent() {
+        assertThrows(IllegalArgumentException.class, () -> repository.save(null));
+    }
+
+    @Test
+    public void constructorZeroChunkSize() {
+        assertThrows(IllegalArgumentException.class, () -> new ChunkedInMemoryStoredEventRepository(0, 10));
+    }
+
+    @Test
+    public void constructorMaxEventsLessThanChunkSize() {
+        assertThrows(IllegalArgumentException.class, () -> new ChunkedInMemoryStoredEventRepository(10, 9));
+    }
+
+    private void saveEvents(int numEvents) {
+        ZonedDateTime start = TestUtil.utcNow();
+        for (int i = 1; i <= numEvents; i++) {
+            repository.save(new StoredEvent("foo", "bar" + i, start.plusSeconds(i), 1));
+        }
+    }
+
+    private static List<Long> range(long first, long last) {
+        return LongStream.rangeClosed(first, last).boxed().toList();
+    }
+
+    private static List<Long> ids(List<StoredEvent> storedEvents) {
+        return storedEvents.stream().map(StoredEvent::id).toList();
+    }
+}
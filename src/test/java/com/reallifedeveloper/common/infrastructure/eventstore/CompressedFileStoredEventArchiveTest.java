@@ -0,0 +1,164 @@
+package com.reallifedeveloper.common.infrastructure.eventstore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.reallifedeveloper.common.application.eventstore.StoredEvent;
+import com.reallifedeveloper.tools.test.TestUtil;
+
+@SuppressWarnings("NullAway")
+public class CompressedFileStoredEventArchiveTest {
+
+    private Path directory;
+
+    private CompressedFileStoredEventArchive archive;
+
+    @BeforeEach
+    public void init() throws Exception {
+        directory = Files.createTempDirectory("rld-common-archive");
+        archive = new CompressedFileStoredEventArchive(directory);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void archiveAndRead() {
+        ZonedDateTime now = TestUtil.utcNow();
+        StoredEvent storedEvent = new StoredEvent(1L, "foo", "bar\u00e5\u00e4\u00f6", now, 2);
+        archive.archive(List.of(storedEvent));
+        List<StoredEvent> archivedEvents = archive.eventsAfter(0, Long.MAX_VALUE, 10);
+        assertEquals(1, archivedEvents.size(), "Wrong number of archived events: ");
+        assertEquals(storedEvent.toString(), archivedEvents.get(0).toString(), "Wrong archived event: ");
+        assertEquals(now.toInstant().toEpochMilli(), archivedEvents.get(0).occurredOnEpochMillis(), "Wrong event time in milliseconds: ");
+        assertEquals(Optional.of(1L), archive.lastArchivedStoredEventId(), "Wrong last archived event ID: ");
+    }
+
+    @Test
+    public void archiveStreamEvents() {
+        ZonedDateTime now = TestUtil.utcNow();
+        archive.archive(List.of(new StoredEvent(1L, "foo", "bar", now, 1, "stream", 7L), new StoredEvent(2L, "foo", "bar", now, 1)));
+        List<StoredEvent> archivedEvents = archive.eventsAfter(0, Long.MAX_VALUE, 10);
+        assertEquals("stream", archivedEvents.get(0).streamKey(), "Wrong stream key: ");
+        assertEquals(7L, archivedEvents.get(0).streamSequence().longValue(), "Wrong stream sequence: ");
+        assertNull(archivedEvents.get(1).streamKey(), "Event without stream should have no stream key");
+    }
+
+    @Test
+    public void emptyArchive() {
+        assertTrue(archive.lastArchivedStoredEventId().isEmpty(), "Empty archive should have no last archived event ID");
+        assertTrue(archive.eventsAfter(0, Long.MAX_VALUE, 10).isEmpty(), "Empty archive should have no events");
+    }
+
+    @Test
+    public void eventsAreReadAcrossSegments() throws Exception {
+        archiveEvents(1, 10);
+        archiveEvents(11, 20);
+        archiveEvents(25, 30);
+        assertEquals(3, segmentFiles().size(), "Wrong number of segment files: ");
+        assertEquals(range(1, 20), ids(archive.eventsAfter(0, 22, 100)), "Wrong events up to 22: ");
+        assertEquals(range(8, 12), ids(archive.eventsAfter(7, 12, 100)), "Wrong events between 8 and 12: ");
+        assertEquals(range(16, 20), ids(archive.eventsAfter(15, Long.MAX_VALUE, 5)), "Wrong bounded events: ");
+        assertEquals(range(25, 30), ids(archive.eventsAfter(20, Long.MAX_VALUE, 100)), "Wrong events after gap: ");
+        assertEquals(List.of(), ids(archive.eventsAfter(30, Long.MAX_VALUE, 100)), "Wrong events after last: ");
+        assertEquals(List.of(), ids(archive.eventsAfter(12, 7, 100)), "Wrong events for empty range: ");
+    }
+
+    @Test
+    public void segmentsAreFoundWhenReopened() throws Exception {
+        archiveEvents(1, 10);
+        archiveEvents(11, 15);
+        Files.writeString(directory.resolve("00000000000000000016-00000000000000000020.events.gz.tmp"), "incomplete");
+        CompressedFileStoredEventArchive reopenedArchive = new CompressedFileStoredEventArchive(directory);
+        assertEquals(Optional.of(15L), reopenedArchive.lastArchivedStoredEventId(), "Wrong last archived event ID: ");
+        assertEquals(range(1, 15), ids(reopenedArchive.eventsAfter(0, Long.MAX_VALUE, 100)), "Wrong events after reopening: ");
+        assertEquals(2, segmentFiles().size(), "Temporary file should have been deleted: ");
+    }
+
+    @Test
+    public void archiveEventsOutOfOrder() throws Exception {
+        archiveEvents(1, 10);
+        ZonedDateTime now = TestUtil.utcNow();
+        assertThrows(IllegalArgumentException.class, () -> archive.archive(List.of(new StoredEvent(10L, "foo", "bar", now, 1))));
+        assertThrows(IllegalArgumentException.class,
+                () -> archive.archive(List.of(new StoredEvent(12L, "foo", "bar", now, 1), new StoredEvent(11L, "foo", "bar", now, 1))));
+        assertEquals(1, segmentFiles().size(), "No segment file should have been written: ");
+    }
+
+    @Test
+    public void archiveEventWithoutId() {
+        assertThrows(IllegalArgumentException.class, () -> archive.archive(List.of(new StoredEvent("foo", "bar", TestUtil.utcNow(), 1))));
+    }
+
+    @Test
+    public void archiveEmptyList() {
+        assertThrows(IllegalArgumentException.class, () -> archive.archive(List.of()));
+    }
+
+    @Test
+    public void archiveNull() {
+        assertThrows(IllegalArgumentException.class, () -> archive.archive(null));
+    }
+
+    @Test
+    public void eventsAfterZeroMaxResults() {
+        assertThrows(IllegalArgumentException.class, () -> archive.eventsAfter(0, 10, 0));
+    }
+
+    @Test
+    public void unexpectedSegmentFileName() throws Exception {
+        Files.writeString(directory.resolve("foo.events.gz"), "foo");
+        assertThrows(IllegalStateException.class, () -> new CompressedFileStoredEventArchive(directory));
+    }
+
+    @Test
+    public void constructorNullDirectory() {
+        assertThrows(IllegalArgumentException.class, () -> new CompressedFileStoredEventArchive(null));
+    }
+
+    private void archiveEvents(long firstId, long lastId) {
+        ZonedDateTime start = TestUtil.utcNow();
+        List<StoredEvent> storedEvents = new ArrayList<>();
+        for (long id = firstId; id <= lastId; id++) {
+            storedEvents.add(new StoredEvent(id, "foo", "bar" + id, start.plusSeconds(id), 1));
+        }
+        archive.archive(storedEvents);
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.toList();
+        }
+    }
+
+    private static List<Long> range(long first, long last) {
+        return LongStream.rangeClosed(first, last).boxed().toList();
+    }
+
+    private static List<Long> ids(List<StoredEvent> storedEvents) {
+        return storedEvents.stream().map(StoredEvent::id).toList();
+    }
+}
@@ -0,0 +1,370 @@
+package com.reallifedeveloper.common.infrastructure.eventstore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.reallifedeveloper.common.application.eventstore.StoredEvent;
+import com.reallifedeveloper.tools.test.TestUtil;
+
+@SuppressWarnings("NullAway")
+public class MappedFileStoredEventRepositoryTest {
+
+    private static final int SMALL_SEGMENT_SIZE = 512;
+
+    private Path directory;
+
+    private MappedFileStoredEventRepository repository;
+
+    @BeforeEach
+    public void init() throws Exception {
+        directory = Files.createTempDirectory("rld-common-events");
+        repository = new MappedFileStoredEventRepository(directory, SMALL_SEGMENT_SIZE, 2, 4);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        repository.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void saveAndFindById() {
+        ZonedDateTime now = TestUtil.utcNow();
+        StoredEvent storedEvent = new StoredEvent("foo", "bar\u00e5\u00e4\u00f6", now, 2);
+        StoredEvent savedEvent = repository.save(storedEvent);
+        assertEquals(1L, savedEvent.id().longValue(), "Wrong ID of saved event: ");
+
+        Optional<StoredEvent> foundEvent = repository.findById(1L);
+        assertTrue(foundEvent.isPresent(), "Saved event should have been found");
+        assertEquals(savedEvent.toString(), foundEvent.get().toString(), "Wrong event found: ");
+        assertEquals(now.toInstant().toEpochMilli(), foundEvent.get().occurredOnEpochMillis(), "Wrong event time in milliseconds: ");
+        assertTrue(repository.findById(2L).isEmpty(), "Event with unknown ID should not have been found");
+        assertTrue(repository.findById(0L).isEmpty(), "Event with ID 0 should not have been found");
+        assertEquals(Optional.of(1L), repository.lastStoredEventId(), "Wrong last stored event ID: ");
+    }
+
+    @Test
+    public void emptyRepository() {
+        assertTrue(repository.lastStoredEventId().isEmpty(), "Empty repository should have no last stored event ID");
+        assertTrue(repository.allEventsSince(0).isEmpty(), "Empty repository should have no events");
+    }
+
+    @Test
+    public void eventsAreReadAcrossSegments() {
+        saveEvents(50);
+        assertTrue(repository.segmentFiles().size() > 1, "Events should have been written to several segments");
+        assertEquals(range(1, 50), ids(repository.allEventsSince(0)), "Wrong events since 0: ");
+        assertEquals(range(38, 50), ids(repository.allEventsSince(37)), "Wrong events since 37: ");
+        assertEquals(range(7, 31), ids(repository.allEventsBetween(7, 31)), "Wrong events between 7 and 31: ");
+        assertEquals(List.of(), ids(repository.allEventsBetween(31, 7)), "Wrong events between 31 and 7: ");
+        assertEquals(range(49, 50), ids(repository.allEventsBetween(49, 100)), "Wrong events between 49 and 100: ");
+        for (long id = 1; id <= 50; id++) {
+            assertEquals(id, repository.findById(id).get().id().longValue(), "Wrong event found: ");
+        }
+    }
+
+    @Test
+    public void eventsAfterIsBounded() {
+        saveEvents(20);
+        assertEquals(range(6, 10), ids(repository.eventsAfter(5, 100, 5)), "Wrong first page: ");
+        assertEquals(range(11, 12), ids(repository.eventsAfter(10, 12, 5)), "Wrong second page: ");
+        assertThrows(IllegalArgumentException.class, () -> repository.eventsAfter(0, 100, 0));
+    }
+
+    @Test
+    public void eventsOfTypesBetween() {
+        ZonedDateTime start = TestUtil.utcNow();
+        for (int i = 1; i <= 10; i++) {
+            repository.save(new StoredEvent(i % 2 == 0 ? "even" : "odd", "body" + i, start.plusSeconds(i), 1));
+        }
+        long fromEpochMillis = start.plusSeconds(3).toInstant().toEpochMilli();
+        long toEpochMillis = start.plusSeconds(9).toInstant().toEpochMilli();
+        assertEquals(List.of(4L, 6L), ids(repository.eventsOfTypesBetween(List.of("even"), fromEpochMillis, toEpochMillis, 0, 2)),
+                "Wrong first page: ");
+        assertEquals(List.of(8L), ids(repository.eventsOfTypesBetween(List.of("even"), fromEpochMillis, toEpochMillis, 6, 2)),
+                "Wrong second page: ");
+    }
+
+    @Test
+    public void saveAll() {
+        List<StoredEvent> savedEvents = repository.saveAll(List.of(new StoredEvent("foo", "1", TestUtil.utcNow(), 1),
+                new StoredEvent("foo", "2", TestUtil.utcNow(), 1)));
+        assertEquals(List.of(1L, 2L), ids(savedEvents), "Wrong IDs of saved events: ");
+        assertEquals("2", repository.findById(2L).get().eventBody(), "Wrong event body: ");
+    }
+
+    @Test
+    public void eventsSurviveReopen() {
+        saveEvents(30);
+        repository.close();
+        repository = new MappedFileStoredEventRepository(directory, SMALL_SEGMENT_SIZE, 2, 4);
+        assertEquals(Optional.of(30L), repository.lastStoredEventId(), "Wrong last stored event ID: ");
+        assertEquals(range(1, 30), ids(repository.allEventsSince(0)), "Wrong events after reopen: ");
+        assertEquals(31L, repository.save(new StoredEvent("foo", "bar", TestUtil.utcNow(), 1)).id().longValue(),
+                "Wrong ID of event saved after reopen: ");
+    }
+
+    @Test
+    public void streamEventsSurviveReopen() {
+        ZonedDateTime now = TestUtil.utcNow();
+        for (int i = 1; i <= 20; i++) {
+            repository.save(new StoredEvent("foo", "bar" + i, now, 1, i % 2 == 0 ? "even" : "odd", (i + 1) / 2));
+        }
+        repository.save(new StoredEvent("foo", "bar", now, 1));
+        repository.close();
+        repository = new MappedFileStoredEventRepository(directory, SMALL_SEGMENT_SIZE, 2, 4);
+        StoredEvent storedEvent = repository.findById(4L).get();
+        assertEquals("even", storedEvent.streamKey(), "Wrong stream key: ");
+        assertEquals(2L, storedEvent.streamSequence().longValue(), "Wrong stream sequence: ");
+        assertNull(repository.findById(21L).get().streamKey(), "Event without stream should have no stream key");
+        assertEquals(List.of(4L, 6L), ids(repository.streamEventsAfter("even", 1, 2)), "Wrong first page of stream: ");
+        assertEquals(List.of(19L), ids(repository.streamEventsAfter("odd", 9, 2)), "Wrong last page of stream: ");
+        assertEquals(Optional.of(10L), repository.lastStreamSequence("even"), "Wrong last stream sequence after reopen: ");
+        assertTrue(repository.lastStreamSequence("foo").isEmpty(), "Empty stream should have no last stream sequence");
+        assertThrows(IllegalArgumentException.class, () -> repository.save(new StoredEvent("foo", "bar", now, 1, "even", 10)));
+    }
+
+    @Test
+    public void streamEventsAreReadFromStreamIndex() {
+        ZonedDateTime now = TestUtil.utcNow();
+        for (int i = 0; i < 100; i++) {
+            repository.save(new StoredEvent("foo", "bar" + i, now, 1, "stream" + i % 3, i / 3 + 1));
+        }
+        assertEquals(List.of(32L, 35L, 38L), ids(repository.streamEventsAfter("stream1", 10, 3)), "Wrong page in middle of stream: ");
+        assertEquals(33, repository.streamEventsAfter("stream2", 0, 100).size(), "Wrong number of events in stream: ");
+        assertEquals(List.of(100L), ids(repository.streamEventsAfter("stream0", 33, 3)), "Wrong last page of stream: ");
+        assertTrue(repository.streamEventsAfter("stream0", 34, 3).isEmpty(), "There should be no events after end of stream");
+        assertTrue(repository.streamEventsAfter("foo", 0, 3).isEmpty(), "Unknown stream should have no events");
+        assertEquals(Optional.of(34L), repository.lastStreamSequence("stream0"), "Wrong last stream sequence: ");
+    }
+
+    @Test
+    public void unsyncedRecordsAreForcedAfterSyncDelay() throws Exception {
+        repository.close();
+        repository = new MappedFileStoredEventRepository(directory, SMALL_SEGMENT_SIZE, 2, 100, Duration.ofMillis(10));
+        saveEvents(3);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (repository.unsyncedRecords() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, repository.unsyncedRecords(), "Records should have been forced to disk after sync delay");
+    }
+
+    @Test
+    public void deleteEvents() {
+        ZonedDateTime now = TestUtil.utcNow();
+        for (int i = 1; i <= 10; i++) {
+            repository.save(new StoredEvent("foo", "bar" + i, now, 1));
+        }
+        assertEquals(3, repository.deleteEvents(List.of(1L, 2L, 3L)), "Wrong number of events deleted: ");
+        assertEquals(2, repository.deleteEvents(List.of(2L, 3L, 4L, 5L)), "Events already deleted should be ignored: ");
+        assertEquals(0, repository.deleteEvents(List.of()), "Wrong number of events deleted for no IDs: ");
+        assertEquals(range(6, 10), ids(repository.allEventsSince(0)), "Wrong events kept: ");
+        Exception e = assertThrows(IllegalArgumentException.class, () -> repository.deleteEvents(List.of(6L, 8L)));
+        assertEquals("Only the oldest events can be deleted from this repository, but event 7 is not one of the events to delete: "
+                + "lastStoredEventId=8", e.getMessage());
+        assertEquals(range(6, 10), ids(repository.allEventsSince(0)), "No events should have been deleted: ");
+    }
+
+    @Test
+    public void deleteEventsUpTo() {
+        ZonedDateTime now = TestUtil.utcNow();
+        for (int i = 1; i <= 30; i++) {
+            repository.save(new StoredEvent("foo", "bar" + i, now, 1, i % 2 == 0 ? "even" : "odd", (i + 1) / 2));
+        }
+        Map<Long, Path> segmentFiles = repository.segmentFiles();
+        assertTrue(segmentFiles.size() > 2, "Events should be spread over several segments: " + segmentFiles);
+        long secondBaseId = segmentFiles.keySet().stream().skip(1).findFirst().get();
+
+        assertEquals((int) secondBaseId, repository.deleteEventsUpTo(secondBaseId), "Wrong number of events deleted: ");
+        assertEquals(range(secondBaseId + 1, 30), ids(repository.allEventsSince(0)), "Wrong events kept: ");
+        assertTrue(repository.findById(secondBaseId).isEmpty(), "Deleted event should not have been found");
+        assertTrue(Files.notExists(segmentFiles.get(1L)), "First segment file should have been deleted");
+        assertTrue(Files.exists(segmentFiles.get(secondBaseId)), "Partially deleted segment file should have been kept");
+        assertEquals(LongStream.rangeClosed(secondBaseId + 1, 30).filter(id -> id % 2 == 1).boxed().toList(),
+                ids(repository.streamEventsAfter("odd", 0, 100)), "Wrong events kept in stream: ");
+        assertEquals(0, repository.deleteEventsUpTo(secondBaseId), "Deleting again should not delete any events: ");
+
+        repository.close();
+        repository = new MappedFileStoredEventRepository(directory, SMALL_SEGMENT_SIZE, 2, 4);
+        assertEquals(range(secondBaseId + 1, 30), ids(repository.allEventsSince(0)), "Wrong events kept after reopen: ");
+        assertTrue(repository.streamEventsAfter("even", 0, 100).stream().allMatch(storedEvent -> storedEvent.id() > secondBaseId),
+                "Deleted stream events should not have been found after reopen");
+        assertEquals(Optional.of(15L), repository.lastStreamSequence("even"), "Wrong last stream sequence after reopen: ");
+
+        assertEquals(30 - (int) secondBaseId, repository.deleteEventsUpTo(Long.MAX_VALUE), "Wrong number of events deleted: ");
+        assertTrue(repository.allEventsSince(0).isEmpty(), "All events should have been deleted");
+        assertEquals(1, repository.segmentFiles().size(), "Only the last segment file should have been kept: ");
+        repository.close();
+        repository = new MappedFileStoredEventRepository(directory, SMALL_SEGMENT_SIZE, 2, 4);
+        assertEquals(Optional.of(30L), repository.lastStoredEventId(), "Wrong last stored event ID after reopen: ");
+        assertEquals(31L, repository.save(new StoredEvent("foo", "bar", now, 1)).id().longValue(),
+                "Wrong ID of event saved after delete: ");
+    }
+
+    @Test
+    public void incompleteRecordAtEndIsRemovedOnReopen() throws Exception {
+        saveEvents(30);
+        repository.close();
+        Map<Long, Path> segmentFiles = repository.segmentFiles();
+        Path lastSegmentFile = new ArrayList<>(segmentFiles.values()).get(segmentFiles.size() - 1);
+        corruptLastRecord(lastSegmentFile);
+
+        repository = new MappedFileStoredEventRepository(directory, SMALL_SEGMENT_SIZE, 2, 4);
+        assertEquals(Optional.of(29L), repository.lastStoredEventId(), "Wrong last stored event ID: ");
+        assertEquals(range(1, 29), ids(repository.allEventsSince(0)), "Wrong events after recovery: ");
+        assertEquals(30L, repository.save(new StoredEvent("foo", "bar", TestUtil.utcNow(), 1)).id().longValue(),
+                "Wrong ID of event saved after recovery: ");
+        assertEquals("bar", repository.findById(30L).get().eventBody(), "Wrong event body after recovery: ");
+    }
+
+    @Test
+    public void corruptRecordBeforeLastSegment() throws Exception {
+        saveEvents(30);
+        repository.close();
+        Path firstSegmentFile = repository.segmentFiles().get(1L);
+        corruptLastRecord(firstSegmentFile);
+        assertThrows(IllegalStateException.class, () -> new MappedFileStoredEventRepository(directory, SMALL_SEGMENT_SIZE, 2, 4));
+    }
+
+    @Test
+    public void concurrentReadsAndWrites() throws Exception {
+        final int numEvents = 2000;
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            try {
+                long lastSeen = 0;
+                while (lastSeen < numEvents) {
+                    List<StoredEvent> storedEvents = repository.eventsAfter(lastSeen, Long.MAX_VALUE, 100);
+                    for (StoredEvent storedEvent : storedEvents) {
+                        if (storedEvent.id() != lastSeen + 1) {
+                            throw new IllegalStateException("Expected ID " + (lastSeen + 1) + " but got " + storedEvent.id());
+                        }
+                        lastSeen = storedEvent.id();
+                    }
+                }
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        reader.start();
+        saveEvents(numEvents);
+        reader.join();
+        assertNull(failure.get(), "Reader should not have failed");
+    }
+
+    @Test
+    public void saveAlreadySavedEvent() {
+        StoredEvent savedEvent = repository.save(new StoredEvent("foo", "bar", TestUtil.utcNow(), 1));
+        assertThrows(IllegalArgumentException.class, () -> repository.save(savedEvent));
+    }
+
+    @Test
+    public void saveTooLargeEvent() {
+        String eventBody = "x".repeat(SMALL_SEGMENT_SIZE);
+        assertThrows(IllegalArgumentException.class, () -> repository.save(new StoredEvent("foo", eventBody, TestUtil.utcNow(), 1)));
+        assertTrue(repository.lastStoredEventId().isEmpty(), "No event should have been saved");
+    }
+
+    @Test
+    public void saveNullEvent() {
+        assertThrows(IllegalArgumentException.class, () -> repository.save(null));
+    }
+
+    @Test
+    public void useAfterClose() {
+        repository.sync();
+        repository.close();
+        repository.close();
+        assertThrows(IllegalStateException.class, () -> repository.save(new StoredEvent("foo", "bar", TestUtil.utcNow(), 1)));
+        assertThrows(IllegalStateException.class, () -> repository.allEventsSince(0));
+    }
+
+    @Test
+    public void constructorNullDirectory() {
+        assertThrows(IllegalArgumentException.class, () -> new MappedFileStoredEventRepository(null));
+    }
+
+    @Test
+    public void constructorSegmentSizeTooSmall() {
+        assertThrows(IllegalArgumentException.class, () -> new MappedFileStoredEventRepository(directory, 32, 2, 4));
+    }
+
+    @Test
+    public void constructorZeroIndexInterval() {
+        assertThrows(IllegalArgumentException.class, () -> new MappedFileStoredEventRepository(directory, SMALL_SEGMENT_SIZE, 0, 4));
+    }
+
+    @Test
+    public void constructorZeroSyncInterval() {
+        assertThrows(IllegalArgumentException.class, () -> new MappedFileStoredEventRepository(directory, SMALL_SEGMENT_SIZE, 2, 0));
+    }
+
+    @Test
+    public void constructorZeroSyncDelay() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new MappedFileStoredEventRepository(directory, SMALL_SEGMENT_SIZE, 2, 4, Duration.ZERO));
+    }
+
+    private void saveEvents(int numEvents) {
+        ZonedDateTime start = TestUtil.utcNow();
+        for (int i = 1; i <= numEvents; i++) {
+            repository.save(new StoredEvent("foo", "bar" + i, start.plusSeconds(i), 1));
+        }
+    }
+
+    /**
+     * Changes a byte in the body of the last record of a segment file, which makes the checksum of the record wrong, similar to what
+     * happens if the record was only partially written.
+     */
+    private static void corruptLastRecord(Path segmentFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            int position = 0;
+            int lastRecordPosition = 0;
+            while (position + Integer.BYTES <= buffer.capacity() && buffer.getInt(position) != 0) {
+                lastRecordPosition = position;
+                position += 2 * Integer.BYTES + buffer.getInt(position);
+            }
+            int lastByte = lastRecordPosition + 2 * Integer.BYTES + buffer.getInt(lastRecordPosition) - 1;
+            buffer.put(lastByte, (byte) (buffer.get(lastByte) + 1));
+            buffer.force();
+        }
+    }
+
+    private static List<Long> range(long first, long last) {
+        return LongStream.rangeClosed(first, last).boxed().toList();
+    }
+
+    private static List<Long> ids(List<StoredEvent> storedEvents) {
+        return storedEvents.stream().map(StoredEvent::id).toList();
+    }
+}
@@ -1,15 +1,21 @@
 package com.reallifedeveloper.common.infrastructure.messaging;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.easymock.EasyMock;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.core.KafkaOperations.OperationsCallback;
 import org.springframework.kafka.core.KafkaTemplate;
 
 import ch.qos.logback.classic.Level;
@@ -20,8 +26,10 @@ import com.reallifedeveloper.common.application.notification.Notification;
 import com.reallifedeveloper.common.domain.ObjectSerializer;
 import com.reallifedeveloper.common.domain.event.DomainEvent;
 import com.reallifedeveloper.common.domain.event.TestEvent;
+import com.reallifedeveloper.common.domain.event.TestStreamEvent;
 import com.reallifedeveloper.common.infrastructure.GsonObjectSerializer;
 import com.reallifedeveloper.tools.test.LogbackTestUtil;
+import com.reallifedeveloper.tools.test.TestUtil;
 
 public class KafkaNotificationPublisherTest {
 
@@ -41,17 +49,207 @@ public class KafkaNotificationPublisherTest {
         TestEvent event1 = new TestEvent(42, "foo");
         TestEvent event2 = new TestEvent(4711, "bar");
         List<Notification> notifications = toNotifications(event1, event2);
-        EasyMock.expect(
-                kafkaTemplate.send("channel", event1.getClass().getCanonicalName(), objectSerializer.serialize(notifications.get(0))))
-                .andReturn(null);
-        EasyMock.expect(
-                kafkaTemplate.send("channel", event1.getClass().getCanonicalName(), objectSerializer.serialize(notifications.get(1))))
+        EasyMock.expect(kafkaTemplate.send(KafkaNotificationPublisher.producerRecord("channel", event1.getClass().getCanonicalName(),
+                notifications.get(0), objectSerializer.serialize(notifications.get(0))))).andReturn(null);
+        EasyMock.expect(kafkaTemplate.send(KafkaNotificationPublisher.producerRecord("channel", event1.getClass().getCanonicalName(),
+                notifications.get(1), objectSerializer.serialize(notifications.get(1))))).andReturn(null);
+        EasyMock.replay(kafkaTemplate);
+        notificationPublisher.publish(notifications, "channel");
+        EasyMock.verify(kafkaTemplate);
+    }
+
+    @Test
+    public void publishingNotificationShouldUseKeyStrategy() throws Exception {
+        KafkaNotificationPublisher notificationPublisher = new KafkaNotificationPublisher(kafkaTemplate, objectSerializer,
+                NotificationKeyStrategy.eventStreamKey(NotificationKeyStrategy.storedEventId()));
+        List<Notification> notifications = toNotifications(new TestStreamEvent("order-1", "foo", TestUtil.utcNow()),
+                new TestEvent(42, "bar"));
+        EasyMock.expect(kafkaTemplate.send(KafkaNotificationPublisher.producerRecord("channel", "order-1", notifications.get(0),
+                objectSerializer.serialize(notifications.get(0))))).andReturn(null);
+        EasyMock.expect(kafkaTemplate.send(KafkaNotificationPublisher.producerRecord("channel",
+                notifications.get(1).storedEventId().toString(), notifications.get(1), objectSerializer.serialize(notifications.get(1)))))
                 .andReturn(null);
         EasyMock.replay(kafkaTemplate);
         notificationPublisher.publish(notifications, "channel");
         EasyMock.verify(kafkaTemplate);
     }
 
+    @Test
+    public void publishingNotificationsInBatchesShouldGroupByKey() throws Exception {
+        KafkaNotificationPublisher notificationPublisher = new KafkaNotificationPublisher(kafkaTemplate, objectSerializer,
+                NotificationKeyStrategy.eventStreamKey(NotificationKeyStrategy.none()), 2);
+        List<Notification> notifications = toNotifications(new TestStreamEvent("a", "1", TestUtil.utcNow()),
+                new TestStreamEvent("a", "2", TestUtil.utcNow()), new TestStreamEvent("a", "3", TestUtil.utcNow()),
+                new TestStreamEvent("b", "4", TestUtil.utcNow()));
+        NotificationBatch firstBatch = new NotificationBatch("a", notifications.subList(0, 2));
+        EasyMock.expect(kafkaTemplate.send(KafkaNotificationPublisher.batchProducerRecord("channel", firstBatch,
+                firstBatch.serialize(objectSerializer)))).andReturn(null);
+        EasyMock.expect(kafkaTemplate.send(KafkaNotificationPublisher.producerRecord("channel", "a", notifications.get(2),
+                objectSerializer.serialize(notifications.get(2))))).andReturn(null);
+        EasyMock.expect(kafkaTemplate.send(KafkaNotificationPublisher.producerRecord("channel", "b", notifications.get(3),
+                objectSerializer.serialize(notifications.get(3))))).andReturn(null);
+        EasyMock.replay(kafkaTemplate);
+        notificationPublisher.publish(notifications, "channel");
+        EasyMock.verify(kafkaTemplate);
+    }
+
+    @Test
+    public void publishingNotificationsInBatchesShouldGroupInterleavedKeys() throws Exception {
+        KafkaNotificationPublisher notificationPublisher = new KafkaNotificationPublisher(kafkaTemplate, objectSerializer,
+                NotificationKeyStrategy.eventStreamKey(NotificationKeyStrategy.none()), 10);
+        List<Notification> notifications = toNotifications(new TestStreamEvent("a", "1", TestUtil.utcNow()),
+                new TestStreamEvent("b", "2", TestUtil.utcNow()), new TestStreamEvent("a", "3", TestUtil.utcNow()));
+        NotificationBatch batchA = new NotificationBatch("a", List.of(notifications.get(0), notifications.get(2)));
+        EasyMock.expect(kafkaTemplate.send(KafkaNotificationPublisher.batchProducerRecord("channel", batchA,
+                batchA.serialize(objectSerializer)))).andReturn(null);
+        EasyMock.expect(kafkaTemplate.send(KafkaNotificationPublisher.producerRecord("channel", "b", notifications.get(1),
+                objectSerializer.serialize(notifications.get(1))))).andReturn(null);
+        EasyMock.replay(kafkaTemplate);
+        notificationPublisher.publish(notifications, "channel");
+        EasyMock.verify(kafkaTemplate);
+    }
+
+    @Test
+    public void publishingWithTrackerTopicShouldSendTrackerRecordInTransaction() throws Exception {
+        KafkaOperations<String, String> kafkaOperations = EasyMock.mock(KafkaOperations.class);
+        EasyMock.expect(kafkaTemplate.isTransactional()).andReturn(true);
+        expectExecuteInTransaction(kafkaOperations);
+        KafkaNotificationPublisher notificationPublisher = new KafkaNotificationPublisher(kafkaTemplate, objectSerializer,
+                NotificationKeyStrategy.eventType(), 1, "trackers");
+        List<Notification> notifications = toNotifications(new TestEvent(42, "foo"), new TestEvent(4711, "bar"));
+        for (Notification notification : notifications) {
+            EasyMock.expect(kafkaOperations.send(KafkaNotificationPublisher.producerRecord("channel", TestEvent.class.getCanonicalName(),
+                    notification, objectSerializer.serialize(notification)))).andReturn(null);
+        }
+        EasyMock.expect(kafkaOperations.send(KafkaNotificationPublisher.trackerRecord("trackers", "channel",
+                notifications.get(1).storedEventId()))).andReturn(null);
+        EasyMock.replay(kafkaTemplate, kafkaOperations);
+        notificationPublisher.publish(notifications, "channel");
+        EasyMock.verify(kafkaTemplate, kafkaOperations);
+    }
+
+    @Test
+    public void publishingNoNotificationsWithTrackerTopicShouldNotStartTransaction() throws Exception {
+        EasyMock.expect(kafkaTemplate.isTransactional()).andReturn(true);
+        EasyMock.replay(kafkaTemplate);
+        KafkaNotificationPublisher notificationPublisher = new KafkaNotificationPublisher(kafkaTemplate, objectSerializer,
+                NotificationKeyStrategy.eventType(), 1, "trackers");
+        notificationPublisher.publish(List.of(), "channel");
+        EasyMock.verify(kafkaTemplate);
+    }
+
+    @Test
+    public void publishingStreamWithTrackerTopicShouldFail() {
+        EasyMock.expect(kafkaTemplate.isTransactional()).andReturn(true);
+        EasyMock.replay(kafkaTemplate);
+        KafkaNotificationPublisher notificationPublisher = new KafkaNotificationPublisher(kafkaTemplate, objectSerializer,
+                NotificationKeyStrategy.eventType(), 1, "trackers");
+        List<Notification> notifications = toNotifications(new TestEvent(42, "foo"));
+        Exception e = assertThrows(UnsupportedOperationException.class,
+                () -> notificationPublisher.publishStream(notifications, "channel", "order-1"));
+        assertEquals("Publishing per stream is not supported when a trackerTopic is used: trackerTopic=trackers, publicationChannel=channel"
+                + ", streamKey=order-1", e.getMessage());
+        EasyMock.verify(kafkaTemplate);
+    }
+
+    @Test
+    public void publishingStreamWithoutTrackerTopicShouldSendRecords() throws Exception {
+        KafkaNotificationPublisher notificationPublisher = new KafkaNotificationPublisher(kafkaTemplate, objectSerializer);
+        List<Notification> notifications = toNotifications(new TestEvent(42, "foo"));
+        EasyMock.expect(kafkaTemplate.send(KafkaNotificationPublisher.producerRecord("channel", TestEvent.class.getCanonicalName(),
+                notifications.get(0), objectSerializer.serialize(notifications.get(0))))).andReturn(null);
+        EasyMock.replay(kafkaTemplate);
+        notificationPublisher.publishStream(notifications, "channel", "order-1");
+        EasyMock.verify(kafkaTemplate);
+    }
+
+    @Test
+    public void failedTransactionShouldThrowIOException() {
+        EasyMock.expect(kafkaTemplate.isTransactional()).andReturn(true);
+        EasyMock.expect(kafkaTemplate.executeInTransaction(EasyMock.anyObject()))
+                .andThrow(new org.springframework.kafka.KafkaException("Transaction aborted"));
+        EasyMock.replay(kafkaTemplate);
+        KafkaNotificationPublisher notificationPublisher = new KafkaNotificationPublisher(kafkaTemplate, objectSerializer,
+                NotificationKeyStrategy.eventType(), 1, "trackers");
+        List<Notification> notifications = toNotifications(new TestEvent(42, "foo"));
+        Exception e = assertThrows(IOException.class, () -> notificationPublisher.publish(notifications, "channel"));
+        assertEquals("Failed to send notifications in a Kafka transaction", e.getMessage());
+    }
+
+    @Test
+    public void creatingPublisherWithTrackerTopicAndNonTransactionalTemplateShouldFail() {
+        EasyMock.expect(kafkaTemplate.isTransactional()).andReturn(false);
+        EasyMock.replay(kafkaTemplate);
+        Exception e = assertThrows(IllegalArgumentException.class, () -> new KafkaNotificationPublisher(kafkaTemplate, objectSerializer,
+                NotificationKeyStrategy.eventType(), 1, "trackers"));
+        assertEquals("kafkaTemplate must be transactional when a trackerTopic is used: " + kafkaTemplate, e.getMessage());
+    }
+
+    @Test
+    public void trackerRecordShouldHavePublicationChannelAsKey() {
+        ProducerRecord<String, String> trackerRecord = KafkaNotificationPublisher.trackerRecord("trackers", "channel", 4711L);
+        assertEquals("trackers", trackerRecord.topic(), "Wrong topic: ");
+        assertEquals("channel", trackerRecord.key(), "Wrong key: ");
+        assertEquals("4711", trackerRecord.value(), "Wrong value: ");
+    }
+
+    private void expectExecuteInTransaction(KafkaOperations<String, String> kafkaOperations) {
+        OperationsCallback<String, String, Object> anyCallback = EasyMock.anyObject();
+        EasyMock.expect(kafkaTemplate.executeInTransaction(anyCallback)).andAnswer(() -> {
+            OperationsCallback<String, String, Object> callback = EasyMock.getCurrentArgument(0);
+            return callback.doInOperations(kafkaOperations);
+        });
+    }
+
+    @Test
+    public void batchProducerRecordShouldContainBatchSizeAndTimestamp() {
+        List<Notification> notifications = toNotifications(new TestEvent(42, "foo"), new TestEvent(4711, "bar"));
+        ProducerRecord<String, String> producerRecord = KafkaNotificationPublisher.batchProducerRecord("channel",
+                new NotificationBatch("key", notifications), "message");
+        assertEquals("key", producerRecord.key(), "Wrong key: ");
+        assertEquals(notifications.get(1).occurredOn().toInstant().toEpochMilli(), producerRecord.timestamp().longValue(),
+                "Wrong timestamp: ");
+        assertEquals("2", headerValue(producerRecord, NotificationHeaders.BATCH_SIZE), "Wrong batch size header: ");
+        assertNull(producerRecord.headers().lastHeader(NotificationHeaders.STORED_EVENT_ID), "Batch should have no storedEventId header");
+    }
+
+    @Test
+    public void creatingPublisherWithZeroMaxBatchSizeShouldFail() {
+        Exception e = assertThrows(IllegalArgumentException.class,
+                () -> new KafkaNotificationPublisher(kafkaTemplate, objectSerializer, NotificationKeyStrategy.eventType(), 0));
+        assertEquals("maxBatchSize must be positive: 0", e.getMessage());
+    }
+
+    @Test
+    public void producerRecordShouldContainHeadersAndTimestamp() {
+        Notification notification = toNotifications(new TestEvent(42, "foo")).get(0);
+        ProducerRecord<String, String> producerRecord = KafkaNotificationPublisher.producerRecord("channel", "key", notification,
+                "message");
+        assertEquals("channel", producerRecord.topic(), "Wrong topic: ");
+        assertEquals("key", producerRecord.key(), "Wrong key: ");
+        assertEquals("message", producerRecord.value(), "Wrong value: ");
+        assertEquals(notification.occurredOn().toInstant().toEpochMilli(), producerRecord.timestamp().longValue(), "Wrong timestamp: ");
+        assertEquals(TestEvent.class.getName(), headerValue(producerRecord, NotificationHeaders.EVENT_TYPE), "Wrong eventType header: ");
+        assertEquals(notification.storedEventId().toString(), headerValue(producerRecord, NotificationHeaders.STORED_EVENT_ID),
+                "Wrong storedEventId header: ");
+        assertEquals(notification.occurredOn().toString(), headerValue(producerRecord, NotificationHeaders.OCCURRED_ON),
+                "Wrong occurredOn header: ");
+    }
+
+    @Test
+    public void producerRecordWithoutEventTypeAndOccurredOn() {
+        Notification notification = new Notification(null, 4711L, null, new TestEvent(42, "foo"));
+        ProducerRecord<String, String> producerRecord = KafkaNotificationPublisher.producerRecord("channel", null, notification, "message");
+        assertNull(producerRecord.timestamp(), "Record should have no timestamp");
+        assertNull(producerRecord.headers().lastHeader(NotificationHeaders.EVENT_TYPE), "Record should have no eventType header");
+        assertNull(producerRecord.headers().lastHeader(NotificationHeaders.OCCURRED_ON), "Record should have no occurredOn header");
+        assertEquals("4711", headerValue(producerRecord, NotificationHeaders.STORED_EVENT_ID), "Wrong storedEventId header: ");
+    }
+
+    private static String headerValue(ProducerRecord<String, String> producerRecord, String headerName) {
+        return new String(producerRecord.headers().lastHeader(headerName).value(), StandardCharsets.UTF_8);
+    }
+
     public static List<Notification> toNotifications(DomainEvent... domainEvents) {
         return Arrays.stream(domainEvents).map(de -> Notification.create(de, nextStoredEventId++)).toList();
     }
@@ -70,6 +268,14 @@ public class KafkaNotificationPublisherTest {
         assertEquals("Arguments must not be null: kafkaTemplate=%s, objectSerializer=null".formatted(kafkaTemplate), e.getMessage());
     }
 
+    @Test
+    @SuppressWarnings("NullAway")
+    public void creatingPublisherWithNullKeyStrategyShouldFail() {
+        Exception e = assertThrows(IllegalArgumentException.class,
+                () -> new KafkaNotificationPublisher(kafkaTemplate, objectSerializer, null));
+        assertEquals("keyStrategy must not be null", e.getMessage());
+    }
+
     @Test
     public void verifyLogging() throws Exception {
         // Given
@@ -0,0 +1,117 @@
+package com.reallifedeveloper.common.infrastructure.messaging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.Test;
+
+import com.reallifedeveloper.common.application.notification.Notification;
+import com.reallifedeveloper.common.application.notification.NotificationReader;
+import com.reallifedeveloper.common.domain.ObjectSerializer;
+import com.reallifedeveloper.common.domain.event.TestEvent;
+import com.reallifedeveloper.common.infrastructure.GsonNotificationReader;
+import com.reallifedeveloper.common.infrastructure.GsonObjectSerializer;
+
+public class KafkaNotificationReaderTest {
+
+    private final ObjectSerializer<String> objectSerializer = new GsonObjectSerializer();
+
+    private final List<String> parsedValues = new ArrayList<>();
+
+    private final Function<String, NotificationReader> valueReaderFactory = value -> {
+        parsedValues.add(value);
+        return new GsonNotificationReader(value);
+    };
+
+    @Test
+    public void headerFieldsAreReadWithoutParsingValue() {
+        Notification notification = KafkaNotificationPublisherTest.toNotifications(new TestEvent(42, "foo")).get(0);
+        KafkaNotificationReader reader = new KafkaNotificationReader(publishedRecord(notification), valueReaderFactory);
+        assertEquals(TestEvent.class.getName(), reader.eventType(), "Wrong event type: ");
+        assertEquals(notification.storedEventId(), reader.storedEventId(), "Wrong stored event ID: ");
+        assertEquals(notification.occurredOn().toInstant(), reader.occurredOn().toInstant(), "Wrong occurredOn: ");
+        assertEquals(List.of(), parsedValues, "Record value should not have been parsed");
+    }
+
+    @Test
+    public void eventFieldsAreReadFromValue() {
+        Notification notification = KafkaNotificationPublisherTest.toNotifications(new TestEvent(42, "foo")).get(0);
+        KafkaNotificationReader reader = new KafkaNotificationReader(publishedRecord(notification), valueReaderFactory);
+        assertEquals(42, reader.eventIntValue("id").orElseThrow().intValue(), "Wrong id: ");
+        assertEquals(42L, reader.eventLongValue("id").orElseThrow().longValue(), "Wrong id: ");
+        assertEquals("foo", reader.eventStringValue("name").orElseThrow(), "Wrong name: ");
+        assertEquals(notification.event().eventVersion(), reader.eventVersion().intValue(), "Wrong event version: ");
+        assertEquals(1, parsedValues.size(), "Record value should have been parsed once");
+    }
+
+    @Test
+    public void missingHeadersAreReadFromValue() {
+        Notification notification = KafkaNotificationPublisherTest.toNotifications(new TestEvent(42, "foo")).get(0);
+        ConsumerRecord<String, String> consumerRecord = new ConsumerRecord<>("channel", 0, 0L, null,
+                objectSerializer.serialize(notification));
+        KafkaNotificationReader reader = new KafkaNotificationReader(consumerRecord);
+        assertEquals(TestEvent.class.getName(), reader.eventType(), "Wrong event type: ");
+        assertEquals(notification.storedEventId(), reader.storedEventId(), "Wrong stored event ID: ");
+        assertEquals(notification.occurredOn().toInstant(), reader.occurredOn().toInstant(), "Wrong occurredOn: ");
+    }
+
+    @Test
+    public void readAllSingleRecord() {
+        Notification notification = KafkaNotificationPublisherTest.toNotifications(new TestEvent(42, "foo")).get(0);
+        List<NotificationReader> readers = KafkaNotificationReader.readAll(publishedRecord(notification));
+        assertEquals(1, readers.size(), "Wrong number of readers: ");
+        assertEquals(KafkaNotificationReader.class, readers.get(0).getClass(), "Wrong type of reader: ");
+        assertEquals(notification.storedEventId(), readers.get(0).storedEventId(), "Wrong stored event ID: ");
+    }
+
+    @Test
+    public void readAllBatchRecord() {
+        List<Notification> notifications = KafkaNotificationPublisherTest.toNotifications(new TestEvent(42, "foo"),
+                new TestEvent(4711, "bar"));
+        NotificationBatch batch = new NotificationBatch(null, notifications);
+        ProducerRecord<String, String> producerRecord = KafkaNotificationPublisher.batchProducerRecord("channel", batch,
+                batch.serialize(objectSerializer));
+        List<NotificationReader> readers = KafkaNotificationReader.readAll(toConsumerRecord(producerRecord));
+        assertEquals(2, readers.size(), "Wrong number of readers: ");
+        assertEquals(notifications.get(0).storedEventId(), readers.get(0).storedEventId(), "Wrong stored event ID of first reader: ");
+        assertEquals("bar", readers.get(1).eventStringValue("name").orElseThrow(), "Wrong name in second reader: ");
+    }
+
+    @Test
+    @SuppressWarnings("NullAway")
+    public void readAllNullConsumerRecord() {
+        assertThrows(IllegalArgumentException.class, () -> KafkaNotificationReader.readAll(null));
+    }
+
+    @Test
+    @SuppressWarnings("NullAway")
+    public void constructorNullConsumerRecord() {
+        assertThrows(IllegalArgumentException.class, () -> new KafkaNotificationReader(null));
+    }
+
+    @Test
+    @SuppressWarnings("NullAway")
+    public void constructorNullValueReaderFactory() {
+        ConsumerRecord<String, String> consumerRecord = new ConsumerRecord<>("channel", 0, 0L, null, "{}");
+        assertThrows(IllegalArgumentException.class, () -> new KafkaNotificationReader(consumerRecord, null));
+    }
+
+    private ConsumerRecord<String, String> publishedRecord(Notification notification) {
+        ProducerRecord<String, String> producerRecord = KafkaNotificationPublisher.producerRecord("channel", null, notification,
+                objectSerializer.serialize(notification));
+        return toConsumerRecord(producerRecord);
+    }
+
+    private static ConsumerRecord<String, String> toConsumerRecord(ProducerRecord<String, String> producerRecord) {
+        ConsumerRecord<String, String> consumerRecord = new ConsumerRecord<>(producerRecord.topic(), 0, 0L, producerRecord.key(),
+                producerRecord.value());
+        producerRecord.headers().forEach(header -> consumerRecord.headers().add(header));
+        return consumerRecord;
+    }
+}
@@ -0,0 +1,273 @@
+package com.reallifedeveloper.common.infrastructure.messaging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.easymock.EasyMock;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.ConsumerFactory;
+
+import com.reallifedeveloper.common.application.notification.PublishedMessageTracker;
+
+public class KafkaPublishedMessageTrackerRepositoryTest {
+
+    private static final String TRACKER_TOPIC = "trackers";
+
+    private final ConsumerFactory<String, String> consumerFactory = EasyMock.mock(ConsumerFactory.class);
+
+    private final MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+
+    private final ConsumerFactory<String, String> otherConsumerFactory = EasyMock.mock(ConsumerFactory.class);
+
+    private final MockConsumer<String, String> otherConsumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+
+    private final TopicPartition partition = new TopicPartition(TRACKER_TOPIC, 0);
+
+    private final AtomicLong clockOffset = new AtomicLong();
+
+    @Test
+    public void findByPublicationChannelShouldReturnLastTrackerRecord() {
+        KafkaPublishedMessageTrackerRepository repository = createRepository(trackerRecord(0, "foo", "17"),
+                trackerRecord(1, "bar", "42"), trackerRecord(2, "foo", "4711"));
+        assertEquals(4711L, repository.findByPublicationChannel("foo").orElseThrow().lastPublishedMessageId().longValue(),
+                "Wrong last published message ID for foo: ");
+        assertEquals(42L, repository.findByPublicationChannel("bar").orElseThrow().lastPublishedMessageId().longValue(),
+                "Wrong last published message ID for bar: ");
+        assertFalse(repository.findByPublicationChannel("baz").isPresent(), "There should be no tracker for baz");
+        EasyMock.verify(consumerFactory);
+    }
+
+    @Test
+    public void tombstoneShouldRemoveTracker() {
+        KafkaPublishedMessageTrackerRepository repository = createRepository(trackerRecord(0, "foo", "17"),
+                trackerRecord(1, "foo", null), trackerRecord(2, null, "42"));
+        assertFalse(repository.findByPublicationChannel("foo").isPresent(), "There should be no tracker for foo");
+    }
+
+    @Test
+    public void emptyTrackerTopic() {
+        KafkaPublishedMessageTrackerRepository repository = createRepository();
+        assertFalse(repository.findByPublicationChannel("foo").isPresent(), "There should be no tracker for foo");
+    }
+
+    @Test
+    public void saveShouldWaitForTrackerRecordWrittenByPublisher() {
+        KafkaPublishedMessageTrackerRepository repository = createRepository(trackerRecord(0, "foo", "17"));
+        PublishedMessageTracker messageTracker = repository.findByPublicationChannel("foo").orElseThrow();
+        messageTracker.setLastPublishedMessageid(4711L);
+        consumer.schedulePollTask(() -> publish(consumer, trackerRecord(1, "foo", "4711")));
+        assertEquals(messageTracker, repository.save(messageTracker), "Wrong tracker returned from save: ");
+        assertEquals(4711L, repository.findByPublicationChannel("foo").orElseThrow().lastPublishedMessageId().longValue(),
+                "Wrong last published message ID for foo: ");
+        EasyMock.verify(consumerFactory);
+    }
+
+    @Test
+    public void saveShouldFailIfTrackerRecordIsNotSeen() {
+        KafkaPublishedMessageTrackerRepository repository = createRepository(Duration.ZERO, trackerRecord(0, "foo", "17"));
+        PublishedMessageTracker messageTracker = repository.findByPublicationChannel("foo").orElseThrow();
+        messageTracker.setLastPublishedMessageid(4711L);
+        assertThrows(IllegalStateException.class, () -> repository.save(messageTracker));
+    }
+
+    @Test
+    public void saveWithoutLookupShouldFail() {
+        KafkaPublishedMessageTrackerRepository repository = createRepository();
+        Exception e = assertThrows(IllegalStateException.class, () -> repository.save(new PublishedMessageTracker(42L, "bar")));
+        assertEquals("Tracker must be looked up before it is saved: publicationChannel=bar", e.getMessage());
+    }
+
+    @Test
+    public void repositoriesSharingTrackerTopicShouldSeeEachOthersTrackers() {
+        KafkaPublishedMessageTrackerRepository repository = createRepository(Duration.ZERO, trackerRecord(0, "foo", "17"));
+        KafkaPublishedMessageTrackerRepository otherRepository = createOtherRepository(trackerRecord(0, "foo", "17"));
+        assertEquals(17L, otherRepository.findByPublicationChannel("foo").orElseThrow().lastPublishedMessageId().longValue(),
+                "Wrong last published message ID for foo in other repository: ");
+        PublishedMessageTracker messageTracker = repository.findByPublicationChannel("foo").orElseThrow();
+        messageTracker.setLastPublishedMessageid(4711L);
+        publish(trackerRecord(1, "foo", "4711"));
+        repository.save(messageTracker);
+        assertEquals(4711L, otherRepository.findByPublicationChannel("foo").orElseThrow().lastPublishedMessageId().longValue(),
+                "Wrong last published message ID for foo in other repository: ");
+        PublishedMessageTracker otherMessageTracker = otherRepository.findByPublicationChannel("foo").orElseThrow();
+        otherMessageTracker.setLastPublishedMessageid(4712L);
+        publish(trackerRecord(2, "foo", "4712"));
+        otherRepository.save(otherMessageTracker);
+        assertEquals(4712L, repository.findByPublicationChannel("foo").orElseThrow().lastPublishedMessageId().longValue(),
+                "Wrong last published message ID for foo: ");
+    }
+
+    @Test
+    public void repositoriesPublishingToSameChannelConcurrentlyShouldFail() {
+        KafkaPublishedMessageTrackerRepository repository = createRepository(Duration.ZERO, trackerRecord(0, "foo", "17"));
+        KafkaPublishedMessageTrackerRepository otherRepository = createOtherRepository(trackerRecord(0, "foo", "17"));
+        PublishedMessageTracker messageTracker = repository.findByPublicationChannel("foo").orElseThrow();
+        PublishedMessageTracker otherMessageTracker = otherRepository.findByPublicationChannel("foo").orElseThrow();
+        messageTracker.setLastPublishedMessageid(4711L);
+        publish(trackerRecord(1, "foo", "4711"));
+        repository.save(messageTracker);
+        otherMessageTracker.setLastPublishedMessageid(4711L);
+        publish(trackerRecord(2, "foo", "4711"));
+        assertThrows(IllegalStateException.class, () -> otherRepository.save(otherMessageTracker));
+        Exception e = assertThrows(IllegalStateException.class, () -> otherRepository.findByPublicationChannel("foo"));
+        assertEquals("Another process is publishing to the publication channel: foo", e.getMessage());
+        assertEquals(4711L, repository.findByPublicationChannel("foo").orElseThrow().lastPublishedMessageId().longValue(),
+                "Wrong last published message ID for foo: ");
+    }
+
+    @Test
+    public void repositoriesPublishingBeforeEitherSavesShouldBothFailAndRecoverAfterBackoff() {
+        KafkaPublishedMessageTrackerRepository repository = createRepository(Duration.ZERO, trackerRecord(0, "foo", "17"));
+        KafkaPublishedMessageTrackerRepository otherRepository = createOtherRepository(trackerRecord(0, "foo", "17"));
+        PublishedMessageTracker messageTracker = repository.findByPublicationChannel("foo").orElseThrow();
+        PublishedMessageTracker otherMessageTracker = otherRepository.findByPublicationChannel("foo").orElseThrow();
+        messageTracker.setLastPublishedMessageid(4711L);
+        otherMessageTracker.setLastPublishedMessageid(4712L);
+        publish(trackerRecord(1, "foo", "4711"));
+        publish(trackerRecord(2, "foo", "4712"));
+        assertThrows(IllegalStateException.class, () -> repository.save(messageTracker));
+        assertThrows(IllegalStateException.class, () -> otherRepository.save(otherMessageTracker));
+        assertThrows(IllegalStateException.class, () -> repository.findByPublicationChannel("foo"));
+        assertThrows(IllegalStateException.class, () -> otherRepository.findByPublicationChannel("foo"));
+
+        clockOffset.addAndGet(KafkaPublishedMessageTrackerRepository.LOST_CHANNEL_BACKOFF.toNanos());
+        PublishedMessageTracker recoveredMessageTracker = repository.findByPublicationChannel("foo").orElseThrow();
+        assertEquals(4712L, recoveredMessageTracker.lastPublishedMessageId().longValue(), "Wrong last published message ID for foo: ");
+        recoveredMessageTracker.setLastPublishedMessageid(4713L);
+        publish(trackerRecord(3, "foo", "4713"));
+        assertEquals(recoveredMessageTracker, repository.save(recoveredMessageTracker), "Wrong tracker returned from save: ");
+        assertEquals(4713L, otherRepository.findByPublicationChannel("foo").orElseThrow().lastPublishedMessageId().longValue(),
+                "Wrong last published message ID for foo in other repository: ");
+    }
+
+    @Test
+    public void trackerTopicCreatedAfterFirstLookupShouldBeRead() {
+        EasyMock.expect(consumerFactory.getConfigurationProperties())
+                .andReturn(Map.<String, Object>of(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed"));
+        EasyMock.expect(consumerFactory.createConsumer()).andReturn(consumer);
+        EasyMock.replay(consumerFactory);
+        KafkaPublishedMessageTrackerRepository repository = new KafkaPublishedMessageTrackerRepository(consumerFactory, TRACKER_TOPIC);
+        assertFalse(repository.findByPublicationChannel("foo").isPresent(), "There should be no tracker for foo");
+
+        prepareConsumer(consumer, trackerRecord(0, "foo", "17"));
+        assertEquals(17L, repository.findByPublicationChannel("foo").orElseThrow().lastPublishedMessageId().longValue(),
+                "Wrong last published message ID for foo: ");
+        assertEquals(Set.of(partition), consumer.assignment(), "Wrong partitions assigned: ");
+        EasyMock.verify(consumerFactory);
+    }
+
+    @Test
+    public void closeShouldCloseConsumer() {
+        KafkaPublishedMessageTrackerRepository repository = createRepository();
+        repository.findByPublicationChannel("foo");
+        repository.close();
+        assertTrue(consumer.closed(), "Consumer should be closed");
+    }
+
+    @Test
+    public void creatingRepositoryWithoutReadCommittedShouldFail() {
+        EasyMock.expect(consumerFactory.getConfigurationProperties())
+                .andReturn(Map.<String, Object>of(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_uncommitted"));
+        EasyMock.replay(consumerFactory);
+        Exception e = assertThrows(IllegalArgumentException.class,
+                () -> new KafkaPublishedMessageTrackerRepository(consumerFactory, TRACKER_TOPIC));
+        assertEquals("consumerFactory must be configured with isolation.level=read_committed: read_uncommitted", e.getMessage());
+    }
+
+    @Test
+    public void creatingRepositoryWithNegativeConfirmationTimeoutShouldFail() {
+        Exception e = assertThrows(IllegalArgumentException.class,
+                () -> new KafkaPublishedMessageTrackerRepository(consumerFactory, TRACKER_TOPIC, Duration.ofMillis(-1)));
+        assertEquals("confirmationTimeout must not be negative: PT-0.001S", e.getMessage());
+    }
+
+    @Test
+    @SuppressWarnings("NullAway")
+    public void creatingRepositoryWithNullConsumerFactoryShouldFail() {
+        Exception e = assertThrows(IllegalArgumentException.class, () -> new KafkaPublishedMessageTrackerRepository(null, TRACKER_TOPIC));
+        assertEquals("Arguments must not be null: consumerFactory=null, trackerTopic=" + TRACKER_TOPIC + ", confirmationTimeout="
+                + KafkaPublishedMessageTrackerRepository.DEFAULT_CONFIRMATION_TIMEOUT, e.getMessage());
+    }
+
+    @Test
+    @SuppressWarnings("NullAway")
+    public void creatingRepositoryWithNullTrackerTopicShouldFail() {
+        Exception e = assertThrows(IllegalArgumentException.class, () -> new KafkaPublishedMessageTrackerRepository(consumerFactory, null));
+        assertEquals("Arguments must not be null: consumerFactory=" + consumerFactory + ", trackerTopic=null, confirmationTimeout="
+                + KafkaPublishedMessageTrackerRepository.DEFAULT_CONFIRMATION_TIMEOUT, e.getMessage());
+    }
+
+    @SafeVarargs
+    private KafkaPublishedMessageTrackerRepository createRepository(ConsumerRecord<String, String>... trackerRecords) {
+        return createRepository(KafkaPublishedMessageTrackerRepository.DEFAULT_CONFIRMATION_TIMEOUT, trackerRecords);
+    }
+
+    @SafeVarargs
+    private KafkaPublishedMessageTrackerRepository createRepository(Duration confirmationTimeout,
+            ConsumerRecord<String, String>... trackerRecords) {
+        prepareConsumer(consumer, trackerRecords);
+        EasyMock.expect(consumerFactory.getConfigurationProperties())
+                .andReturn(Map.<String, Object>of(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed"));
+        EasyMock.expect(consumerFactory.createConsumer()).andReturn(consumer);
+        EasyMock.replay(consumerFactory);
+        return new KafkaPublishedMessageTrackerRepository(consumerFactory, TRACKER_TOPIC, confirmationTimeout,
+                () -> System.nanoTime() + clockOffset.get());
+    }
+
+    /**
+     * Creates a repository for another process, which reads the same tracker topic using its own consumer.
+     */
+    @SafeVarargs
+    private KafkaPublishedMessageTrackerRepository createOtherRepository(ConsumerRecord<String, String>... trackerRecords) {
+        prepareConsumer(otherConsumer, trackerRecords);
+        EasyMock.expect(otherConsumerFactory.getConfigurationProperties())
+                .andReturn(Map.<String, Object>of(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed"));
+        EasyMock.expect(otherConsumerFactory.createConsumer()).andReturn(otherConsumer);
+        EasyMock.replay(otherConsumerFactory);
+        return new KafkaPublishedMessageTrackerRepository(otherConsumerFactory, TRACKER_TOPIC, Duration.ZERO,
+                () -> System.nanoTime() + clockOffset.get());
+    }
+
+    @SafeVarargs
+    private void prepareConsumer(MockConsumer<String, String> trackerConsumer, ConsumerRecord<String, String>... trackerRecords) {
+        trackerConsumer.updatePartitions(TRACKER_TOPIC, List.of(new PartitionInfo(TRACKER_TOPIC, 0, null, null, null)));
+        trackerConsumer.updateBeginningOffsets(Map.of(partition, 0L));
+        trackerConsumer.updateEndOffsets(Map.of(partition, (long) trackerRecords.length));
+        trackerConsumer.schedulePollTask(() -> {
+            for (ConsumerRecord<String, String> trackerRecord : trackerRecords) {
+                trackerConsumer.addRecord(trackerRecord);
+            }
+        });
+    }
+
+    /**
+     * Simulates a publisher committing a tracker record to the tracker topic that is shared by both consumers.
+     */
+    private void publish(ConsumerRecord<String, String> trackerRecord) {
+        publish(consumer, trackerRecord);
+        publish(otherConsumer, trackerRecord);
+    }
+
+    private void publish(MockConsumer<String, String> trackerConsumer, ConsumerRecord<String, String> trackerRecord) {
+        trackerConsumer.addRecord(trackerRecord);
+        trackerConsumer.updateEndOffsets(Map.of(partition, trackerRecord.offset() + 1));
+    }
+
+    private static ConsumerRecord<String, String> trackerRecord(long offset, String publicationChannel, String lastPublishedMessageId) {
+        return new ConsumerRecord<>(TRACKER_TOPIC, 0, offset, publicationChannel, lastPublishedMessageId);
+    }
+}
@@ -0,0 +1,109 @@
+package com.reallifedeveloper.common.infrastructure.messaging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.reallifedeveloper.common.application.notification.Notification;
+import com.reallifedeveloper.common.domain.ObjectSerializer;
+import com.reallifedeveloper.common.domain.event.TestStreamEvent;
+import com.reallifedeveloper.tools.test.TestUtil;
+
+public class NotificationBatchTest {
+
+    private static final ObjectSerializer<String> ID_SERIALIZER = new ObjectSerializer<>() {
+        @Override
+        public String serialize(Object object) {
+            return "{\"storedEventId\":" + ((Notification) object).storedEventId() + "}";
+        }
+
+        @Override
+        public <U> U deserialize(String serializedObject, Class<U> objectType) {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    @Test
+    public void splitByMaxBatchSize() {
+        List<Notification> notifications = notifications("a", "a", "a", "a", "a");
+        List<NotificationBatch> batches = NotificationBatch.split(notifications, NotificationKeyStrategy.none(), 2);
+        assertEquals(List.of(List.of(0L, 1L), List.of(2L, 3L), List.of(4L)), ids(batches), "Wrong batches: ");
+    }
+
+    @Test
+    public void splitByKey() {
+        List<Notification> notifications = notifications("a", "a", "b", "a", "b", "b");
+        List<NotificationBatch> batches = NotificationBatch.split(notifications,
+                NotificationKeyStrategy.eventStreamKey(NotificationKeyStrategy.none()), 10);
+        assertEquals(List.of(List.of(0L, 1L), List.of(2L), List.of(3L), List.of(4L, 5L)), ids(batches), "Wrong batches: ");
+        assertEquals("a", batches.get(0).key(), "Wrong key of first batch: ");
+        assertEquals("b", batches.get(3).key(), "Wrong key of last batch: ");
+    }
+
+    @Test
+    public void splitWithoutBatching() {
+        List<NotificationBatch> batches = NotificationBatch.split(notifications("a", "a", "a"), NotificationKeyStrategy.none(), 1);
+        assertEquals(List.of(List.of(0L), List.of(1L), List.of(2L)), ids(batches), "Wrong batches: ");
+    }
+
+    @Test
+    public void splitEmptyList() {
+        assertEquals(List.of(), NotificationBatch.split(List.of(), NotificationKeyStrategy.none(), 10), "Wrong batches: ");
+    }
+
+    @Test
+    public void groupByKeyAcrossInterleavedKeys() {
+        List<Notification> notifications = notifications("a", "b", "a", "b", "c", "a");
+        List<NotificationBatch> batches = NotificationBatch.groupByKey(notifications,
+                NotificationKeyStrategy.eventStreamKey(NotificationKeyStrategy.none()), 10);
+        assertEquals(List.of(List.of(0L, 2L, 5L), List.of(1L, 3L), List.of(4L)), ids(batches), "Wrong batches: ");
+        assertEquals(List.of("a", "b", "c"), batches.stream().map(NotificationBatch::key).toList(), "Wrong keys of batches: ");
+    }
+
+    @Test
+    public void groupByKeyByMaxBatchSize() {
+        List<Notification> notifications = notifications("a", "b", "a", "b", "a", "a");
+        List<NotificationBatch> batches = NotificationBatch.groupByKey(notifications,
+                NotificationKeyStrategy.eventStreamKey(NotificationKeyStrategy.none()), 2);
+        assertEquals(List.of(List.of(0L, 2L), List.of(1L, 3L), List.of(4L, 5L)), ids(batches), "Wrong batches: ");
+    }
+
+    @Test
+    public void groupByKeyWithoutBatching() {
+        List<NotificationBatch> batches = NotificationBatch.groupByKey(notifications("a", "b", "a"), NotificationKeyStrategy.none(), 1);
+        assertEquals(List.of(List.of(0L), List.of(1L), List.of(2L)), ids(batches), "Wrong batches: ");
+    }
+
+    @Test
+    public void groupByKeyEmptyList() {
+        assertEquals(List.of(), NotificationBatch.groupByKey(List.of(), NotificationKeyStrategy.none(), 10), "Wrong batches: ");
+    }
+
+    @Test
+    public void serializeSingleNotification() {
+        NotificationBatch batch = new NotificationBatch(null, notifications("a"));
+        assertEquals("{\"storedEventId\":0}", batch.serialize(ID_SERIALIZER), "Wrong serialized batch: ");
+    }
+
+    @Test
+    public void serializeSeveralNotifications() {
+        NotificationBatch batch = new NotificationBatch(null, notifications("a", "b"));
+        assertEquals("[{\"storedEventId\":0},{\"storedEventId\":1}]", batch.serialize(ID_SERIALIZER), "Wrong serialized batch: ");
+        assertEquals(1L, batch.lastNotification().storedEventId().longValue(), "Wrong last notification: ");
+        assertEquals(2, batch.size(), "Wrong batch size: ");
+    }
+
+    private static List<Notification> notifications(String... streamKeys) {
+        Notification[] notifications = new Notification[streamKeys.length];
+        for (int i = 0; i < streamKeys.length; i++) {
+            notifications[i] = Notification.create(new TestStreamEvent(streamKeys[i], "foo" + i, TestUtil.utcNow()), (long) i);
+        }
+        return List.of(notifications);
+    }
+
+    private static List<List<Long>> ids(List<NotificationBatch> batches) {
+        return batches.stream().map(batch -> batch.notifications().stream().map(Notification::storedEventId).toList()).toList();
+    }
+}
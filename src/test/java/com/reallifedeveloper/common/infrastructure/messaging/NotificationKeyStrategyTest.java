@@ -0,0 +1,52 @@
+package com.reallifedeveloper.common.infrastructure.messaging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import com.reallifedeveloper.common.application.notification.Notification;
+import com.reallifedeveloper.common.domain.event.TestEvent;
+import com.reallifedeveloper.common.domain.event.TestStreamEvent;
+import com.reallifedeveloper.tools.test.TestUtil;
+
+public class NotificationKeyStrategyTest {
+
+    private final Notification notification = Notification.create(new TestEvent(42, "foo"), 4711L);
+    private final Notification streamNotification = Notification.create(new TestStreamEvent("order-1", "bar", TestUtil.utcNow()), 4712L);
+
+    @Test
+    public void none() {
+        assertNull(NotificationKeyStrategy.none().key(notification), "Notification should have no key");
+    }
+
+    @Test
+    public void eventType() {
+        assertEquals(TestEvent.class.getName(), NotificationKeyStrategy.eventType().key(notification), "Wrong key: ");
+    }
+
+    @Test
+    public void storedEventId() {
+        assertEquals("4711", NotificationKeyStrategy.storedEventId().key(notification), "Wrong key: ");
+    }
+
+    @Test
+    public void eventStreamKey() {
+        NotificationKeyStrategy keyStrategy = NotificationKeyStrategy.eventStreamKey(NotificationKeyStrategy.storedEventId());
+        assertEquals("order-1", keyStrategy.key(streamNotification), "Wrong key of event in stream: ");
+        assertEquals("4711", keyStrategy.key(notification), "Wrong key of event not in stream: ");
+    }
+
+    @Test
+    public void eventStreamKeyWithoutKeyAsFallback() {
+        NotificationKeyStrategy keyStrategy = NotificationKeyStrategy.eventStreamKey(NotificationKeyStrategy.none());
+        assertNull(keyStrategy.key(notification), "Event not in stream should have no key");
+    }
+
+    @Test
+    @SuppressWarnings("NullAway")
+    public void eventStreamKeyNullFallback() {
+        assertThrows(IllegalArgumentException.class, () -> NotificationKeyStrategy.eventStreamKey(null));
+    }
+}
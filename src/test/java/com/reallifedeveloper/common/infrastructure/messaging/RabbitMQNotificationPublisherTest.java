@@ -1,12 +1,14 @@
 package com.reallifedeveloper.common.infrastructure.messaging;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeoutException;
 
 import org.easymock.EasyMock;
@@ -51,9 +53,9 @@ public class RabbitMQNotificationPublisherTest {
         RabbitMQNotificationPublisher notificationPublisher = new RabbitMQNotificationPublisher(connectionFactory, objectSerializer);
         List<Notification> notifications = testNotifications();
 
-        channel.basicPublish("channel", "", new BasicProperties(),
+        channel.basicPublish("channel", "", RabbitMQNotificationPublisher.properties(notifications.get(0)),
                 objectSerializer.serialize(notifications.get(0)).getBytes(StandardCharsets.UTF_8));
-        channel.basicPublish("channel", "", new BasicProperties(),
+        channel.basicPublish("channel", "", RabbitMQNotificationPublisher.properties(notifications.get(1)),
                 objectSerializer.serialize(notifications.get(1)).getBytes(StandardCharsets.UTF_8));
         channel.close();
 
@@ -67,6 +69,85 @@ public class RabbitMQNotificationPublisherTest {
         EasyMock.verify(channel);
     }
 
+    @Test
+    public void publishNotificationsShouldUseRoutingKeyStrategy() throws Exception {
+        // Given
+        RabbitMQNotificationPublisher notificationPublisher = new RabbitMQNotificationPublisher(connectionFactory, objectSerializer,
+                NotificationKeyStrategy.eventType());
+        List<Notification> notifications = testNotifications();
+
+        channel.basicPublish("channel", TestEvent.class.getName(), RabbitMQNotificationPublisher.properties(notifications.get(0)),
+                objectSerializer.serialize(notifications.get(0)).getBytes(StandardCharsets.UTF_8));
+        channel.basicPublish("channel", TestEvent.class.getName(), RabbitMQNotificationPublisher.properties(notifications.get(1)),
+                objectSerializer.serialize(notifications.get(1)).getBytes(StandardCharsets.UTF_8));
+        channel.close();
+
+        EasyMock.replay(channel);
+
+        // When
+        notificationPublisher.publish(notifications, "channel");
+
+        // Then
+        EasyMock.verify(channel);
+    }
+
+    @Test
+    public void publishNotificationsInCompressedBatches() throws Exception {
+        // Given
+        RabbitMQNotificationPublisher notificationPublisher = new RabbitMQNotificationPublisher(connectionFactory, objectSerializer,
+                NotificationKeyStrategy.none(), 10, true);
+        List<Notification> notifications = testNotifications();
+        NotificationBatch batch = new NotificationBatch(null, notifications);
+
+        channel.basicPublish("channel", "",
+                RabbitMQNotificationPublisher.batchProperties(batch).builder().contentEncoding("gzip").build(),
+                RabbitMQNotificationPublisher.gzip(batch.serialize(objectSerializer).getBytes(StandardCharsets.UTF_8)));
+        channel.close();
+
+        EasyMock.replay(channel);
+
+        // When
+        notificationPublisher.publish(notifications, "channel");
+
+        // Then
+        EasyMock.verify(channel);
+    }
+
+    @Test
+    public void batchPropertiesShouldContainBatchSize() {
+        BasicProperties properties = RabbitMQNotificationPublisher.batchProperties(new NotificationBatch(null, testNotifications()));
+        assertEquals("application/json; charset=UTF-8", properties.getContentType(), "Wrong content type: ");
+        assertNull(properties.getContentEncoding(), "Uncompressed message should have no content encoding");
+        assertEquals(Map.of(NotificationHeaders.BATCH_SIZE, 2), properties.getHeaders(), "Wrong headers: ");
+    }
+
+    @Test
+    public void creatingPublisherWithZeroMaxBatchSizeShouldFail() {
+        Exception e = assertThrows(IllegalArgumentException.class, () -> new RabbitMQNotificationPublisher(connectionFactory,
+                objectSerializer, NotificationKeyStrategy.none(), 0, false));
+        assertEquals("maxBatchSize must be positive: 0", e.getMessage());
+    }
+
+    @Test
+    public void propertiesShouldContainHeaders() {
+        Notification notification = testNotifications().get(0);
+        BasicProperties properties = RabbitMQNotificationPublisher.properties(notification);
+        assertEquals("application/json; charset=UTF-8", properties.getContentType(), "Wrong content type: ");
+        assertNull(properties.getContentEncoding(), "Uncompressed message should have no content encoding");
+        assertEquals(notification.storedEventId().toString(), properties.getMessageId(), "Wrong message ID: ");
+        assertEquals(Map.of(NotificationHeaders.EVENT_TYPE, TestEvent.class.getName(), NotificationHeaders.STORED_EVENT_ID,
+                notification.storedEventId(), NotificationHeaders.OCCURRED_ON, notification.occurredOn().toString()),
+                properties.getHeaders(), "Wrong headers: ");
+    }
+
+    @Test
+    @SuppressWarnings("NullAway")
+    public void creatingPublisherWithNullRoutingKeyStrategyShouldFail() {
+        Exception e = assertThrows(IllegalArgumentException.class,
+                () -> new RabbitMQNotificationPublisher(connectionFactory, objectSerializer, null));
+        assertEquals("routingKeyStrategy must not be null", e.getMessage());
+    }
+
     @Test
     public void publishNotificationsShouldThrowIOExceptionIfConnectionTimesOut() throws Exception {
         // Given
@@ -91,7 +172,7 @@ public class RabbitMQNotificationPublisherTest {
         // Given
         List<Notification> notifications = testNotifications();
         IOException originalException = new IOException("foo");
-        channel.basicPublish("channel", "", new BasicProperties(),
+        channel.basicPublish("channel", "", RabbitMQNotificationPublisher.properties(notifications.get(0)),
                 objectSerializer.serialize(notifications.get(0)).getBytes(StandardCharsets.UTF_8));
         EasyMock.expectLastCall().andThrow(originalException);
         channel.close();
@@ -0,0 +1,60 @@
+package com.reallifedeveloper.common.infrastructure.messaging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.rabbitmq.client.AMQP.BasicProperties;
+
+import com.reallifedeveloper.common.application.notification.Notification;
+import com.reallifedeveloper.common.application.notification.NotificationReader;
+import com.reallifedeveloper.common.domain.ObjectSerializer;
+import com.reallifedeveloper.common.domain.event.TestEvent;
+import com.reallifedeveloper.common.infrastructure.GsonObjectSerializer;
+
+public class RabbitMQNotificationReadersTest {
+
+    private final ObjectSerializer<String> objectSerializer = new GsonObjectSerializer();
+
+    private final List<Notification> notifications = KafkaNotificationPublisherTest.toNotifications(new TestEvent(42, "foo"),
+            new TestEvent(4711, "bar"));
+
+    @Test
+    public void readAllSingleMessage() {
+        Notification notification = notifications.get(0);
+        byte[] body = objectSerializer.serialize(notification).getBytes(StandardCharsets.UTF_8);
+        List<NotificationReader> readers = RabbitMQNotificationReaders.readAll(RabbitMQNotificationPublisher.properties(notification),
+                body);
+        assertEquals(1, readers.size(), "Wrong number of readers: ");
+        assertEquals(notification.storedEventId(), readers.get(0).storedEventId(), "Wrong stored event ID: ");
+    }
+
+    @Test
+    public void readAllCompressedBatch() throws Exception {
+        NotificationBatch batch = new NotificationBatch(null, notifications);
+        BasicProperties properties = RabbitMQNotificationPublisher.batchProperties(batch).builder().contentEncoding("gzip").build();
+        byte[] body = RabbitMQNotificationPublisher.gzip(batch.serialize(objectSerializer).getBytes(StandardCharsets.UTF_8));
+        List<NotificationReader> readers = RabbitMQNotificationReaders.readAll(properties, body);
+        assertEquals(2, readers.size(), "Wrong number of readers: ");
+        assertEquals(42, readers.get(0).eventIntValue("id").orElseThrow().intValue(), "Wrong id in first reader: ");
+        assertEquals("bar", readers.get(1).eventStringValue("name").orElseThrow(), "Wrong name in second reader: ");
+    }
+
+    @Test
+    public void readAllCorruptCompressedBody() {
+        BasicProperties properties = new BasicProperties.Builder().contentEncoding("gzip").build();
+        byte[] body = "not compressed".getBytes(StandardCharsets.UTF_8);
+        assertThrows(UncheckedIOException.class, () -> RabbitMQNotificationReaders.readAll(properties, body));
+    }
+
+    @Test
+    @SuppressWarnings("NullAway")
+    public void readAllNullBody() {
+        assertThrows(IllegalArgumentException.class, () -> RabbitMQNotificationReaders.readAll(new BasicProperties(), null));
+    }
+}
@@ -0,0 +1,111 @@
+package com.reallifedeveloper.common.infrastructure.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import javax.sql.DataSource;
+
+import org.dbunit.dataset.datatype.IDataTypeFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import com.reallifedeveloper.common.application.eventstore.EventStore;
+import com.reallifedeveloper.common.application.eventstore.StoredEvent;
+import com.reallifedeveloper.common.infrastructure.GsonObjectSerializer;
+import com.reallifedeveloper.tools.test.database.dbunit.AbstractDbTest;
+
+@SpringJUnitConfig(locations = { "classpath:META-INF/spring-context-rld-common-test.xml" })
+public class JpaStoredEventArchiveIT extends AbstractDbTest {
+
+    @Autowired
+    private JpaStoredEventArchive archive;
+
+    @Autowired
+    private JpaStoredEventRepository repository;
+
+    @Autowired
+    private DataSource ds;
+
+    @Autowired
+    private IDataTypeFactory dataTypeFactory;
+
+    public JpaStoredEventArchiveIT() {
+        super(null, "/dbunit/rld-common.dtd", "/dbunit/stored_event.xml");
+    }
+
+    @BeforeEach
+    public void init() {
+        archive.deleteAll();
+    }
+
+    @Test
+    public void archiveAndRead() {
+        List<StoredEvent> storedEvents = repository.eventsAfter(0, 4, 100);
+        archive.archive(storedEvents);
+        assertEquals(Optional.of(4L), archive.lastArchivedStoredEventId(), "Wrong last archived event ID");
+        List<StoredEvent> archivedEvents = archive.eventsAfter(0, Long.MAX_VALUE, 100);
+        assertEquals(storedEvents.toString(), archivedEvents.toString(), "Wrong archived events");
+        assertEquals(List.of(2L, 3L), ids(archive.eventsAfter(1, 3, 100)), "Wrong archived events between 2 and 3");
+        assertEquals(List.of(1L, 2L), ids(archive.eventsAfter(0, Long.MAX_VALUE, 2)), "Wrong first page of archived events");
+        assertEquals(storedEvents.get(0).occurredOnEpochMillis(), archivedEvents.get(0).occurredOnEpochMillis(),
+                "Wrong archived event time in milliseconds");
+    }
+
+    @Test
+    public void archiveOutOfOrder() {
+        archive.archive(repository.eventsAfter(0, 4, 100));
+        List<StoredEvent> storedEvents = repository.eventsAfter(3, 5, 100);
+        Exception e = assertThrows(IllegalArgumentException.class, () -> archive.archive(storedEvents));
+        assertEquals("StoredEvent IDs must be in order and greater than 4: " + storedEvents.get(0), e.getMessage());
+        assertEquals(Optional.of(4L), archive.lastArchivedStoredEventId(), "No events should have been archived");
+    }
+
+    @Test
+    public void archiveEmpty() {
+        Exception e = assertThrows(IllegalArgumentException.class, () -> archive.archive(List.of()));
+        assertEquals("storedEvents must not be empty", e.getMessage());
+    }
+
+    @Test
+    public void lastArchivedStoredEventIdEmptyArchive() {
+        assertTrue(archive.lastArchivedStoredEventId().isEmpty(), "Last archived event ID in empty archive should be empty");
+    }
+
+    @Test
+    public void isShared() {
+        assertTrue(archive.isShared(), "JPA archive should be shared");
+    }
+
+    @Test
+    public void eventStoreWithRepositoryAndArchive() {
+        EventStore eventStore = new EventStore(new GsonObjectSerializer(), repository, 3, archive, Duration.ZERO);
+        ZonedDateTime startDateTime = ZonedDateTime.parse("2014-06-07T13:52:00Z");
+        assertEquals(5, eventStore.archiveEventsBefore(startDateTime.plusSeconds(5)), "Wrong number of events archived");
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), ids(archive.eventsAfter(0, Long.MAX_VALUE, 100)), "Wrong events in archive");
+        assertEquals(List.of(6L, 7L, 8L, 9L, 10L), ids(repository.eventsAfter(0, Long.MAX_VALUE, 100)), "Wrong events in repository");
+        assertEquals(List.of(4L, 5L, 6L), ids(eventStore.allEventsSince(3)), "Wrong events read across tiers");
+        assertEquals(10L, eventStore.lastStoredEventId(), "Wrong last stored event ID");
+    }
+
+    private static List<Long> ids(List<StoredEvent> storedEvents) {
+        return storedEvents.stream().map(StoredEvent::id).toList();
+    }
+
+    @Override
+    protected DataSource getDataSource() {
+        return ds;
+    }
+
+    @Override
+    protected Optional<IDataTypeFactory> getDataTypeFactory() {
+        return Optional.of(dataTypeFactory);
+    }
+}
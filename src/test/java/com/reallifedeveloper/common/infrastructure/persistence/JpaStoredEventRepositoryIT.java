@@ -1,6 +1,7 @@
 package com.reallifedeveloper.common.infrastructure.persistence;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -16,6 +17,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 
 import com.reallifedeveloper.common.application.eventstore.StoredEvent;
 import com.reallifedeveloper.common.application.eventstore.StoredEventRepository;
@@ -34,6 +39,9 @@ public class JpaStoredEventRepositoryIT extends AbstractDbTest {
     @Autowired
     private IDataTypeFactory dataTypeFactory;
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
     public JpaStoredEventRepositoryIT() {
         super(null, "/dbunit/rld-common.dtd", "/dbunit/stored_event.xml");
     }
@@ -102,6 +110,66 @@ public class JpaStoredEventRepositoryIT extends AbstractDbTest {
         assertEquals(0, storedEvents.size(), "There should be no stored events");
     }
 
+    @Test
+    public void eventsAfter() {
+        List<StoredEvent> firstPage = repository.eventsAfter(0, 100_000_000, 4);
+        assertEquals(List.of(1L, 2L, 3L, 4L), firstPage.stream().map(StoredEvent::id).toList(), "Wrong stored events on first page");
+        List<StoredEvent> secondPage = repository.eventsAfter(4, 6, 4);
+        assertEquals(List.of(5L, 6L), secondPage.stream().map(StoredEvent::id).toList(), "Wrong stored events on second page");
+    }
+
+    @Test
+    @Transactional
+    public void eventsAfterDoesNotManageEntities() {
+        List<StoredEvent> detachedEvents = repository.eventsAfter(0, Long.MAX_VALUE, 100);
+        List<StoredEvent> managedEvents = repository.allEventsBetween(1, 10);
+        assertEquals(10, detachedEvents.size(), "Wrong number of stored events found");
+        for (int i = 0; i < detachedEvents.size(); i++) {
+            assertFalse(entityManager.contains(detachedEvents.get(i)), "Stored event should not be managed: " + detachedEvents.get(i));
+            assertTrue(entityManager.contains(managedEvents.get(i)), "Stored event should be managed: " + managedEvents.get(i));
+            assertEquals(managedEvents.get(i).toString(), detachedEvents.get(i).toString(), "Wrong stored event");
+            assertEquals(managedEvents.get(i).occurredOnEpochMillis(), detachedEvents.get(i).occurredOnEpochMillis(),
+                    "Wrong stored event time in milliseconds");
+        }
+    }
+
+    @Test
+    public void eventsOfTypesBetween() {
+        long startEpochMillis = ZonedDateTime.parse("2014-06-07T13:52:00Z").toInstant().toEpochMilli();
+        List<String> eventTypes = List.of("foo2", "foo5", "foo8", "foo9");
+        long fromEpochMillis = startEpochMillis + 1000;
+        long toEpochMillis = startEpochMillis + 8000;
+
+        List<StoredEvent> firstPage = repository.eventsOfTypesBetween(eventTypes, fromEpochMillis, toEpochMillis, 0, 2);
+        assertEquals(List.of(2L, 5L), firstPage.stream().map(StoredEvent::id).toList(), "Wrong stored events on first page");
+        List<StoredEvent> secondPage = repository.eventsOfTypesBetween(eventTypes, fromEpochMillis, toEpochMillis, 5, 2);
+        assertEquals(List.of(8L), secondPage.stream().map(StoredEvent::id).toList(), "Wrong stored events on second page");
+    }
+
+    @Test
+    public void deleteEvents() {
+        assertEquals(3, repository.deleteEvents(List.of(1L, 2L, 4L, 42L)), "Wrong number of stored events deleted");
+        List<StoredEvent> storedEvents = repository.eventsAfter(0, Long.MAX_VALUE, 100);
+        assertEquals(List.of(3L, 5L, 6L, 7L, 8L, 9L, 10L), storedEvents.stream().map(StoredEvent::id).toList(),
+                "Wrong stored events left");
+    }
+
+    @Test
+    public void streamEventsAfter() {
+        ZonedDateTime now = TestUtil.utcNow();
+        for (int i = 1; i <= 5; i++) {
+            repository.save(new StoredEvent("foo", "bar" + i, now, 1, "stream", i));
+        }
+        List<StoredEvent> firstPage = repository.streamEventsAfter("stream", 0, 3);
+        assertEquals(List.of(1L, 2L, 3L), firstPage.stream().map(StoredEvent::streamSequence).toList(),
+                "Wrong stream events on first page");
+        assertEquals("stream", firstPage.get(0).streamKey(), "Wrong stream key");
+        List<StoredEvent> secondPage = repository.streamEventsAfter("stream", 3, 3);
+        assertEquals(List.of(4L, 5L), secondPage.stream().map(StoredEvent::streamSequence).toList(), "Wrong stream events on second page");
+        assertEquals(Optional.of(5L), repository.lastStreamSequence("stream"), "Wrong last stream sequence");
+        assertTrue(repository.lastStreamSequence("foo").isEmpty(), "Last stream sequence of empty stream should be empty");
+    }
+
     @Test
     public void saveEvent() throws Exception {
         StoredEvent storedEvent = new StoredEvent("foo", "bar", TestUtil.utcNow(), 1);
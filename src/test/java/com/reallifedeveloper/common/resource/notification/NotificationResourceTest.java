@@ -161,6 +161,13 @@ public class NotificationResourceTest {
         Assertions.assertEquals(Status.BAD_REQUEST.getStatusCode(), exception.getResponse().getStatus(), "Wrong HTTP status code:");
     }
 
+    @Test
+    public void getNotificationLogTooLargeNotificationLogString() {
+        WebApplicationException exception = Assertions.assertThrows(WebApplicationException.class,
+                () -> resource.getNotificationLog("1,100000000", uriInfo));
+        Assertions.assertEquals(Status.BAD_REQUEST.getStatusCode(), exception.getResponse().getStatus(), "Wrong HTTP status code:");
+    }
+
     @Test
     @SuppressWarnings("NullAway")
     public void getNotificationLogNullNotificationLogString() {